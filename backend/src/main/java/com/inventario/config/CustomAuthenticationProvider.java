@@ -11,7 +11,6 @@ import org.springframework.security.authentication.UsernamePasswordAuthenticatio
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.AuthenticationException;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Component;
 
 import java.util.List;
@@ -22,7 +21,7 @@ import java.util.List;
 public class CustomAuthenticationProvider implements AuthenticationProvider {
 
     private final UserRepository userRepository;
-    private final PasswordEncoder passwordEncoder;
+    private final PasswordVerifier passwordVerifier;
 
     @Override
     public Authentication authenticate(Authentication authentication) throws AuthenticationException {
@@ -42,7 +41,8 @@ public class CustomAuthenticationProvider implements AuthenticationProvider {
             throw new DisabledException("Cuenta deshabilitada");
         }
 
-        if (!passwordEncoder.matches(password, usuario.getPassword())) {
+        // BCrypt corre en el pool acotado de PasswordVerifier, no en el hilo del request
+        if (!passwordVerifier.matches(password, usuario.getPassword())) {
             log.warn("Authentication failed: invalid password for user '{}'", username);
             throw new BadCredentialsException("Credenciales inválidas");
         }
@@ -0,0 +1,27 @@
+package com.inventario.config;
+
+import org.hibernate.boot.model.FunctionContributions;
+import org.hibernate.boot.model.FunctionContributor;
+import org.hibernate.type.StandardBasicTypes;
+
+/**
+ * Registra la función HQL {@code match_against(columna, consulta)}, que se traduce a
+ * {@code MATCH(columna) AGAINST(consulta IN BOOLEAN MODE)} de MySQL.
+ * Permite usar el índice FULLTEXT desde JPQL y Criteria sin recurrir a consultas nativas.
+ * Se carga vía ServiceLoader (META-INF/services).
+ */
+public class FullTextFunctionContributor implements FunctionContributor {
+
+    public static final String MATCH_AGAINST = "match_against";
+
+    @Override
+    public void contributeFunctions(FunctionContributions functionContributions) {
+        functionContributions.getFunctionRegistry().registerPattern(
+                MATCH_AGAINST,
+                "match(?1) against(?2 in boolean mode)",
+                functionContributions.getTypeConfiguration()
+                        .getBasicTypeRegistry()
+                        .resolve(StandardBasicTypes.DOUBLE)
+        );
+    }
+}
@@ -1,5 +1,6 @@
 package com.inventario.config;
 
+import com.inventario.service.TokenRevocationService;
 import com.inventario.util.JwtUtil;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
@@ -28,6 +29,7 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     private static final String BEARER_PREFIX = "Bearer ";
 
     private final JwtUtil jwtUtil;
+    private final TokenRevocationService tokenRevocationService;
 
     @Override
     protected void doFilterInternal(
@@ -38,21 +40,22 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         try {
             String token = extractToken(request);
 
-            if (token != null && jwtUtil.validateToken(token)) {
-                String username = jwtUtil.extractUsername(token);
-                String role = jwtUtil.extractRole(token);
+            if (token != null && SecurityContextHolder.getContext().getAuthentication() == null) {
+                // Un único parseo (o un acierto de caché) por request; la revocación se consulta
+                // en un filtro de Bloom en memoria y solo ante una coincidencia probable en la base
+                jwtUtil.verifyToken(token)
+                        .filter(principal -> !tokenRevocationService.estaRevocado(principal.jti()))
+                        .ifPresent(principal -> {
+                            UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
+                                    principal,
+                                    null,
+                                    List.of(new SimpleGrantedAuthority("ROLE_" + principal.role()))
+                            );
+                            authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+                            SecurityContextHolder.getContext().setAuthentication(authentication);
 
-                if (SecurityContextHolder.getContext().getAuthentication() == null) {
-                    UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
-                            username,
-                            null,
-                            List.of(new SimpleGrantedAuthority("ROLE_" + role))
-                    );
-                    authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-                    SecurityContextHolder.getContext().setAuthentication(authentication);
-                    
-                    log.debug("Set Authentication for user '{}' with role '{}'", username, role);
-                }
+                            log.debug("Set Authentication for user '{}' with role '{}'", principal.username(), principal.role());
+                        });
             }
         } catch (Exception e) {
             log.error("Cannot set user authentication: {}", e.getMessage());
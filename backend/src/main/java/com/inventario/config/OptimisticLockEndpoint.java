@@ -0,0 +1,29 @@
+package com.inventario.config;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Registros con más conflictos de versión recientes: GET /actuator/optimisticlocks?limite=N.
+ */
+@Component
+@Endpoint(id = "optimisticlocks")
+@RequiredArgsConstructor
+public class OptimisticLockEndpoint {
+
+    private static final int LIMITE_POR_DEFECTO = 20;
+    private static final int LIMITE_MAXIMO = 1000;
+
+    private final OptimisticLockRetryAspect optimisticLockRetryAspect;
+
+    @ReadOperation
+    public List<OptimisticLockRetryAspect.RegistroDisputado> registrosMasDisputados(@Nullable Integer limite) {
+        int efectivo = limite == null ? LIMITE_POR_DEFECTO : Math.max(1, Math.min(limite, LIMITE_MAXIMO));
+        return optimisticLockRetryAspect.registrosMasDisputados(efectivo);
+    }
+}
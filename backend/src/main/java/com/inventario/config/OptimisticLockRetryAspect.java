@@ -0,0 +1,184 @@
+package com.inventario.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Política de reintentos para {@link RetryOnOptimisticLock}.
+ * <p>
+ * Se ejecuta por fuera del interceptor transaccional (máxima precedencia), así cada intento abre
+ * y confirma su propia transacción. Entre intentos espera un tiempo aleatorio entre 0 y
+ * {@code initialBackoff * 2^(intento-1)}, acotado por {@code maxBackoff} (full jitter).
+ * <p>
+ * Métricas:
+ * <ul>
+ *   <li>{@code optimistic.lock.conflicts} (operation, entity): conflictos de versión</li>
+ *   <li>{@code optimistic.lock.attempts} (operation): intentos necesarios por operación exitosa</li>
+ *   <li>{@code optimistic.lock.exhausted} (operation): operaciones que agotaron los reintentos</li>
+ * </ul>
+ * Los registros más disputados no van como tag (un medidor por ID crecería sin límite): se cuentan en
+ * una caché acotada, se consultan en /actuator/optimisticlocks ({@link OptimisticLockEndpoint}) y
+ * aparecen en el log al agotar los reintentos.
+ */
+@Slf4j
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class OptimisticLockRetryAspect {
+
+    private static final int MAX_REGISTROS_DISPUTADOS = 1000;
+
+    private final MeterRegistry meterRegistry;
+    private final int maxAttempts;
+    private final long initialBackoffMillis;
+    private final long maxBackoffMillis;
+    // "Entidad#id" -> conflictos recientes; la política de Caffeine conserva las claves más frecuentes
+    private final Cache<String, LongAdder> conflictosPorRegistro = Caffeine.newBuilder()
+            .maximumSize(MAX_REGISTROS_DISPUTADOS)
+            .expireAfterAccess(Duration.ofMinutes(10))
+            .build();
+
+    public OptimisticLockRetryAspect(
+            MeterRegistry meterRegistry,
+            @Value("${retry.optimistic-lock.max-attempts:4}") int maxAttempts,
+            @Value("${retry.optimistic-lock.initial-backoff-millis:20}") long initialBackoffMillis,
+            @Value("${retry.optimistic-lock.max-backoff-millis:500}") long maxBackoffMillis) {
+        if (maxAttempts < 1) {
+            throw new IllegalArgumentException("retry.optimistic-lock.max-attempts debe ser al menos 1");
+        }
+        this.meterRegistry = meterRegistry;
+        this.maxAttempts = maxAttempts;
+        this.initialBackoffMillis = initialBackoffMillis;
+        this.maxBackoffMillis = maxBackoffMillis;
+    }
+
+    @Around("@annotation(com.inventario.config.RetryOnOptimisticLock)")
+    public Object retry(ProceedingJoinPoint joinPoint) throws Throwable {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            // El contexto de persistencia de la transacción externa ya quedó inválido tras el conflicto
+            return joinPoint.proceed();
+        }
+
+        String operation = joinPoint.getSignature().getDeclaringType().getSimpleName()
+                + "." + joinPoint.getSignature().getName();
+
+        for (int attempt = 1; ; attempt++) {
+            try {
+                Object result = joinPoint.proceed();
+                attemptsSummary(operation).record(attempt);
+                return result;
+            } catch (OptimisticLockingFailureException e) {
+                conflictCounter(operation, e).increment();
+                String registro = registro(e);
+                long conflictos = registrarConflicto(registro);
+
+                if (attempt >= maxAttempts) {
+                    Counter.builder("optimistic.lock.exhausted")
+                            .tag("operation", operation)
+                            .register(meterRegistry)
+                            .increment();
+                    log.warn("Conflicto de versión persistente en {} tras {} intentos - Registro: {} ({} conflictos recientes)",
+                            operation, attempt, registro, conflictos);
+                    throw e;
+                }
+
+                long backoff = backoffMillis(attempt);
+                log.debug("Conflicto de versión en {} (intento {}/{}), reintentando en {}ms",
+                        operation, attempt, maxAttempts, backoff);
+                if (!sleep(backoff)) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    long backoffMillis(int attempt) {
+        long ceiling = Math.min(maxBackoffMillis, initialBackoffMillis << Math.min(attempt - 1, 20));
+        return ceiling > 0 ? ThreadLocalRandom.current().nextLong(ceiling + 1) : 0;
+    }
+
+    private DistributionSummary attemptsSummary(String operation) {
+        return DistributionSummary.builder("optimistic.lock.attempts")
+                .description("Intentos por operación exitosa")
+                .tag("operation", operation)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    /**
+     * Registros con más conflictos recientes, de mayor a menor.
+     */
+    public List<RegistroDisputado> registrosMasDisputados(int limite) {
+        return conflictosPorRegistro.asMap().entrySet().stream()
+                .map(entry -> new RegistroDisputado(entry.getKey(), entry.getValue().sum()))
+                .sorted(Comparator.comparingLong(RegistroDisputado::conflictos).reversed())
+                .limit(limite)
+                .toList();
+    }
+
+    /**
+     * @param registro {@code Entidad#id}
+     */
+    public record RegistroDisputado(String registro, long conflictos) {}
+
+    private Counter conflictCounter(String operation, OptimisticLockingFailureException e) {
+        String entity = e instanceof ObjectOptimisticLockingFailureException objectFailure
+                ? simpleName(objectFailure.getPersistentClassName())
+                : "desconocida";
+        return Counter.builder("optimistic.lock.conflicts")
+                .description("Conflictos de versión")
+                .tag("operation", operation)
+                .tag("entity", entity)
+                .register(meterRegistry);
+    }
+
+    private long registrarConflicto(String registro) {
+        LongAdder conflictos = conflictosPorRegistro.get(registro, clave -> new LongAdder());
+        conflictos.increment();
+        return conflictos.sum();
+    }
+
+    private String registro(OptimisticLockingFailureException e) {
+        if (e instanceof ObjectOptimisticLockingFailureException objectFailure) {
+            return simpleName(objectFailure.getPersistentClassName()) + "#" + objectFailure.getIdentifier();
+        }
+        return "desconocida#desconocido";
+    }
+
+    private String simpleName(String className) {
+        if (className == null) {
+            return "desconocida";
+        }
+        return className.substring(className.lastIndexOf('.') + 1);
+    }
+
+    private boolean sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+            return true;
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package com.inventario.config;
+
+import com.inventario.exception.ServiceOverloadedException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Verificación de contraseñas (BCrypt) en un pool propio y acotado.
+ * <p>
+ * Cada verificación cuesta cientos de milisegundos de CPU; ejecutadas en los hilos de Tomcat, una ráfaga
+ * de logins ocupa todos los hilos y deja sin atender al resto de la API. Acá corren en {@code threads}
+ * hilos con una cola de {@code queueCapacity}: con la cola llena, o si la espera supera {@code timeoutMillis},
+ * el login se rechaza de inmediato con {@link ServiceOverloadedException} (503 con Retry-After).
+ */
+@Slf4j
+@Component
+public class PasswordVerifier {
+
+    private static final long RETRY_AFTER_SECONDS = 1;
+
+    private final PasswordEncoder passwordEncoder;
+    private final ThreadPoolExecutor executor;
+    private final long timeoutMillis;
+    private final Timer verificacion;
+    private final Timer espera;
+    private final Counter rechazados;
+
+    public PasswordVerifier(
+            PasswordEncoder passwordEncoder,
+            MeterRegistry meterRegistry,
+            @Value("${auth.password-verification.threads:0}") int threads,
+            @Value("${auth.password-verification.queue-capacity:64}") int queueCapacity,
+            @Value("${auth.password-verification.timeout-millis:5000}") long timeoutMillis) {
+        this.passwordEncoder = passwordEncoder;
+        this.timeoutMillis = timeoutMillis;
+        // 0: la mitad de los procesadores, para dejar CPU libre al resto de los endpoints
+        int poolSize = threads > 0 ? threads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(
+                poolSize,
+                poolSize,
+                0L,
+                TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "password-verifier-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy()
+        );
+
+        this.verificacion = Timer.builder("auth.password.verificacion")
+                .description("Tiempo de CPU de cada verificación de contraseña")
+                .register(meterRegistry);
+        this.espera = Timer.builder("auth.password.espera")
+                .description("Tiempo en cola antes de verificar la contraseña")
+                .register(meterRegistry);
+        this.rechazados = Counter.builder("auth.password.rechazados")
+                .description("Logins rechazados por cola llena o espera excedida")
+                .register(meterRegistry);
+        Gauge.builder("auth.password.cola", executor, pool -> pool.getQueue().size())
+                .description("Verificaciones de contraseña en espera")
+                .register(meterRegistry);
+        Gauge.builder("auth.password.activas", executor, ThreadPoolExecutor::getActiveCount)
+                .description("Verificaciones de contraseña en curso")
+                .register(meterRegistry);
+
+        log.info("PasswordVerifier inicializado - threads: {}, queueCapacity: {}, timeout: {}ms",
+                poolSize, queueCapacity, timeoutMillis);
+    }
+
+    /**
+     * Equivalente a {@link PasswordEncoder#matches} ejecutado en el pool acotado.
+     *
+     * @throws ServiceOverloadedException si el pool está saturado
+     */
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        long encolado = System.nanoTime();
+        Future<Boolean> resultado;
+        try {
+            resultado = executor.submit(() -> {
+                espera.record(System.nanoTime() - encolado, TimeUnit.NANOSECONDS);
+                return verificacion.recordCallable(() -> passwordEncoder.matches(rawPassword, encodedPassword));
+            });
+        } catch (RejectedExecutionException e) {
+            rechazados.increment();
+            log.warn("Verificación de contraseña rechazada: cola llena ({})", executor.getQueue().size());
+            throw new ServiceOverloadedException("Demasiados inicios de sesión simultáneos, intente nuevamente", RETRY_AFTER_SECONDS);
+        }
+
+        try {
+            return resultado.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            // Si todavía está en cola no llega a ejecutarse; una verificación en curso termina igual
+            resultado.cancel(false);
+            executor.purge();
+            rechazados.increment();
+            log.warn("Verificación de contraseña cancelada: espera mayor a {}ms", timeoutMillis);
+            throw new ServiceOverloadedException("Demasiados inicios de sesión simultáneos, intente nuevamente", RETRY_AFTER_SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            resultado.cancel(false);
+            throw new IllegalStateException("Verificación de contraseña interrumpida", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException("Error verificando la contraseña", e.getCause());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,188 @@
+package com.inventario.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.inventario.exception.GlobalExceptionHandler;
+import com.inventario.util.TokenBucketRateLimiter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.lang.NonNull;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Límite de requests por cliente con token buckets en memoria ({@link TokenBucketRateLimiter}).
+ * <p>
+ * Corre después de {@link JwtAuthenticationFilter}, así el request ya tiene usuario y rol:
+ * <ul>
+ *   <li>{@code POST /login}: por IP, con {@code rate-limit.login} (fuerza bruta de contraseñas).</li>
+ *   <li>{@code /login/refresh} y {@code /login/logout}: por IP en otro bucket, con {@code rate-limit.sesion},
+ *       para que renovar o cerrar sesiones no consuma los intentos de login de la misma IP.</li>
+ *   <li>POST, PUT, PATCH y DELETE del resto: por usuario autenticado, con el límite de su rol en
+ *       {@code rate-limit.escritura}; sin autenticación, por IP con el límite por defecto.</li>
+ * </ul>
+ * Las respuestas incluyen {@code RateLimit-Limit}, {@code RateLimit-Remaining} y {@code RateLimit-Reset};
+ * al superar el límite se responde 429 con {@code Retry-After}.
+ */
+@Slf4j
+@Component
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private static final String LOGIN_PATH = "/login";
+    private static final Set<String> SESION_PATHS = Set.of("/login/refresh", "/login/logout");
+    private static final Set<String> METODOS_ESCRITURA = Set.of("POST", "PUT", "PATCH", "DELETE");
+
+    private final boolean enabled;
+    private final TokenBucketRateLimiter.Limite limiteLogin;
+    private final TokenBucketRateLimiter.Limite limiteSesion;
+    private final TokenBucketRateLimiter.Limite limiteEscritura;
+    private final Map<String, TokenBucketRateLimiter.Limite> limitesEscrituraPorRol = new HashMap<>();
+    private final TokenBucketRateLimiter limiter;
+    private final MeterRegistry meterRegistry;
+    private final ObjectMapper objectMapper;
+
+    public RateLimitFilter(
+            @Value("${rate-limit.enabled:true}") boolean enabled,
+            @Value("${rate-limit.login:10/60}") String login,
+            @Value("${rate-limit.sesion:30/60}") String sesion,
+            @Value("${rate-limit.escritura:60/60}") String escritura,
+            @Value("${rate-limit.maximum-keys:100000}") long maximumKeys,
+            ObjectProvider<MeterRegistry> meterRegistry,
+            ObjectMapper objectMapper) {
+        this.enabled = enabled;
+        this.limiteLogin = TokenBucketRateLimiter.Limite.parse(login);
+        this.limiteSesion = TokenBucketRateLimiter.Limite.parse(sesion);
+        // "<límite por defecto>,<ROL>=<límite>,...", por ejemplo "60/60,ADMIN=300/60"
+        TokenBucketRateLimiter.Limite porDefecto = null;
+        for (String parte : escritura.split(",")) {
+            String[] rolYLimite = parte.split("=");
+            if (rolYLimite.length == 2) {
+                limitesEscrituraPorRol.put(rolYLimite[0].trim(), TokenBucketRateLimiter.Limite.parse(rolYLimite[1]));
+            } else {
+                porDefecto = TokenBucketRateLimiter.Limite.parse(parte);
+            }
+        }
+        if (porDefecto == null) {
+            throw new IllegalArgumentException("rate-limit.escritura requiere un límite por defecto: " + escritura);
+        }
+        this.limiteEscritura = porDefecto;
+        this.meterRegistry = meterRegistry.getIfAvailable(() -> Metrics.globalRegistry);
+        this.objectMapper = objectMapper;
+
+        // Las claves sin uso se eliminan recién cuando su bucket ya se repuso por completo
+        Duration inactividad = limiteLogin.periodo();
+        inactividad = mayor(inactividad, limiteSesion.periodo());
+        inactividad = mayor(inactividad, limiteEscritura.periodo());
+        for (TokenBucketRateLimiter.Limite limite : limitesEscrituraPorRol.values()) {
+            inactividad = mayor(inactividad, limite.periodo());
+        }
+        this.limiter = new TokenBucketRateLimiter(maximumKeys, inactividad, this.meterRegistry, "rate-limit-buckets");
+
+        log.info("RateLimitFilter inicializado - enabled: {}, login: {}, sesion: {}, escritura: {}",
+                enabled, login, sesion, escritura);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(@NonNull HttpServletRequest request) {
+        return !enabled;
+    }
+
+    @Override
+    protected void doFilterInternal(
+            @NonNull HttpServletRequest request,
+            @NonNull HttpServletResponse response,
+            @NonNull FilterChain filterChain) throws ServletException, IOException {
+
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        String regla;
+        String clave;
+        TokenBucketRateLimiter.Limite limite;
+
+        if (path.equals(LOGIN_PATH) && "POST".equals(request.getMethod())) {
+            regla = "login";
+            clave = "login:" + request.getRemoteAddr();
+            limite = limiteLogin;
+        } else if (SESION_PATHS.contains(path)) {
+            regla = "sesion";
+            clave = "sesion:" + request.getRemoteAddr();
+            limite = limiteSesion;
+        } else if (METODOS_ESCRITURA.contains(request.getMethod())) {
+            regla = "escritura";
+            Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+            if (authentication != null && authentication.isAuthenticated()
+                    && !(authentication instanceof AnonymousAuthenticationToken)) {
+                clave = "escritura:usuario:" + authentication.getName();
+                limite = limitesEscrituraPorRol.getOrDefault(rol(authentication), limiteEscritura);
+            } else {
+                clave = "escritura:ip:" + request.getRemoteAddr();
+                limite = limiteEscritura;
+            }
+        } else {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        TokenBucketRateLimiter.Resultado resultado = limiter.intentar(clave, limite);
+        response.setHeader("RateLimit-Limit", String.valueOf(resultado.capacidad()));
+        response.setHeader("RateLimit-Remaining", String.valueOf(resultado.restantes()));
+        response.setHeader("RateLimit-Reset", String.valueOf(segundos(resultado.resetNanos())));
+
+        if (!resultado.permitido()) {
+            meterRegistry.counter("rate-limit.rechazados", "regla", regla).increment();
+            log.warn("Rate limit excedido - regla: {}, clave: {}", regla, clave);
+            rechazar(response, segundos(resultado.reintentarNanos()));
+            return;
+        }
+
+        filterChain.doFilter(request, response);
+    }
+
+    private void rechazar(HttpServletResponse response, long retryAfterSeconds) throws IOException {
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getWriter(), new GlobalExceptionHandler.ErrorResponse(
+                "Demasiadas solicitudes, intente nuevamente en " + retryAfterSeconds + " s",
+                HttpStatus.TOO_MANY_REQUESTS.value(),
+                LocalDateTime.now()
+        ));
+    }
+
+    private static String rol(Authentication authentication) {
+        return authentication.getAuthorities().stream()
+                .findFirst()
+                .map(GrantedAuthority::getAuthority)
+                .map(authority -> authority.replace("ROLE_", ""))
+                .orElse("USER");
+    }
+
+    // Segundos enteros hacia arriba: un Retry-After de 0 invitaría a reintentar antes de tiempo
+    private static long segundos(long nanos) {
+        return (nanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1);
+    }
+
+    private static Duration mayor(Duration a, Duration b) {
+        return a.compareTo(b) >= 0 ? a : b;
+    }
+}
@@ -0,0 +1,20 @@
+package com.inventario.config;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Reintenta el método ante conflictos de versión ({@code @Version}) con backoff exponencial y jitter.
+ * Cada intento pasa de nuevo por {@code @Transactional}, por lo que usa una transacción nueva;
+ * si el método se invoca dentro de una transacción ya abierta no se reintenta.
+ *
+ * @see OptimisticLockRetryAspect
+ */
+@Documented
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface RetryOnOptimisticLock {
+}
@@ -2,10 +2,13 @@ package com.inventario.controller;
 
 import com.inventario.dto.LoginRequest;
 import com.inventario.dto.LoginResponse;
+import com.inventario.dto.RefreshTokenRequest;
 import com.inventario.service.AuthService;
+import com.inventario.util.JwtPrincipal;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 
 @RestController
@@ -20,4 +23,18 @@ public class AuthController {
         LoginResponse response = authService.login(request);
         return ResponseEntity.ok(response);
     }
+
+    @PostMapping("/refresh")
+    public ResponseEntity<LoginResponse> refresh(@Valid @RequestBody RefreshTokenRequest request) {
+        LoginResponse response = authService.refresh(request.getRefreshToken());
+        return ResponseEntity.ok(response);
+    }
+
+    @PostMapping("/logout")
+    public ResponseEntity<Void> logout(
+            @Valid @RequestBody RefreshTokenRequest request,
+            @AuthenticationPrincipal JwtPrincipal principal) {
+        authService.logout(request.getRefreshToken(), principal);
+        return ResponseEntity.noContent().build();
+    }
 }
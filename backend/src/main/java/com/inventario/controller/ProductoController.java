@@ -1,16 +1,23 @@
 package com.inventario.controller;
 
+import com.inventario.dto.CursorPageResponse;
 import com.inventario.dto.PageResponse;
 import com.inventario.dto.ProductoRequest;
 import com.inventario.dto.ProductoResponse;
+import com.inventario.dto.SliceResponse;
+import com.inventario.dto.StockHistoricoResponse;
 import com.inventario.service.ProductoService;
+import com.inventario.service.StockSnapshotService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDateTime;
+
 @RestController
 @RequestMapping("/api/productos")
 @RequiredArgsConstructor
@@ -18,6 +25,7 @@ import org.springframework.web.bind.annotation.*;
 public class ProductoController {
     
     private final ProductoService productoService;
+    private final StockSnapshotService stockSnapshotService;
     
     @GetMapping
     @PreAuthorize("isAuthenticated()")
@@ -39,6 +47,47 @@ public class ProductoController {
         return ResponseEntity.ok(response);
     }
     
+    @GetMapping("/slice")
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<SliceResponse<ProductoResponse>> getProductosSlice(
+            @RequestParam(required = false) String search,
+            @RequestParam(required = false) String categoria,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(defaultValue = "fechaRegistro") String sortBy,
+            @RequestParam(defaultValue = "desc") String sortDir,
+            @RequestParam(defaultValue = "false") boolean includeTotal
+    ) {
+        log.info("GET /api/productos/slice - search: {}, categoria: {}, page: {}, size: {}", 
+                 search, categoria, page, size);
+        
+        SliceResponse<ProductoResponse> response = productoService.getProductosSlice(
+            search, categoria, page, size, sortBy, sortDir, includeTotal
+        );
+        
+        return ResponseEntity.ok(response);
+    }
+    
+    @GetMapping("/cursor")
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<CursorPageResponse<ProductoResponse>> getProductosByCursor(
+            @RequestParam(required = false) String search,
+            @RequestParam(required = false) String categoria,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(defaultValue = "fechaRegistro") String sortBy,
+            @RequestParam(defaultValue = "desc") String sortDir
+    ) {
+        log.info("GET /api/productos/cursor - search: {}, categoria: {}, size: {}", 
+                 search, categoria, size);
+        
+        CursorPageResponse<ProductoResponse> response = productoService.getProductosByCursor(
+            search, categoria, cursor, size, sortBy, sortDir
+        );
+        
+        return ResponseEntity.ok(response);
+    }
+    
     @GetMapping("/{id}")
     @PreAuthorize("isAuthenticated()")
     public ResponseEntity<ProductoResponse> getProductoById(@PathVariable Long id) {
@@ -47,6 +96,15 @@ public class ProductoController {
         return ResponseEntity.ok(response);
     }
     
+    @GetMapping("/{id}/stock")
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<StockHistoricoResponse> getStockEn(
+            @PathVariable Long id,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime fecha) {
+        log.info("GET /api/productos/{}/stock - fecha: {}", id, fecha);
+        return ResponseEntity.ok(stockSnapshotService.getStockEn(id, fecha));
+    }
+    
     @PostMapping
     @PreAuthorize("isAuthenticated()")
     public ResponseEntity<ProductoResponse> createProducto(@Valid @RequestBody ProductoRequest request) {
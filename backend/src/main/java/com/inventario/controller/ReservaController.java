@@ -0,0 +1,67 @@
+package com.inventario.controller;
+
+import com.inventario.dto.ReservaRequest;
+import com.inventario.dto.ReservaResponse;
+import com.inventario.service.ReservaStockService;
+import com.inventario.util.JwtPrincipal;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+import java.net.URI;
+
+/**
+ * Reservas de stock: retienen unidades durante el checkout hasta confirmarse (movimiento SALIDA),
+ * liberarse o vencer.
+ */
+@RestController
+@RequestMapping("/reservas")
+@RequiredArgsConstructor
+@Slf4j
+public class ReservaController {
+    
+    private final ReservaStockService reservaStockService;
+    
+    @PostMapping
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ReservaResponse> reservar(@Valid @RequestBody ReservaRequest request) {
+        if (log.isDebugEnabled()) {
+            log.debug("Recibida solicitud de reserva para producto ID: {}", request.getProductoId());
+        }
+        
+        ReservaResponse response = reservaStockService.reservar(request);
+        
+        URI location = ServletUriComponentsBuilder
+                .fromCurrentRequest()
+                .path("/{id}")
+                .buildAndExpand(response.getId())
+                .toUri();
+        
+        return ResponseEntity.created(location).body(response);
+    }
+    
+    @GetMapping("/{id}")
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<ReservaResponse> getReserva(@PathVariable Long id) {
+        return ResponseEntity.ok(reservaStockService.getReserva(id));
+    }
+    
+    @PostMapping("/{id}/confirmar")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ReservaResponse> confirmar(
+            @PathVariable Long id,
+            @AuthenticationPrincipal JwtPrincipal principal) {
+        return ResponseEntity.ok(reservaStockService.confirmar(id, principal != null ? principal.userId() : null));
+    }
+    
+    @PostMapping("/{id}/liberar")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ReservaResponse> liberar(@PathVariable Long id) {
+        return ResponseEntity.ok(reservaStockService.liberar(id));
+    }
+}
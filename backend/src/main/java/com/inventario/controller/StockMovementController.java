@@ -1,18 +1,33 @@
 package com.inventario.controller;
 
+import com.inventario.dto.CursorPageResponse;
+import com.inventario.dto.MovimientoStockBatchRequest;
+import com.inventario.dto.MovimientoStockBatchResponse;
 import com.inventario.dto.MovimientoStockRequest;
 import com.inventario.dto.MovimientoStockResponse;
+import com.inventario.dto.ResumenDiarioResponse;
+import com.inventario.service.MovimientoIdempotencia;
+import com.inventario.service.MovimientoJournal;
+import com.inventario.service.MovimientoResumenService;
+import com.inventario.service.MovimientoStockCoalescer;
 import com.inventario.service.MovimientoStockService;
+import com.inventario.util.JwtPrincipal;
 // Removed OpenAPI/Swagger annotations to avoid compile errors when dependency is not present
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
 import java.net.URI;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
 
 @RestController
 @RequestMapping("/stock-movements")
@@ -21,25 +36,139 @@ import java.net.URI;
 public class StockMovementController {
     
     private final MovimientoStockService movimientoStockService;
+    private final MovimientoResumenService movimientoResumenService;
+    private final MovimientoIdempotencia movimientoIdempotencia;
+    
+    // Solo existe con movimientos.coalescing.enabled=true
+    private final ObjectProvider<MovimientoStockCoalescer> movimientoStockCoalescer;
+    
+    // Solo existe con movimientos.journal.enabled=true
+    private final ObjectProvider<MovimientoJournal> movimientoJournal;
     
     @PostMapping
     @PreAuthorize("hasRole('ADMIN')")
     public ResponseEntity<MovimientoStockResponse> registrarMovimiento(
-            @Valid @RequestBody MovimientoStockRequest request) {
+            @Valid @RequestBody MovimientoStockRequest request,
+            @RequestHeader(value = MovimientoIdempotencia.HEADER, required = false) String idempotencyKey,
+            @AuthenticationPrincipal JwtPrincipal principal) {
         
         if (log.isDebugEnabled()) {
             log.debug("Recibida solicitud de movimiento de stock para producto ID: {}", request.getProductoId());
         }
         
-        MovimientoStockResponse response = movimientoStockService.registrarMovimiento(request);
+        request.setUsuarioId(usuarioId(principal));
+        MovimientoStockResponse response;
+        boolean repetido = false;
+        if (idempotencyKey != null) {
+            MovimientoIdempotencia.Resultado resultado = movimientoIdempotencia.registrar(
+                    idempotencyKey, request, () -> registrar(request));
+            response = resultado.movimiento();
+            repetido = resultado.repetido();
+        } else {
+            response = registrar(request);
+        }
+        
+        ResponseEntity.BodyBuilder builder;
+        if (response.getId() == null) {
+            // Confirmado en el journal: el ID se asigna al aplicarlo a la base
+            builder = ResponseEntity.accepted();
+        } else {
+            // Crear Location header
+            URI location = ServletUriComponentsBuilder
+                    .fromCurrentRequest()
+                    .path("/{id}")
+                    .buildAndExpand(response.getId())
+                    .toUri();
+            builder = ResponseEntity.created(location);
+        }
+        if (repetido) {
+            builder.header("Idempotent-Replayed", "true");
+        }
+        return builder.body(response);
+    }
+    
+    private MovimientoStockResponse registrar(MovimientoStockRequest request) {
+        MovimientoJournal journal = movimientoJournal.getIfAvailable();
+        if (journal != null) {
+            return journal.registrar(request);
+        }
+        MovimientoStockCoalescer coalescer = movimientoStockCoalescer.getIfAvailable();
+        return coalescer != null
+                ? coalescer.registrar(request)
+                : movimientoStockService.registrarMovimiento(request);
+    }
+    
+    @PostMapping("/batch")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<MovimientoStockBatchResponse> registrarMovimientosBatch(
+            @Valid @RequestBody MovimientoStockBatchRequest request,
+            @AuthenticationPrincipal JwtPrincipal principal) {
+        
+        if (log.isDebugEnabled()) {
+            log.debug("Recibido lote de {} movimientos de stock", request.getMovimientos().size());
+        }
+        
+        Long usuarioId = usuarioId(principal);
+        request.getMovimientos().forEach(movimiento -> movimiento.setUsuarioId(usuarioId));
+        
+        return ResponseEntity.ok(movimientoStockService.registrarMovimientosBatch(request));
+    }
+    
+    /**
+     * Historial paginado por cursor; {@code from} inclusive y {@code to} exclusive (ISO-8601).
+     */
+    @GetMapping
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<CursorPageResponse<MovimientoStockResponse>> getHistorial(
+            @RequestParam Long productoId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size) {
         
-        // Crear Location header
-        URI location = ServletUriComponentsBuilder
-                .fromCurrentRequest()
-                .path("/{id}")
-                .buildAndExpand(response.getId())
-                .toUri();
+        return ResponseEntity.ok(movimientoStockService.getHistorial(productoId, from, to, cursor, size));
+    }
+    
+    /**
+     * Movimientos registrados por un usuario en todos los productos, paginados por cursor como el historial.
+     */
+    @GetMapping("/usuarios/{usuarioId}")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<CursorPageResponse<MovimientoStockResponse>> getActividadUsuario(
+            @PathVariable Long usuarioId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size) {
         
-        return ResponseEntity.created(location).body(response);
+        return ResponseEntity.ok(movimientoStockService.getActividadUsuario(usuarioId, from, to, cursor, size));
+    }
+    
+    /**
+     * Totales diarios de un producto; sin fechas devuelve los últimos 30 días.
+     */
+    @GetMapping("/resumen")
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<List<ResumenDiarioResponse>> getResumenProducto(
+            @RequestParam Long productoId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        
+        return ResponseEntity.ok(movimientoResumenService.getResumenProducto(productoId, from, to));
+    }
+    
+    @GetMapping("/resumen/categorias")
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<List<ResumenDiarioResponse>> getResumenCategorias(
+            @RequestParam(required = false) String categoria,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        
+        return ResponseEntity.ok(movimientoResumenService.getResumenCategorias(categoria, from, to));
+    }
+    
+    // El ID viaja en el JWT: no hace falta buscar el usuario por username en cada movimiento
+    private static Long usuarioId(JwtPrincipal principal) {
+        return principal != null ? principal.userId() : null;
     }
 }
@@ -0,0 +1,22 @@
+package com.inventario.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Página de resultados para la paginación por cursor (keyset).
+ * No incluye totales: el cliente avanza enviando {@code nextCursor} mientras {@code hasNext} sea true.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CursorPageResponse<T> {
+
+    private List<T> content;
+    private int pageSize;
+    private String nextCursor;
+    private boolean hasNext;
+}
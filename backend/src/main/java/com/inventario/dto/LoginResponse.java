@@ -9,4 +9,6 @@ public class LoginResponse {
     private String token;
     private String username;
     private String role;
+    // Opaco y de un solo uso: POST /login/refresh lo canjea por un token nuevo y otro refresh token
+    private String refreshToken;
 }
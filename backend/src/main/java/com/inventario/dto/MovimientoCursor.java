@@ -0,0 +1,32 @@
+package com.inventario.dto;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+/**
+ * Posición de lectura del historial de movimientos: fecha e ID del último movimiento devuelto.
+ * Se expone al cliente como un token opaco Base64 URL-safe.
+ */
+public record MovimientoCursor(LocalDateTime fecha, Long id) {
+
+    private static final String SEPARATOR = "|";
+
+    public String encode() {
+        String raw = fecha + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static MovimientoCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\" + SEPARATOR, 2);
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Cursor inválido");
+            }
+            return new MovimientoCursor(LocalDateTime.parse(parts[0]), Long.valueOf(parts[1]));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Cursor inválido", e);
+        }
+    }
+}
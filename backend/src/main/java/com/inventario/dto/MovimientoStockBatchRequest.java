@@ -0,0 +1,22 @@
+package com.inventario.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class MovimientoStockBatchRequest {
+    
+    @NotEmpty(message = "Debe incluir al menos un movimiento")
+    @Size(max = 500, message = "El lote no puede exceder 500 movimientos")
+    private List<@Valid MovimientoStockRequest> movimientos;
+    
+    /**
+     * true: si un movimiento falla se revierte el lote completo.
+     * false: se aplican los movimientos válidos y se informan los rechazados.
+     */
+    private boolean todoONada = true;
+}
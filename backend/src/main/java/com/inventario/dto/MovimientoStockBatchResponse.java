@@ -0,0 +1,42 @@
+package com.inventario.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class MovimientoStockBatchResponse {
+    
+    private boolean todoONada;
+    private int exitosos;
+    private int fallidos;
+    private List<Resultado> resultados;
+    
+    /**
+     * Resultado de cada movimiento, en el mismo orden del request.
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Resultado {
+        
+        private int indice;
+        private boolean exitoso;
+        private MovimientoStockResponse movimiento;
+        private String error;
+        
+        public static Resultado exitoso(int indice, MovimientoStockResponse movimiento) {
+            return new Resultado(indice, true, movimiento, null);
+        }
+        
+        public static Resultado fallido(int indice, String error) {
+            return new Resultado(indice, false, null, error);
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.inventario.dto;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.inventario.model.MovimientoStock;
 import jakarta.validation.constraints.Max;
 import jakarta.validation.constraints.Min;
@@ -21,4 +22,12 @@ public class MovimientoStockRequest {
     @Min(value = 1, message = "La cantidad debe ser mayor a 0")
     @Max(value = 1000000, message = "La cantidad no puede exceder 1,000,000")
     private Integer cantidad;
+    
+    // Se toma del header Idempotency-Key, nunca del cuerpo
+    @JsonIgnore
+    private String idempotencyKey;
+    
+    // Se toma del JWT del usuario autenticado, nunca del cuerpo
+    @JsonIgnore
+    private Long usuarioId;
 }
@@ -0,0 +1,73 @@
+package com.inventario.dto;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Posición de lectura para la paginación por cursor de productos.
+ * Guarda el campo y la dirección de orden, el último valor de orden leído y el ID que desempata.
+ * Se expone al cliente como un token opaco Base64 URL-safe.
+ */
+public record ProductoCursor(String sortBy, String sortDir, Object lastValue, Long lastId) {
+
+    private static final String SEPARATOR = "|";
+    private static final String VALUE_PREFIX = "=";
+
+    private static final Map<String, Function<ProductoResponse, Object>> EXTRACTORS = Map.of(
+        "id", ProductoResponse::getId,
+        "nombre", ProductoResponse::getNombre,
+        "categoria", ProductoResponse::getCategoria,
+        "proveedor", ProductoResponse::getProveedor,
+        "precio", ProductoResponse::getPrecio,
+        "stock", ProductoResponse::getStock,
+        "fechaRegistro", ProductoResponse::getFechaRegistro
+    );
+
+    private static final Map<String, Function<String, Object>> PARSERS = Map.of(
+        "id", Long::valueOf,
+        "nombre", value -> value,
+        "categoria", value -> value,
+        "proveedor", value -> value,
+        "precio", BigDecimal::new,
+        "stock", Integer::valueOf,
+        "fechaRegistro", LocalDateTime::parse
+    );
+
+    public static ProductoCursor after(ProductoResponse producto, String sortBy, String sortDir) {
+        Function<ProductoResponse, Object> extractor = EXTRACTORS.get(sortBy);
+        if (extractor == null) {
+            throw new IllegalArgumentException("Campo de orden no soportado para cursor: " + sortBy);
+        }
+        return new ProductoCursor(sortBy, sortDir, extractor.apply(producto), producto.getId());
+    }
+
+    public String encode() {
+        String raw = sortBy + SEPARATOR + sortDir + SEPARATOR + lastId + SEPARATOR
+                + (lastValue != null ? VALUE_PREFIX + lastValue : "");
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static ProductoCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\" + SEPARATOR, 4);
+            if (parts.length != 4 || !PARSERS.containsKey(parts[0])) {
+                throw new IllegalArgumentException("Cursor inválido");
+            }
+
+            String sortBy = parts[0];
+            Long lastId = Long.valueOf(parts[2]);
+            Object lastValue = parts[3].startsWith(VALUE_PREFIX)
+                    ? PARSERS.get(sortBy).apply(parts[3].substring(VALUE_PREFIX.length()))
+                    : null;
+
+            return new ProductoCursor(sortBy, parts[1], lastValue, lastId);
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Cursor inválido", e);
+        }
+    }
+}
@@ -20,8 +20,19 @@ public class ProductoResponse {
     private String proveedor;
     private BigDecimal precio;
     private Integer stock;
+    private Integer stockReservado;
     private LocalDateTime fechaRegistro;
     
+    /**
+     * Stock que todavía se puede reservar o retirar.
+     */
+    public Integer getStockDisponible() {
+        if (stock == null) {
+            return null;
+        }
+        return stockReservado != null ? stock - stockReservado : stock;
+    }
+    
     public static ProductoResponse fromEntity(Producto producto) {
         Objects.requireNonNull(producto, "Producto no puede ser null");
         return new ProductoResponse(
@@ -31,6 +42,7 @@ public class ProductoResponse {
             producto.getProveedor(),
             producto.getPrecio(),
             producto.getStock(),
+            producto.getStockReservado(),
             producto.getFechaRegistro()
         );
     }
@@ -0,0 +1,26 @@
+package com.inventario.dto;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import lombok.Data;
+
+@Data
+public class ReservaRequest {
+    
+    @NotNull(message = "El ID del producto es obligatorio")
+    @Positive(message = "El ID del producto debe ser positivo")
+    private Long productoId;
+    
+    @NotNull(message = "La cantidad es obligatoria")
+    @Min(value = 1, message = "La cantidad debe ser mayor a 0")
+    @Max(value = 1000000, message = "La cantidad no puede exceder 1,000,000")
+    private Integer cantidad;
+    
+    /**
+     * Vigencia de la reserva; si se omite se usa reservas.ttl-segundos.
+     */
+    @Positive(message = "El TTL debe ser positivo")
+    private Integer ttlSegundos;
+}
@@ -0,0 +1,42 @@
+package com.inventario.dto;
+
+import com.inventario.model.ReservaStock;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReservaResponse {
+    
+    private Long id;
+    private Long productoId;
+    private Integer cantidad;
+    private ReservaStock.EstadoReserva estado;
+    private LocalDateTime expiraEn;
+    private LocalDateTime fechaCreacion;
+    private LocalDateTime fechaCierre;
+    
+    /**
+     * Movimiento SALIDA generado al confirmar; null en cualquier otro estado.
+     */
+    private Long movimientoId;
+    
+    public static ReservaResponse fromEntity(ReservaStock reserva) {
+        return ReservaResponse.builder()
+                .id(reserva.getId())
+                .productoId(reserva.getProductoId())
+                .cantidad(reserva.getCantidad())
+                .estado(reserva.getEstado())
+                .expiraEn(reserva.getExpiraEn())
+                .fechaCreacion(reserva.getFechaCreacion())
+                .fechaCierre(reserva.getFechaCierre())
+                .movimientoId(reserva.getMovimientoId())
+                .build();
+    }
+}
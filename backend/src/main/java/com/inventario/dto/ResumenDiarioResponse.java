@@ -0,0 +1,27 @@
+package com.inventario.dto;
+
+import com.inventario.model.MovimientoStock;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+/**
+ * Totales diarios por tipo de movimiento; {@code categoria} solo se informa en el resumen por categoría.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ResumenDiarioResponse {
+    
+    private String categoria;
+    private LocalDate dia;
+    private MovimientoStock.TipoMovimiento tipo;
+    private Long totalCantidad;
+    private Long movimientos;
+    
+    public ResumenDiarioResponse(LocalDate dia, MovimientoStock.TipoMovimiento tipo, Long totalCantidad, Long movimientos) {
+        this(null, dia, tipo, totalCantidad, movimientos);
+    }
+}
@@ -0,0 +1,36 @@
+package com.inventario.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.domain.Slice;
+
+import java.util.List;
+
+/**
+ * Página sin conteo exacto: solo indica si hay más resultados.
+ * {@code approximateTotal} es opcional y puede estar desactualizado (null si aún no se calculó).
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SliceResponse<T> {
+    
+    private List<T> content;
+    private int pageNumber;
+    private int pageSize;
+    private boolean first;
+    private boolean hasNext;
+    private Long approximateTotal;
+    
+    public static <T> SliceResponse<T> fromSlice(Slice<T> slice, Long approximateTotal) {
+        return new SliceResponse<>(
+            slice.getContent(),
+            slice.getNumber(),
+            slice.getSize(),
+            slice.isFirst(),
+            slice.hasNext(),
+            approximateTotal
+        );
+    }
+}
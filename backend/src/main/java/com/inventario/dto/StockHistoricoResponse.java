@@ -0,0 +1,22 @@
+package com.inventario.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockHistoricoResponse {
+    
+    private Long productoId;
+    private LocalDateTime fecha;
+    private Integer stock;
+    
+    /**
+     * Snapshot usado como punto de partida; null si se calculó hacia atrás desde el stock actual.
+     */
+    private LocalDateTime snapshotFecha;
+}
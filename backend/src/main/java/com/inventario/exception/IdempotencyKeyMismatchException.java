@@ -0,0 +1,12 @@
+package com.inventario.exception;
+
+/**
+ * Excepción lanzada cuando una {@code Idempotency-Key} ya usada llega con un cuerpo distinto;
+ * se responde 422 en lugar de devolver el movimiento original
+ */
+public class IdempotencyKeyMismatchException extends RuntimeException {
+    
+    public IdempotencyKeyMismatchException(String message) {
+        super(message);
+    }
+}
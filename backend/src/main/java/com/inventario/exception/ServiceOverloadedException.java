@@ -0,0 +1,18 @@
+package com.inventario.exception;
+
+import lombok.Getter;
+
+/**
+ * Excepción lanzada cuando un recurso limitado (por ejemplo, la verificación de contraseñas) no admite
+ * más trabajo; se responde 503 con {@code Retry-After}
+ */
+@Getter
+public class ServiceOverloadedException extends RuntimeException {
+    
+    private final long retryAfterSeconds;
+    
+    public ServiceOverloadedException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+}
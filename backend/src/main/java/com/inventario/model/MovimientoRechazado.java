@@ -0,0 +1,47 @@
+package com.inventario.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+
+/**
+ * Movimiento confirmado por el journal (202) que la base rechazó al aplicarlo. Se conserva para
+ * revisarlo o volver a registrarlo; la clave de idempotencia evita duplicarlo si el lote se reaplica.
+ */
+@Entity
+@Table(name = "movimientos_rechazados")
+@Getter
+@Setter
+@NoArgsConstructor
+public class MovimientoRechazado {
+    
+    @Id
+    @Column(name = "idempotency_key", length = 120)
+    private String idempotencyKey;
+    
+    @Column(name = "producto_id", nullable = false)
+    private Long productoId;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 10)
+    private MovimientoStock.TipoMovimiento tipo;
+    
+    @Column(nullable = false)
+    private Integer cantidad;
+    
+    @Column(name = "usuario_id")
+    private Long usuarioId;
+    
+    // Momento en que el journal confirmó el movimiento
+    @Column(nullable = false)
+    private LocalDateTime fecha;
+    
+    @Column(nullable = false, length = 500)
+    private String motivo;
+    
+    @CreationTimestamp
+    @Column(name = "fecha_rechazo", nullable = false, updatable = false)
+    private LocalDateTime fechaRechazo;
+}
@@ -0,0 +1,48 @@
+package com.inventario.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+/**
+ * Totales diarios de movimientos por producto y tipo, mantenidos por MovimientoResumenService
+ * en la misma transacción que registra cada movimiento.
+ */
+@Entity
+@Table(name = "movimientos_resumen_diario")
+@IdClass(MovimientoResumenDiario.Clave.class)
+@Getter
+@Setter
+@NoArgsConstructor
+public class MovimientoResumenDiario {
+    
+    @Id
+    @Column(name = "producto_id")
+    private Long productoId;
+    
+    @Id
+    private LocalDate dia;
+    
+    @Id
+    @Enumerated(EnumType.STRING)
+    @Column(length = 10)
+    private MovimientoStock.TipoMovimiento tipo;
+    
+    @Column(name = "total_cantidad", nullable = false)
+    private Long totalCantidad;
+    
+    @Column(nullable = false)
+    private Long movimientos;
+    
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Clave implements Serializable {
+        
+        private Long productoId;
+        private LocalDate dia;
+        private MovimientoStock.TipoMovimiento tipo;
+    }
+}
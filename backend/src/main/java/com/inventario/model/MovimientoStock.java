@@ -14,7 +14,9 @@ import java.time.LocalDateTime;
 public class MovimientoStock {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    // IDs por bloques, como en Producto: tabla movimientos_stock_seq en MySQL
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "movimientos_stock_seq")
+    @SequenceGenerator(name = "movimientos_stock_seq", sequenceName = "movimientos_stock_seq", allocationSize = 50)
     private Long id;
     
     @Column(name = "producto_id", nullable = false)
@@ -33,6 +35,10 @@ public class MovimientoStock {
     
     @Column(name = "usuario_id")
     private Long usuarioId;
+    
+    // "<usuarioId>:<Idempotency-Key>" del POST que lo registró; los reintentos devuelven este movimiento
+    @Column(name = "idempotency_key", length = 120, unique = true, updatable = false)
+    private String idempotencyKey;
 
     public enum TipoMovimiento {
         ENTRADA, SALIDA
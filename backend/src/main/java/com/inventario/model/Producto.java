@@ -16,7 +16,10 @@ import java.time.LocalDateTime;
 public class Producto {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    // IDs por bloques (optimizador pooled) para que los INSERT de saveAll se agrupen en batches JDBC;
+    // en MySQL la secuencia se emula con la tabla productos_seq
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "productos_seq")
+    @SequenceGenerator(name = "productos_seq", sequenceName = "productos_seq", allocationSize = 50)
     private Long id;
     
     @NotBlank(message = "El nombre del producto es obligatorio")
@@ -44,6 +47,11 @@ public class Producto {
     @Column(nullable = false)
     private Integer stock = 0;
     
+    // Unidades retenidas por reservas activas; disponible = stock - stockReservado
+    @Min(value = 0, message = "El stock reservado no puede ser negativo")
+    @Column(name = "stock_reservado", nullable = false)
+    private Integer stockReservado = 0;
+    
     @Version
     @Column(name = "version")
     private Integer version;
@@ -0,0 +1,49 @@
+package com.inventario.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+
+/**
+ * Refresh token opaco de un usuario. Solo se persiste el SHA-256 del token; el valor en claro
+ * se entrega una única vez al cliente. Cada uso en /login/refresh lo revoca y emite uno nuevo.
+ */
+@Entity
+@Table(name = "refresh_tokens")
+@Getter
+@Setter
+@NoArgsConstructor
+public class RefreshToken {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(name = "usuario_id", nullable = false, updatable = false)
+    private Long usuarioId;
+    
+    // SHA-256 en hexadecimal del token entregado al cliente
+    @Column(name = "token_hash", nullable = false, unique = true, length = 64, updatable = false)
+    private String tokenHash;
+    
+    @Column(name = "expira_en", nullable = false)
+    private LocalDateTime expiraEn;
+    
+    @CreationTimestamp
+    @Column(name = "fecha_creacion", nullable = false, updatable = false)
+    private LocalDateTime fechaCreacion;
+    
+    @Column(name = "revocado_en")
+    private LocalDateTime revocadoEn;
+    
+    // Solo presentar un token ROTADO indica una copia reutilizada; uno cerrado por logout se rechaza sin más
+    @Enumerated(EnumType.STRING)
+    @Column(name = "motivo_revocacion", length = 13)
+    private MotivoRevocacion motivoRevocacion;
+    
+    public enum MotivoRevocacion {
+        ROTADO, LOGOUT, REUTILIZACION
+    }
+}
@@ -0,0 +1,50 @@
+package com.inventario.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+
+/**
+ * Retención temporal de stock de un producto. Mientras está ACTIVA descuenta del stock disponible
+ * ({@code Producto.stockReservado}); al confirmarse se convierte en un movimiento SALIDA.
+ */
+@Entity
+@Table(name = "reservas_stock")
+@Getter
+@Setter
+@NoArgsConstructor
+public class ReservaStock {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(name = "producto_id", nullable = false)
+    private Long productoId;
+    
+    @Column(nullable = false)
+    private Integer cantidad;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 12)
+    private EstadoReserva estado = EstadoReserva.ACTIVA;
+    
+    @Column(name = "expira_en", nullable = false)
+    private LocalDateTime expiraEn;
+    
+    @CreationTimestamp
+    @Column(name = "fecha_creacion", nullable = false, updatable = false)
+    private LocalDateTime fechaCreacion;
+    
+    @Column(name = "fecha_cierre")
+    private LocalDateTime fechaCierre;
+    
+    @Column(name = "movimiento_id")
+    private Long movimientoId;
+    
+    public enum EstadoReserva {
+        ACTIVA, CONFIRMADA, LIBERADA, EXPIRADA
+    }
+}
@@ -0,0 +1,30 @@
+package com.inventario.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Stock de un producto al cierre de un intervalo ({@code fecha}), escrito por StockSnapshotService.
+ */
+@Entity
+@Table(name = "stock_snapshots")
+@Getter
+@Setter
+@NoArgsConstructor
+public class StockSnapshot {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(name = "producto_id", nullable = false)
+    private Long productoId;
+    
+    @Column(nullable = false)
+    private LocalDateTime fecha;
+    
+    @Column(nullable = false)
+    private Integer stock;
+}
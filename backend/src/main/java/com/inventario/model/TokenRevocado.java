@@ -0,0 +1,30 @@
+package com.inventario.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+
+/**
+ * JWT revocado antes de su expiración, identificado por su claim {@code jti}. La fila solo hace falta
+ * hasta {@code expiraEn}: después el token ya es rechazado por expirado.
+ */
+@Entity
+@Table(name = "tokens_revocados")
+@Getter
+@Setter
+@NoArgsConstructor
+public class TokenRevocado {
+    
+    @Id
+    @Column(length = 36)
+    private String jti;
+    
+    @Column(name = "expira_en", nullable = false)
+    private LocalDateTime expiraEn;
+    
+    @CreationTimestamp
+    @Column(name = "fecha_revocacion", nullable = false, updatable = false)
+    private LocalDateTime fechaRevocacion;
+}
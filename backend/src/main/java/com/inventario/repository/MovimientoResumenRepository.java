@@ -0,0 +1,52 @@
+package com.inventario.repository;
+
+import com.inventario.dto.ResumenDiarioResponse;
+import com.inventario.model.MovimientoResumenDiario;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface MovimientoResumenRepository extends JpaRepository<MovimientoResumenDiario, MovimientoResumenDiario.Clave> {
+    
+    @Modifying
+    @Query(value = "INSERT INTO movimientos_resumen_diario (producto_id, dia, tipo, total_cantidad, movimientos) " +
+                   "VALUES (:productoId, :dia, :tipo, :cantidad, :movimientos) " +
+                   "ON DUPLICATE KEY UPDATE total_cantidad = total_cantidad + VALUES(total_cantidad), " +
+                   "movimientos = movimientos + VALUES(movimientos)",
+           nativeQuery = true)
+    void acumular(
+        @Param("productoId") Long productoId,
+        @Param("dia") LocalDate dia,
+        @Param("tipo") String tipo,
+        @Param("cantidad") long cantidad,
+        @Param("movimientos") long movimientos
+    );
+    
+    @Query("SELECT new com.inventario.dto.ResumenDiarioResponse(r.dia, r.tipo, r.totalCantidad, r.movimientos) " +
+           "FROM MovimientoResumenDiario r " +
+           "WHERE r.productoId = :productoId AND r.dia BETWEEN :desde AND :hasta " +
+           "ORDER BY r.dia, r.tipo")
+    List<ResumenDiarioResponse> findByProducto(
+        @Param("productoId") Long productoId,
+        @Param("desde") LocalDate desde,
+        @Param("hasta") LocalDate hasta
+    );
+    
+    @Query("SELECT new com.inventario.dto.ResumenDiarioResponse(p.categoria, r.dia, r.tipo, " +
+           "SUM(r.totalCantidad), SUM(r.movimientos)) " +
+           "FROM MovimientoResumenDiario r JOIN Producto p ON p.id = r.productoId " +
+           "WHERE (:categoria IS NULL OR p.categoria = :categoria) AND r.dia BETWEEN :desde AND :hasta " +
+           "GROUP BY p.categoria, r.dia, r.tipo " +
+           "ORDER BY p.categoria, r.dia, r.tipo")
+    List<ResumenDiarioResponse> findByCategoria(
+        @Param("categoria") String categoria,
+        @Param("desde") LocalDate desde,
+        @Param("hasta") LocalDate hasta
+    );
+}
@@ -1,16 +1,104 @@
 package com.inventario.repository;
 
 import com.inventario.model.MovimientoStock;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface MovimientoStockRepository extends JpaRepository<MovimientoStock, Long> {
     
-    @Query("SELECT m FROM MovimientoStock m WHERE m.productoId = :productoId ORDER BY m.fecha DESC")
-    List<MovimientoStock> findByProductoIdOrderByFechaDesc(@Param("productoId") Long productoId);
+    /**
+     * Historial de un producto, del más reciente al más antiguo, paginado por keyset sobre (fecha, id).
+     * Se resuelve con el índice idx_movimientos_producto_fecha; {@code pageable} solo aporta el límite.
+     *
+     * @param desde       inclusive, null sin límite
+     * @param hasta       exclusive, null sin límite
+     * @param cursorFecha fecha del último movimiento ya leído, null para la primera página
+     */
+    @Query("SELECT m FROM MovimientoStock m WHERE m.productoId = :productoId " +
+           "AND (:desde IS NULL OR m.fecha >= :desde) " +
+           "AND (:hasta IS NULL OR m.fecha < :hasta) " +
+           "AND (:cursorFecha IS NULL OR m.fecha < :cursorFecha OR (m.fecha = :cursorFecha AND m.id < :cursorId)) " +
+           "ORDER BY m.fecha DESC, m.id DESC")
+    List<MovimientoStock> findHistorial(
+        @Param("productoId") Long productoId,
+        @Param("desde") LocalDateTime desde,
+        @Param("hasta") LocalDateTime hasta,
+        @Param("cursorFecha") LocalDateTime cursorFecha,
+        @Param("cursorId") Long cursorId,
+        Pageable pageable
+    );
+    
+    /**
+     * Movimientos registrados por un usuario, del más reciente al más antiguo, con el mismo keyset que
+     * {@link #findHistorial}. Se resuelve con el índice idx_movimientos_usuario_fecha.
+     */
+    @Query("SELECT m FROM MovimientoStock m WHERE m.usuarioId = :usuarioId " +
+           "AND (:desde IS NULL OR m.fecha >= :desde) " +
+           "AND (:hasta IS NULL OR m.fecha < :hasta) " +
+           "AND (:cursorFecha IS NULL OR m.fecha < :cursorFecha OR (m.fecha = :cursorFecha AND m.id < :cursorId)) " +
+           "ORDER BY m.fecha DESC, m.id DESC")
+    List<MovimientoStock> findActividadUsuario(
+        @Param("usuarioId") Long usuarioId,
+        @Param("desde") LocalDateTime desde,
+        @Param("hasta") LocalDateTime hasta,
+        @Param("cursorFecha") LocalDateTime cursorFecha,
+        @Param("cursorId") Long cursorId,
+        Pageable pageable
+    );
+    
+    Optional<MovimientoStock> findByIdempotencyKey(String idempotencyKey);
+    
+    /**
+     * Claves de idempotencia, entre las dadas, que ya tienen un movimiento registrado.
+     */
+    @Query("SELECT m.idempotencyKey FROM MovimientoStock m WHERE m.idempotencyKey IN :idempotencyKeys")
+    List<String> findIdempotencyKeysIn(@Param("idempotencyKeys") Collection<String> idempotencyKeys);
+    
+    /**
+     * Variación neta de stock (entradas - salidas) de los movimientos en {@code (desde, hasta]}.
+     *
+     * @param hasta null sin límite superior
+     */
+    @Query("SELECT COALESCE(SUM(CASE WHEN m.tipo = com.inventario.model.MovimientoStock.TipoMovimiento.ENTRADA " +
+           "THEN m.cantidad ELSE -m.cantidad END), 0) FROM MovimientoStock m " +
+           "WHERE m.productoId = :productoId AND m.fecha > :desde AND (:hasta IS NULL OR m.fecha <= :hasta)")
+    long sumDelta(
+        @Param("productoId") Long productoId,
+        @Param("desde") LocalDateTime desde,
+        @Param("hasta") LocalDateTime hasta
+    );
+    
+    /**
+     * Fecha del movimiento más antiguo todavía en la base, null si no hay movimientos.
+     */
+    @Query("SELECT MIN(m.fecha) FROM MovimientoStock m")
+    LocalDateTime findFechaMasAntigua();
+    
+    /**
+     * Movimientos en {@code [desde, hasta)} agrupados por producto, del más reciente al más antiguo
+     * dentro de cada producto (el orden de los segmentos de archivo).
+     */
+    @Query("SELECT m FROM MovimientoStock m WHERE m.fecha >= :desde AND m.fecha < :hasta " +
+           "ORDER BY m.productoId, m.fecha DESC, m.id DESC")
+    List<MovimientoStock> findByFechaEntre(
+        @Param("desde") LocalDateTime desde,
+        @Param("hasta") LocalDateTime hasta
+    );
+    
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("DELETE FROM MovimientoStock m WHERE m.fecha >= :desde AND m.fecha < :hasta")
+    int deleteByFechaEntre(
+        @Param("desde") LocalDateTime desde,
+        @Param("hasta") LocalDateTime hasta
+    );
 }
@@ -1,9 +1,14 @@
 package com.inventario.repository;
 
+import com.inventario.dto.ProductoResponse;
 import com.inventario.model.Producto;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -12,17 +17,122 @@ import java.util.Collection;
 import java.util.List;
 
 @Repository
-public interface ProductoRepository extends JpaRepository<Producto, Long> {
+public interface ProductoRepository extends JpaRepository<Producto, Long>, ProductoRepositoryCustom {
     
-    @Query("SELECT p FROM Producto p WHERE " +
+    String FILTERS =
            "(:search IS NULL OR LOWER(p.nombre) LIKE LOWER(CONCAT('%', :search, '%'))) AND " +
-           "(:categoria IS NULL OR LOWER(p.categoria) LIKE LOWER(CONCAT('%', :categoria, '%')))")
-    Page<Producto> findByFilters(
+           "(:categoria IS NULL OR LOWER(p.categoria) LIKE LOWER(CONCAT('%', :categoria, '%')))";
+    
+    String FULL_TEXT_FILTERS =
+           "match_against(p.nombre, :search) > 0 AND " +
+           "(:categoria IS NULL OR LOWER(p.categoria) LIKE LOWER(CONCAT('%', :categoria, '%')))";
+    
+    String RELEVANCE_ORDER = " ORDER BY match_against(p.nombre, :search) DESC, p.id DESC";
+    
+    /**
+     * Proyección directa a DTO: los listados no cargan entidades administradas
+     * (sin snapshots de dirty checking ni entradas en el contexto de persistencia).
+     */
+    String RESPONSE_PROJECTION =
+           "new com.inventario.dto.ProductoResponse(" +
+           "p.id, p.nombre, p.categoria, p.proveedor, p.precio, p.stock, p.stockReservado, p.fechaRegistro)";
+    
+    @Query(value = "SELECT " + RESPONSE_PROJECTION + " FROM Producto p WHERE " + FILTERS,
+           countQuery = "SELECT COUNT(p) FROM Producto p WHERE " + FILTERS)
+    Page<ProductoResponse> findByFilters(
         @Param("search") String search, 
         @Param("categoria") String categoria, 
         Pageable pageable
     );
     
+    /**
+     * Búsqueda sobre el índice FULLTEXT de nombre; {@code search} debe venir de
+     * {@link com.inventario.util.FullTextSearch#toBooleanQuery(String)}.
+     */
+    @Query(value = "SELECT " + RESPONSE_PROJECTION + " FROM Producto p WHERE " + FULL_TEXT_FILTERS,
+           countQuery = "SELECT COUNT(p) FROM Producto p WHERE " + FULL_TEXT_FILTERS)
+    Page<ProductoResponse> searchByNombre(
+        @Param("search") String search,
+        @Param("categoria") String categoria,
+        Pageable pageable
+    );
+    
+    @Query(value = "SELECT " + RESPONSE_PROJECTION + " FROM Producto p WHERE " + FULL_TEXT_FILTERS + RELEVANCE_ORDER,
+           countQuery = "SELECT COUNT(p) FROM Producto p WHERE " + FULL_TEXT_FILTERS)
+    Page<ProductoResponse> searchByNombreOrderByRelevance(
+        @Param("search") String search,
+        @Param("categoria") String categoria,
+        Pageable pageable
+    );
+    
+    // Variantes Slice: leen size + 1 filas para calcular hasNext y no ejecutan COUNT(*)
+    
+    @Query("SELECT " + RESPONSE_PROJECTION + " FROM Producto p WHERE " + FILTERS)
+    Slice<ProductoResponse> findSliceByFilters(
+        @Param("search") String search,
+        @Param("categoria") String categoria,
+        Pageable pageable
+    );
+    
+    @Query("SELECT " + RESPONSE_PROJECTION + " FROM Producto p WHERE " + FULL_TEXT_FILTERS)
+    Slice<ProductoResponse> searchSliceByNombre(
+        @Param("search") String search,
+        @Param("categoria") String categoria,
+        Pageable pageable
+    );
+    
+    @Query("SELECT " + RESPONSE_PROJECTION + " FROM Producto p WHERE " + FULL_TEXT_FILTERS + RELEVANCE_ORDER)
+    Slice<ProductoResponse> searchSliceByNombreOrderByRelevance(
+        @Param("search") String search,
+        @Param("categoria") String categoria,
+        Pageable pageable
+    );
+    
+    @Query("SELECT COUNT(p) FROM Producto p WHERE " + FILTERS)
+    long countByFilters(@Param("search") String search, @Param("categoria") String categoria);
+    
+    @Query("SELECT COUNT(p) FROM Producto p WHERE " + FULL_TEXT_FILTERS)
+    long countSearchByNombre(@Param("search") String search, @Param("categoria") String categoria);
+    
+    // Actualizaciones atómicas de stock: la condición del WHERE reemplaza al chequeo en memoria,
+    // devuelven 0 si el producto no existe o la operación dejaría el stock fuera de rango
+    
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Producto p SET p.stock = p.stock + :cantidad, p.version = p.version + 1 " +
+           "WHERE p.id = :id AND p.stock + :cantidad <= :maxStock")
+    int incrementarStock(@Param("id") Long id, @Param("cantidad") int cantidad, @Param("maxStock") int maxStock);
+    
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Producto p SET p.stock = p.stock - :cantidad, p.version = p.version + 1 " +
+           "WHERE p.id = :id AND p.stock - p.stockReservado >= :cantidad")
+    int decrementarStock(@Param("id") Long id, @Param("cantidad") int cantidad);
+    
+    // Reservas: retienen stock disponible sin modificar el stock hasta confirmarse
+    
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Producto p SET p.stockReservado = p.stockReservado + :cantidad, p.version = p.version + 1 " +
+           "WHERE p.id = :id AND p.stock - p.stockReservado >= :cantidad")
+    int reservarStock(@Param("id") Long id, @Param("cantidad") int cantidad);
+    
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Producto p SET p.stockReservado = p.stockReservado - :cantidad, p.version = p.version + 1 " +
+           "WHERE p.id = :id AND p.stockReservado >= :cantidad")
+    int liberarStockReservado(@Param("id") Long id, @Param("cantidad") int cantidad);
+    
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Producto p SET p.stock = p.stock - :cantidad, p.stockReservado = p.stockReservado - :cantidad, " +
+           "p.version = p.version + 1 " +
+           "WHERE p.id = :id AND p.stockReservado >= :cantidad AND p.stock >= :cantidad")
+    int confirmarStockReservado(@Param("id") Long id, @Param("cantidad") int cantidad);
+    
+    /**
+     * Bloquea las filas (SELECT ... FOR UPDATE) siempre en orden ascendente de ID,
+     * así dos lotes con productos en común no pueden bloquearse mutuamente.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT p FROM Producto p WHERE p.id IN :ids ORDER BY p.id ASC")
+    List<Producto> findAllByIdForUpdate(@Param("ids") Collection<Long> ids);
+    
     boolean existsByNombreAndIdNot(String nombre, Long id);
     
     boolean existsByNombre(String nombre);
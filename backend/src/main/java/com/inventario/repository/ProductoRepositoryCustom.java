@@ -0,0 +1,28 @@
+package com.inventario.repository;
+
+import com.inventario.dto.ProductoCursor;
+import com.inventario.dto.ProductoResponse;
+import org.springframework.data.domain.Sort;
+
+import java.util.List;
+
+/**
+ * Consultas de productos que no se pueden expresar como métodos derivados o JPQL estático.
+ */
+public interface ProductoRepositoryCustom {
+
+    /**
+     * Lectura por keyset: devuelve hasta {@code limit} productos posteriores al cursor,
+     * ordenados por {@code sortBy} y desempatados por ID, sin OFFSET ni COUNT.
+     * Proyecta directamente a {@link ProductoResponse}, sin cargar entidades.
+     * Con {@code cursor} null devuelve la primera página.
+     */
+    List<ProductoResponse> findByFiltersAfter(
+        String search,
+        String categoria,
+        ProductoCursor cursor,
+        String sortBy,
+        Sort.Direction direction,
+        int limit
+    );
+}
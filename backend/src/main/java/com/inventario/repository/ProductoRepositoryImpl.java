@@ -0,0 +1,108 @@
+package com.inventario.repository;
+
+import com.inventario.dto.ProductoCursor;
+import com.inventario.dto.ProductoResponse;
+import com.inventario.model.Producto;
+import com.inventario.util.FullTextSearch;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Order;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.springframework.data.domain.Sort;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.inventario.config.FullTextFunctionContributor.MATCH_AGAINST;
+
+class ProductoRepositoryImpl implements ProductoRepositoryCustom {
+
+    private static final String ID_FIELD = "id";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<ProductoResponse> findByFiltersAfter(
+            String search,
+            String categoria,
+            ProductoCursor cursor,
+            String sortBy,
+            Sort.Direction direction,
+            int limit
+    ) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<ProductoResponse> query = cb.createQuery(ProductoResponse.class);
+        Root<Producto> root = query.from(Producto.class);
+        boolean asc = direction.isAscending();
+
+        List<Predicate> predicates = new ArrayList<>();
+        if (search != null) {
+            String fullTextQuery = FullTextSearch.toBooleanQuery(search);
+            predicates.add(fullTextQuery != null
+                    ? cb.gt(cb.function(MATCH_AGAINST, Double.class, root.get("nombre"), cb.literal(fullTextQuery)), 0)
+                    : cb.like(cb.lower(root.get("nombre")), "%" + search.toLowerCase() + "%"));
+        }
+        if (categoria != null) {
+            predicates.add(cb.like(cb.lower(root.get("categoria")), "%" + categoria.toLowerCase() + "%"));
+        }
+        if (cursor != null) {
+            predicates.add(seekPredicate(cb, root, cursor, asc));
+        }
+
+        List<Order> orders = new ArrayList<>();
+        if (!ID_FIELD.equals(sortBy)) {
+            orders.add(asc ? cb.asc(root.get(sortBy)) : cb.desc(root.get(sortBy)));
+        }
+        orders.add(asc ? cb.asc(root.get(ID_FIELD)) : cb.desc(root.get(ID_FIELD)));
+
+        query.select(cb.construct(
+                    ProductoResponse.class,
+                    root.get(ID_FIELD),
+                    root.get("nombre"),
+                    root.get("categoria"),
+                    root.get("proveedor"),
+                    root.get("precio"),
+                    root.get("stock"),
+                    root.get("stockReservado"),
+                    root.get("fechaRegistro")))
+             .where(predicates.toArray(new Predicate[0]))
+             .orderBy(orders);
+
+        return entityManager.createQuery(query)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    /**
+     * Condición "fila posterior al cursor" para (sortBy, id).
+     * Sigue el orden de NULL de MySQL: primero en ASC y último en DESC.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private Predicate seekPredicate(CriteriaBuilder cb, Root<Producto> root, ProductoCursor cursor, boolean asc) {
+        Path<Long> id = root.get(ID_FIELD);
+        Predicate idAfter = asc ? cb.greaterThan(id, cursor.lastId()) : cb.lessThan(id, cursor.lastId());
+
+        if (ID_FIELD.equals(cursor.sortBy())) {
+            return idAfter;
+        }
+
+        Expression<Comparable> key = root.get(cursor.sortBy());
+        Comparable value = (Comparable) cursor.lastValue();
+
+        if (value == null) {
+            return asc
+                    ? cb.or(cb.and(cb.isNull(key), idAfter), cb.isNotNull(key))
+                    : cb.and(cb.isNull(key), idAfter);
+        }
+
+        Predicate keyAfter = asc ? cb.greaterThan(key, value) : cb.lessThan(key, value);
+        Predicate seek = cb.or(keyAfter, cb.and(cb.equal(key, value), idAfter));
+        return asc ? seek : cb.or(seek, cb.isNull(key));
+    }
+}
@@ -0,0 +1,35 @@
+package com.inventario.repository;
+
+import com.inventario.model.RefreshToken;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+@Repository
+public interface RefreshTokenRepository extends JpaRepository<RefreshToken, Long> {
+    
+    Optional<RefreshToken> findByTokenHash(String tokenHash);
+    
+    // Revoca solo si sigue vigente: de dos refresh concurrentes con el mismo token, uno recibe 0
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE RefreshToken r SET r.revocadoEn = :ahora, r.motivoRevocacion = :motivo " +
+           "WHERE r.id = :id AND r.revocadoEn IS NULL AND r.expiraEn > :ahora")
+    int revocarVigente(@Param("id") Long id, @Param("ahora") LocalDateTime ahora,
+                       @Param("motivo") RefreshToken.MotivoRevocacion motivo);
+    
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE RefreshToken r SET r.revocadoEn = :ahora, r.motivoRevocacion = :motivo " +
+           "WHERE r.usuarioId = :usuarioId AND r.revocadoEn IS NULL")
+    int revocarTodos(@Param("usuarioId") Long usuarioId, @Param("ahora") LocalDateTime ahora,
+                     @Param("motivo") RefreshToken.MotivoRevocacion motivo);
+    
+    // Los revocados se conservan hasta su vencimiento para detectar la reutilización de un token rotado
+    @Modifying
+    @Query("DELETE FROM RefreshToken r WHERE r.expiraEn <= :ahora")
+    int deleteVencidos(@Param("ahora") LocalDateTime ahora);
+}
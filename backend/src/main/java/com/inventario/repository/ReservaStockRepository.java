@@ -0,0 +1,43 @@
+package com.inventario.repository;
+
+import com.inventario.model.ReservaStock;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface ReservaStockRepository extends JpaRepository<ReservaStock, Long> {
+    
+    List<ReservaStock> findByEstado(ReservaStock.EstadoReserva estado);
+    
+    // Transiciones de estado: solo una de confirmar, liberar o expirar puede cerrar una reserva activa;
+    // devuelven 0 si otra transacción la cerró primero
+    
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE ReservaStock r SET r.estado = :estado, r.fechaCierre = :ahora " +
+           "WHERE r.id = :id AND r.estado = com.inventario.model.ReservaStock.EstadoReserva.ACTIVA")
+    int cerrarActiva(
+        @Param("id") Long id,
+        @Param("estado") ReservaStock.EstadoReserva estado,
+        @Param("ahora") LocalDateTime ahora
+    );
+    
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE ReservaStock r SET r.estado = com.inventario.model.ReservaStock.EstadoReserva.CONFIRMADA, " +
+           "r.fechaCierre = :ahora " +
+           "WHERE r.id = :id AND r.estado = com.inventario.model.ReservaStock.EstadoReserva.ACTIVA " +
+           "AND r.expiraEn > :ahora")
+    int confirmarVigente(@Param("id") Long id, @Param("ahora") LocalDateTime ahora);
+    
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE ReservaStock r SET r.estado = com.inventario.model.ReservaStock.EstadoReserva.EXPIRADA, " +
+           "r.fechaCierre = :ahora " +
+           "WHERE r.id = :id AND r.estado = com.inventario.model.ReservaStock.EstadoReserva.ACTIVA " +
+           "AND r.expiraEn <= :ahora")
+    int expirarVencida(@Param("id") Long id, @Param("ahora") LocalDateTime ahora);
+}
@@ -0,0 +1,52 @@
+package com.inventario.repository;
+
+import com.inventario.model.StockSnapshot;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+@Repository
+public interface StockSnapshotRepository extends JpaRepository<StockSnapshot, Long> {
+    
+    Optional<StockSnapshot> findFirstByProductoIdAndFechaLessThanEqualOrderByFechaDesc(Long productoId, LocalDateTime fecha);
+    
+    /**
+     * Registra en una sola sentencia el stock a la fecha de corte (stock actual menos los movimientos
+     * posteriores al corte) de los productos que cambiaron desde su último snapshot: sin snapshot previo,
+     * con movimientos desde él o con un stock distinto (cambios por PUT, que no generan movimientos).
+     * Los demás se resuelven con el snapshot anterior sin sumar movimientos. Idempotente por (producto_id, fecha).
+     */
+    @Modifying
+    @Query(value = "INSERT INTO stock_snapshots (producto_id, fecha, stock) " +
+                   "SELECT c.id, :fecha, c.stock_corte FROM (" +
+                   "    SELECT p.id, p.stock - COALESCE((" +
+                   "        SELECT SUM(CASE m.tipo WHEN 'ENTRADA' THEN m.cantidad ELSE -m.cantidad END) " +
+                   "        FROM movimientos_stock m WHERE m.producto_id = p.id AND m.fecha > :fecha), 0) AS stock_corte, " +
+                   "        u.fecha AS ultima_fecha, u.stock AS ultimo_stock " +
+                   "    FROM productos p " +
+                   "    LEFT JOIN stock_snapshots u ON u.producto_id = p.id AND u.fecha = (" +
+                   "        SELECT MAX(s.fecha) FROM stock_snapshots s WHERE s.producto_id = p.id AND s.fecha <= :fecha) " +
+                   "    WHERE p.fecha_registro <= :fecha) c " +
+                   "WHERE c.ultima_fecha IS NULL OR c.stock_corte <> c.ultimo_stock OR EXISTS (" +
+                   "    SELECT 1 FROM movimientos_stock m " +
+                   "    WHERE m.producto_id = c.id AND m.fecha > c.ultima_fecha AND m.fecha <= :fecha) " +
+                   "ON DUPLICATE KEY UPDATE stock = VALUES(stock)",
+           nativeQuery = true)
+    int insertSnapshots(@Param("fecha") LocalDateTime fecha);
+    
+    /**
+     * Elimina los snapshots anteriores al límite salvo el último de cada producto, que sigue siendo
+     * la base de las consultas posteriores al límite.
+     */
+    @Modifying
+    @Query(value = "DELETE s FROM stock_snapshots s " +
+                   "JOIN stock_snapshots n ON n.producto_id = s.producto_id AND n.fecha > s.fecha AND n.fecha <= :limite " +
+                   "WHERE s.fecha < :limite",
+           nativeQuery = true)
+    int deleteAnteriores(@Param("limite") LocalDateTime limite);
+}
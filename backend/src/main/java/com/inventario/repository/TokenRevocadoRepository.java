@@ -0,0 +1,27 @@
+package com.inventario.repository;
+
+import com.inventario.model.TokenRevocado;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface TokenRevocadoRepository extends JpaRepository<TokenRevocado, String> {
+    
+    // Solo los jti, para reconstruir el filtro de Bloom sin cargar entidades
+    @Query("SELECT t.jti FROM TokenRevocado t WHERE t.expiraEn > :ahora")
+    List<String> findJtiVigentes(@Param("ahora") LocalDateTime ahora);
+    
+    // Revocados por cualquier instancia desde una fecha, para actualizar el filtro entre reconstrucciones
+    @Query("SELECT t.jti FROM TokenRevocado t WHERE t.fechaRevocacion >= :desde AND t.expiraEn > :ahora")
+    List<String> findJtiRevocadosDesde(@Param("desde") LocalDateTime desde, @Param("ahora") LocalDateTime ahora);
+    
+    @Modifying
+    @Query("DELETE FROM TokenRevocado t WHERE t.expiraEn <= :ahora")
+    int deleteVencidos(@Param("ahora") LocalDateTime ahora);
+}
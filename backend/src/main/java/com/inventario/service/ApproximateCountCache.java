@@ -0,0 +1,94 @@
+package com.inventario.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Comparator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.LongSupplier;
+
+/**
+ * Caché de totales aproximados para los listados sin COUNT(*).
+ * Las lecturas nunca esperan al conteo: devuelven el último valor conocido y, si venció,
+ * lo recalculan en un hilo de fondo (un solo recálculo en curso por clave).
+ */
+@Slf4j
+@Component
+public class ApproximateCountCache {
+    
+    private final ConcurrentMap<Object, CachedCount> counts = new ConcurrentHashMap<>();
+    private final Set<Object> refreshing = ConcurrentHashMap.newKeySet();
+    private final ExecutorService refresher;
+    private final long ttlMillis;
+    private final int maxEntries;
+    
+    public ApproximateCountCache(
+            @Value("${productos.count-cache.ttl-seconds:60}") long ttlSeconds,
+            @Value("${productos.count-cache.max-entries:1000}") int maxEntries) {
+        this.ttlMillis = ttlSeconds * 1000;
+        this.maxEntries = maxEntries;
+        this.refresher = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "count-cache-refresher");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+    
+    /**
+     * @param key filtros normalizados del conteo (deben implementar equals/hashCode)
+     * @return el último total calculado para la clave (posiblemente desactualizado), o null si aún no existe
+     */
+    public Long get(Object key, LongSupplier counter) {
+        CachedCount cached = counts.get(key);
+        if (cached == null || System.currentTimeMillis() - cached.computedAt() > ttlMillis) {
+            scheduleRefresh(key, counter);
+        }
+        return cached != null ? cached.value() : null;
+    }
+    
+    private void scheduleRefresh(Object key, LongSupplier counter) {
+        if (!refreshing.add(key)) {
+            return;
+        }
+        try {
+            refresher.execute(() -> {
+                try {
+                    long value = counter.getAsLong();
+                    evictIfFull(key);
+                    counts.put(key, new CachedCount(value, System.currentTimeMillis()));
+                } catch (RuntimeException e) {
+                    log.warn("No se pudo recalcular el total aproximado para '{}': {}", key, e.getMessage());
+                } finally {
+                    refreshing.remove(key);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            refreshing.remove(key);
+        }
+    }
+    
+    private void evictIfFull(Object key) {
+        if (counts.size() < maxEntries || counts.containsKey(key)) {
+            return;
+        }
+        counts.entrySet().stream()
+                .min(Comparator.comparingLong(entry -> entry.getValue().computedAt()))
+                .map(Map.Entry::getKey)
+                .ifPresent(counts::remove);
+    }
+    
+    @PreDestroy
+    void shutdown() {
+        refresher.shutdownNow();
+    }
+    
+    private record CachedCount(long value, long computedAt) {}
+}
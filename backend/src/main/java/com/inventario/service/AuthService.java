@@ -2,14 +2,20 @@ package com.inventario.service;
 
 import com.inventario.dto.LoginRequest;
 import com.inventario.dto.LoginResponse;
+import com.inventario.model.Usuario;
+import com.inventario.repository.UserRepository;
+import com.inventario.util.JwtPrincipal;
 import com.inventario.util.JwtUtil;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.DisabledException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 @Slf4j
 @Service
@@ -18,6 +24,9 @@ public class AuthService {
 
     private final AuthenticationManager authenticationManager;
     private final JwtUtil jwtUtil;
+    private final UserRepository userRepository;
+    private final RefreshTokenService refreshTokenService;
+    private final TokenRevocationService tokenRevocationService;
 
     public LoginResponse login(LoginRequest request) {
         log.debug("Login attempt for user: {}", request.getUsername());
@@ -33,10 +42,46 @@ public class AuthService {
                 .map(auth -> auth.replace("ROLE_", ""))
                 .orElse("USER");
 
-        String token = jwtUtil.generateToken(username, role);
+        Usuario usuario = userRepository.findByUsernameAndActivoTrue(username)
+                .orElseThrow(() -> new BadCredentialsException("Credenciales inválidas"));
+
+        String token = jwtUtil.generateToken(username, role, usuario.getId());
+        String refreshToken = refreshTokenService.emitir(usuario.getId());
         
         log.info("User '{}' logged in successfully with role: {}", username, role);
         
-        return new LoginResponse(token, username, role);
+        return new LoginResponse(token, username, role, refreshToken);
+    }
+
+    /**
+     * Renueva el token de acceso canjeando un refresh token, sin volver a verificar la contraseña (BCrypt).
+     */
+    // Un usuario deshabilitado revierte la rotación; un token inválido o reutilizado no (ver RefreshTokenService)
+    @Transactional(noRollbackFor = BadCredentialsException.class)
+    public LoginResponse refresh(String refreshToken) {
+        RefreshTokenService.Rotacion rotacion = refreshTokenService.rotar(refreshToken);
+
+        Usuario usuario = userRepository.findById(rotacion.usuarioId())
+                .filter(Usuario::getActivo)
+                .orElseThrow(() -> {
+                    log.warn("Refresh rejected: user {} is disabled", rotacion.usuarioId());
+                    return new DisabledException("Cuenta deshabilitada");
+                });
+
+        String token = jwtUtil.generateToken(usuario.getUsername(), usuario.getRol(), usuario.getId());
+
+        log.debug("Access token refreshed for user '{}'", usuario.getUsername());
+
+        return new LoginResponse(token, usuario.getUsername(), usuario.getRol(), rotacion.refreshToken());
+    }
+
+    /**
+     * Revoca el refresh token y, si el request trae un JWT vigente, también ese token de acceso.
+     */
+    public void logout(String refreshToken, JwtPrincipal principal) {
+        refreshTokenService.revocar(refreshToken);
+        if (principal != null) {
+            tokenRevocationService.revocar(principal.jti(), principal.expiresAt());
+        }
     }
 }
@@ -0,0 +1,258 @@
+package com.inventario.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.inventario.model.MovimientoStock;
+import com.inventario.repository.MovimientoStockRepository;
+import com.inventario.util.SegmentoMovimientos;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.stream.Stream;
+
+/**
+ * Archivo de movimientos antiguos en segmentos comprimidos en disco local (ver {@link SegmentoMovimientos}).
+ * <p>
+ * El job archiva día por día, del más antiguo en adelante, los movimientos anteriores a la retención:
+ * escribe el segmento del día y borra esas filas en la misma transacción. Si el proceso se interrumpe
+ * después de publicar el segmento y antes de confirmar el borrado, la siguiente ejecución encuentra el
+ * segmento existente y solo completa el borrado. Los totales de movimientos_resumen_diario no se modifican.
+ * <p>
+ * Como los días se archivan en orden, todo lo archivado es más antiguo que lo que sigue en la base;
+ * {@link #leer} continúa el historial de un producto a partir de donde termina la base.
+ */
+@Service
+@Slf4j
+public class MovimientoArchivoService {
+
+    private final MovimientoStockRepository movimientoStockRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final Path directorio;
+    private final boolean enabled;
+    private final int retencionDias;
+    private final int maxDiasPorEjecucion;
+
+    private final NavigableSet<LocalDate> diasArchivados = new ConcurrentSkipListSet<>();
+    private final Cache<LocalDate, Map<Long, SegmentoMovimientos.Entrada>> indices;
+
+    public MovimientoArchivoService(
+            MovimientoStockRepository movimientoStockRepository,
+            PlatformTransactionManager transactionManager,
+            @Value("${movimientos.archivo.directorio:./data/archivo-movimientos}") String directorio,
+            @Value("${movimientos.archivo.enabled:false}") boolean enabled,
+            @Value("${movimientos.archivo.retencion-dias:365}") int retencionDias,
+            @Value("${movimientos.archivo.max-dias-por-ejecucion:31}") int maxDiasPorEjecucion,
+            @Value("${movimientos.archivo.indices-en-memoria:64}") long indicesEnMemoria) {
+        this.movimientoStockRepository = movimientoStockRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.directorio = Path.of(directorio);
+        this.enabled = enabled;
+        this.retencionDias = retencionDias;
+        this.maxDiasPorEjecucion = maxDiasPorEjecucion;
+        this.indices = Caffeine.newBuilder().maximumSize(indicesEnMemoria).build();
+    }
+
+    @PostConstruct
+    void cargarDiasArchivados() {
+        if (!Files.isDirectory(directorio)) {
+            return;
+        }
+        try (Stream<Path> archivos = Files.walk(directorio)) {
+            archivos.map(SegmentoMovimientos::diaDeIndice)
+                .flatMap(Optional::stream)
+                .forEach(diasArchivados::add);
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo leer el directorio de archivo de movimientos", e);
+        }
+        log.info("Archivo de movimientos - Directorio: {}, Días archivados: {}", directorio, diasArchivados.size());
+    }
+
+    @Scheduled(cron = "${movimientos.archivo.cron:0 30 3 * * *}")
+    public void archivarProgramado() {
+        if (enabled) {
+            archivar();
+        }
+    }
+
+    /**
+     * Archiva hasta {@code maxDiasPorEjecucion} días anteriores a la retención.
+     *
+     * @return cantidad de movimientos archivados
+     */
+    public int archivar() {
+        LocalDate corte = LocalDate.now().minusDays(retencionDias);
+        int total = 0;
+
+        for (int i = 0; i < maxDiasPorEjecucion; i++) {
+            LocalDateTime masAntiguo = movimientoStockRepository.findFechaMasAntigua();
+            if (masAntiguo == null || !masAntiguo.toLocalDate().isBefore(corte)) {
+                break;
+            }
+            LocalDate dia = masAntiguo.toLocalDate();
+            Integer archivados = transactionTemplate.execute(status -> archivarDia(dia));
+            total += archivados != null ? archivados : 0;
+        }
+
+        if (total > 0) {
+            log.info("Movimientos archivados: {} (anteriores a {})", total, corte);
+        }
+        return total;
+    }
+
+    private int archivarDia(LocalDate dia) {
+        LocalDateTime desde = dia.atStartOfDay();
+        LocalDateTime hasta = dia.plusDays(1).atStartOfDay();
+
+        if (diasArchivados.contains(dia)) {
+            // Segmento publicado en una ejecución interrumpida antes de confirmar el borrado
+            log.warn("Segmento del {} ya existe, completando el borrado de filas archivadas", dia);
+        } else {
+            List<MovimientoStock> movimientos = movimientoStockRepository.findByFechaEntre(desde, hasta);
+            try {
+                SegmentoMovimientos.escribir(directorio, dia, movimientos);
+            } catch (IOException e) {
+                throw new UncheckedIOException("No se pudo escribir el segmento del " + dia, e);
+            }
+            diasArchivados.add(dia);
+        }
+
+        int borrados = movimientoStockRepository.deleteByFechaEntre(desde, hasta);
+        log.info("Día {} archivado - Movimientos: {}", dia, borrados);
+        return borrados;
+    }
+
+    /**
+     * Historial archivado de un producto, del más reciente al más antiguo, con los mismos
+     * filtros y posición de cursor que {@link MovimientoStockRepository#findHistorial}.
+     *
+     * @param desde       inclusive, null sin límite
+     * @param hasta       exclusive, null sin límite
+     * @param cursorFecha fecha del último movimiento ya leído, null sin cursor
+     */
+    public List<MovimientoStock> leer(
+            Long productoId,
+            LocalDateTime desde,
+            LocalDateTime hasta,
+            LocalDateTime cursorFecha,
+            Long cursorId,
+            int limite
+    ) {
+        List<MovimientoStock> resultado = new ArrayList<>();
+        if (limite <= 0 || diasArchivados.isEmpty()) {
+            return resultado;
+        }
+
+        NavigableSet<LocalDate> dias = diasArchivados.descendingSet();
+        LocalDateTime tope = minimo(hasta, cursorFecha);
+        if (tope != null) {
+            dias = dias.tailSet(tope.toLocalDate(), true);
+        }
+
+        for (LocalDate dia : dias) {
+            if (desde != null && dia.isBefore(desde.toLocalDate())) {
+                break;
+            }
+            SegmentoMovimientos.Entrada entrada = indice(dia).get(productoId);
+            if (entrada == null) {
+                continue;
+            }
+
+            for (MovimientoStock movimiento : leerSegmento(dia, productoId, entrada)) {
+                if (cumple(movimiento, desde, hasta, cursorFecha, cursorId)) {
+                    resultado.add(movimiento);
+                    if (resultado.size() == limite) {
+                        return resultado;
+                    }
+                }
+            }
+        }
+        return resultado;
+    }
+
+    /**
+     * Variación neta de stock de los movimientos archivados en {@code (desde, hasta]}, complemento de
+     * {@link MovimientoStockRepository#sumDelta} para las consultas de stock histórico.
+     *
+     * @param hasta null sin límite superior
+     */
+    public long sumarDelta(Long productoId, LocalDateTime desde, LocalDateTime hasta) {
+        long delta = 0;
+        for (LocalDate dia : diasArchivados.tailSet(desde.toLocalDate(), true)) {
+            if (hasta != null && dia.isAfter(hasta.toLocalDate())) {
+                break;
+            }
+            SegmentoMovimientos.Entrada entrada = indice(dia).get(productoId);
+            if (entrada == null) {
+                continue;
+            }
+            for (MovimientoStock movimiento : leerSegmento(dia, productoId, entrada)) {
+                LocalDateTime fecha = movimiento.getFecha();
+                if (fecha.isAfter(desde) && (hasta == null || !fecha.isAfter(hasta))) {
+                    delta += movimiento.getTipo() == MovimientoStock.TipoMovimiento.ENTRADA
+                        ? movimiento.getCantidad() : -movimiento.getCantidad();
+                }
+            }
+        }
+        return delta;
+    }
+
+    private Map<Long, SegmentoMovimientos.Entrada> indice(LocalDate dia) {
+        return indices.get(dia, key -> {
+            try {
+                return SegmentoMovimientos.leerIndice(SegmentoMovimientos.indice(directorio, key));
+            } catch (IOException e) {
+                throw new UncheckedIOException("No se pudo leer el índice del " + key, e);
+            }
+        });
+    }
+
+    private List<MovimientoStock> leerSegmento(LocalDate dia, Long productoId, SegmentoMovimientos.Entrada entrada) {
+        try {
+            return SegmentoMovimientos.leerProducto(SegmentoMovimientos.segmento(directorio, dia), productoId, entrada);
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo leer el segmento del " + dia, e);
+        }
+    }
+
+    private boolean cumple(MovimientoStock movimiento, LocalDateTime desde, LocalDateTime hasta,
+                           LocalDateTime cursorFecha, Long cursorId) {
+        LocalDateTime fecha = movimiento.getFecha();
+        if (desde != null && fecha.isBefore(desde)) {
+            return false;
+        }
+        if (hasta != null && !fecha.isBefore(hasta)) {
+            return false;
+        }
+        if (cursorFecha == null) {
+            return true;
+        }
+        return fecha.isBefore(cursorFecha) || (fecha.isEqual(cursorFecha) && movimiento.getId() < cursorId);
+    }
+
+    private LocalDateTime minimo(LocalDateTime a, LocalDateTime b) {
+        if (a == null) {
+            return b;
+        }
+        if (b == null) {
+            return a;
+        }
+        return a.isBefore(b) ? a : b;
+    }
+}
@@ -0,0 +1,192 @@
+package com.inventario.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.inventario.dto.MovimientoStockRequest;
+import com.inventario.dto.MovimientoStockResponse;
+import com.inventario.exception.IdempotencyKeyMismatchException;
+import com.inventario.model.MovimientoStock;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+/**
+ * Idempotencia de POST /stock-movements por header {@code Idempotency-Key}.
+ * <p>
+ * La clave se guarda con el movimiento (índice único) y las respuestas recientes se mantienen en una
+ * caché acotada: un reintento se responde desde memoria, o desde la base si la entrada ya expiró,
+ * sin volver a bloquear el producto ni insertar. Los intentos simultáneos con la misma clave reclaman
+ * la clave en memoria: el segundo espera y devuelve el movimiento del primero, también con el journal,
+ * donde el movimiento no llega a la base (ni a su índice único) hasta aplicarse. Entre instancias, el
+ * índice único rechaza el segundo, que devuelve el movimiento del primero.
+ * <p>
+ * La clave se guarda con el ID del usuario como prefijo, de modo que dos usuarios pueden usar la
+ * misma clave sin ver el movimiento del otro. Junto a la respuesta se guarda una huella SHA-256 de
+ * producto, tipo y cantidad: un reintento con la misma clave y otro cuerpo se rechaza con 422.
+ */
+@Slf4j
+@Component
+public class MovimientoIdempotencia {
+
+    public static final String HEADER = "Idempotency-Key";
+
+    private static final String CACHE_NAME = "movimientos-idempotencia";
+    private static final int MAX_KEY_LENGTH = 100;
+    private static final Pattern KEY_PATTERN = Pattern.compile("[\\x21-\\x7E]+");
+
+    private final MovimientoStockService movimientoStockService;
+    private final Cache<String, Registrado> cache;
+    // Claves con un registro en curso; se retiran al terminar, con la respuesta ya en la caché
+    private final ConcurrentHashMap<String, CompletableFuture<Registrado>> enCurso = new ConcurrentHashMap<>();
+
+    public MovimientoIdempotencia(
+            MovimientoStockService movimientoStockService,
+            MeterRegistry meterRegistry,
+            @Value("${movimientos.idempotencia.maximum-size:10000}") long maximumSize,
+            @Value("${movimientos.idempotencia.ttl-minutes:60}") long ttlMinutes) {
+        this.movimientoStockService = movimientoStockService;
+        this.cache = CaffeineCacheMetrics.monitor(
+                meterRegistry,
+                Caffeine.newBuilder()
+                        .maximumSize(maximumSize)
+                        .expireAfterWrite(Duration.ofMinutes(ttlMinutes))
+                        .recordStats()
+                        .<String, Registrado>build(),
+                CACHE_NAME
+        );
+        log.info("MovimientoIdempotencia inicializada - maximumSize: {}, ttl: {}min", maximumSize, ttlMinutes);
+    }
+
+    /**
+     * Devuelve el movimiento ya registrado con la clave o ejecuta el registro.
+     * Asigna al request la clave con el alcance del usuario antes de registrarlo.
+     *
+     * @param registro registra el movimiento con la clave asignada en el request
+     * @throws IdempotencyKeyMismatchException si la clave ya se usó con otro producto, tipo o cantidad
+     */
+    public Resultado registrar(String idempotencyKey, MovimientoStockRequest request,
+                               Supplier<MovimientoStockResponse> registro) {
+        validarClave(idempotencyKey);
+        String clave = claveDeUsuario(request.getUsuarioId(), idempotencyKey);
+        String huella = huella(request.getProductoId(), request.getTipo(), request.getCantidad());
+        request.setIdempotencyKey(clave);
+
+        while (true) {
+            CompletableFuture<Registrado> propio = new CompletableFuture<>();
+            CompletableFuture<Registrado> previo = enCurso.putIfAbsent(clave, propio);
+            if (previo == null) {
+                return registrarReclamada(clave, huella, registro, propio);
+            }
+            Registrado registrado = previo.exceptionally(e -> null).join();
+            if (registrado != null) {
+                log.info("Movimiento repetido por Idempotency-Key concurrente - ID: {}", registrado.movimiento().getId());
+                return new Resultado(verificar(registrado, huella), true);
+            }
+            // El primer intento falló sin registrar: este vuelve a reclamar la clave
+        }
+    }
+
+    private Resultado registrarReclamada(String clave, String huella, Supplier<MovimientoStockResponse> registro,
+                                         CompletableFuture<Registrado> propio) {
+        try {
+            Resultado resultado = registrarUnaVez(clave, huella, registro);
+            propio.complete(new Registrado(resultado.movimiento(), huella));
+            return resultado;
+        } catch (RuntimeException e) {
+            propio.completeExceptionally(e);
+            throw e;
+        } finally {
+            enCurso.remove(clave, propio);
+        }
+    }
+
+    private Resultado registrarUnaVez(String clave, String huella, Supplier<MovimientoStockResponse> registro) {
+        Optional<MovimientoStockResponse> existente = buscar(clave, huella);
+        if (existente.isPresent()) {
+            log.info("Movimiento repetido por Idempotency-Key - ID: {}", existente.get().getId());
+            return new Resultado(existente.get(), true);
+        }
+
+        try {
+            MovimientoStockResponse response = registro.get();
+            cache.put(clave, new Registrado(response, huella));
+            return new Resultado(response, false);
+        } catch (DataIntegrityViolationException e) {
+            // Otro intento con la misma clave confirmó primero
+            return buscar(clave, huella)
+                    .map(response -> new Resultado(response, true))
+                    .orElseThrow(() -> e);
+        }
+    }
+
+    private Optional<MovimientoStockResponse> buscar(String clave, String huella) {
+        Registrado registrado = cache.getIfPresent(clave);
+        if (registrado == null) {
+            registrado = movimientoStockService.buscarPorIdempotencyKey(clave)
+                    .map(response -> new Registrado(response,
+                            huella(response.getProductoId(), response.getTipo(), response.getCantidad())))
+                    .orElse(null);
+            if (registrado == null) {
+                return Optional.empty();
+            }
+            cache.put(clave, registrado);
+        }
+        return Optional.of(verificar(registrado, huella));
+    }
+
+    private static MovimientoStockResponse verificar(Registrado registrado, String huella) {
+        if (!registrado.huella().equals(huella)) {
+            throw new IdempotencyKeyMismatchException(
+                    HEADER + " ya usada con un movimiento distinto; use una clave nueva para este movimiento");
+        }
+        return registrado.movimiento();
+    }
+
+    /**
+     * Clave persistida: ID del usuario (o {@code -} sin usuario) y la clave del header.
+     * El ID es numérico, así que el primer {@code :} separa ambas partes sin ambigüedad.
+     */
+    static String claveDeUsuario(Long usuarioId, String idempotencyKey) {
+        return (usuarioId != null ? usuarioId.toString() : "-") + ":" + idempotencyKey;
+    }
+
+    static String huella(Long productoId, MovimientoStock.TipoMovimiento tipo, Integer cantidad) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256")
+                    .digest((productoId + "|" + tipo + "|" + cantidad).getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            // SHA-256 es obligatorio en toda JVM
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private void validarClave(String idempotencyKey) {
+        if (idempotencyKey == null || idempotencyKey.length() > MAX_KEY_LENGTH
+                || !KEY_PATTERN.matcher(idempotencyKey).matches()) {
+            throw new IllegalArgumentException(
+                    HEADER + " debe tener entre 1 y " + MAX_KEY_LENGTH + " caracteres ASCII visibles");
+        }
+    }
+
+    /**
+     * @param repetido true si el movimiento ya existía y no se registró de nuevo
+     */
+    public record Resultado(MovimientoStockResponse movimiento, boolean repetido) {}
+
+    private record Registrado(MovimientoStockResponse movimiento, String huella) {}
+}
@@ -0,0 +1,436 @@
+package com.inventario.service;
+
+import com.inventario.dto.MovimientoStockRequest;
+import com.inventario.dto.MovimientoStockResponse;
+import com.inventario.exception.ResourceNotFoundException;
+import com.inventario.exception.ServiceOverloadedException;
+import com.inventario.model.MovimientoRechazado;
+import com.inventario.model.MovimientoStock;
+import com.inventario.model.Producto;
+import com.inventario.repository.MovimientoRechazadoRepository;
+import com.inventario.repository.MovimientoStockRepository;
+import com.inventario.repository.ProductoRepository;
+import com.inventario.util.JournalMovimientos;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static com.inventario.util.TransactionCallbacks.afterCommit;
+
+/**
+ * Registro de movimientos con journal previo (write-ahead) y aplicación diferida en lotes.
+ * <p>
+ * Cada movimiento se valida contra un saldo en memoria por producto (stock leído de la base más los
+ * movimientos del journal todavía no aplicados, descontando el reservado), se agrega al
+ * {@link JournalMovimientos} y se confirma sin esperar a la base. Un hilo aplicador lee el journal en
+ * lotes de hasta {@code batch-size} movimientos y los inserta con
+ * {@link MovimientoStockService#aplicarMovimientos}; cada movimiento lleva una clave de idempotencia,
+ * así un lote que se vuelve a aplicar después de una caída no duplica filas. Al iniciar se aplica lo
+ * que quedó en el journal antes de aceptar nuevos movimientos.
+ * <p>
+ * La respuesta no tiene ID (se asigna al aplicar) y la fecha persistida es la de aplicación. Las
+ * modificaciones de stock por otras vías (lotes, reservas, edición de productos) actualizan el saldo
+ * al confirmar su transacción ({@link #refrescarSaldoAfterCommit}); mientras el aplicador tiene un lote
+ * del producto sin confirmar se guardan y se toman al terminarlo, porque un producto leído después de
+ * ese commit ya incluye movimientos que el saldo todavía cuenta como pendientes. Si la base rechaza un
+ * movimiento ya confirmado, se guarda en {@code movimientos_rechazados} y se cuenta en
+ * {@code movimientos.journal.rechazados}.
+ * <p>
+ * Se activa con {@code movimientos.journal.enabled=true}.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "movimientos.journal.enabled", havingValue = "true")
+public class MovimientoJournal {
+
+    private static final int MAX_STOCK_VALUE = Integer.MAX_VALUE - 1000000;
+
+    private final MovimientoStockService movimientoStockService;
+    private final MovimientoStockRepository movimientoStockRepository;
+    private final MovimientoRechazadoRepository movimientoRechazadoRepository;
+    private final ProductoRepository productoRepository;
+    private final JournalMovimientos journal;
+    private final JournalMovimientos.Fsync fsync;
+    private final long fsyncIntervalMillis;
+    private final int batchSize;
+    private final long applyIntervalMillis;
+    private final ScheduledExecutorService executor;
+    private final Map<Long, Saldo> saldos = new ConcurrentHashMap<>();
+    private final Counter rechazados;
+    private final Timer aplicacion;
+
+    // Solo lo usa el hilo aplicador: el lote se conserva hasta aplicarlo sin errores
+    private List<JournalMovimientos.Entrada> lote = List.of();
+
+    public MovimientoJournal(
+            MovimientoStockService movimientoStockService,
+            MovimientoStockRepository movimientoStockRepository,
+            MovimientoRechazadoRepository movimientoRechazadoRepository,
+            ProductoRepository productoRepository,
+            MeterRegistry meterRegistry,
+            @Value("${movimientos.journal.directorio:./data/journal-movimientos}") String directorio,
+            @Value("${movimientos.journal.segment-size-mb:64}") int segmentSizeMb,
+            @Value("${movimientos.journal.fsync:INTERVAL}") JournalMovimientos.Fsync fsync,
+            @Value("${movimientos.journal.fsync-interval-millis:10}") long fsyncIntervalMillis,
+            @Value("${movimientos.journal.batch-size:1000}") int batchSize,
+            @Value("${movimientos.journal.apply-interval-millis:50}") long applyIntervalMillis) throws IOException {
+        this.movimientoStockService = movimientoStockService;
+        this.movimientoStockRepository = movimientoStockRepository;
+        this.movimientoRechazadoRepository = movimientoRechazadoRepository;
+        this.productoRepository = productoRepository;
+        this.journal = new JournalMovimientos(Path.of(directorio), segmentSizeMb * 1024 * 1024, fsync);
+        this.fsync = fsync;
+        this.fsyncIntervalMillis = fsyncIntervalMillis;
+        this.batchSize = batchSize;
+        this.applyIntervalMillis = applyIntervalMillis;
+        // Un hilo aplica lotes y otro hace el fsync periódico sin esperar a la base
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = Executors.newScheduledThreadPool(2, runnable -> {
+            Thread thread = new Thread(runnable, "movimientos-journal-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        Gauge.builder("movimientos.journal.pendientes", journal, j -> j.getUltimaEscrita() - j.getCheckpoint())
+                .description("Movimientos confirmados en el journal que todavía no se aplicaron a la base")
+                .register(meterRegistry);
+        this.rechazados = Counter.builder("movimientos.journal.rechazados")
+                .description("Movimientos del journal rechazados por la base al aplicarlos")
+                .register(meterRegistry);
+        this.aplicacion = Timer.builder("movimientos.journal.aplicacion")
+                .description("Duración de la aplicación de un lote del journal")
+                .register(meterRegistry);
+        log.info("MovimientoJournal inicializado - directorio: {}, fsync: {}, batchSize: {}, aplicación cada {}ms",
+                directorio, fsync, batchSize, applyIntervalMillis);
+    }
+
+    /**
+     * Aplica lo que quedó en el journal y arranca el aplicador periódico.
+     */
+    @PostConstruct
+    void iniciar() {
+        // Lo que quedó en el journal cuenta como pendiente: aplicar cada lote lo descuenta al tomar el stock de la base
+        journal.recorrerPendientes(entrada -> saldos.computeIfAbsent(entrada.productoId(), id -> new Saldo())
+                .pendiente += entrada.delta());
+        try {
+            while (aplicarLote()) {
+                // hasta vaciar el journal
+            }
+        } catch (RuntimeException e) {
+            // Sin base disponible: el saldo de los productos incluye lo pendiente hasta que se aplique
+            log.warn("No se pudo aplicar el journal al iniciar, se reintenta en segundo plano: {}", e.getMessage());
+        }
+
+        executor.scheduleWithFixedDelay(this::aplicarPendientes,
+                applyIntervalMillis, applyIntervalMillis, TimeUnit.MILLISECONDS);
+        if (fsync == JournalMovimientos.Fsync.INTERVAL) {
+            executor.scheduleAtFixedRate(journal::force,
+                    fsyncIntervalMillis, fsyncIntervalMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Valida el movimiento contra el saldo en memoria y lo confirma al quedar en el journal.
+     */
+    public MovimientoStockResponse registrar(MovimientoStockRequest request) {
+        if (request == null || request.getProductoId() == null || request.getTipo() == null
+                || request.getCantidad() == null || request.getCantidad() <= 0) {
+            throw new IllegalArgumentException("El movimiento requiere productoId, tipo y una cantidad positiva");
+        }
+
+        Long productoId = request.getProductoId();
+        int cantidad = request.getCantidad();
+        Saldo saldo = saldos.computeIfAbsent(productoId, id -> new Saldo());
+        JournalMovimientos.Entrada entrada;
+        long stockAnterior;
+        String nombre;
+        saldo.lock.lock();
+        try {
+            if (saldo.nombre == null) {
+                if (saldo.enAplicacion) {
+                    // El producto leído ahora podría incluir el lote en curso, que todavía cuenta en pendiente
+                    throw new ServiceOverloadedException("Saldo del producto en actualización, reintente", 1);
+                }
+                Producto producto = productoRepository.findById(productoId)
+                    .orElseThrow(() -> new ResourceNotFoundException("Producto", "id", productoId));
+                saldo.actualizar(EstadoProducto.of(producto));
+            }
+            stockAnterior = saldo.stock + saldo.pendiente;
+            if (request.getTipo() == MovimientoStock.TipoMovimiento.SALIDA) {
+                long disponible = stockAnterior - saldo.reservado;
+                if (disponible < cantidad) {
+                    throw new IllegalArgumentException(String.format("Stock insuficiente. Disponible: %d, Solicitado: %d",
+                            disponible, cantidad));
+                }
+            } else if (stockAnterior + cantidad > MAX_STOCK_VALUE) {
+                throw new IllegalArgumentException("El stock resultante excede el máximo permitido");
+            }
+
+            entrada = journal.append(productoId, request.getTipo(), cantidad,
+                    System.currentTimeMillis(), request.getIdempotencyKey(), request.getUsuarioId());
+            saldo.pendiente += entrada.delta();
+            nombre = saldo.nombre;
+        } finally {
+            saldo.lock.unlock();
+        }
+
+        int stockNuevo = (int) (stockAnterior + entrada.delta());
+        return MovimientoStockResponse.builder()
+                .productoId(productoId)
+                .productoNombre(nombre)
+                .tipo(entrada.tipo())
+                .cantidad(cantidad)
+                .fecha(LocalDateTime.ofInstant(Instant.ofEpochMilli(entrada.epochMillis()), ZoneId.systemDefault()))
+                .stockAnterior((int) stockAnterior)
+                .stockNuevo(stockNuevo)
+                .stockResultante(stockNuevo)
+                .build();
+    }
+
+    /**
+     * Toma en el saldo el stock y el reservado del producto modificado por otra vía, al confirmar la
+     * transacción actual. Los productos sin saldo cargado se leen al registrar su próximo movimiento.
+     */
+    public void refrescarSaldoAfterCommit(Producto producto) {
+        refrescarSaldosAfterCommit(List.of(producto));
+    }
+
+    public void refrescarSaldosAfterCommit(Collection<Producto> productos) {
+        List<Producto> snapshot = List.copyOf(productos);
+        afterCommit(() -> snapshot.forEach(producto -> refrescar(EstadoProducto.of(producto))));
+    }
+
+    /**
+     * Descarta el saldo del producto eliminado; su próximo movimiento lo vuelve a buscar en la base.
+     */
+    public void descartarSaldoAfterCommit(Long productoId) {
+        afterCommit(() -> {
+            Saldo saldo = saldos.get(productoId);
+            if (saldo == null) {
+                return;
+            }
+            saldo.lock.lock();
+            try {
+                saldo.nombre = null;
+            } finally {
+                saldo.lock.unlock();
+            }
+        });
+    }
+
+    private void refrescar(EstadoProducto estado) {
+        Saldo saldo = saldos.get(estado.id());
+        if (saldo == null) {
+            return;
+        }
+        saldo.lock.lock();
+        try {
+            if (saldo.nombre == null) {
+                return;
+            }
+            if (!saldo.enAplicacion) {
+                if (estado.version() >= saldo.version) {
+                    saldo.actualizar(estado);
+                }
+            } else if (saldo.diferido == null || estado.version() > saldo.diferido.version()) {
+                saldo.diferido = estado;
+            }
+        } finally {
+            saldo.lock.unlock();
+        }
+    }
+
+    /**
+     * Aplica lotes hasta vaciar el journal; ante un error el lote actual se reintenta en la próxima ejecución.
+     */
+    void aplicarPendientes() {
+        try {
+            while (aplicarLote()) {
+                // siguiente lote
+            }
+        } catch (RuntimeException e) {
+            log.warn("Error aplicando lote del journal ({} movimientos), se reintenta: {}", lote.size(), e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    void shutdown() throws InterruptedException {
+        executor.shutdown();
+        if (!executor.awaitTermination(10, TimeUnit.SECONDS)) {
+            executor.shutdownNow();
+        }
+        aplicarPendientes();
+        journal.close();
+        log.info("MovimientoJournal detenido - Pendientes de aplicar: {}", journal.getUltimaEscrita() - journal.getCheckpoint());
+    }
+
+    /**
+     * @return false si no había movimientos pendientes
+     */
+    private boolean aplicarLote() {
+        if (lote.isEmpty()) {
+            lote = journal.leerSiguientes(batchSize);
+        }
+        if (lote.isEmpty()) {
+            return false;
+        }
+        List<JournalMovimientos.Entrada> entradas = lote;
+        aplicacion.record(() -> aplicar(entradas));
+        journal.confirmarHasta(entradas.get(entradas.size() - 1).secuencia());
+        lote = List.of();
+        return true;
+    }
+
+    private void aplicar(List<JournalMovimientos.Entrada> entradas) {
+        Map<Long, Long> aplicadosPorProducto = new HashMap<>();
+        entradas.forEach(entrada -> aplicadosPorProducto.merge(entrada.productoId(), (long) entrada.delta(), Long::sum));
+        // Hasta confirmar el lote, los refrescos de otras vías se difieren (si falla, se reintenta marcado)
+        aplicadosPorProducto.keySet().forEach(productoId -> {
+            Saldo saldo = saldos.computeIfAbsent(productoId, id -> new Saldo());
+            saldo.lock.lock();
+            try {
+                saldo.enAplicacion = true;
+            } finally {
+                saldo.lock.unlock();
+            }
+        });
+
+        // Movimientos de un lote que ya se había aplicado antes de una caída
+        Set<String> aplicadas = new HashSet<>(movimientoStockRepository.findIdempotencyKeysIn(
+                entradas.stream().map(JournalMovimientos.Entrada::clave).toList()));
+        List<JournalMovimientos.Entrada> nuevas = entradas.stream()
+                .filter(entrada -> !aplicadas.contains(entrada.clave()))
+                .toList();
+
+        if (!nuevas.isEmpty()) {
+            List<MovimientoStockService.ResultadoMovimiento> resultados = movimientoStockService.aplicarMovimientos(
+                    nuevas.stream().map(MovimientoJournal::toRequest).toList(), false);
+            List<MovimientoRechazado> rechazos = new ArrayList<>();
+            for (int i = 0; i < nuevas.size(); i++) {
+                MovimientoStockService.ResultadoMovimiento resultado = resultados.get(i);
+                if (!resultado.exitoso()) {
+                    log.error("Movimiento del journal rechazado por la base - Secuencia: {}, Producto ID: {}: {}",
+                            nuevas.get(i).secuencia(), nuevas.get(i).productoId(), resultado.error().getMessage());
+                    rechazos.add(toRechazado(nuevas.get(i), resultado.error()));
+                }
+            }
+            // Antes del checkpoint: si falla, el lote se reaplica y los rechazos se vuelven a guardar por su clave
+            if (!rechazos.isEmpty()) {
+                movimientoRechazadoRepository.saveAll(rechazos);
+                rechazados.increment(rechazos.size());
+            }
+        }
+
+        // El saldo pasa a ser el stock confirmado más lo que quedó en el journal
+        Map<Long, Producto> productos = new HashMap<>();
+        productoRepository.findAllById(aplicadosPorProducto.keySet())
+                .forEach(producto -> productos.put(producto.getId(), producto));
+        aplicadosPorProducto.forEach((productoId, delta) -> {
+            Saldo saldo = saldos.computeIfAbsent(productoId, id -> new Saldo());
+            saldo.lock.lock();
+            try {
+                saldo.pendiente -= delta;
+                Producto producto = productos.get(productoId);
+                if (producto != null) {
+                    saldo.actualizar(EstadoProducto.of(producto));
+                    if (saldo.diferido != null && saldo.diferido.version() > saldo.version) {
+                        saldo.actualizar(saldo.diferido);
+                    }
+                } else {
+                    saldos.remove(productoId, saldo);
+                }
+                saldo.enAplicacion = false;
+                saldo.diferido = null;
+            } finally {
+                saldo.lock.unlock();
+            }
+        });
+    }
+
+    private static MovimientoRechazado toRechazado(JournalMovimientos.Entrada entrada, RuntimeException error) {
+        MovimientoRechazado rechazado = new MovimientoRechazado();
+        rechazado.setIdempotencyKey(entrada.clave());
+        rechazado.setProductoId(entrada.productoId());
+        rechazado.setTipo(entrada.tipo());
+        rechazado.setCantidad(entrada.cantidad());
+        rechazado.setUsuarioId(entrada.usuarioId());
+        rechazado.setFecha(LocalDateTime.ofInstant(Instant.ofEpochMilli(entrada.epochMillis()), ZoneId.systemDefault()));
+        String motivo = String.valueOf(error.getMessage());
+        rechazado.setMotivo(motivo.length() > 500 ? motivo.substring(0, 500) : motivo);
+        return rechazado;
+    }
+
+    private static MovimientoStockRequest toRequest(JournalMovimientos.Entrada entrada) {
+        MovimientoStockRequest request = new MovimientoStockRequest();
+        request.setProductoId(entrada.productoId());
+        request.setTipo(entrada.tipo());
+        request.setCantidad(entrada.cantidad());
+        request.setIdempotencyKey(entrada.clave());
+        request.setUsuarioId(entrada.usuarioId());
+        return request;
+    }
+
+    /**
+     * Stock de la base y suma de movimientos del journal pendientes de aplicar; se accede con {@code lock}.
+     * No se usa synchronized porque la carga inicial consulta la base y fijaría el hilo virtual a su carrier.
+     */
+    private static final class Saldo {
+
+        private final ReentrantLock lock = new ReentrantLock();
+
+        private String nombre;
+        private long stock;
+        private long reservado;
+        private long version = -1;
+        private long pendiente;
+
+        // El aplicador tiene un lote del producto sin confirmar; diferido es el refresco más reciente recibido
+        private boolean enAplicacion;
+        private EstadoProducto diferido;
+
+        private void actualizar(EstadoProducto estado) {
+            this.nombre = estado.nombre();
+            this.stock = estado.stock();
+            this.reservado = estado.reservado();
+            this.version = estado.version();
+        }
+    }
+
+    /**
+     * Valores del producto al confirmar la transacción que lo modificó.
+     */
+    private record EstadoProducto(Long id, String nombre, long stock, long reservado, long version) {
+
+        static EstadoProducto of(Producto producto) {
+            return new EstadoProducto(producto.getId(), producto.getNombre(), producto.getStock(),
+                    producto.getStockReservado() != null ? producto.getStockReservado() : 0,
+                    producto.getVersion() != null ? producto.getVersion() : 0);
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.inventario.service;
+
+import com.inventario.dto.ResumenDiarioResponse;
+import com.inventario.model.MovimientoStock;
+import com.inventario.repository.MovimientoResumenRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Resumen diario de movimientos (producto, día, tipo) mantenido de forma incremental.
+ * Los reportes leen como máximo una fila por producto, día y tipo en lugar de recorrer movimientos_stock.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class MovimientoResumenService {
+    
+    private static final long MAX_DIAS = 366;
+    private static final long DIAS_POR_DEFECTO = 30;
+    
+    private static final Comparator<Clave> ORDEN_CLAVES = Comparator
+        .comparing(Clave::productoId)
+        .thenComparing(Clave::dia)
+        .thenComparing(Clave::tipo);
+    
+    private final MovimientoResumenRepository movimientoResumenRepository;
+    
+    /**
+     * Suma los movimientos ya guardados al resumen, dentro de la transacción que los registró.
+     * Agrupa primero en memoria para hacer un solo upsert por clave, en orden fijo para no
+     * bloquear filas del resumen en distinto orden que otra transacción.
+     */
+    public void acumular(Collection<MovimientoStock> movimientos) {
+        Map<Clave, long[]> totales = new TreeMap<>(ORDEN_CLAVES);
+        for (MovimientoStock movimiento : movimientos) {
+            LocalDate dia = movimiento.getFecha() != null ? movimiento.getFecha().toLocalDate() : LocalDate.now();
+            long[] total = totales.computeIfAbsent(
+                new Clave(movimiento.getProductoId(), dia, movimiento.getTipo()), clave -> new long[2]);
+            total[0] += movimiento.getCantidad();
+            total[1]++;
+        }
+        
+        totales.forEach((clave, total) -> movimientoResumenRepository.acumular(
+            clave.productoId(), clave.dia(), clave.tipo().name(), total[0], total[1]));
+    }
+    
+    @Transactional(readOnly = true)
+    public List<ResumenDiarioResponse> getResumenProducto(Long productoId, LocalDate desde, LocalDate hasta) {
+        if (productoId == null || productoId <= 0) {
+            throw new IllegalArgumentException("ProductoId debe ser positivo");
+        }
+        hasta = hasta != null ? hasta : LocalDate.now();
+        desde = desde != null ? desde : hasta.minusDays(DIAS_POR_DEFECTO);
+        validarRango(desde, hasta);
+        
+        log.info("Obteniendo resumen diario - Producto ID: {}, desde: {}, hasta: {}", productoId, desde, hasta);
+        return movimientoResumenRepository.findByProducto(productoId, desde, hasta);
+    }
+    
+    @Transactional(readOnly = true)
+    public List<ResumenDiarioResponse> getResumenCategorias(String categoria, LocalDate desde, LocalDate hasta) {
+        categoria = categoria != null && !categoria.isBlank() ? categoria.trim() : null;
+        hasta = hasta != null ? hasta : LocalDate.now();
+        desde = desde != null ? desde : hasta.minusDays(DIAS_POR_DEFECTO);
+        validarRango(desde, hasta);
+        
+        log.info("Obteniendo resumen diario por categoría - categoria: {}, desde: {}, hasta: {}", categoria, desde, hasta);
+        return movimientoResumenRepository.findByCategoria(categoria, desde, hasta);
+    }
+    
+    private void validarRango(LocalDate desde, LocalDate hasta) {
+        if (desde.isAfter(hasta)) {
+            throw new IllegalArgumentException("La fecha 'from' no puede ser posterior a 'to'");
+        }
+        if (ChronoUnit.DAYS.between(desde, hasta) > MAX_DIAS) {
+            throw new IllegalArgumentException("El rango no puede exceder " + MAX_DIAS + " días");
+        }
+    }
+    
+    private record Clave(Long productoId, LocalDate dia, MovimientoStock.TipoMovimiento tipo) {}
+}
@@ -0,0 +1,177 @@
+package com.inventario.service;
+
+import com.inventario.dto.MovimientoStockRequest;
+import com.inventario.dto.MovimientoStockResponse;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Agrupa (group commit) los movimientos que llegan casi a la vez para un mismo producto.
+ * <p>
+ * El primer movimiento de un producto abre un grupo que se cierra al vencer la ventana o al llenarse;
+ * el grupo completo se aplica con {@link MovimientoStockService#aplicarMovimientos} en una sola
+ * transacción: un bloqueo de la fila, validación en orden contra el stock acumulado, un UPDATE del
+ * producto y los inserts de movimientos juntos. Cada llamador recibe su propio resultado. Si la
+ * transacción del grupo falla, sus movimientos se reintentan uno a uno y solo falla el que lo causó.
+ * <p>
+ * Se activa con {@code movimientos.coalescing.enabled=true}.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "movimientos.coalescing.enabled", havingValue = "true")
+public class MovimientoStockCoalescer {
+
+    private final MovimientoStockService movimientoStockService;
+    private final long windowMillis;
+    private final int maxGroupSize;
+    private final ScheduledExecutorService executor;
+    private final DistributionSummary groupSizes;
+    private final ConcurrentHashMap<Long, Grupo> grupos = new ConcurrentHashMap<>();
+
+    public MovimientoStockCoalescer(
+            MovimientoStockService movimientoStockService,
+            MeterRegistry meterRegistry,
+            @Value("${movimientos.coalescing.window-millis:5}") long windowMillis,
+            @Value("${movimientos.coalescing.max-group-size:200}") int maxGroupSize,
+            @Value("${movimientos.coalescing.threads:4}") int threads) {
+        this.movimientoStockService = movimientoStockService;
+        this.windowMillis = windowMillis;
+        this.maxGroupSize = maxGroupSize;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = Executors.newScheduledThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "movimientos-coalescer-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.groupSizes = DistributionSummary.builder("movimientos.coalescing.group.size")
+                .description("Movimientos aplicados por transacción agrupada")
+                .register(meterRegistry);
+        log.info("MovimientoStockCoalescer inicializado - ventana: {}ms, maxGroupSize: {}, threads: {}",
+                windowMillis, maxGroupSize, threads);
+    }
+
+    /**
+     * Encola el movimiento en el grupo abierto de su producto.
+     */
+    public CompletableFuture<MovimientoStockResponse> enviar(MovimientoStockRequest request) {
+        if (request == null || request.getProductoId() == null) {
+            return CompletableFuture.failedFuture(new IllegalArgumentException("ProductoId no puede ser null"));
+        }
+
+        CompletableFuture<MovimientoStockResponse> future = new CompletableFuture<>();
+        Grupo[] lleno = new Grupo[1];
+
+        grupos.compute(request.getProductoId(), (productoId, grupo) -> {
+            if (grupo == null) {
+                Grupo nuevo = new Grupo(productoId);
+                executor.schedule(() -> cerrar(nuevo), windowMillis, TimeUnit.MILLISECONDS);
+                grupo = nuevo;
+            }
+            grupo.pendientes().add(new Pendiente(request, future));
+            if (grupo.pendientes().size() >= maxGroupSize) {
+                lleno[0] = grupo;
+                return null;
+            }
+            return grupo;
+        });
+
+        if (lleno[0] != null) {
+            executor.execute(() -> aplicar(lleno[0]));
+        }
+        return future;
+    }
+
+    /**
+     * Variante bloqueante de {@link #enviar}; propaga la misma excepción que el registro individual.
+     */
+    public MovimientoStockResponse registrar(MovimientoStockRequest request) {
+        try {
+            return enviar(request).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private void cerrar(Grupo grupo) {
+        // Si el grupo se llenó antes de la ventana ya fue retirado y aplicado
+        if (grupos.remove(grupo.productoId(), grupo)) {
+            aplicar(grupo);
+        }
+    }
+
+    private void aplicar(Grupo grupo) {
+        List<Pendiente> pendientes = grupo.pendientes();
+        groupSizes.record(pendientes.size());
+
+        try {
+            List<MovimientoStockService.ResultadoMovimiento> resultados = movimientoStockService.aplicarMovimientos(
+                    pendientes.stream().map(Pendiente::request).toList(), false);
+
+            for (int i = 0; i < pendientes.size(); i++) {
+                MovimientoStockService.ResultadoMovimiento resultado = resultados.get(i);
+                if (resultado.exitoso()) {
+                    pendientes.get(i).future().complete(resultado.movimiento());
+                } else {
+                    pendientes.get(i).future().completeExceptionally(resultado.error());
+                }
+            }
+        } catch (RuntimeException e) {
+            if (pendientes.size() == 1) {
+                pendientes.get(0).future().completeExceptionally(e);
+                return;
+            }
+            // La transacción del grupo se revirtió entera: un miembro inválido no debe arrastrar al resto
+            log.warn("Error aplicando grupo de {} movimientos - Producto ID: {}, se reintentan uno a uno: {}",
+                    pendientes.size(), grupo.productoId(), e.getMessage());
+            pendientes.forEach(this::aplicarIndividual);
+        }
+    }
+
+    private void aplicarIndividual(Pendiente pendiente) {
+        try {
+            pendiente.future().complete(movimientoStockService.registrarMovimiento(pendiente.request()));
+        } catch (RuntimeException e) {
+            pendiente.future().completeExceptionally(e);
+        }
+    }
+
+    /**
+     * Los grupos ya programados se aplican antes de detener el executor.
+     */
+    @PreDestroy
+    void shutdown() throws InterruptedException {
+        executor.shutdown();
+        if (!executor.awaitTermination(10, TimeUnit.SECONDS)) {
+            log.warn("MovimientoStockCoalescer detenido con grupos pendientes");
+            executor.shutdownNow();
+        }
+    }
+
+    // La lista solo se modifica dentro de grupos.compute, antes de que el grupo se retire del mapa
+    private record Grupo(Long productoId, List<Pendiente> pendientes) {
+
+        Grupo(Long productoId) {
+            this(productoId, new ArrayList<>());
+        }
+    }
+
+    private record Pendiente(MovimientoStockRequest request, CompletableFuture<MovimientoStockResponse> future) {}
+}
@@ -1,5 +1,10 @@
 package com.inventario.service;
 
+import com.inventario.config.RetryOnOptimisticLock;
+import com.inventario.dto.CursorPageResponse;
+import com.inventario.dto.MovimientoCursor;
+import com.inventario.dto.MovimientoStockBatchRequest;
+import com.inventario.dto.MovimientoStockBatchResponse;
 import com.inventario.dto.MovimientoStockRequest;
 import com.inventario.dto.MovimientoStockResponse;
 import com.inventario.exception.ResourceNotFoundException;
@@ -9,11 +14,25 @@ import com.inventario.repository.MovimientoStockRepository;
 import com.inventario.repository.ProductoRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.validation.annotation.Validated;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -23,9 +42,25 @@ public class MovimientoStockService {
     
     private final MovimientoStockRepository movimientoStockRepository;
     private final ProductoRepository productoRepository;
+    private final ProductoCache productoCache;
+    private final ProductoListadoCache productoListadoCache;
+    private final MovimientoResumenService movimientoResumenService;
+    private final MovimientoArchivoService movimientoArchivoService;
+    
+    // Solo existe con movimientos.journal.enabled=true
+    private final ObjectProvider<MovimientoJournal> movimientoJournal;
     
     private static final int MAX_STOCK_VALUE = Integer.MAX_VALUE - 1000000;
+    private static final int MAX_PAGE_SIZE = 100;
+    
+    /**
+     * true: UPDATE condicional de una sola sentencia (sin conflictos de versión entre movimientos).
+     * false: lectura, cálculo en memoria y guardado con bloqueo optimista.
+     */
+    @Value("${movimientos.actualizacion-atomica:true}")
+    private boolean actualizacionAtomica;
     
+    @RetryOnOptimisticLock
     @Transactional
     public MovimientoStockResponse registrarMovimiento(MovimientoStockRequest request) {
         validateRequest(request);
@@ -37,20 +72,29 @@ public class MovimientoStockService {
                      sanitizeForLog(request.getCantidad()));
         }
         
+        if (actualizacionAtomica) {
+            return registrarMovimientoAtomico(request);
+        }
+        
         Producto producto = productoRepository.findById(request.getProductoId())
             .orElseThrow(() -> new ResourceNotFoundException("Producto", "id", request.getProductoId()));
         
         int stockActual = producto.getStock();
         int cantidad = request.getCantidad();
-        int nuevoStock = calcularNuevoStock(stockActual, cantidad, request.getTipo());
+        int nuevoStock = calcularNuevoStock(stockActual, producto.getStockReservado(), cantidad, request.getTipo());
         
         validarOverflow(nuevoStock);
         
-        MovimientoStock movimiento = crearMovimiento(producto.getId(), request.getTipo(), cantidad);
+        MovimientoStock movimiento = crearMovimiento(producto.getId(), request.getTipo(), cantidad, request.getIdempotencyKey(),
+            request.getUsuarioId());
         MovimientoStock savedMovimiento = movimientoStockRepository.save(movimiento);
+        movimientoResumenService.acumular(List.of(savedMovimiento));
         
         producto.setStock(nuevoStock);
         productoRepository.save(producto);
+        productoCache.putAfterCommit(producto);
+        productoListadoCache.invalidateAfterCommit();
+        movimientoJournal.ifAvailable(journal -> journal.refrescarSaldoAfterCommit(producto));
         
         if (log.isInfoEnabled()) {
             log.info("Movimiento registrado exitosamente - Producto ID: {}, Stock anterior: {}, Stock nuevo: {}", 
@@ -60,6 +104,297 @@ public class MovimientoStockService {
         return MovimientoStockResponse.fromEntity(savedMovimiento, producto.getNombre(), stockActual, nuevoStock);
     }
     
+    /**
+     * Aplica el movimiento con un único UPDATE condicional y relee la fila ya bloqueada por esta
+     * transacción; el stock anterior se deduce de la cantidad aplicada.
+     */
+    private MovimientoStockResponse registrarMovimientoAtomico(MovimientoStockRequest request) {
+        Long productoId = request.getProductoId();
+        MovimientoStock.TipoMovimiento tipo = request.getTipo();
+        int cantidad = request.getCantidad();
+        
+        int actualizados = tipo == MovimientoStock.TipoMovimiento.ENTRADA
+            ? productoRepository.incrementarStock(productoId, cantidad, MAX_STOCK_VALUE)
+            : productoRepository.decrementarStock(productoId, cantidad);
+        
+        Producto producto = productoRepository.findById(productoId)
+            .orElseThrow(() -> new ResourceNotFoundException("Producto", "id", productoId));
+        
+        if (actualizados == 0) {
+            // Mismo error que el cálculo en memoria; si el stock leído ya admite la operación,
+            // otra transacción lo modificó entre ambas sentencias
+            calcularNuevoStock(producto.getStock(), producto.getStockReservado(), cantidad, tipo);
+            throw new ObjectOptimisticLockingFailureException(Producto.class, productoId);
+        }
+        
+        int nuevoStock = producto.getStock();
+        int stockActual = tipo == MovimientoStock.TipoMovimiento.ENTRADA ? nuevoStock - cantidad : nuevoStock + cantidad;
+        
+        MovimientoStock savedMovimiento = movimientoStockRepository.save(
+            crearMovimiento(productoId, tipo, cantidad, request.getIdempotencyKey(), request.getUsuarioId()));
+        movimientoResumenService.acumular(List.of(savedMovimiento));
+        productoCache.putAfterCommit(producto);
+        productoListadoCache.invalidateAfterCommit();
+        movimientoJournal.ifAvailable(journal -> journal.refrescarSaldoAfterCommit(producto));
+        
+        if (log.isInfoEnabled()) {
+            log.info("Movimiento registrado exitosamente - Producto ID: {}, Stock anterior: {}, Stock nuevo: {}", 
+                     sanitizeForLog(productoId), stockActual, nuevoStock);
+        }
+        
+        return MovimientoStockResponse.fromEntity(savedMovimiento, producto.getNombre(), stockActual, nuevoStock);
+    }
+    
+    /**
+     * Registra un lote de movimientos en una sola transacción (ver {@link #aplicarMovimientos}).
+     */
+    @Transactional
+    public MovimientoStockBatchResponse registrarMovimientosBatch(MovimientoStockBatchRequest batch) {
+        if (batch == null || batch.getMovimientos() == null || batch.getMovimientos().isEmpty()) {
+            throw new IllegalArgumentException("El lote debe incluir al menos un movimiento");
+        }
+        
+        boolean todoONada = batch.isTodoONada();
+        log.info("Registrando lote de {} movimientos de stock - todoONada: {}", batch.getMovimientos().size(), todoONada);
+        
+        List<ResultadoMovimiento> aplicados = aplicarMovimientos(batch.getMovimientos(), todoONada);
+        
+        List<MovimientoStockBatchResponse.Resultado> resultados = new ArrayList<>(aplicados.size());
+        int exitosos = 0;
+        for (int i = 0; i < aplicados.size(); i++) {
+            ResultadoMovimiento aplicado = aplicados.get(i);
+            if (aplicado.exitoso()) {
+                resultados.add(MovimientoStockBatchResponse.Resultado.exitoso(i, aplicado.movimiento()));
+                exitosos++;
+            } else {
+                resultados.add(MovimientoStockBatchResponse.Resultado.fallido(i, aplicado.error().getMessage()));
+            }
+        }
+        
+        log.info("Lote registrado - Exitosos: {}, Fallidos: {}", exitosos, aplicados.size() - exitosos);
+        
+        return MovimientoStockBatchResponse.builder()
+            .todoONada(todoONada)
+            .exitosos(exitosos)
+            .fallidos(aplicados.size() - exitosos)
+            .resultados(resultados)
+            .build();
+    }
+    
+    /**
+     * Aplica varios movimientos en la transacción actual (o en una nueva).
+     * <p>
+     * Los productos involucrados se bloquean juntos en orden ascendente de ID y los movimientos se
+     * aplican en memoria en el orden recibido, validando cada uno contra el stock acumulado.
+     * Los movimientos se insertan con un único saveAll y cada producto se actualiza una sola vez al confirmar.
+     *
+     * @param todoONada true: el primer movimiento inválido lanza excepción y revierte todo;
+     *                  false: los inválidos se informan en su resultado y el resto se aplica
+     * @return un resultado por movimiento, en el mismo orden recibido
+     */
+    @Transactional
+    public List<ResultadoMovimiento> aplicarMovimientos(List<MovimientoStockRequest> requests, boolean todoONada) {
+        List<Long> ids = requests.stream()
+            .filter(Objects::nonNull)
+            .map(MovimientoStockRequest::getProductoId)
+            .filter(Objects::nonNull)
+            .distinct()
+            .sorted()
+            .toList();
+        Map<Long, Producto> productos = ids.isEmpty() ? Map.of() : productoRepository.findAllByIdForUpdate(ids)
+            .stream()
+            .collect(Collectors.toMap(Producto::getId, Function.identity()));
+        
+        ResultadoMovimiento[] resultados = new ResultadoMovimiento[requests.size()];
+        List<MovimientoPendiente> pendientes = new ArrayList<>();
+        Set<String> idempotencyKeys = new HashSet<>();
+        
+        for (int i = 0; i < requests.size(); i++) {
+            MovimientoStockRequest request = requests.get(i);
+            if (request != null && request.getIdempotencyKey() != null && !idempotencyKeys.add(request.getIdempotencyKey())) {
+                // Reintento agrupado con el original: se resuelve contra el movimiento ya confirmado
+                resultados[i] = new ResultadoMovimiento(null,
+                    new DuplicateKeyException("Idempotency-Key repetida en el grupo"));
+                continue;
+            }
+            try {
+                validateRequest(request);
+                Producto producto = productos.get(request.getProductoId());
+                if (producto == null) {
+                    throw new ResourceNotFoundException("Producto", "id", request.getProductoId());
+                }
+                
+                int stockActual = producto.getStock();
+                int nuevoStock = calcularNuevoStock(
+                    stockActual, producto.getStockReservado(), request.getCantidad(), request.getTipo());
+                producto.setStock(nuevoStock);
+                
+                MovimientoStock movimiento = crearMovimiento(
+                    producto.getId(), request.getTipo(), request.getCantidad(), request.getIdempotencyKey(),
+                    request.getUsuarioId());
+                pendientes.add(new MovimientoPendiente(i, movimiento, producto, stockActual, nuevoStock));
+            } catch (IllegalArgumentException | ResourceNotFoundException e) {
+                if (todoONada) {
+                    throw new IllegalArgumentException("Movimiento #" + i + ": " + e.getMessage(), e);
+                }
+                resultados[i] = new ResultadoMovimiento(null, e);
+            }
+        }
+        
+        List<MovimientoStock> guardados = movimientoStockRepository.saveAll(
+            pendientes.stream().map(MovimientoPendiente::movimiento).toList()
+        );
+        
+        for (int j = 0; j < pendientes.size(); j++) {
+            MovimientoPendiente pendiente = pendientes.get(j);
+            resultados[pendiente.indice()] = new ResultadoMovimiento(
+                MovimientoStockResponse.fromEntity(guardados.get(j), pendiente.producto().getNombre(),
+                    pendiente.stockAnterior(), pendiente.stockNuevo()),
+                null
+            );
+        }
+        
+        if (!pendientes.isEmpty()) {
+            movimientoResumenService.acumular(guardados);
+            List<Producto> modificados = pendientes.stream().map(MovimientoPendiente::producto).distinct().toList();
+            productoCache.putAllAfterCommit(modificados);
+            productoListadoCache.invalidateAfterCommit();
+            movimientoJournal.ifAvailable(journal -> journal.refrescarSaldosAfterCommit(modificados));
+        }
+        
+        return List.of(resultados);
+    }
+    
+    /**
+     * Movimiento registrado con la Idempotency-Key dada. El stock anterior y nuevo no se
+     * conservan en el movimiento, por lo que la respuesta los devuelve vacíos.
+     */
+    @Transactional(readOnly = true)
+    public Optional<MovimientoStockResponse> buscarPorIdempotencyKey(String idempotencyKey) {
+        return movimientoStockRepository.findByIdempotencyKey(idempotencyKey)
+            .map(movimiento -> MovimientoStockResponse.fromEntity(
+                movimiento,
+                productoRepository.findById(movimiento.getProductoId()).map(Producto::getNombre).orElse(null),
+                null,
+                null
+            ));
+    }
+    
+    /**
+     * Historial de movimientos de un producto paginado por cursor, del más reciente al más antiguo.
+     * Cada página lee como máximo {@code size + 1} filas sin importar el largo del historial.
+     */
+    @Transactional(readOnly = true)
+    public CursorPageResponse<MovimientoStockResponse> getHistorial(
+            Long productoId,
+            LocalDateTime desde,
+            LocalDateTime hasta,
+            String cursor,
+            int size
+    ) {
+        if (productoId == null || productoId <= 0) {
+            throw new IllegalArgumentException("ProductoId debe ser positivo");
+        }
+        if (desde != null && hasta != null && !desde.isBefore(hasta)) {
+            throw new IllegalArgumentException("La fecha 'from' debe ser anterior a 'to'");
+        }
+        size = Math.min(Math.max(1, size), MAX_PAGE_SIZE);
+        
+        Producto producto = productoRepository.findById(productoId)
+            .orElseThrow(() -> new ResourceNotFoundException("Producto", "id", productoId));
+        
+        MovimientoCursor after = cursor != null && !cursor.isBlank() ? MovimientoCursor.decode(cursor.trim()) : null;
+        
+        List<MovimientoStock> movimientos = movimientoStockRepository.findHistorial(
+            productoId, desde, hasta,
+            after != null ? after.fecha() : null,
+            after != null ? after.id() : null,
+            PageRequest.of(0, size + 1)
+        );
+        
+        if (movimientos.size() <= size) {
+            // La base se agotó: el historial continúa en los segmentos archivados, que son más antiguos
+            MovimientoStock ultimo = movimientos.isEmpty() ? null : movimientos.get(movimientos.size() - 1);
+            List<MovimientoStock> archivados = movimientoArchivoService.leer(
+                productoId, desde, hasta,
+                ultimo != null ? ultimo.getFecha() : after != null ? after.fecha() : null,
+                ultimo != null ? ultimo.getId() : after != null ? after.id() : null,
+                size + 1 - movimientos.size()
+            );
+            if (!archivados.isEmpty()) {
+                movimientos = new ArrayList<>(movimientos);
+                movimientos.addAll(archivados);
+            }
+        }
+        
+        boolean hasNext = movimientos.size() > size;
+        List<MovimientoStock> pagina = hasNext ? movimientos.subList(0, size) : movimientos;
+        
+        List<MovimientoStockResponse> content = pagina.stream()
+            .map(movimiento -> MovimientoStockResponse.fromEntity(movimiento, producto.getNombre(), null, null))
+            .toList();
+        
+        String nextCursor = null;
+        if (hasNext) {
+            MovimientoStock ultimo = pagina.get(pagina.size() - 1);
+            nextCursor = new MovimientoCursor(ultimo.getFecha(), ultimo.getId()).encode();
+        }
+        
+        return new CursorPageResponse<>(content, size, nextCursor, hasNext);
+    }
+    
+    /**
+     * Movimientos de un usuario en todos los productos, del más reciente al más antiguo. Solo incluye
+     * los movimientos todavía en la base: los segmentos archivados están organizados por producto.
+     */
+    @Transactional(readOnly = true)
+    public CursorPageResponse<MovimientoStockResponse> getActividadUsuario(
+            Long usuarioId,
+            LocalDateTime desde,
+            LocalDateTime hasta,
+            String cursor,
+            int size
+    ) {
+        if (usuarioId == null || usuarioId <= 0) {
+            throw new IllegalArgumentException("UsuarioId debe ser positivo");
+        }
+        if (desde != null && hasta != null && !desde.isBefore(hasta)) {
+            throw new IllegalArgumentException("La fecha 'from' debe ser anterior a 'to'");
+        }
+        size = Math.min(Math.max(1, size), MAX_PAGE_SIZE);
+        
+        MovimientoCursor after = cursor != null && !cursor.isBlank() ? MovimientoCursor.decode(cursor.trim()) : null;
+        
+        List<MovimientoStock> movimientos = movimientoStockRepository.findActividadUsuario(
+            usuarioId, desde, hasta,
+            after != null ? after.fecha() : null,
+            after != null ? after.id() : null,
+            PageRequest.of(0, size + 1)
+        );
+        
+        boolean hasNext = movimientos.size() > size;
+        List<MovimientoStock> pagina = hasNext ? movimientos.subList(0, size) : movimientos;
+        
+        // Nombres de todos los productos de la página en una sola consulta
+        Map<Long, String> nombres = pagina.isEmpty() ? Map.of() : productoRepository.findAllById(
+                pagina.stream().map(MovimientoStock::getProductoId).distinct().toList())
+            .stream()
+            .collect(Collectors.toMap(Producto::getId, Producto::getNombre));
+        
+        List<MovimientoStockResponse> content = pagina.stream()
+            .map(movimiento -> MovimientoStockResponse.fromEntity(
+                movimiento, nombres.get(movimiento.getProductoId()), null, null))
+            .toList();
+        
+        String nextCursor = null;
+        if (hasNext) {
+            MovimientoStock ultimo = pagina.get(pagina.size() - 1);
+            nextCursor = new MovimientoCursor(ultimo.getFecha(), ultimo.getId()).encode();
+        }
+        
+        return new CursorPageResponse<>(content, size, nextCursor, hasNext);
+    }
+    
     private void validateRequest(MovimientoStockRequest request) {
         if (request == null) {
             throw new IllegalArgumentException("Request no puede ser null");
@@ -87,7 +422,10 @@ public class MovimientoStockService {
         }
     }
     
-    private int calcularNuevoStock(int stockActual, int cantidad, MovimientoStock.TipoMovimiento tipo) {
+    /**
+     * Las salidas no pueden tomar unidades retenidas por reservas activas.
+     */
+    private int calcularNuevoStock(int stockActual, Integer stockReservado, int cantidad, MovimientoStock.TipoMovimiento tipo) {
         int nuevoStock;
         
         if (tipo == MovimientoStock.TipoMovimiento.ENTRADA) {
@@ -100,9 +438,10 @@ public class MovimientoStockService {
             }
             nuevoStock = stockActual + cantidad;
         } else if (tipo == MovimientoStock.TipoMovimiento.SALIDA) {
-            if (stockActual < cantidad) {
+            int disponible = stockReservado != null ? stockActual - stockReservado : stockActual;
+            if (disponible < cantidad) {
                 throw new IllegalArgumentException(
-                    String.format("Stock insuficiente. Disponible: %d, Solicitado: %d", stockActual, cantidad)
+                    String.format("Stock insuficiente. Disponible: %d, Solicitado: %d", disponible, cantidad)
                 );
             }
             nuevoStock = stockActual - cantidad;
@@ -119,14 +458,35 @@ public class MovimientoStockService {
         }
     }
     
-    private MovimientoStock crearMovimiento(Long productoId, MovimientoStock.TipoMovimiento tipo, int cantidad) {
+    private MovimientoStock crearMovimiento(Long productoId, MovimientoStock.TipoMovimiento tipo, int cantidad,
+                                            String idempotencyKey, Long usuarioId) {
         MovimientoStock movimiento = new MovimientoStock();
         movimiento.setProductoId(productoId);
         movimiento.setTipo(tipo);
         movimiento.setCantidad(cantidad);
+        movimiento.setIdempotencyKey(idempotencyKey);
+        movimiento.setUsuarioId(usuarioId);
         return movimiento;
     }
     
+    /**
+     * Resultado individual de {@link #aplicarMovimientos}: el movimiento registrado o el error que lo rechazó.
+     */
+    public record ResultadoMovimiento(MovimientoStockResponse movimiento, RuntimeException error) {
+        
+        public boolean exitoso() {
+            return error == null;
+        }
+    }
+    
+    private record MovimientoPendiente(
+        int indice,
+        MovimientoStock movimiento,
+        Producto producto,
+        int stockAnterior,
+        int stockNuevo
+    ) {}
+    
     private Object sanitizeForLog(Object value) {
         if (value == null) {
             return "null";
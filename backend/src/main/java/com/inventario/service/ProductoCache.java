@@ -0,0 +1,93 @@
+package com.inventario.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.inventario.dto.ProductoResponse;
+import com.inventario.model.Producto;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+import static com.inventario.util.TransactionCallbacks.afterCommit;
+
+/**
+ * Caché en memoria de productos por ID, acotada por tamaño y TTL.
+ * <p>
+ * Las escrituras se aplican recién al confirmar la transacción (write-through post-commit) y
+ * usan la columna {@code version}: una entrada solo se reemplaza por otra de versión igual o mayor,
+ * así una lectura lenta no puede pisar el estado que dejó una escritura posterior.
+ * Los productos eliminados quedan como lápida hasta que expiran, por la misma razón.
+ * Métricas en /actuator/metrics/cache.gets, cache.evictions, etc. con tag {@code cache=productos}.
+ */
+@Slf4j
+@Component
+public class ProductoCache {
+
+    private static final String CACHE_NAME = "productos";
+    private static final long TOMBSTONE_VERSION = Long.MAX_VALUE;
+
+    private final Cache<Long, CachedProducto> cache;
+
+    public ProductoCache(
+            MeterRegistry meterRegistry,
+            @Value("${productos.cache.maximum-size:10000}") long maximumSize,
+            @Value("${productos.cache.ttl-seconds:300}") long ttlSeconds) {
+        this.cache = CaffeineCacheMetrics.monitor(
+                meterRegistry,
+                Caffeine.newBuilder()
+                        .maximumSize(maximumSize)
+                        .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                        .recordStats()
+                        .<Long, CachedProducto>build(),
+                CACHE_NAME
+        );
+        log.info("ProductoCache inicializada - maximumSize: {}, ttl: {}s", maximumSize, ttlSeconds);
+    }
+
+    public Optional<ProductoResponse> get(Long id) {
+        CachedProducto cached = cache.getIfPresent(id);
+        return cached != null ? Optional.ofNullable(cached.producto()) : Optional.empty();
+    }
+
+    /**
+     * Guarda el estado leído de la base de datos, salvo que ya exista una versión más nueva.
+     */
+    public void put(Producto producto) {
+        CachedProducto candidate = new CachedProducto(ProductoResponse.fromEntity(producto), versionOf(producto));
+        cache.asMap().merge(producto.getId(), candidate,
+                (current, incoming) -> incoming.version() >= current.version() ? incoming : current);
+    }
+
+    /**
+     * Publica el estado de la entidad cuando la transacción actual confirme.
+     * Se lee la entidad en ese momento para tomar la versión ya incrementada por el flush.
+     */
+    public void putAfterCommit(Producto producto) {
+        afterCommit(() -> put(producto));
+    }
+
+    public void putAllAfterCommit(Collection<Producto> productos) {
+        List<Producto> snapshot = List.copyOf(productos);
+        afterCommit(() -> snapshot.forEach(this::put));
+    }
+
+    public void evictAfterCommit(Long id) {
+        afterCommit(() -> cache.put(id, new CachedProducto(null, TOMBSTONE_VERSION)));
+    }
+
+    private long versionOf(Producto producto) {
+        return producto.getVersion() != null ? producto.getVersion() : 0L;
+    }
+
+    /**
+     * @param producto null para lápidas de productos eliminados
+     */
+    private record CachedProducto(ProductoResponse producto, long version) {}
+}
@@ -0,0 +1,67 @@
+package com.inventario.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.inventario.dto.PageResponse;
+import com.inventario.dto.ProductoResponse;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import static com.inventario.util.TransactionCallbacks.afterCommit;
+
+/**
+ * Caché de resultados del listado paginado de productos.
+ * <p>
+ * Cada entrada queda asociada a la generación del catálogo vigente al empezar la consulta.
+ * Cualquier escritura de productos incrementa la generación al confirmar, con lo que todas
+ * las entradas anteriores dejan de ser alcanzables sin recorrer la caché; el tamaño y el TTL
+ * las terminan de eliminar. Consultas idénticas simultáneas se resuelven con una sola lectura.
+ */
+@Slf4j
+@Component
+public class ProductoListadoCache {
+
+    private static final String CACHE_NAME = "productos-listado";
+
+    private final AtomicLong generation = new AtomicLong();
+    private final Cache<Key, PageResponse<ProductoResponse>> cache;
+
+    public ProductoListadoCache(
+            MeterRegistry meterRegistry,
+            @Value("${productos.listado-cache.maximum-size:500}") long maximumSize,
+            @Value("${productos.listado-cache.ttl-seconds:60}") long ttlSeconds) {
+        this.cache = CaffeineCacheMetrics.monitor(
+                meterRegistry,
+                Caffeine.newBuilder()
+                        .maximumSize(maximumSize)
+                        .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                        .recordStats()
+                        .<Key, PageResponse<ProductoResponse>>build(),
+                CACHE_NAME
+        );
+        log.info("ProductoListadoCache inicializada - maximumSize: {}, ttl: {}s", maximumSize, ttlSeconds);
+    }
+
+    /**
+     * @param query parámetros normalizados del listado (deben implementar equals/hashCode)
+     */
+    public PageResponse<ProductoResponse> get(Object query, Supplier<PageResponse<ProductoResponse>> loader) {
+        return cache.get(new Key(generation.get(), query), key -> loader.get());
+    }
+
+    /**
+     * Invalida todos los listados cuando la transacción actual confirme.
+     */
+    public void invalidateAfterCommit() {
+        afterCommit(generation::incrementAndGet);
+    }
+
+    private record Key(long generation, Object query) {}
+}
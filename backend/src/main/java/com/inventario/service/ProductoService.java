@@ -1,22 +1,29 @@
 package com.inventario.service;
 
 import com.inventario.client.FakeStoreClient;
+import com.inventario.config.RetryOnOptimisticLock;
+import com.inventario.dto.CursorPageResponse;
 import com.inventario.dto.FakeStoreProductDto;
 import com.inventario.dto.PageResponse;
+import com.inventario.dto.ProductoCursor;
 import com.inventario.dto.ProductoRequest;
 import com.inventario.dto.ProductoResponse;
+import com.inventario.dto.SliceResponse;
 import com.inventario.exception.ResourceNotFoundException;
 import com.inventario.exception.DuplicateResourceException;
 import com.inventario.model.Producto;
 import com.inventario.repository.ProductoRepository;
-import lombok.RequiredArgsConstructor;
+import com.inventario.util.FullTextSearch;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.util.HtmlUtils;
 
@@ -24,11 +31,11 @@ import java.math.BigDecimal;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
+import java.util.Optional;
 import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
-@RequiredArgsConstructor
 @Slf4j
 @Validated
 public class ProductoService {
@@ -37,14 +44,45 @@ public class ProductoService {
     private static final Set<String> ALLOWED_SORT_FIELDS = Set.of(
         "id", "nombre", "categoria", "proveedor", "precio", "stock", DEFAULT_SORT_FIELD
     );
+    private static final String RELEVANCE_SORT_FIELD = "relevancia";
     private static final String DEFAULT_SORT_DIR = "desc";
     private static final int MAX_PAGE_SIZE = 100;
     private static final int MAX_SYNC_BATCH_SIZE = 1000;
     
     private final ProductoRepository productoRepository;
     private final FakeStoreClient fakeStoreClient;
+    private final ApproximateCountCache approximateCountCache;
+    private final ProductoCache productoCache;
+    private final ProductoListadoCache productoListadoCache;
+    // Solo existe con movimientos.journal.enabled=true
+    private final ObjectProvider<MovimientoJournal> movimientoJournal;
+    private final TransactionTemplate transactionTemplate;
+    // Lecturas que no se resolvieron desde caché: los aciertos no toman conexión del pool
+    private final TransactionTemplate readOnlyTransactionTemplate;
     
-    @Transactional(readOnly = true)
+    public ProductoService(
+            ProductoRepository productoRepository,
+            FakeStoreClient fakeStoreClient,
+            ApproximateCountCache approximateCountCache,
+            ProductoCache productoCache,
+            ProductoListadoCache productoListadoCache,
+            ObjectProvider<MovimientoJournal> movimientoJournal,
+            TransactionTemplate transactionTemplate) {
+        this.productoRepository = productoRepository;
+        this.fakeStoreClient = fakeStoreClient;
+        this.approximateCountCache = approximateCountCache;
+        this.productoCache = productoCache;
+        this.productoListadoCache = productoListadoCache;
+        this.movimientoJournal = movimientoJournal;
+        this.transactionTemplate = transactionTemplate;
+        this.readOnlyTransactionTemplate = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        this.readOnlyTransactionTemplate.setReadOnly(true);
+    }
+    
+    /**
+     * Sin transacción propia: los aciertos de {@link ProductoListadoCache} no tocan MySQL; solo la carga
+     * de un miss corre en una transacción de lectura.
+     */
     public PageResponse<ProductoResponse> getAllProductos(
             String search,
             String categoria,
@@ -56,20 +94,153 @@ public class ProductoService {
         log.info("Obteniendo productos - search: {}, categoria: {}, page: {}, size: {}", 
                  search, categoria, page, size);
         
+        ListadoQuery query = buildListadoQuery(search, categoria, page, size, sortBy, sortDir);
+        
+        PageResponse<ProductoResponse> response = productoListadoCache.get(query, () -> readOnlyTransactionTemplate.execute(status -> {
+            Page<ProductoResponse> productosPage;
+            if (query.fullTextQuery() == null) {
+                productosPage = productoRepository.findByFilters(query.search(), query.categoria(), query.pageable());
+            } else if (query.byRelevance()) {
+                productosPage = productoRepository.searchByNombreOrderByRelevance(
+                    query.fullTextQuery(), query.categoria(), query.pageable()
+                );
+            } else {
+                productosPage = productoRepository.searchByNombre(
+                    query.fullTextQuery(), query.categoria(), query.pageable()
+                );
+            }
+            return PageResponse.fromPage(productosPage);
+        }));
+        
+        log.info("Encontrados {} productos", response.getTotalElements());
+        return response;
+    }
+    
+    /**
+     * Listado sin COUNT(*): solo calcula hasNext. Con {@code includeTotal} agrega el total
+     * aproximado cacheado, que se recalcula en segundo plano y puede ser null en la primera consulta.
+     */
+    @Transactional(readOnly = true)
+    public SliceResponse<ProductoResponse> getProductosSlice(
+            String search,
+            String categoria,
+            int page,
+            int size,
+            String sortBy,
+            String sortDir,
+            boolean includeTotal
+    ) {
+        log.info("Obteniendo productos (slice) - search: {}, categoria: {}, page: {}, size: {}", 
+                 search, categoria, page, size);
+        
+        ListadoQuery query = buildListadoQuery(search, categoria, page, size, sortBy, sortDir);
+        
+        Slice<ProductoResponse> productosSlice;
+        if (query.fullTextQuery() == null) {
+            productosSlice = productoRepository.findSliceByFilters(query.search(), query.categoria(), query.pageable());
+        } else if (query.byRelevance()) {
+            productosSlice = productoRepository.searchSliceByNombreOrderByRelevance(
+                query.fullTextQuery(), query.categoria(), query.pageable()
+            );
+        } else {
+            productosSlice = productoRepository.searchSliceByNombre(
+                query.fullTextQuery(), query.categoria(), query.pageable()
+            );
+        }
+        
+        Long approximateTotal = includeTotal ? approximateTotal(query) : null;
+        
+        log.info("Encontrados {} productos, hasNext: {}", productosSlice.getNumberOfElements(), productosSlice.hasNext());
+        return SliceResponse.fromSlice(productosSlice, approximateTotal);
+    }
+    
+    private Long approximateTotal(ListadoQuery query) {
+        CountQuery key = new CountQuery(query.search(), query.categoria());
+        if (query.fullTextQuery() == null) {
+            return approximateCountCache.get(key,
+                () -> productoRepository.countByFilters(query.search(), query.categoria()));
+        }
+        return approximateCountCache.get(key,
+            () -> productoRepository.countSearchByNombre(query.fullTextQuery(), query.categoria()));
+    }
+    
+    /**
+     * Clave de {@link ApproximateCountCache}: el total no depende de la página ni del orden.
+     */
+    private record CountQuery(String search, String categoria) {}
+    
+    private ListadoQuery buildListadoQuery(
+            String search, String categoria, int page, int size, String sortBy, String sortDir) {
         search = normalizeSearch(search);
+        categoria = normalizeSearch(categoria);
         page = Math.max(0, page);
-        size = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
-        sortBy = ALLOWED_SORT_FIELDS.contains(sortBy) ? sortBy : DEFAULT_SORT_FIELD;
-        sortDir = DEFAULT_SORT_DIR.equalsIgnoreCase(sortDir) ? DEFAULT_SORT_DIR : "asc";
+        size = normalizeSize(size);
+        String fullTextQuery = FullTextSearch.toBooleanQuery(search);
+        
+        if (fullTextQuery != null && RELEVANCE_SORT_FIELD.equals(sortBy)) {
+            return new ListadoQuery(search, fullTextQuery, categoria, PageRequest.of(page, size), true);
+        }
+        
+        Sort sort = Sort.by(Sort.Direction.fromString(normalizeSortDir(sortDir).toUpperCase()), normalizeSortBy(sortBy));
+        return new ListadoQuery(search, fullTextQuery, categoria, PageRequest.of(page, size, sort), false);
+    }
+    
+    /**
+     * Parámetros de listado ya normalizados; también es la clave de {@link ProductoListadoCache}.
+     * {@code fullTextQuery} es null cuando la búsqueda debe resolverse con LIKE;
+     * con {@code byRelevance} el orden lo define la propia consulta.
+     */
+    private record ListadoQuery(
+        String search,
+        String fullTextQuery,
+        String categoria,
+        Pageable pageable,
+        boolean byRelevance
+    ) {}
+    
+    /**
+     * Listado por cursor (keyset): busca a partir de la última fila leída usando el índice
+     * del campo de orden, por lo que el costo no crece con la profundidad de la página.
+     */
+    @Transactional(readOnly = true)
+    public CursorPageResponse<ProductoResponse> getProductosByCursor(
+            String search,
+            String categoria,
+            String cursor,
+            int size,
+            String sortBy,
+            String sortDir
+    ) {
+        log.info("Obteniendo productos por cursor - search: {}, categoria: {}, size: {}", 
+                 search, categoria, size);
+        
+        search = normalizeSearch(search);
+        categoria = normalizeSearch(categoria);
+        size = normalizeSize(size);
+        sortBy = normalizeSortBy(sortBy);
+        sortDir = normalizeSortDir(sortDir);
+        
+        ProductoCursor after = null;
+        if (cursor != null && !cursor.isBlank()) {
+            after = ProductoCursor.decode(cursor.trim());
+            if (!after.sortBy().equals(sortBy) || !after.sortDir().equals(sortDir)) {
+                throw new IllegalArgumentException("El cursor no corresponde al ordenamiento solicitado");
+            }
+        }
+        
+        List<ProductoResponse> productos = productoRepository.findByFiltersAfter(
+            search, categoria, after, sortBy, Sort.Direction.fromString(sortDir), size + 1
+        );
         
-        Sort sort = Sort.by(Sort.Direction.fromString(sortDir.toUpperCase()), sortBy);
-        Pageable pageable = PageRequest.of(page, size, sort);
+        boolean hasNext = productos.size() > size;
+        List<ProductoResponse> content = hasNext ? productos.subList(0, size) : productos;
         
-        Page<Producto> productosPage = productoRepository.findByFilters(search, categoria, pageable);
-        Page<ProductoResponse> responsePage = productosPage.map(ProductoResponse::fromEntity);
+        String nextCursor = hasNext
+                ? ProductoCursor.after(content.get(content.size() - 1), sortBy, sortDir).encode()
+                : null;
         
-        log.info("Encontrados {} productos", responsePage.getTotalElements());
-        return PageResponse.fromPage(responsePage);
+        log.info("Encontrados {} productos, hasNext: {}", content.size(), hasNext);
+        return new CursorPageResponse<>(content, size, nextCursor, hasNext);
     }
     
     private String normalizeSearch(String search) {
@@ -78,12 +249,32 @@ public class ProductoService {
         return search.isEmpty() ? null : search;
     }
     
-    @Transactional(readOnly = true)
+    private int normalizeSize(int size) {
+        return Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+    }
+    
+    private String normalizeSortBy(String sortBy) {
+        return ALLOWED_SORT_FIELDS.contains(sortBy) ? sortBy : DEFAULT_SORT_FIELD;
+    }
+    
+    private String normalizeSortDir(String sortDir) {
+        return DEFAULT_SORT_DIR.equalsIgnoreCase(sortDir) ? DEFAULT_SORT_DIR : "asc";
+    }
+    
+    /**
+     * Sin transacción propia: la caché se consulta primero y solo un miss abre una transacción de lectura.
+     */
     public ProductoResponse getProductoById(Long id) {
         log.info("Obteniendo producto con ID: {}", id);
         
-        Producto producto = productoRepository.findById(id)
+        Optional<ProductoResponse> cached = productoCache.get(id);
+        if (cached.isPresent()) {
+            return cached.get();
+        }
+        
+        Producto producto = readOnlyTransactionTemplate.execute(status -> productoRepository.findById(id))
             .orElseThrow(() -> new ResourceNotFoundException("Producto", "id", id));
+        productoCache.put(producto);
         
         return ProductoResponse.fromEntity(producto);
     }
@@ -105,11 +296,14 @@ public class ProductoService {
         producto.setStock(request.getStock());
         
         Producto savedProducto = productoRepository.save(producto);
+        productoCache.putAfterCommit(savedProducto);
+        productoListadoCache.invalidateAfterCommit();
         log.info("Producto creado exitosamente con ID: {}", savedProducto.getId());
         
         return ProductoResponse.fromEntity(savedProducto);
     }
     
+    @RetryOnOptimisticLock
     @Transactional
     public ProductoResponse updateProducto(Long id, ProductoRequest request) {
         log.info("Actualizando producto con ID: {}", id);
@@ -123,6 +317,13 @@ public class ProductoService {
             throw new DuplicateResourceException("Ya existe otro producto con el nombre: " + nuevoNombre);
         }
         
+        // Las unidades retenidas por reservas activas deben seguir cubiertas por el stock
+        if (request.getStock() < producto.getStockReservado()) {
+            throw new IllegalArgumentException(String.format(
+                "El stock no puede ser menor al reservado. Reservado: %d, Solicitado: %d",
+                producto.getStockReservado(), request.getStock()));
+        }
+        
         producto.setNombre(nuevoNombre);
         producto.setCategoria(request.getCategoria().trim());
         producto.setProveedor(request.getProveedor() != null ? request.getProveedor().trim() : null);
@@ -130,6 +331,9 @@ public class ProductoService {
         producto.setStock(request.getStock());
         
         Producto updatedProducto = productoRepository.save(producto);
+        productoCache.putAfterCommit(updatedProducto);
+        productoListadoCache.invalidateAfterCommit();
+        movimientoJournal.ifAvailable(journal -> journal.refrescarSaldoAfterCommit(updatedProducto));
         log.info("Producto actualizado exitosamente");
         
         return ProductoResponse.fromEntity(updatedProducto);
@@ -144,6 +348,9 @@ public class ProductoService {
         }
         
         productoRepository.deleteById(id);
+        productoCache.evictAfterCommit(id);
+        productoListadoCache.invalidateAfterCommit();
+        movimientoJournal.ifAvailable(journal -> journal.descartarSaldoAfterCommit(id));
         log.info("Producto eliminado exitosamente");
     }
     
@@ -154,7 +361,10 @@ public class ProductoService {
         return HtmlUtils.htmlEscape(input.trim());
     }
     
-    @Transactional
+    /**
+     * La consulta a FakeStore (hasta 15s con los timeouts del cliente) se hace antes de abrir la
+     * transacción, así la espera no retiene una conexión del pool.
+     */
     public int syncProductsFromFakeStore() {
         log.info("Iniciando sincronización de productos desde FakeStore API");
         
@@ -167,18 +377,22 @@ public class ProductoService {
         
         log.debug("Productos obtenidos de FakeStore: {}", fakeStoreProducts.size());
         
-        Set<String> nombresExistentes = obtenerNombresExistentes(fakeStoreProducts);
-        List<Producto> productosNuevos = convertirAProductosNuevos(fakeStoreProducts, nombresExistentes);
+        int totalInsertados = transactionTemplate.execute(status -> {
+            Set<String> nombresExistentes = obtenerNombresExistentes(fakeStoreProducts);
+            List<Producto> productosNuevos = convertirAProductosNuevos(fakeStoreProducts, nombresExistentes);
+            
+            if (productosNuevos.isEmpty()) {
+                log.info("No se insertaron productos nuevos. Todos ya existían en la base de datos");
+                return 0;
+            }
+            
+            log.debug("Productos nuevos a insertar: {}", productosNuevos.size());
+            return insertarProductosEnBatch(productosNuevos);
+        });
         
-        if (productosNuevos.isEmpty()) {
-            log.info("No se insertaron productos nuevos. Todos ya existían en la base de datos");
-            return 0;
+        if (totalInsertados > 0) {
+            log.info("Sincronización completada exitosamente. Total productos nuevos insertados: {}", totalInsertados);
         }
-        
-        log.debug("Productos nuevos a insertar: {}", productosNuevos.size());
-        int totalInsertados = insertarProductosEnBatch(productosNuevos);
-        
-        log.info("Sincronización completada exitosamente. Total productos nuevos insertados: {}", totalInsertados);
         return totalInsertados;
     }
     
@@ -261,6 +475,8 @@ public class ProductoService {
     private int insertarProductosEnBatch(List<Producto> productosNuevos) {
         if (productosNuevos.size() <= MAX_SYNC_BATCH_SIZE) {
             List<Producto> guardados = productoRepository.saveAll(productosNuevos);
+            productoCache.putAllAfterCommit(guardados);
+            productoListadoCache.invalidateAfterCommit();
             return guardados.size();
         }
         
@@ -276,6 +492,8 @@ public class ProductoService {
             List<Producto> chunk = productosNuevos.subList(i, end);
             
             List<Producto> guardados = productoRepository.saveAll(chunk);
+            productoCache.putAllAfterCommit(guardados);
+            productoListadoCache.invalidateAfterCommit();
             totalInsertados += guardados.size();
             
             log.debug("Batch {}/{} procesado: {} productos insertados", 
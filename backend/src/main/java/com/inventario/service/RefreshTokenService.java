@@ -0,0 +1,123 @@
+package com.inventario.service;
+
+import com.inventario.model.RefreshToken;
+import com.inventario.repository.RefreshTokenRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.HexFormat;
+
+/**
+ * Refresh tokens opacos y rotativos.
+ * <p>
+ * El token es un valor aleatorio de 256 bits que se entrega una sola vez; en la base solo queda su SHA-256,
+ * así una copia de la tabla no permite renovar sesiones. Cada canje revoca el token presentado y emite
+ * uno nuevo con la vigencia completa (sesión deslizante). Presentar un token ya rotado indica que una copia
+ * fue reutilizada: se revocan todos los refresh tokens del usuario y debe volver a iniciar sesión. Un token
+ * cerrado por logout solo se rechaza, así un cliente que lo reintenta no cierra las demás sesiones.
+ */
+@Slf4j
+@Service
+public class RefreshTokenService {
+
+    private static final int TOKEN_BYTES = 32;
+
+    private final RefreshTokenRepository refreshTokenRepository;
+    private final Duration vigencia;
+    private final SecureRandom secureRandom = new SecureRandom();
+
+    public RefreshTokenService(
+            RefreshTokenRepository refreshTokenRepository,
+            @Value("${jwt.refresh.expiration-days:7}") long vigenciaDias) {
+        this.refreshTokenRepository = refreshTokenRepository;
+        this.vigencia = Duration.ofDays(vigenciaDias);
+    }
+
+    public record Rotacion(Long usuarioId, String refreshToken) {}
+
+    /**
+     * @return el token en claro; no se puede volver a obtener
+     */
+    @Transactional
+    public String emitir(Long usuarioId) {
+        byte[] bytes = new byte[TOKEN_BYTES];
+        secureRandom.nextBytes(bytes);
+        String token = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+
+        RefreshToken refreshToken = new RefreshToken();
+        refreshToken.setUsuarioId(usuarioId);
+        refreshToken.setTokenHash(hash(token));
+        refreshToken.setExpiraEn(LocalDateTime.now().plus(vigencia));
+        refreshTokenRepository.save(refreshToken);
+        return token;
+    }
+
+    /**
+     * Revoca el token presentado y emite su reemplazo.
+     *
+     * @throws BadCredentialsException si el token no existe, venció o ya fue usado
+     */
+    // Sin rollback ante BadCredentialsException: la revocación por reutilización debe persistir
+    @Transactional(noRollbackFor = BadCredentialsException.class)
+    public Rotacion rotar(String token) {
+        RefreshToken actual = refreshTokenRepository.findByTokenHash(hash(token))
+                .orElseThrow(() -> new BadCredentialsException("Refresh token inválido"));
+        LocalDateTime ahora = LocalDateTime.now();
+
+        if (actual.getRevocadoEn() != null) {
+            if (actual.getMotivoRevocacion() != RefreshToken.MotivoRevocacion.ROTADO) {
+                throw new BadCredentialsException("Refresh token revocado");
+            }
+            int revocados = refreshTokenRepository.revocarTodos(actual.getUsuarioId(), ahora,
+                    RefreshToken.MotivoRevocacion.REUTILIZACION);
+            log.warn("Reutilización de refresh token rotado del usuario {}: {} sesiones revocadas",
+                    actual.getUsuarioId(), revocados);
+            throw new BadCredentialsException("Refresh token revocado");
+        }
+        // Condicional: de dos canjes concurrentes del mismo token solo uno lo revoca
+        if (refreshTokenRepository.revocarVigente(actual.getId(), ahora, RefreshToken.MotivoRevocacion.ROTADO) == 0) {
+            throw new BadCredentialsException("Refresh token vencido o revocado");
+        }
+
+        return new Rotacion(actual.getUsuarioId(), emitir(actual.getUsuarioId()));
+    }
+
+    /**
+     * Revoca el token (logout). Un token desconocido o ya revocado se ignora.
+     */
+    @Transactional
+    public void revocar(String token) {
+        refreshTokenRepository.findByTokenHash(hash(token))
+                .ifPresent(refreshToken -> refreshTokenRepository.revocarVigente(
+                        refreshToken.getId(), LocalDateTime.now(), RefreshToken.MotivoRevocacion.LOGOUT));
+    }
+
+    @Scheduled(cron = "${jwt.refresh.purge-cron:0 15 4 * * *}")
+    @Transactional
+    public void purgarVencidos() {
+        int eliminados = refreshTokenRepository.deleteVencidos(LocalDateTime.now());
+        if (eliminados > 0) {
+            log.info("Refresh tokens vencidos eliminados: {}", eliminados);
+        }
+    }
+
+    static String hash(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        }
+    }
+}
@@ -0,0 +1,302 @@
+package com.inventario.service;
+
+import com.inventario.dto.ReservaRequest;
+import com.inventario.dto.ReservaResponse;
+import com.inventario.exception.ResourceNotFoundException;
+import com.inventario.model.MovimientoStock;
+import com.inventario.model.Producto;
+import com.inventario.model.ReservaStock;
+import com.inventario.repository.MovimientoStockRepository;
+import com.inventario.repository.ProductoRepository;
+import com.inventario.repository.ReservaStockRepository;
+import com.inventario.util.HashedTimingWheel;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.inventario.util.TransactionCallbacks.afterCommit;
+
+/**
+ * Reservas de stock con vencimiento.
+ * <p>
+ * Una reserva retiene unidades sin modificar el stock: incrementa {@code Producto.stockReservado} con un
+ * UPDATE condicional sobre el disponible ({@code stock - stockReservado}), que también respetan las
+ * salidas normales. Confirmarla descuenta el stock y registra un movimiento SALIDA; liberarla o dejarla
+ * vencer devuelve las unidades al disponible. Las transiciones son UPDATE condicionales sobre el estado
+ * ACTIVA, así confirmar, liberar y expirar no pueden cerrar dos veces la misma reserva.
+ * <p>
+ * Los vencimientos se programan en una {@link HashedTimingWheel} en memoria, sin consultar la base
+ * periódicamente; al iniciar se vuelven a programar las reservas activas.
+ */
+@Service
+@Slf4j
+public class ReservaStockService {
+
+    private static final Duration REINTENTO_EXPIRACION = Duration.ofSeconds(5);
+
+    private final ReservaStockRepository reservaStockRepository;
+    private final ProductoRepository productoRepository;
+    private final MovimientoStockRepository movimientoStockRepository;
+    private final MovimientoResumenService movimientoResumenService;
+    private final ProductoCache productoCache;
+    private final ProductoListadoCache productoListadoCache;
+    // Solo existe con movimientos.journal.enabled=true
+    private final ObjectProvider<MovimientoJournal> movimientoJournal;
+    private final TransactionTemplate transactionTemplate;
+    private final int ttlSegundos;
+    private final int ttlMaximoSegundos;
+
+    private final ExecutorService expiraciones;
+    private final HashedTimingWheel wheel;
+    private final Map<Long, HashedTimingWheel.Timeout> vencimientos = new ConcurrentHashMap<>();
+    private final Counter expiradas;
+
+    public ReservaStockService(
+            ReservaStockRepository reservaStockRepository,
+            ProductoRepository productoRepository,
+            MovimientoStockRepository movimientoStockRepository,
+            MovimientoResumenService movimientoResumenService,
+            ProductoCache productoCache,
+            ProductoListadoCache productoListadoCache,
+            ObjectProvider<MovimientoJournal> movimientoJournal,
+            PlatformTransactionManager transactionManager,
+            MeterRegistry meterRegistry,
+            @Value("${reservas.ttl-segundos:300}") int ttlSegundos,
+            @Value("${reservas.ttl-maximo-segundos:3600}") int ttlMaximoSegundos,
+            @Value("${reservas.wheel.tick-millis:100}") long tickMillis,
+            @Value("${reservas.wheel.size:512}") int wheelSize) {
+        this.reservaStockRepository = reservaStockRepository;
+        this.productoRepository = productoRepository;
+        this.movimientoStockRepository = movimientoStockRepository;
+        this.movimientoResumenService = movimientoResumenService;
+        this.productoCache = productoCache;
+        this.productoListadoCache = productoListadoCache;
+        this.movimientoJournal = movimientoJournal;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.ttlSegundos = ttlSegundos;
+        this.ttlMaximoSegundos = ttlMaximoSegundos;
+
+        AtomicInteger threadCount = new AtomicInteger();
+        this.expiraciones = Executors.newFixedThreadPool(2, runnable -> {
+            Thread thread = new Thread(runnable, "reservas-expiracion-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.wheel = new HashedTimingWheel("reservas-wheel", Duration.ofMillis(tickMillis), wheelSize, expiraciones);
+
+        Gauge.builder("reservas.pendientes", wheel, HashedTimingWheel::pendientes)
+                .description("Reservas activas con vencimiento programado")
+                .register(meterRegistry);
+        this.expiradas = Counter.builder("reservas.expiradas")
+                .description("Reservas liberadas por vencimiento")
+                .register(meterRegistry);
+        log.info("ReservaStockService inicializado - ttl: {}s, tick: {}ms, wheelSize: {}",
+                ttlSegundos, tickMillis, wheelSize);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void programarActivas() {
+        List<ReservaStock> activas = reservaStockRepository.findByEstado(ReservaStock.EstadoReserva.ACTIVA);
+        activas.forEach(reserva -> programar(reserva.getId(), reserva.getExpiraEn()));
+        log.info("Reservas activas programadas al iniciar: {}", activas.size());
+    }
+
+    @Transactional
+    public ReservaResponse reservar(ReservaRequest request) {
+        if (request == null || request.getProductoId() == null || request.getCantidad() == null
+                || request.getCantidad() <= 0) {
+            throw new IllegalArgumentException("La reserva requiere productoId y una cantidad positiva");
+        }
+        int ttl = request.getTtlSegundos() != null ? request.getTtlSegundos() : ttlSegundos;
+        if (ttl <= 0 || ttl > ttlMaximoSegundos) {
+            throw new IllegalArgumentException("El TTL debe estar entre 1 y " + ttlMaximoSegundos + " segundos");
+        }
+
+        Long productoId = request.getProductoId();
+        int cantidad = request.getCantidad();
+        int actualizados = productoRepository.reservarStock(productoId, cantidad);
+        Producto producto = productoRepository.findById(productoId)
+            .orElseThrow(() -> new ResourceNotFoundException("Producto", "id", productoId));
+        if (actualizados == 0) {
+            throw new IllegalArgumentException(String.format("Stock insuficiente para reservar. Disponible: %d, Solicitado: %d",
+                    producto.getStock() - producto.getStockReservado(), cantidad));
+        }
+
+        ReservaStock reserva = new ReservaStock();
+        reserva.setProductoId(productoId);
+        reserva.setCantidad(cantidad);
+        reserva.setEstado(ReservaStock.EstadoReserva.ACTIVA);
+        reserva.setExpiraEn(LocalDateTime.now().plusSeconds(ttl));
+        ReservaStock guardada = reservaStockRepository.save(reserva);
+
+        actualizarCaches(producto);
+        afterCommit(() -> programar(guardada.getId(), guardada.getExpiraEn()));
+
+        log.info("Reserva creada - ID: {}, Producto ID: {}, Cantidad: {}, Vence: {}",
+                 guardada.getId(), productoId, cantidad, guardada.getExpiraEn());
+        return ReservaResponse.fromEntity(guardada);
+    }
+
+    /**
+     * Convierte la reserva vigente en un movimiento SALIDA.
+     *
+     * @param usuarioId usuario que confirma, queda registrado en el movimiento
+     */
+    @Transactional
+    public ReservaResponse confirmar(Long id, Long usuarioId) {
+        ReservaStock reserva = buscar(id);
+        LocalDateTime ahora = LocalDateTime.now();
+        if (reservaStockRepository.confirmarVigente(id, ahora) == 0) {
+            throw noActiva(reserva, ahora);
+        }
+        if (productoRepository.confirmarStockReservado(reserva.getProductoId(), reserva.getCantidad()) == 0) {
+            throw new IllegalArgumentException("Stock insuficiente para confirmar la reserva " + id);
+        }
+
+        MovimientoStock movimiento = new MovimientoStock();
+        movimiento.setProductoId(reserva.getProductoId());
+        movimiento.setTipo(MovimientoStock.TipoMovimiento.SALIDA);
+        movimiento.setCantidad(reserva.getCantidad());
+        movimiento.setUsuarioId(usuarioId);
+        MovimientoStock guardado = movimientoStockRepository.save(movimiento);
+        movimientoResumenService.acumular(List.of(guardado));
+
+        // Las actualizaciones condicionales limpiaron el contexto: se relee la reserva ya confirmada
+        ReservaStock confirmada = buscar(id);
+        confirmada.setMovimientoId(guardado.getId());
+
+        productoRepository.findById(reserva.getProductoId()).ifPresent(this::actualizarCaches);
+        afterCommit(() -> cancelarVencimiento(id));
+
+        log.info("Reserva confirmada - ID: {}, Movimiento ID: {}", id, guardado.getId());
+        return ReservaResponse.fromEntity(confirmada);
+    }
+
+    @Transactional
+    public ReservaResponse liberar(Long id) {
+        ReservaStock reserva = buscar(id);
+        LocalDateTime ahora = LocalDateTime.now();
+        if (reservaStockRepository.cerrarActiva(id, ReservaStock.EstadoReserva.LIBERADA, ahora) == 0) {
+            throw noActiva(reserva, ahora);
+        }
+        devolverStock(reserva);
+        afterCommit(() -> cancelarVencimiento(id));
+
+        log.info("Reserva liberada - ID: {}", id);
+        return ReservaResponse.fromEntity(buscar(id));
+    }
+
+    @Transactional(readOnly = true)
+    public ReservaResponse getReserva(Long id) {
+        return ReservaResponse.fromEntity(buscar(id));
+    }
+
+    /**
+     * Vencimiento disparado por la rueda; no hace nada si la reserva ya se cerró.
+     */
+    void expirar(Long id) {
+        vencimientos.remove(id);
+        try {
+            Boolean expirada = transactionTemplate.execute(status -> {
+                if (reservaStockRepository.expirarVencida(id, LocalDateTime.now()) == 0) {
+                    return false;
+                }
+                reservaStockRepository.findById(id).ifPresent(this::devolverStock);
+                return true;
+            });
+            if (Boolean.TRUE.equals(expirada)) {
+                expiradas.increment();
+                log.info("Reserva expirada - ID: {}", id);
+            } else {
+                reprogramarSiActiva(id);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Error expirando reserva ID: {}, se reintenta en {}s: {}",
+                     id, REINTENTO_EXPIRACION.toSeconds(), e.getMessage());
+            programar(id, LocalDateTime.now().plus(REINTENTO_EXPIRACION));
+        }
+    }
+
+    /**
+     * La rueda puede disparar antes del {@code expira_en} guardado (redondeo de la base, reloj):
+     * si la reserva sigue activa se vuelve a programar con el vencimiento persistido.
+     */
+    private void reprogramarSiActiva(Long id) {
+        reservaStockRepository.findById(id)
+            .filter(reserva -> reserva.getEstado() == ReservaStock.EstadoReserva.ACTIVA)
+            .ifPresent(reserva -> {
+                LocalDateTime ahora = LocalDateTime.now();
+                LocalDateTime expiraEn = reserva.getExpiraEn().isAfter(ahora)
+                        ? reserva.getExpiraEn() : ahora.plus(REINTENTO_EXPIRACION);
+                log.debug("Reserva ID: {} aún activa al vencer, se reprograma para {}", id, expiraEn);
+                programar(id, expiraEn);
+            });
+    }
+
+    @PreDestroy
+    void shutdown() {
+        wheel.close();
+        expiraciones.shutdownNow();
+    }
+
+    private void programar(Long id, LocalDateTime expiraEn) {
+        Duration delay = Duration.between(LocalDateTime.now(), expiraEn);
+        HashedTimingWheel.Timeout anterior = vencimientos.put(id, wheel.schedule(() -> expirar(id), delay));
+        if (anterior != null) {
+            anterior.cancel();
+        }
+    }
+
+    private void cancelarVencimiento(Long id) {
+        HashedTimingWheel.Timeout timeout = vencimientos.remove(id);
+        if (timeout != null) {
+            timeout.cancel();
+        }
+    }
+
+    private void devolverStock(ReservaStock reserva) {
+        if (productoRepository.liberarStockReservado(reserva.getProductoId(), reserva.getCantidad()) == 0) {
+            log.warn("Stock reservado inconsistente al liberar reserva ID: {}", reserva.getId());
+        }
+        productoRepository.findById(reserva.getProductoId()).ifPresent(this::actualizarCaches);
+    }
+
+    private void actualizarCaches(Producto producto) {
+        productoCache.putAfterCommit(producto);
+        productoListadoCache.invalidateAfterCommit();
+        // El saldo del journal descuenta el reservado de las salidas que confirma sin consultar la base
+        movimientoJournal.ifAvailable(journal -> journal.refrescarSaldoAfterCommit(producto));
+    }
+
+    private ReservaStock buscar(Long id) {
+        return reservaStockRepository.findById(id)
+            .orElseThrow(() -> new ResourceNotFoundException("Reserva", "id", id));
+    }
+
+    private IllegalArgumentException noActiva(ReservaStock reserva, LocalDateTime ahora) {
+        if (reserva.getEstado() == ReservaStock.EstadoReserva.ACTIVA && !reserva.getExpiraEn().isAfter(ahora)) {
+            return new IllegalArgumentException("La reserva " + reserva.getId() + " está vencida");
+        }
+        return new IllegalArgumentException(
+                "La reserva " + reserva.getId() + " no está activa (estado: " + reserva.getEstado() + ")");
+    }
+}
@@ -0,0 +1,105 @@
+package com.inventario.service;
+
+import com.inventario.dto.StockHistoricoResponse;
+import com.inventario.exception.ResourceNotFoundException;
+import com.inventario.model.Producto;
+import com.inventario.model.StockSnapshot;
+import com.inventario.repository.MovimientoStockRepository;
+import com.inventario.repository.ProductoRepository;
+import com.inventario.repository.StockSnapshotRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Optional;
+
+/**
+ * Stock histórico por producto.
+ * <p>
+ * Un job periódico guarda, al cierre de cada intervalo, el stock de los productos que cambiaron desde
+ * su último snapshot. El stock en una fecha se obtiene del último snapshot anterior más los movimientos
+ * posteriores a él, así el costo depende del intervalo entre snapshots y no del largo del historial.
+ * Sin snapshot previo se calcula hacia atrás desde el stock actual. Los snapshots anteriores a la
+ * retención se purgan, conservando el último de cada producto.
+ * <p>
+ * Los cambios de stock hechos con PUT /api/productos/{id} no generan movimientos, por lo que solo
+ * quedan reflejados a partir del siguiente snapshot.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class StockSnapshotService {
+    
+    private final StockSnapshotRepository stockSnapshotRepository;
+    private final MovimientoStockRepository movimientoStockRepository;
+    private final ProductoRepository productoRepository;
+    private final MovimientoArchivoService movimientoArchivoService;
+    
+    @Value("${stock.snapshot.intervalo:HOURS}")
+    private ChronoUnit intervalo;
+    
+    @Value("${stock.snapshot.retencion-dias:90}")
+    private int retencionDias;
+    
+    @Scheduled(cron = "${stock.snapshot.cron:0 5 * * * *}")
+    @Transactional
+    public void tomarSnapshots() {
+        tomarSnapshots(LocalDateTime.now().truncatedTo(intervalo));
+    }
+    
+    /**
+     * @param corte fecha a la que corresponde el stock registrado
+     * @return cantidad de productos registrados
+     */
+    @Transactional
+    public int tomarSnapshots(LocalDateTime corte) {
+        long inicio = System.currentTimeMillis();
+        int registrados = stockSnapshotRepository.insertSnapshots(corte);
+        log.info("Snapshot de stock al {} - Productos: {}, Tiempo: {}ms",
+                 corte, registrados, System.currentTimeMillis() - inicio);
+        return registrados;
+    }
+    
+    @Scheduled(cron = "${stock.snapshot.purge-cron:0 35 4 * * *}")
+    @Transactional
+    public void purgarAnteriores() {
+        int eliminados = stockSnapshotRepository.deleteAnteriores(
+            LocalDateTime.now().truncatedTo(ChronoUnit.DAYS).minusDays(retencionDias));
+        if (eliminados > 0) {
+            log.info("Snapshots de stock anteriores a la retención eliminados: {}", eliminados);
+        }
+    }
+    
+    @Transactional(readOnly = true)
+    public StockHistoricoResponse getStockEn(Long productoId, LocalDateTime fecha) {
+        if (fecha == null) {
+            throw new IllegalArgumentException("La fecha es obligatoria");
+        }
+        
+        Producto producto = productoRepository.findById(productoId)
+            .orElseThrow(() -> new ResourceNotFoundException("Producto", "id", productoId));
+        
+        if (producto.getFechaRegistro() != null && fecha.isBefore(producto.getFechaRegistro())) {
+            throw new IllegalArgumentException("El producto no existía en la fecha indicada");
+        }
+        
+        Optional<StockSnapshot> snapshot = stockSnapshotRepository
+            .findFirstByProductoIdAndFechaLessThanEqualOrderByFechaDesc(productoId, fecha);
+        
+        if (snapshot.isPresent()) {
+            long delta = movimientoStockRepository.sumDelta(productoId, snapshot.get().getFecha(), fecha)
+                + movimientoArchivoService.sumarDelta(productoId, snapshot.get().getFecha(), fecha);
+            int stock = Math.toIntExact(snapshot.get().getStock() + delta);
+            return new StockHistoricoResponse(productoId, fecha, stock, snapshot.get().getFecha());
+        }
+        
+        long posteriores = movimientoStockRepository.sumDelta(productoId, fecha, null)
+            + movimientoArchivoService.sumarDelta(productoId, fecha, null);
+        return new StockHistoricoResponse(productoId, fecha, Math.toIntExact(producto.getStock() - posteriores), null);
+    }
+}
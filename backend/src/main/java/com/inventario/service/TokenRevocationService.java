@@ -0,0 +1,186 @@
+package com.inventario.service;
+
+import com.inventario.model.TokenRevocado;
+import com.inventario.repository.TokenRevocadoRepository;
+import com.inventario.util.BloomFilter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Revocación de JWT antes de su expiración, por claim {@code jti}.
+ * <p>
+ * Los jti revocados se guardan en {@code tokens_revocados}, pero la consulta de cada request pasa primero
+ * por un filtro de Bloom en memoria: sin coincidencia (el caso normal) el token no está revocado y no se
+ * toca la base; solo ante una coincidencia probable se confirma con una búsqueda por clave primaria.
+ * <p>
+ * El filtro no admite borrados, así que se reconstruye periódicamente con los revocados que aún no
+ * expiraron (y se eliminan las filas vencidas). Las revocaciones que llegan durante la reconstrucción
+ * se agregan también al filtro nuevo. El filtro es local a cada instancia: cada una incorpora además,
+ * cada {@code jwt.revocacion.refresh-millis}, los jti revocados por las demás desde la última lectura,
+ * así un token revocado en otra instancia se rechaza tras esa demora y no recién al reconstruir.
+ */
+@Slf4j
+@Service
+public class TokenRevocationService {
+
+    // Margen al leer las revocaciones de otras instancias: transacciones confirmadas después de la lectura
+    // anterior con una fecha previa y diferencias de reloj entre instancias. Repetir un jti no tiene efecto
+    private static final Duration SOLAPAMIENTO = Duration.ofSeconds(30);
+
+    private final TokenRevocadoRepository tokenRevocadoRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final long expectedInsertions;
+    private final double fpp;
+    private final Counter consultasBase;
+    private final Counter falsosPositivos;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private volatile BloomFilter filtro;
+    // jti revocados mientras se reconstruye el filtro; null fuera de una reconstrucción
+    private List<String> revocadosDuranteReconstruccion;
+    private volatile int vigentes;
+    // Fecha de la última lectura de revocados; null hasta la primera reconstrucción
+    private volatile LocalDateTime ultimaLectura;
+
+    public TokenRevocationService(
+            TokenRevocadoRepository tokenRevocadoRepository,
+            TransactionTemplate transactionTemplate,
+            MeterRegistry meterRegistry,
+            @Value("${jwt.revocacion.bloom.expected-insertions:100000}") long expectedInsertions,
+            @Value("${jwt.revocacion.bloom.fpp:0.001}") double fpp) {
+        this.tokenRevocadoRepository = tokenRevocadoRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.expectedInsertions = expectedInsertions;
+        this.fpp = fpp;
+        this.filtro = BloomFilter.crear(expectedInsertions, fpp);
+        this.consultasBase = Counter.builder("jwt.revocacion.consultas")
+                .description("Coincidencias del filtro de Bloom confirmadas en la base")
+                .register(meterRegistry);
+        this.falsosPositivos = Counter.builder("jwt.revocacion.falsos-positivos")
+                .description("Coincidencias del filtro de Bloom que no estaban revocadas")
+                .register(meterRegistry);
+        Gauge.builder("jwt.revocacion.vigentes", this, service -> service.vigentes)
+                .description("Tokens revocados aún no expirados al reconstruir el filtro")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void iniciar() {
+        reconstruir();
+    }
+
+    /**
+     * Revoca el token hasta su expiración. Revocar dos veces el mismo jti no tiene efecto.
+     */
+    public void revocar(String jti, Instant expiresAt) {
+        if (jti == null) {
+            return;
+        }
+        TokenRevocado tokenRevocado = new TokenRevocado();
+        tokenRevocado.setJti(jti);
+        tokenRevocado.setExpiraEn(LocalDateTime.ofInstant(expiresAt, ZoneId.systemDefault()));
+        // Primero la fila: una coincidencia del filtro siempre se confirma contra la base
+        tokenRevocadoRepository.save(tokenRevocado);
+
+        agregar(List.of(jti));
+        log.info("Token revocado: {}", jti);
+    }
+
+    public boolean estaRevocado(String jti) {
+        if (jti == null || !filtro.mightContain(jti)) {
+            return false;
+        }
+        consultasBase.increment();
+        boolean revocado = tokenRevocadoRepository.existsById(jti);
+        if (!revocado) {
+            falsosPositivos.increment();
+        }
+        return revocado;
+    }
+
+    /**
+     * Agrega al filtro los jti revocados por otras instancias desde la última lectura.
+     */
+    @Scheduled(fixedDelayString = "${jwt.revocacion.refresh-millis:5000}")
+    public void actualizar() {
+        LocalDateTime desde = ultimaLectura;
+        if (desde == null) {
+            return;
+        }
+        LocalDateTime ahora = LocalDateTime.now();
+        List<String> jtis = tokenRevocadoRepository.findJtiRevocadosDesde(desde.minus(SOLAPAMIENTO), ahora);
+        agregar(jtis);
+        ultimaLectura = ahora;
+        log.debug("Revocaciones leídas desde {}: {}", desde, jtis.size());
+    }
+
+    /**
+     * Elimina los revocados ya expirados y reemplaza el filtro por uno con los vigentes.
+     */
+    @Scheduled(cron = "${jwt.revocacion.rebuild-cron:0 */10 * * * *}")
+    public void reconstruir() {
+        lock.lock();
+        try {
+            revocadosDuranteReconstruccion = new ArrayList<>();
+        } finally {
+            lock.unlock();
+        }
+
+        try {
+            LocalDateTime ahora = LocalDateTime.now();
+            Integer eliminados = transactionTemplate.execute(status -> tokenRevocadoRepository.deleteVencidos(ahora));
+            List<String> jtis = tokenRevocadoRepository.findJtiVigentes(ahora);
+
+            // Con más revocados de los previstos el filtro crece para mantener la tasa de falsos positivos
+            BloomFilter nuevo = BloomFilter.crear(Math.max(expectedInsertions, 2L * jtis.size()), fpp);
+            jtis.forEach(nuevo::put);
+
+            lock.lock();
+            try {
+                revocadosDuranteReconstruccion.forEach(nuevo::put);
+                filtro = nuevo;
+            } finally {
+                lock.unlock();
+            }
+            ultimaLectura = ahora;
+            vigentes = jtis.size();
+            log.info("Filtro de tokens revocados reconstruido - vigentes: {}, vencidos eliminados: {}, bits: {}",
+                    jtis.size(), eliminados, nuevo.numBits());
+        } finally {
+            lock.lock();
+            try {
+                revocadosDuranteReconstruccion = null;
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private void agregar(Collection<String> jtis) {
+        lock.lock();
+        try {
+            jtis.forEach(filtro::put);
+            if (revocadosDuranteReconstruccion != null) {
+                revocadosDuranteReconstruccion.addAll(jtis);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+}
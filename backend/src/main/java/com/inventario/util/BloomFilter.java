@@ -0,0 +1,89 @@
+package com.inventario.util;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Filtro de Bloom de strings, seguro para agregar y consultar desde varios hilos.
+ * <p>
+ * {@link #mightContain} nunca da falsos negativos: si devuelve {@code false} el valor no fue agregado.
+ * Un {@code true} puede ser un falso positivo, con probabilidad cercana a {@code fpp} mientras no se
+ * agreguen más de {@code expectedInsertions} valores. No admite borrados; se reconstruye completo.
+ */
+public final class BloomFilter {
+
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private final AtomicLongArray bits;
+    private final long numBits;
+    private final int numHashes;
+
+    private BloomFilter(long numBits, int numHashes) {
+        this.numBits = numBits;
+        this.numHashes = numHashes;
+        this.bits = new AtomicLongArray(Math.toIntExact((numBits + 63) / 64));
+    }
+
+    /**
+     * Dimensiona el filtro con las fórmulas habituales: {@code m = -n ln(p) / ln(2)^2} bits y
+     * {@code k = m / n ln(2)} funciones de hash.
+     */
+    public static BloomFilter crear(long expectedInsertions, double fpp) {
+        if (expectedInsertions <= 0 || fpp <= 0 || fpp >= 1) {
+            throw new IllegalArgumentException("Parámetros de BloomFilter inválidos: " + expectedInsertions + ", " + fpp);
+        }
+        long numBits = Math.max(64, (long) Math.ceil(-expectedInsertions * Math.log(fpp) / (Math.log(2) * Math.log(2))));
+        int numHashes = Math.max(1, (int) Math.round((double) numBits / expectedInsertions * Math.log(2)));
+        return new BloomFilter(numBits, numHashes);
+    }
+
+    public void put(String valor) {
+        long hash1 = hash(valor);
+        long hash2 = mix(hash1 ^ 0x9e3779b97f4a7c15L) | 1;
+        for (int i = 0; i < numHashes; i++) {
+            long bit = Math.floorMod(hash1 + i * hash2, numBits);
+            long mascara = 1L << bit;
+            bits.accumulateAndGet((int) (bit >>> 6), mascara, (actual, nuevo) -> actual | nuevo);
+        }
+    }
+
+    public boolean mightContain(String valor) {
+        long hash1 = hash(valor);
+        long hash2 = mix(hash1 ^ 0x9e3779b97f4a7c15L) | 1;
+        for (int i = 0; i < numHashes; i++) {
+            long bit = Math.floorMod(hash1 + i * hash2, numBits);
+            if ((bits.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public long numBits() {
+        return numBits;
+    }
+
+    public int numHashes() {
+        return numHashes;
+    }
+
+    // FNV-1a de 64 bits con el mezclado final de MurmurHash3: las k posiciones salen de dos hashes
+    // (double hashing, Kirsch-Mitzenmacher)
+    private static long hash(String valor) {
+        long hash = FNV_OFFSET;
+        for (int i = 0; i < valor.length(); i++) {
+            hash ^= valor.charAt(i);
+            hash *= FNV_PRIME;
+        }
+        return mix(hash);
+    }
+
+    private static long mix(long hash) {
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
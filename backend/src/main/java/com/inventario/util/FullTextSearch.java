@@ -0,0 +1,39 @@
+package com.inventario.util;
+
+import java.util.Arrays;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Convierte el texto de búsqueda del usuario en una consulta BOOLEAN MODE para el índice
+ * FULLTEXT (parser ngram) de {@code productos.nombre}.
+ */
+public final class FullTextSearch {
+
+    /** Coincide con ngram_token_size por defecto de MySQL: términos más cortos no se indexan. */
+    public static final int MIN_TERM_LENGTH = 2;
+
+    private static final Pattern BOOLEAN_OPERATORS = Pattern.compile("[+\\-<>()~*\"@]+");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private FullTextSearch() {
+    }
+
+    /**
+     * Exige todos los términos ({@code +termino}) y elimina los operadores que escriba el usuario.
+     * @return la consulta, o null si no queda ningún término indexable (el llamador debe usar LIKE)
+     */
+    public static String toBooleanQuery(String search) {
+        if (search == null) {
+            return null;
+        }
+
+        String sanitized = BOOLEAN_OPERATORS.matcher(search).replaceAll(" ").trim();
+        String query = Arrays.stream(WHITESPACE.split(sanitized))
+                .filter(term -> term.length() >= MIN_TERM_LENGTH)
+                .map(term -> "+" + term)
+                .collect(Collectors.joining(" "));
+
+        return query.isEmpty() ? null : query;
+    }
+}
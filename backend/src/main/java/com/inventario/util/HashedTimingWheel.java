@@ -0,0 +1,180 @@
+package com.inventario.util;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Temporizador de rueda (hashed timing wheel) para muchos vencimientos con poca precisión.
+ * <p>
+ * Un único hilo avanza un tick a la vez y solo revisa el bucket actual, así programar y cancelar
+ * son O(1) sin importar cuántos vencimientos haya pendientes. Cada vencimiento se ubica en el bucket
+ * {@code deadline / tick mod wheelSize} con las vueltas que le faltan; se ejecuta como mucho un tick tarde.
+ * Las tareas vencidas se ejecutan en el {@code executor} recibido para no frenar el avance de la rueda.
+ */
+@Slf4j
+public final class HashedTimingWheel implements AutoCloseable {
+
+    private static final int PENDING = 0;
+    private static final int CANCELLED = 1;
+    private static final int EXPIRED = 2;
+
+    private final long tickNanos;
+    private final int mask;
+    private final List<Timeout>[] wheel;
+    private final Queue<Timeout> nuevos = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pendientes = new AtomicInteger();
+    private final Executor executor;
+    private final Thread worker;
+    private final long startTime;
+
+    private volatile boolean running = true;
+    private long tick;
+
+    @SuppressWarnings("unchecked")
+    public HashedTimingWheel(String name, Duration tickDuration, int wheelSize, Executor executor) {
+        if (tickDuration.isNegative() || tickDuration.isZero()) {
+            throw new IllegalArgumentException("tickDuration debe ser positivo");
+        }
+        if (wheelSize <= 0 || Integer.bitCount(wheelSize) != 1) {
+            throw new IllegalArgumentException("wheelSize debe ser una potencia de 2");
+        }
+        this.tickNanos = tickDuration.toNanos();
+        this.mask = wheelSize - 1;
+        this.wheel = new List[wheelSize];
+        for (int i = 0; i < wheelSize; i++) {
+            wheel[i] = new ArrayList<>();
+        }
+        this.executor = executor;
+        this.startTime = System.nanoTime();
+        this.worker = new Thread(this::run, name);
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    /**
+     * Programa la tarea para dentro de {@code delay} (un delay negativo vence en el próximo tick).
+     */
+    public Timeout schedule(Runnable task, Duration delay) {
+        if (!running) {
+            throw new IllegalStateException("HashedTimingWheel detenida");
+        }
+        long deadline = System.nanoTime() - startTime + Math.max(0, delay.toNanos());
+        Timeout timeout = new Timeout(task, deadline);
+        pendientes.incrementAndGet();
+        nuevos.add(timeout);
+        return timeout;
+    }
+
+    /**
+     * Vencimientos programados que todavía no se ejecutaron ni cancelaron.
+     */
+    public int pendientes() {
+        return pendientes.get();
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        worker.interrupt();
+    }
+
+    private void run() {
+        while (running) {
+            long deadline = tickNanos * (tick + 1);
+            long espera = deadline - (System.nanoTime() - startTime);
+            if (espera > 0) {
+                LockSupport.parkNanos(this, espera);
+                continue;
+            }
+            transferirNuevos();
+            expirar(wheel[(int) (tick & mask)], deadline);
+            tick++;
+        }
+    }
+
+    private void transferirNuevos() {
+        Timeout timeout;
+        while ((timeout = nuevos.poll()) != null) {
+            if (timeout.state.get() != PENDING) {
+                continue;
+            }
+            long calculado = timeout.deadline / tickNanos;
+            timeout.remainingRounds = (calculado - tick) / wheel.length;
+            // Si el deadline ya pasó, va al bucket actual
+            long ticks = Math.max(calculado, tick);
+            wheel[(int) (ticks & mask)].add(timeout);
+        }
+    }
+
+    private void expirar(List<Timeout> bucket, long deadline) {
+        Iterator<Timeout> iterator = bucket.iterator();
+        while (iterator.hasNext()) {
+            Timeout timeout = iterator.next();
+            if (timeout.state.get() == CANCELLED) {
+                iterator.remove();
+            } else if (timeout.remainingRounds <= 0 && timeout.deadline <= deadline) {
+                iterator.remove();
+                timeout.expirar();
+            } else {
+                timeout.remainingRounds--;
+            }
+        }
+    }
+
+    /**
+     * Vencimiento programado; {@link #cancel()} evita que la tarea se ejecute si todavía no venció.
+     */
+    public final class Timeout {
+
+        private final Runnable task;
+        private final long deadline;
+        private final AtomicInteger state = new AtomicInteger(PENDING);
+        private long remainingRounds;
+
+        private Timeout(Runnable task, long deadline) {
+            this.task = task;
+            this.deadline = deadline;
+        }
+
+        /**
+         * @return false si la tarea ya venció o ya estaba cancelada
+         */
+        public boolean cancel() {
+            if (state.compareAndSet(PENDING, CANCELLED)) {
+                pendientes.decrementAndGet();
+                return true;
+            }
+            return false;
+        }
+
+        public boolean isExpired() {
+            return state.get() == EXPIRED;
+        }
+
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(deadline - (System.nanoTime() - startTime), TimeUnit.NANOSECONDS);
+        }
+
+        private void expirar() {
+            if (!state.compareAndSet(PENDING, EXPIRED)) {
+                return;
+            }
+            pendientes.decrementAndGet();
+            try {
+                executor.execute(task);
+            } catch (RuntimeException e) {
+                log.warn("No se pudo ejecutar un vencimiento de la rueda: {}", e.getMessage());
+            }
+        }
+    }
+}
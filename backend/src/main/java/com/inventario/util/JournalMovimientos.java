@@ -0,0 +1,388 @@
+package com.inventario.util;
+
+import com.inventario.model.MovimientoStock;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Journal append-only de movimientos sobre segmentos de archivo mapeados en memoria.
+ * <p>
+ * Cada registro es {@code [largo int][crc32 int][payload]} con payload
+ * {@code secuencia, productoId, tipo, cantidad, epochMillis, clave, usuarioId}; un largo 0 marca el final
+ * escrito. {@code usuarioId} va al final y es opcional: los registros escritos antes de agregarlo se leen
+ * con usuario null.
+ * Al abrir se recorren los segmentos y el primer registro incompleto o con CRC inválido (escritura
+ * interrumpida) se toma como final. El archivo {@code checkpoint} guarda la última secuencia ya aplicada
+ * a la base; los segmentos completamente aplicados se eliminan.
+ * <p>
+ * Un solo escritor a la vez ({@link #append}, con un {@link ReentrantLock} para que el fsync no fije un
+ * hilo virtual a su carrier) y un solo lector ({@link #leerSiguientes}).
+ */
+@Slf4j
+public final class JournalMovimientos implements Closeable {
+
+    public enum Fsync {
+        /** force() de cada registro antes de confirmarlo */
+        ALWAYS,
+        /** force() periódico con {@link #force()}; ante un corte de energía se pierde el último intervalo */
+        INTERVAL,
+        /** el sistema operativo decide cuándo escribir las páginas */
+        NEVER
+    }
+
+    /**
+     * @param clave     clave de idempotencia con la que se inserta el movimiento; evita duplicarlo al reaplicar
+     * @param usuarioId usuario que registró el movimiento, null si no se conoce
+     */
+    public record Entrada(long secuencia, long productoId, MovimientoStock.TipoMovimiento tipo, int cantidad,
+                          long epochMillis, String clave, Long usuarioId) {
+
+        public int delta() {
+            return tipo == MovimientoStock.TipoMovimiento.ENTRADA ? cantidad : -cantidad;
+        }
+    }
+
+    private static final String PREFIJO = "journal-";
+    private static final String EXTENSION = ".log";
+    private static final String CHECKPOINT = "checkpoint";
+    private static final String ID = "journal.id";
+    private static final int HEADER = 8;
+    private static final int MAX_CLAVE = 120;
+    private static final MovimientoStock.TipoMovimiento[] TIPOS = MovimientoStock.TipoMovimiento.values();
+
+    private final Path directorio;
+    private final int segmentSize;
+    private final Fsync fsync;
+    private final String id;
+    private final ConcurrentSkipListMap<Long, Segmento> segmentos = new ConcurrentSkipListMap<>();
+
+    private final ReentrantLock escritura = new ReentrantLock();
+    private Segmento activo;
+    private long siguienteSecuencia;
+    private volatile long ultimaEscrita;
+    private volatile long checkpoint;
+
+    // Cursor del lector
+    private Segmento segmentoLectura;
+    private int posicionLectura;
+
+    public JournalMovimientos(Path directorio, int segmentSize, Fsync fsync) throws IOException {
+        this.directorio = directorio;
+        this.segmentSize = segmentSize;
+        this.fsync = fsync;
+        Files.createDirectories(directorio);
+        this.id = leerOCrearId();
+        this.checkpoint = leerCheckpoint();
+        recuperar();
+    }
+
+    /**
+     * Identificador del journal, para construir claves que no se repitan si el directorio se recrea.
+     */
+    public String getId() {
+        return id;
+    }
+
+    public long getCheckpoint() {
+        return checkpoint;
+    }
+
+    public long getUltimaEscrita() {
+        return ultimaEscrita;
+    }
+
+    /**
+     * Agrega un movimiento; con {@link Fsync#ALWAYS} vuelve recién cuando el registro está en disco.
+     *
+     * @param clave     null para usar {@code j:<id>:<secuencia>}
+     * @param usuarioId null si no se conoce
+     */
+    public Entrada append(long productoId, MovimientoStock.TipoMovimiento tipo, int cantidad,
+                          long epochMillis, String clave, Long usuarioId) {
+        escritura.lock();
+        try {
+            long secuencia = siguienteSecuencia;
+            String claveFinal = clave != null ? clave : "j:" + id + ":" + secuencia;
+            byte[] claveBytes = claveFinal.getBytes(StandardCharsets.UTF_8);
+            if (claveBytes.length > MAX_CLAVE) {
+                throw new IllegalArgumentException("Clave de idempotencia demasiado larga");
+            }
+
+            int largo = 8 + 8 + 1 + 4 + 8 + 2 + claveBytes.length + (usuarioId != null ? 8 : 0);
+            ByteBuffer payload = ByteBuffer.allocate(largo)
+                    .putLong(secuencia)
+                    .putLong(productoId)
+                    .put((byte) tipo.ordinal())
+                    .putInt(cantidad)
+                    .putLong(epochMillis)
+                    .putShort((short) claveBytes.length)
+                    .put(claveBytes);
+            if (usuarioId != null) {
+                payload.putLong(usuarioId);
+            }
+            CRC32 crc = new CRC32();
+            crc.update(payload.array());
+
+            if (activo.limite + HEADER + largo + 4 > segmentSize) {
+                if (fsync != Fsync.NEVER) {
+                    activo.buffer.force();
+                }
+                activo = crearSegmento(secuencia);
+            }
+            MappedByteBuffer buffer = activo.buffer;
+            int posicion = activo.limite;
+            buffer.putInt(posicion + 4, (int) crc.getValue());
+            buffer.put(posicion + HEADER, payload.array());
+            // El largo se escribe al final: un registro sin largo no existe para la recuperación
+            buffer.putInt(posicion, largo);
+            if (fsync == Fsync.ALWAYS) {
+                buffer.force(posicion, HEADER + largo);
+            }
+
+            activo.limite = posicion + HEADER + largo;
+            siguienteSecuencia = secuencia + 1;
+            ultimaEscrita = secuencia;
+            return new Entrada(secuencia, productoId, tipo, cantidad, epochMillis, claveFinal, usuarioId);
+        } finally {
+            escritura.unlock();
+        }
+    }
+
+    public Entrada append(long productoId, MovimientoStock.TipoMovimiento tipo, int cantidad,
+                          long epochMillis, String clave) {
+        return append(productoId, tipo, cantidad, epochMillis, clave, null);
+    }
+
+    public void force() {
+        escritura.lock();
+        try {
+            activo.buffer.force();
+        } finally {
+            escritura.unlock();
+        }
+    }
+
+    /**
+     * Lee hasta {@code max} registros posteriores a los ya leídos (o al checkpoint al abrir).
+     */
+    public List<Entrada> leerSiguientes(int max) {
+        List<Entrada> entradas = new ArrayList<>();
+        while (entradas.size() < max && segmentoLectura != null) {
+            int limite = segmentoLectura.limite;
+            if (posicionLectura < limite) {
+                Entrada entrada = leer(segmentoLectura.buffer, posicionLectura);
+                posicionLectura += HEADER + segmentoLectura.buffer.getInt(posicionLectura);
+                if (entrada.secuencia() > checkpoint) {
+                    entradas.add(entrada);
+                }
+                continue;
+            }
+            Map.Entry<Long, Segmento> siguiente = segmentos.higherEntry(segmentoLectura.primera);
+            if (siguiente == null) {
+                break;
+            }
+            if (posicionLectura < segmentoLectura.limite) {
+                // Registros escritos justo antes de pasar al segmento siguiente
+                continue;
+            }
+            segmentoLectura = siguiente.getValue();
+            posicionLectura = 0;
+        }
+        return entradas;
+    }
+
+    /**
+     * Recorre los registros posteriores al checkpoint sin mover el cursor de {@link #leerSiguientes}.
+     */
+    public void recorrerPendientes(Consumer<Entrada> consumer) {
+        for (Segmento segmento : segmentos.values()) {
+            int limite = segmento.limite;
+            for (int posicion = 0; posicion < limite; posicion += HEADER + segmento.buffer.getInt(posicion)) {
+                Entrada entrada = leer(segmento.buffer, posicion);
+                if (entrada.secuencia() > checkpoint) {
+                    consumer.accept(entrada);
+                }
+            }
+        }
+    }
+
+    /**
+     * Registra que los movimientos hasta {@code secuencia} están en la base y elimina los segmentos
+     * que quedaron completamente aplicados.
+     */
+    public void confirmarHasta(long secuencia) {
+        try {
+            Path tmp = directorio.resolve(CHECKPOINT + ".tmp");
+            Files.writeString(tmp, Long.toString(secuencia), StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                    StandardOpenOption.WRITE, StandardOpenOption.SYNC);
+            Files.move(tmp, directorio.resolve(CHECKPOINT),
+                    StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo escribir el checkpoint del journal", e);
+        }
+        checkpoint = secuencia;
+
+        // Un segmento está aplicado si el siguiente empieza después del checkpoint
+        for (Map.Entry<Long, Segmento> entry : segmentos.entrySet()) {
+            Map.Entry<Long, Segmento> siguiente = segmentos.higherEntry(entry.getKey());
+            if (siguiente == null || siguiente.getKey() > secuencia + 1 || entry.getValue() == segmentoLectura) {
+                break;
+            }
+            segmentos.remove(entry.getKey());
+            entry.getValue().cerrar(true);
+        }
+    }
+
+    @Override
+    public void close() {
+        escritura.lock();
+        try {
+            if (fsync != Fsync.NEVER && activo != null) {
+                activo.buffer.force();
+            }
+            segmentos.values().forEach(segmento -> segmento.cerrar(false));
+            segmentos.clear();
+        } finally {
+            escritura.unlock();
+        }
+    }
+
+    private void recuperar() throws IOException {
+        List<Path> archivos;
+        try (Stream<Path> stream = Files.list(directorio)) {
+            archivos = stream
+                    .filter(path -> path.getFileName().toString().startsWith(PREFIJO))
+                    .filter(path -> path.getFileName().toString().endsWith(EXTENSION))
+                    .toList();
+        }
+
+        long ultima = checkpoint;
+        for (Path archivo : archivos) {
+            String nombre = archivo.getFileName().toString();
+            long primera = Long.parseLong(nombre.substring(PREFIJO.length(), nombre.length() - EXTENSION.length()));
+            Segmento segmento = abrirSegmento(primera, archivo);
+            int posicion = 0;
+            while (posicion + HEADER <= segmentSize) {
+                int largo = segmento.buffer.getInt(posicion);
+                if (largo <= 0 || posicion + HEADER + largo > segmentSize || !crcValido(segmento.buffer, posicion, largo)) {
+                    break;
+                }
+                ultima = Math.max(ultima, segmento.buffer.getLong(posicion + HEADER));
+                posicion += HEADER + largo;
+            }
+            segmento.limite = posicion;
+            segmentos.put(primera, segmento);
+        }
+
+        siguienteSecuencia = ultima + 1;
+        ultimaEscrita = ultima;
+        activo = segmentos.isEmpty() ? crearSegmento(siguienteSecuencia) : segmentos.lastEntry().getValue();
+        segmentoLectura = segmentos.firstEntry().getValue();
+        posicionLectura = 0;
+        log.info("Journal de movimientos abierto - Directorio: {}, Segmentos: {}, Checkpoint: {}, Última secuencia: {}",
+                 directorio, segmentos.size(), checkpoint, ultima);
+    }
+
+    private Segmento crearSegmento(long primera) {
+        try {
+            Segmento segmento = abrirSegmento(primera, directorio.resolve(PREFIJO + primera + EXTENSION));
+            segmentos.put(primera, segmento);
+            return segmento;
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo crear un segmento del journal", e);
+        }
+    }
+
+    private Segmento abrirSegmento(long primera, Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+        return new Segmento(primera, path, channel, buffer);
+    }
+
+    private static boolean crcValido(MappedByteBuffer buffer, int posicion, int largo) {
+        byte[] payload = new byte[largo];
+        buffer.get(posicion + HEADER, payload);
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        return (int) crc.getValue() == buffer.getInt(posicion + 4);
+    }
+
+    private static Entrada leer(MappedByteBuffer buffer, int posicion) {
+        int inicio = posicion + HEADER;
+        long secuencia = buffer.getLong(inicio);
+        long productoId = buffer.getLong(inicio + 8);
+        MovimientoStock.TipoMovimiento tipo = TIPOS[buffer.get(inicio + 16)];
+        int cantidad = buffer.getInt(inicio + 17);
+        long epochMillis = buffer.getLong(inicio + 21);
+        byte[] clave = new byte[buffer.getShort(inicio + 29)];
+        buffer.get(inicio + 31, clave);
+        int finClave = 31 + clave.length;
+        Long usuarioId = buffer.getInt(posicion) > finClave ? buffer.getLong(inicio + finClave) : null;
+        return new Entrada(secuencia, productoId, tipo, cantidad, epochMillis, new String(clave, StandardCharsets.UTF_8),
+                usuarioId);
+    }
+
+    private String leerOCrearId() throws IOException {
+        Path path = directorio.resolve(ID);
+        if (Files.exists(path)) {
+            return Files.readString(path, StandardCharsets.UTF_8).trim();
+        }
+        String nuevo = UUID.randomUUID().toString().replace("-", "");
+        Files.writeString(path, nuevo, StandardCharsets.UTF_8, StandardOpenOption.CREATE_NEW, StandardOpenOption.SYNC);
+        return nuevo;
+    }
+
+    private long leerCheckpoint() throws IOException {
+        Path path = directorio.resolve(CHECKPOINT);
+        return Files.exists(path) ? Long.parseLong(Files.readString(path, StandardCharsets.UTF_8).trim()) : 0L;
+    }
+
+    private static final class Segmento {
+
+        private final long primera;
+        private final Path path;
+        private final FileChannel channel;
+        private final MappedByteBuffer buffer;
+        private volatile int limite;
+
+        private Segmento(long primera, Path path, FileChannel channel, MappedByteBuffer buffer) {
+            this.primera = primera;
+            this.path = path;
+            this.channel = channel;
+            this.buffer = buffer;
+        }
+
+        private void cerrar(boolean eliminar) {
+            try {
+                channel.close();
+                if (eliminar) {
+                    Files.deleteIfExists(path);
+                }
+            } catch (IOException e) {
+                log.warn("No se pudo cerrar el segmento {}: {}", path, e.getMessage());
+            }
+        }
+    }
+}
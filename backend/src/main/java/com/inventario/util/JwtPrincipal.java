@@ -0,0 +1,17 @@
+package com.inventario.util;
+
+import java.security.Principal;
+import java.time.Instant;
+
+/**
+ * Datos de un JWT ya verificado; es el principal de la autenticación que arma {@code JwtAuthenticationFilter}.
+ * {@code jti} y {@code userId} son null en tokens emitidos antes de incluir esos claims.
+ */
+public record JwtPrincipal(String username, String role, Instant expiresAt, String jti, Long userId)
+        implements Principal {
+
+    @Override
+    public String getName() {
+        return username;
+    }
+}
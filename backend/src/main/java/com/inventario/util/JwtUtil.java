@@ -1,91 +1,196 @@
 package com.inventario.util;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.ExpiredJwtException;
 import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
 import io.jsonwebtoken.security.SignatureException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import javax.crypto.SecretKey;
 import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
 import java.util.Date;
+import java.util.Optional;
+import java.util.UUID;
 
 @Slf4j
 @Component
 public class JwtUtil {
 
+    private static final String CACHE_NAME = "jwt-verificados";
+    private static final String ROLE_CLAIM = "role";
+    private static final String USER_ID_CLAIM = "uid";
+
     private final SecretKey secretKey;
     private final long expiration;
+    // JwtParser es inmutable y thread-safe: se arma una sola vez
+    private final JwtParser parser;
+    // Tokens ya verificados, por SHA-256 del token; cada entrada vence junto con su token.
+    // null con jwt.cache.maximum-size=0: cada request verifica la firma
+    private final Cache<String, JwtPrincipal> verificados;
 
     public JwtUtil(
             @Value("${jwt.secret}") String secret,
-            @Value("${jwt.expiration}") long expiration) {
-        
+            @Value("${jwt.expiration}") long expiration,
+            @Value("${jwt.cache.maximum-size:10000}") long cacheMaximumSize,
+            MeterRegistry meterRegistry) {
+
         if (secret.getBytes(StandardCharsets.UTF_8).length < 32) {
             throw new IllegalArgumentException("JWT secret must be at least 256 bits (32 bytes)");
         }
-        
+
         this.secretKey = Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
         this.expiration = expiration;
-        log.info("JwtUtil initialized with expiration: {} ms", expiration);
+        this.parser = Jwts.parser()
+                .verifyWith(secretKey)
+                .build();
+        this.verificados = cacheMaximumSize <= 0 ? null : CaffeineCacheMetrics.monitor(
+                meterRegistry,
+                Caffeine.newBuilder()
+                        .maximumSize(cacheMaximumSize)
+                        .expireAfter(new HastaExpiracion())
+                        .recordStats()
+                        .<String, JwtPrincipal>build(),
+                CACHE_NAME
+        );
+        log.info("JwtUtil initialized with expiration: {} ms, verified-token cache: {}", expiration, cacheMaximumSize);
     }
 
-    public String generateToken(String username, String role) {
+    /**
+     * @param userId ID del usuario en la base; viaja en el token para no consultarlo en cada request
+     */
+    public String generateToken(String username, String role, Long userId) {
         Date now = new Date();
         Date expiryDate = new Date(now.getTime() + expiration);
-        
+
         return Jwts.builder()
+                // jti: identifica el token para revocarlo antes de su expiración
+                .id(UUID.randomUUID().toString())
                 .subject(username)
-                .claim("role", role)
+                .claim(ROLE_CLAIM, role)
+                .claim(USER_ID_CLAIM, userId)
                 .issuedAt(now)
                 .expiration(expiryDate)
                 .signWith(secretKey)
                 .compact();
     }
 
+    /**
+     * Verifica firma y expiración con un único parseo; los tokens vigentes ya verificados se
+     * resuelven desde la caché sin volver a calcular el HMAC.
+     *
+     * @return vacío si el token es inválido o está expirado
+     */
+    public Optional<JwtPrincipal> verifyToken(String token) {
+        if (token == null || token.isEmpty()) {
+            return Optional.empty();
+        }
+
+        if (verificados == null) {
+            return parse(token);
+        }
+
+        String digest = digest(token);
+        JwtPrincipal cached = verificados.getIfPresent(digest);
+        if (cached != null) {
+            // La caché vence por tiempo aproximado; la expiración exacta se controla acá
+            return cached.expiresAt().isAfter(Instant.now()) ? Optional.of(cached) : Optional.empty();
+        }
+
+        Optional<JwtPrincipal> principal = parse(token);
+        principal.ifPresent(verificado -> verificados.put(digest, verificado));
+        return principal;
+    }
+
     public String extractUsername(String token) {
         return extractClaims(token).getSubject();
     }
 
     public String extractRole(String token) {
-        return extractClaims(token).get("role", String.class);
+        return extractClaims(token).get(ROLE_CLAIM, String.class);
     }
 
     public boolean validateToken(String token) {
+        return verifyToken(token).isPresent();
+    }
+
+    private Optional<JwtPrincipal> parse(String token) {
         try {
             Claims claims = extractClaims(token);
             Date expiration = claims.getExpiration();
-            boolean isNotExpired = expiration.after(new Date());
-            
-            if (!isNotExpired) {
+            if (expiration == null || !expiration.after(new Date())) {
                 log.warn("Token expired at: {}", expiration);
+                return Optional.empty();
             }
-            
-            return isNotExpired;
+
+            return Optional.of(new JwtPrincipal(
+                    claims.getSubject(),
+                    claims.get(ROLE_CLAIM, String.class),
+                    expiration.toInstant(),
+                    claims.getId(),
+                    claims.get(USER_ID_CLAIM, Long.class)
+            ));
         } catch (ExpiredJwtException e) {
             log.warn("Expired JWT token: {}", e.getMessage());
-            return false;
+            return Optional.empty();
         } catch (SignatureException e) {
             log.error("Invalid JWT signature: {}", e.getMessage());
-            return false;
+            return Optional.empty();
         } catch (JwtException e) {
             log.error("JWT validation failed: {}", e.getMessage());
-            return false;
+            return Optional.empty();
         } catch (Exception e) {
             log.error("Unexpected error during token validation: {}", e.getMessage());
-            return false;
+            return Optional.empty();
         }
     }
 
     private Claims extractClaims(String token) {
-        return Jwts.parser()
-                .verifyWith(secretKey)
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
+        return parser.parseSignedClaims(token).getPayload();
+    }
+
+    private static String digest(String token) {
+        try {
+            // MessageDigest no es thread-safe: una instancia por llamada (getInstance es barato)
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().withoutPadding().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        }
+    }
+
+    /**
+     * Cada token verificado permanece en caché hasta su propia expiración.
+     */
+    private static final class HastaExpiracion implements Expiry<String, JwtPrincipal> {
+
+        @Override
+        public long expireAfterCreate(String key, JwtPrincipal value, long currentTime) {
+            return Math.max(0, Duration.between(Instant.now(), value.expiresAt()).toNanos());
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, JwtPrincipal value, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, value, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, JwtPrincipal value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
     }
 }
@@ -0,0 +1,200 @@
+package com.inventario.util;
+
+import com.inventario.model.MovimientoStock;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Formato de los segmentos de movimientos archivados: un segmento inmutable por día en
+ * {@code base/yyyy/MM/movimientos-yyyy-MM-dd.seg} más su índice {@code .idx}.
+ * <p>
+ * El segmento es una concatenación de miembros GZIP, uno por producto, con líneas
+ * {@code id;tipo;cantidad;fecha;usuarioId} ordenadas por fecha e ID descendentes. El índice guarda
+ * por producto {@code productoId;offset;length;count}, así leer un producto descomprime solo su bloque.
+ * El índice se publica al final: un segmento sin índice se considera incompleto.
+ */
+public final class SegmentoMovimientos {
+
+    public static final String EXTENSION_SEGMENTO = ".seg";
+    public static final String EXTENSION_INDICE = ".idx";
+
+    private static final String PREFIJO = "movimientos-";
+    private static final String SEPARADOR = ";";
+
+    private SegmentoMovimientos() {
+    }
+
+    /**
+     * Posición y tamaño del bloque comprimido de un producto dentro del segmento.
+     */
+    public record Entrada(long offset, int length, int count) {}
+
+    public static Path segmento(Path base, LocalDate dia) {
+        return directorio(base, dia).resolve(PREFIJO + dia + EXTENSION_SEGMENTO);
+    }
+
+    public static Path indice(Path base, LocalDate dia) {
+        return directorio(base, dia).resolve(PREFIJO + dia + EXTENSION_INDICE);
+    }
+
+    /**
+     * @return el día de un archivo de índice, vacío si el nombre no corresponde a un índice
+     */
+    public static Optional<LocalDate> diaDeIndice(Path indice) {
+        String nombre = indice.getFileName().toString();
+        if (!nombre.startsWith(PREFIJO) || !nombre.endsWith(EXTENSION_INDICE)) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(LocalDate.parse(
+                    nombre.substring(PREFIJO.length(), nombre.length() - EXTENSION_INDICE.length())));
+        } catch (RuntimeException e) {
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Escribe el segmento de un día en archivos temporales, fuerza su escritura a disco y los publica
+     * con un rename atómico (primero el segmento, después el índice).
+     *
+     * @param movimientos agrupados por producto y, dentro de cada producto, por fecha e ID descendentes
+     */
+    public static void escribir(Path base, LocalDate dia, List<MovimientoStock> movimientos) throws IOException {
+        Path segmento = segmento(base, dia);
+        Path indice = indice(base, dia);
+        Files.createDirectories(segmento.getParent());
+        Path segmentoTmp = segmento.resolveSibling(segmento.getFileName() + ".tmp");
+        Path indiceTmp = indice.resolveSibling(indice.getFileName() + ".tmp");
+
+        Map<Long, Entrada> entradas = new LinkedHashMap<>();
+        try (FileChannel out = FileChannel.open(segmentoTmp,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            long offset = 0;
+            int i = 0;
+            while (i < movimientos.size()) {
+                Long productoId = movimientos.get(i).getProductoId();
+                ByteArrayOutputStream bloque = new ByteArrayOutputStream();
+                int count = 0;
+                try (Writer writer = new OutputStreamWriter(new GZIPOutputStream(bloque), StandardCharsets.UTF_8)) {
+                    while (i < movimientos.size() && productoId.equals(movimientos.get(i).getProductoId())) {
+                        writer.write(linea(movimientos.get(i)));
+                        i++;
+                        count++;
+                    }
+                }
+                if (entradas.containsKey(productoId)) {
+                    throw new IllegalArgumentException("Movimientos no agrupados por producto: " + productoId);
+                }
+                ByteBuffer bytes = ByteBuffer.wrap(bloque.toByteArray());
+                while (bytes.hasRemaining()) {
+                    out.write(bytes);
+                }
+                entradas.put(productoId, new Entrada(offset, bloque.size(), count));
+                offset += bloque.size();
+            }
+            out.force(true);
+        }
+
+        StringBuilder contenidoIndice = new StringBuilder();
+        entradas.forEach((productoId, entrada) -> contenidoIndice
+                .append(productoId).append(SEPARADOR)
+                .append(entrada.offset()).append(SEPARADOR)
+                .append(entrada.length()).append(SEPARADOR)
+                .append(entrada.count()).append('\n'));
+        try (FileChannel out = FileChannel.open(indiceTmp,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer bytes = StandardCharsets.UTF_8.encode(contenidoIndice.toString());
+            while (bytes.hasRemaining()) {
+                out.write(bytes);
+            }
+            out.force(true);
+        }
+
+        Files.move(segmentoTmp, segmento, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        Files.move(indiceTmp, indice, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    public static Map<Long, Entrada> leerIndice(Path indice) throws IOException {
+        Map<Long, Entrada> entradas = new LinkedHashMap<>();
+        for (String linea : Files.readAllLines(indice, StandardCharsets.UTF_8)) {
+            if (linea.isBlank()) {
+                continue;
+            }
+            String[] partes = linea.split(SEPARADOR);
+            entradas.put(Long.valueOf(partes[0]), new Entrada(
+                    Long.parseLong(partes[1]), Integer.parseInt(partes[2]), Integer.parseInt(partes[3])));
+        }
+        return entradas;
+    }
+
+    /**
+     * Lee los movimientos de un producto, en el orden en que fueron escritos.
+     */
+    public static List<MovimientoStock> leerProducto(Path segmento, Long productoId, Entrada entrada) throws IOException {
+        ByteBuffer bloque = ByteBuffer.allocate(entrada.length());
+        try (FileChannel in = FileChannel.open(segmento, StandardOpenOption.READ)) {
+            while (bloque.hasRemaining()) {
+                if (in.read(bloque, entrada.offset() + bloque.position()) < 0) {
+                    throw new IOException("Segmento truncado: " + segmento);
+                }
+            }
+        }
+
+        List<MovimientoStock> movimientos = new ArrayList<>(entrada.count());
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new GZIPInputStream(new ByteArrayInputStream(bloque.array())), StandardCharsets.UTF_8))) {
+            String linea;
+            while ((linea = reader.readLine()) != null) {
+                movimientos.add(parsear(productoId, linea));
+            }
+        }
+        return movimientos;
+    }
+
+    private static Path directorio(Path base, LocalDate dia) {
+        return base.resolve(String.valueOf(dia.getYear())).resolve(String.format("%02d", dia.getMonthValue()));
+    }
+
+    private static String linea(MovimientoStock movimiento) {
+        return movimiento.getId() + SEPARADOR
+                + movimiento.getTipo().name() + SEPARADOR
+                + movimiento.getCantidad() + SEPARADOR
+                + movimiento.getFecha() + SEPARADOR
+                + Objects.toString(movimiento.getUsuarioId(), "") + '\n';
+    }
+
+    private static MovimientoStock parsear(Long productoId, String linea) {
+        String[] partes = linea.split(SEPARADOR, -1);
+        MovimientoStock movimiento = new MovimientoStock();
+        movimiento.setId(Long.valueOf(partes[0]));
+        movimiento.setProductoId(productoId);
+        movimiento.setTipo(MovimientoStock.TipoMovimiento.valueOf(partes[1]));
+        movimiento.setCantidad(Integer.valueOf(partes[2]));
+        movimiento.setFecha(LocalDateTime.parse(partes[3]));
+        movimiento.setUsuarioId(partes[4].isEmpty() ? null : Long.valueOf(partes[4]));
+        return movimiento;
+    }
+}
@@ -0,0 +1,107 @@
+package com.inventario.util;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Token bucket por clave sin locks, implementado como GCRA (generic cell rate algorithm).
+ * <p>
+ * Cada clave guarda un único {@code long}: el instante teórico en que su bucket vuelve a estar lleno
+ * (TAT). Consumir un token adelanta el TAT un intervalo ({@code periodo / capacidad}); el request se
+ * rechaza si el TAT quedaría más de una ráfaga completa por delante del reloj. Es equivalente a un
+ * bucket de {@code capacidad} tokens que se repone de forma continua, y se actualiza con un solo CAS.
+ * <p>
+ * Los buckets viven en una caché Caffeine (estado repartido entre segmentos, lecturas sin lock) que
+ * elimina las claves sin uso durante {@code inactividad}. Si la inactividad es al menos el período más
+ * largo configurado, el bucket eliminado ya estaba lleno y descartarlo no cambia ningún resultado.
+ */
+public final class TokenBucketRateLimiter {
+
+    private final Cache<String, AtomicLong> buckets;
+    private final LongSupplier relojNanos;
+    private final long origen;
+
+    public TokenBucketRateLimiter(
+            long maximumSize,
+            Duration inactividad,
+            MeterRegistry meterRegistry,
+            String cacheName,
+            LongSupplier relojNanos) {
+        this.buckets = CaffeineCacheMetrics.monitor(
+                meterRegistry,
+                Caffeine.newBuilder()
+                        .maximumSize(maximumSize)
+                        .expireAfterAccess(inactividad)
+                        .recordStats()
+                        .<String, AtomicLong>build(),
+                cacheName
+        );
+        this.relojNanos = relojNanos;
+        // Reloj relativo al inicio: siempre >= 0, así un bucket nuevo (TAT 0) empieza lleno
+        this.origen = relojNanos.getAsLong();
+    }
+
+    public TokenBucketRateLimiter(long maximumSize, Duration inactividad, MeterRegistry meterRegistry, String cacheName) {
+        this(maximumSize, inactividad, meterRegistry, cacheName, System::nanoTime);
+    }
+
+    /**
+     * Ráfaga máxima de {@code capacidad} requests, repuesta por completo en {@code periodo}.
+     */
+    public record Limite(int capacidad, Duration periodo) {
+
+        public Limite {
+            if (capacidad <= 0 || periodo.isNegative() || periodo.isZero()) {
+                throw new IllegalArgumentException("Límite inválido: " + capacidad + "/" + periodo);
+            }
+        }
+
+        /**
+         * Formato {@code <capacidad>/<segundos>}, por ejemplo {@code 60/60}.
+         */
+        public static Limite parse(String valor) {
+            String[] partes = valor.trim().split("/");
+            if (partes.length != 2) {
+                throw new IllegalArgumentException("Límite inválido (se espera capacidad/segundos): " + valor);
+            }
+            return new Limite(Integer.parseInt(partes[0].trim()), Duration.ofSeconds(Long.parseLong(partes[1].trim())));
+        }
+
+        long intervaloNanos() {
+            return Math.max(1, periodo.toNanos() / capacidad);
+        }
+    }
+
+    /**
+     * @param restantes         requests que aún se admiten de inmediato
+     * @param resetNanos        tiempo hasta que el bucket vuelve a estar lleno
+     * @param reintentarNanos   si fue rechazado, tiempo hasta que se admite el próximo request
+     */
+    public record Resultado(boolean permitido, int capacidad, int restantes, long resetNanos, long reintentarNanos) {}
+
+    public Resultado intentar(String clave, Limite limite) {
+        AtomicLong tat = buckets.get(clave, k -> new AtomicLong());
+        long intervalo = limite.intervaloNanos();
+        long rafaga = intervalo * limite.capacidad();
+
+        while (true) {
+            long ahora = relojNanos.getAsLong() - origen;
+            long actual = tat.get();
+            long nuevo = Math.max(actual, ahora) + intervalo;
+            long ocupado = nuevo - ahora;
+
+            if (ocupado > rafaga) {
+                return new Resultado(false, limite.capacidad(), 0, Math.max(0, actual - ahora), ocupado - rafaga);
+            }
+            if (tat.compareAndSet(actual, nuevo)) {
+                return new Resultado(true, limite.capacidad(), (int) ((rafaga - ocupado) / intervalo), ocupado, 0);
+            }
+        }
+    }
+}
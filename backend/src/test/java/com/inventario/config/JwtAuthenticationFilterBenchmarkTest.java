@@ -0,0 +1,119 @@
+package com.inventario.config;
+
+import com.inventario.repository.TokenRevocadoRepository;
+import com.inventario.service.TokenRevocationService;
+import com.inventario.util.JwtUtil;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.ServletException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.crypto.SecretKey;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.mock;
+
+/**
+ * Microbenchmark JMH del camino caliente de JwtAuthenticationFilter: el flujo anterior (tres parseos
+ * con un parser nuevo cada uno) frente a {@link JwtUtil#verifyToken} con y sin caché de tokens verificados.
+ * Excluido de la ejecución normal; se corre con {@code mvn test -Pbenchmark}.
+ */
+@Tag("benchmark")
+@DisplayName("Benchmark - Verificación de JWT en el filtro de autenticación")
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class JwtAuthenticationFilterBenchmarkTest {
+
+    private static final String SECRET = "benchmark-secret-key-that-is-long-enough-for-256-bits";
+    private static final long EXPIRATION = 3600000L;
+
+    // 0 desactiva la caché: cada verificación recalcula el HMAC
+    @Param({"0", "10000"})
+    public long cacheMaximumSize;
+
+    private SecretKey secretKey;
+    private JwtUtil jwtUtil;
+    private JwtAuthenticationFilter filter;
+    private String token;
+
+    @Test
+    @DisplayName("Debe medir el costo por request de cada variante de verificación")
+    void medir() throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(getClass().getName())
+                .forks(1)
+                .warmupIterations(3)
+                .warmupTime(TimeValue.seconds(1))
+                .measurementIterations(5)
+                .measurementTime(TimeValue.seconds(1))
+                .build();
+        new Runner(options).run();
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        secretKey = Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8));
+        jwtUtil = new JwtUtil(SECRET, EXPIRATION, cacheMaximumSize, new SimpleMeterRegistry());
+        // Sin tokens revocados: el filtro de Bloom responde sin consultar la base
+        TokenRevocationService tokenRevocationService = new TokenRevocationService(
+                mock(TokenRevocadoRepository.class), mock(TransactionTemplate.class), new SimpleMeterRegistry(), 100000, 0.001);
+        filter = new JwtAuthenticationFilter(jwtUtil, tokenRevocationService);
+        token = jwtUtil.generateToken("benchmark", "ADMIN", 1L);
+    }
+
+    @TearDown(Level.Invocation)
+    public void limpiarContexto() {
+        SecurityContextHolder.clearContext();
+    }
+
+    /**
+     * Flujo anterior del filtro: validateToken, extractUsername y extractRole, cada uno con su propio
+     * parser y su propia verificación de firma.
+     */
+    @Benchmark
+    public void tresParseos(Blackhole blackhole) {
+        blackhole.consume(Jwts.parser().verifyWith(secretKey).build().parseSignedClaims(token).getPayload().getExpiration());
+        blackhole.consume(Jwts.parser().verifyWith(secretKey).build().parseSignedClaims(token).getPayload().getSubject());
+        blackhole.consume(Jwts.parser().verifyWith(secretKey).build().parseSignedClaims(token).getPayload().get("role"));
+    }
+
+    @Benchmark
+    public void verifyToken(Blackhole blackhole) {
+        blackhole.consume(jwtUtil.verifyToken(token));
+    }
+
+    @Benchmark
+    public void filtro(Blackhole blackhole) throws ServletException, IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/productos");
+        request.addHeader("Authorization", "Bearer " + token);
+        filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+        blackhole.consume(SecurityContextHolder.getContext().getAuthentication());
+    }
+}
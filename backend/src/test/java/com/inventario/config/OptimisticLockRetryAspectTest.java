@@ -0,0 +1,121 @@
+package com.inventario.config;
+
+import com.inventario.model.Producto;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DisplayName("OptimisticLockRetryAspect - Reintentos ante conflictos de versión")
+class OptimisticLockRetryAspectTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private Operacion target;
+    private Operacion proxy;
+    private OptimisticLockRetryAspect aspect;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        target = new Operacion();
+
+        AspectJProxyFactory factory = new AspectJProxyFactory(target);
+        factory.setProxyTargetClass(true);
+        aspect = new OptimisticLockRetryAspect(meterRegistry, 3, 1, 2);
+        factory.addAspect(aspect);
+        proxy = factory.getProxy();
+    }
+
+    @Test
+    @DisplayName("Debe reintentar hasta tener éxito y registrar los intentos")
+    void debeReintentarHastaExito() {
+        target.conflictosRestantes = 2;
+
+        assertThat(proxy.actualizar()).isEqualTo("ok");
+        assertThat(target.invocaciones).isEqualTo(3);
+        assertThat(meterRegistry.get("optimistic.lock.attempts").summary().max()).isEqualTo(3);
+        assertThat(meterRegistry.get("optimistic.lock.conflicts")
+                .tag("entity", "Producto").counter().count()).isEqualTo(2);
+        assertThat(aspect.registrosMasDisputados(5))
+                .containsExactly(new OptimisticLockRetryAspect.RegistroDisputado("Producto#7", 2));
+    }
+
+    @Test
+    @DisplayName("Debe exponer los registros más disputados en el endpoint de actuator")
+    void debeExponerRegistrosDisputados() {
+        target.conflictosRestantes = 1;
+        proxy.actualizar();
+
+        OptimisticLockEndpoint endpoint = new OptimisticLockEndpoint(aspect);
+
+        assertThat(endpoint.registrosMasDisputados(null))
+                .containsExactly(new OptimisticLockRetryAspect.RegistroDisputado("Producto#7", 1));
+        assertThat(endpoint.registrosMasDisputados(0)).hasSize(1);
+    }
+
+    @Test
+    @DisplayName("No debe crear un medidor por ID de registro")
+    void noDebeEtiquetarPorId() {
+        target.conflictosRestantes = 1;
+
+        proxy.actualizar();
+
+        assertThat(meterRegistry.get("optimistic.lock.conflicts").counter().getId().getTag("id")).isNull();
+    }
+
+    @Test
+    @DisplayName("Debe propagar el conflicto al agotar los intentos")
+    void debePropagarAlAgotarIntentos() {
+        target.conflictosRestantes = 10;
+
+        assertThatThrownBy(() -> proxy.actualizar())
+                .isInstanceOf(ObjectOptimisticLockingFailureException.class);
+        assertThat(target.invocaciones).isEqualTo(3);
+        assertThat(meterRegistry.get("optimistic.lock.exhausted").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("No debe reintentar otras excepciones")
+    void noDebeReintentarOtrasExcepciones() {
+        target.error = new IllegalArgumentException("Stock insuficiente");
+
+        assertThatThrownBy(() -> proxy.actualizar())
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThat(target.invocaciones).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("El backoff debe quedar acotado por el máximo configurado")
+    void backoffDebeEstarAcotado() {
+        OptimisticLockRetryAspect aspect = new OptimisticLockRetryAspect(meterRegistry, 10, 20, 100);
+
+        for (int intento = 1; intento <= 10; intento++) {
+            assertThat(aspect.backoffMillis(intento)).isBetween(0L, 100L);
+        }
+    }
+
+    static class Operacion {
+
+        int conflictosRestantes;
+        int invocaciones;
+        RuntimeException error;
+
+        @RetryOnOptimisticLock
+        public String actualizar() {
+            invocaciones++;
+            if (error != null) {
+                throw error;
+            }
+            if (conflictosRestantes > 0) {
+                conflictosRestantes--;
+                throw new ObjectOptimisticLockingFailureException(Producto.class, 7L);
+            }
+            return "ok";
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.inventario.config;
+
+import com.inventario.exception.ServiceOverloadedException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tests unitarios para PasswordVerifier - Pool acotado y rechazo por saturación
+ */
+class PasswordVerifierTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final CountDownLatch liberar = new CountDownLatch(1);
+    private final CountDownLatch enCurso = new CountDownLatch(1);
+
+    // Encoder que bloquea hasta liberar el latch, para ocupar el pool
+    private final PasswordEncoder encoderBloqueante = new PasswordEncoder() {
+        @Override
+        public String encode(CharSequence rawPassword) {
+            return rawPassword.toString();
+        }
+
+        @Override
+        public boolean matches(CharSequence rawPassword, String encodedPassword) {
+            enCurso.countDown();
+            try {
+                liberar.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return rawPassword.toString().equals(encodedPassword);
+        }
+    };
+
+    private PasswordVerifier passwordVerifier;
+
+    @AfterEach
+    void tearDown() {
+        liberar.countDown();
+        passwordVerifier.shutdown();
+    }
+
+    @Test
+    @DisplayName("Debe verificar la contraseña en el pool y registrar el tiempo")
+    void debeVerificarEnElPool() {
+        liberar.countDown();
+        passwordVerifier = new PasswordVerifier(encoderBloqueante, meterRegistry, 1, 1, 1000);
+
+        assertThat(passwordVerifier.matches("secreto", "secreto")).isTrue();
+        assertThat(passwordVerifier.matches("otro", "secreto")).isFalse();
+        assertThat(meterRegistry.get("auth.password.verificacion").timer().count()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Debe rechazar de inmediato cuando el pool y la cola están llenos")
+    void debeRechazarConColaLlena() throws InterruptedException {
+        passwordVerifier = new PasswordVerifier(encoderBloqueante, meterRegistry, 1, 1, 10_000);
+
+        // Una verificación en curso y otra en cola
+        CompletableFuture.runAsync(() -> passwordVerifier.matches("a", "a"));
+        assertThat(enCurso.await(5, TimeUnit.SECONDS)).isTrue();
+        CompletableFuture.runAsync(() -> passwordVerifier.matches("b", "b"));
+        while (meterRegistry.get("auth.password.cola").gauge().value() < 1) {
+            Thread.onSpinWait();
+        }
+
+        long inicio = System.nanoTime();
+        assertThatThrownBy(() -> passwordVerifier.matches("c", "c"))
+                .isInstanceOf(ServiceOverloadedException.class);
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - inicio)).isLessThan(1000);
+        assertThat(meterRegistry.get("auth.password.rechazados").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Debe rechazar cuando la espera supera el timeout")
+    void debeRechazarPorTimeout() throws InterruptedException {
+        passwordVerifier = new PasswordVerifier(encoderBloqueante, meterRegistry, 1, 4, 100);
+
+        CompletableFuture.runAsync(() -> passwordVerifier.matches("a", "a"));
+        assertThat(enCurso.await(5, TimeUnit.SECONDS)).isTrue();
+
+        assertThatThrownBy(() -> passwordVerifier.matches("b", "b"))
+                .isInstanceOf(ServiceOverloadedException.class)
+                .satisfies(e -> assertThat(((ServiceOverloadedException) e).getRetryAfterSeconds()).isPositive());
+        // La verificación cancelada no queda ocupando la cola
+        assertThat(meterRegistry.get("auth.password.cola").gauge().value()).isZero();
+    }
+}
@@ -0,0 +1,117 @@
+package com.inventario.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests unitarios para RateLimitFilter - Reglas por ruta y rol, headers y 429
+ */
+class RateLimitFilterTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private RateLimitFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        StaticListableBeanFactory beanFactory = new StaticListableBeanFactory();
+        beanFactory.addBean("meterRegistry", meterRegistry);
+        filter = new RateLimitFilter(true, "2/60", "3/60", "1/60,ADMIN=3/60", 1000,
+                beanFactory.getBeanProvider(MeterRegistry.class), new ObjectMapper().registerModule(new JavaTimeModule()));
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    @DisplayName("Debe limitar /login por IP y responder 429 con Retry-After")
+    void debeLimitarLoginPorIp() throws Exception {
+        assertThat(ejecutar("POST", "/login", "10.0.0.1").getStatus()).isEqualTo(200);
+        MockHttpServletResponse segundo = ejecutar("POST", "/login", "10.0.0.1");
+        assertThat(segundo.getHeader("RateLimit-Limit")).isEqualTo("2");
+        assertThat(segundo.getHeader("RateLimit-Remaining")).isEqualTo("0");
+
+        MockHttpServletResponse rechazado = ejecutar("POST", "/login", "10.0.0.1");
+
+        assertThat(rechazado.getStatus()).isEqualTo(429);
+        assertThat(rechazado.getHeader("Retry-After")).isEqualTo("30");
+        assertThat(rechazado.getContentAsString()).contains("\"status\":429");
+        assertThat(meterRegistry.get("rate-limit.rechazados").tag("regla", "login").counter().count()).isEqualTo(1);
+        // Otra IP tiene su propio bucket
+        assertThat(ejecutar("POST", "/login", "10.0.0.2").getStatus()).isEqualTo(200);
+    }
+
+    @Test
+    @DisplayName("Refresh y logout no deben consumir los intentos de login de la IP")
+    void debeLimitarSesionEnBucketAparte() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            String path = i % 2 == 0 ? "/login/refresh" : "/login/logout";
+            assertThat(ejecutar("POST", path, "10.0.0.1").getStatus()).isEqualTo(200);
+        }
+        assertThat(ejecutar("POST", "/login/refresh", "10.0.0.1").getStatus()).isEqualTo(429);
+        assertThat(meterRegistry.get("rate-limit.rechazados").tag("regla", "sesion").counter().count()).isEqualTo(1);
+
+        // El bucket de login de la misma IP sigue completo
+        MockHttpServletResponse login = ejecutar("POST", "/login", "10.0.0.1");
+        assertThat(login.getStatus()).isEqualTo(200);
+        assertThat(login.getHeader("RateLimit-Remaining")).isEqualTo("1");
+    }
+
+    @Test
+    @DisplayName("Debe aplicar a las escrituras el límite del rol del usuario autenticado")
+    void debeLimitarEscrituraPorRol() throws Exception {
+        autenticar("admin", "ADMIN");
+        for (int i = 0; i < 3; i++) {
+            assertThat(ejecutar("POST", "/stock-movements", "10.0.0.1").getStatus()).isEqualTo(200);
+        }
+        assertThat(ejecutar("POST", "/stock-movements", "10.0.0.1").getStatus()).isEqualTo(429);
+
+        // Otro usuario desde la misma IP usa su propio bucket y el límite por defecto
+        autenticar("operador", "USER");
+        assertThat(ejecutar("DELETE", "/productos/1", "10.0.0.1").getStatus()).isEqualTo(200);
+        assertThat(ejecutar("PUT", "/productos/1", "10.0.0.1").getStatus()).isEqualTo(429);
+    }
+
+    @Test
+    @DisplayName("No debe limitar lecturas")
+    void noDebeLimitarLecturas() throws Exception {
+        autenticar("operador", "USER");
+        for (int i = 0; i < 5; i++) {
+            MockHttpServletResponse response = ejecutar("GET", "/productos", "10.0.0.1");
+            assertThat(response.getStatus()).isEqualTo(200);
+            assertThat(response.getHeader("RateLimit-Limit")).isNull();
+        }
+    }
+
+    private MockHttpServletResponse ejecutar(String metodo, String path, String ip) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest(metodo, path);
+        request.setRemoteAddr(ip);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, new MockFilterChain());
+        return response;
+    }
+
+    private void autenticar(String username, String role) {
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(
+                username, null, List.of(new SimpleGrantedAuthority("ROLE_" + role))));
+    }
+}
@@ -5,6 +5,7 @@ import com.inventario.config.CustomAuthenticationProvider;
 import com.inventario.config.JwtAuthenticationFilter;
 import com.inventario.dto.LoginRequest;
 import com.inventario.dto.LoginResponse;
+import com.inventario.dto.RefreshTokenRequest;
 import com.inventario.repository.UserRepository;
 import com.inventario.service.AuthService;
 import com.inventario.util.JwtUtil;
@@ -60,7 +61,7 @@ class AuthControllerTest {
         request.setUsername("admin");
         request.setPassword("password123");
         
-        LoginResponse response = new LoginResponse("jwt.token.here", "admin", "ADMIN");
+        LoginResponse response = new LoginResponse("jwt.token.here", "admin", "ADMIN", "refresh-token");
         when(authService.login(any(LoginRequest.class))).thenReturn(response);
 
         // When/Then
@@ -71,7 +72,8 @@ class AuthControllerTest {
                 .andExpect(content().contentType(MediaType.APPLICATION_JSON))
                 .andExpect(jsonPath("$.token").value("jwt.token.here"))
                 .andExpect(jsonPath("$.username").value("admin"))
-                .andExpect(jsonPath("$.role").value("ADMIN"));
+                .andExpect(jsonPath("$.role").value("ADMIN"))
+                .andExpect(jsonPath("$.refreshToken").value("refresh-token"));
 
         verify(authService, times(1)).login(any(LoginRequest.class));
     }
@@ -95,4 +97,55 @@ class AuthControllerTest {
 
         verify(authService, times(1)).login(any(LoginRequest.class));
     }
+
+    @Test
+    @DisplayName("POST /login/refresh - Debe retornar 200 con el token renovado")
+    void shouldReturn200WhenRefreshTokenIsValid() throws Exception {
+        // Given
+        RefreshTokenRequest request = new RefreshTokenRequest();
+        request.setRefreshToken("refresh-token");
+
+        when(authService.refresh("refresh-token"))
+            .thenReturn(new LoginResponse("nuevo.jwt.token", "admin", "ADMIN", "nuevo-refresh-token"));
+
+        // When/Then
+        mockMvc.perform(post("/login/refresh")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.token").value("nuevo.jwt.token"))
+                .andExpect(jsonPath("$.refreshToken").value("nuevo-refresh-token"));
+    }
+
+    @Test
+    @DisplayName("POST /login/refresh - Debe retornar 401 cuando el refresh token es inválido")
+    void shouldReturn401WhenRefreshTokenIsInvalid() throws Exception {
+        // Given
+        RefreshTokenRequest request = new RefreshTokenRequest();
+        request.setRefreshToken("revocado");
+
+        when(authService.refresh("revocado")).thenThrow(new BadCredentialsException("Refresh token revocado"));
+
+        // When/Then
+        mockMvc.perform(post("/login/refresh")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    @DisplayName("POST /login/logout - Debe revocar el refresh token y retornar 204")
+    void shouldRevokeRefreshTokenOnLogout() throws Exception {
+        // Given
+        RefreshTokenRequest request = new RefreshTokenRequest();
+        request.setRefreshToken("refresh-token");
+
+        // When/Then
+        mockMvc.perform(post("/login/logout")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isNoContent());
+
+        verify(authService).logout("refresh-token", null);
+    }
 }
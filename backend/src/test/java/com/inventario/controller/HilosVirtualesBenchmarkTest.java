@@ -0,0 +1,149 @@
+package com.inventario.controller;
+
+import com.inventario.client.FakeStoreClient;
+import com.inventario.util.JwtUtil;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+
+/**
+ * Benchmark de carga de POST /sync-products con FakeStore lento: pool fijo de Tomcat frente a
+ * hilos virtuales ({@code spring.threads.virtual.enabled}). Con más clientes concurrentes que
+ * {@code server.tomcat.threads.max} el pool de plataforma encola los requests; los hilos virtuales no.
+ * Excluido de la ejecución normal; se corre con {@code mvn test -Pbenchmark}.
+ */
+@Tag("benchmark")
+@DisplayName("Benchmark - Hilos de plataforma vs hilos virtuales en /sync-products")
+class HilosVirtualesBenchmarkTest {
+
+    private static final int CONCURRENCIA = 400;
+    private static final int WARMUP_REQUESTS = 1000;
+    private static final int MEASURED_REQUESTS = 4000;
+    private static final long LATENCIA_FAKESTORE_MILLIS = 50;
+
+    private static final Map<String, Resultado> resultados = new ConcurrentSkipListMap<>();
+
+    @AfterAll
+    static void imprimirComparacion() {
+        System.out.printf("%n%-12s %12s %10s %10s%n", "modo", "req/s", "p50 ms", "p99 ms");
+        resultados.forEach((modo, resultado) -> System.out.printf("%-12s %12.0f %10.1f %10.1f%n",
+                modo, resultado.throughput(), resultado.p50Millis(), resultado.p99Millis()));
+    }
+
+    @Nested
+    @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+    @TestPropertySource(properties = "spring.threads.virtual.enabled=false")
+    @DisplayName("Pool de hilos de plataforma (server.tomcat.threads.max)")
+    class HilosDePlataforma extends Carga {
+
+        @Test
+        @DisplayName("Debe medir throughput y p99 con el pool de Tomcat")
+        void medir() throws InterruptedException {
+            resultados.put("plataforma", ejecutar());
+        }
+    }
+
+    @Nested
+    @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+    @TestPropertySource(properties = "spring.threads.virtual.enabled=true")
+    @DisplayName("Hilos virtuales")
+    class HilosVirtuales extends Carga {
+
+        @Test
+        @DisplayName("Debe medir throughput y p99 con hilos virtuales")
+        void medir() throws InterruptedException {
+            resultados.put("virtuales", ejecutar());
+        }
+    }
+
+    abstract static class Carga {
+
+        @LocalServerPort
+        private int port;
+
+        @Autowired
+        private JwtUtil jwtUtil;
+
+        @MockitoBean
+        private FakeStoreClient fakeStoreClient;
+
+        private final HttpClient httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .build();
+
+        Resultado ejecutar() throws InterruptedException {
+            // FakeStore responde sin productos nuevos: el request solo espera la respuesta externa
+            when(fakeStoreClient.getAllProducts()).thenAnswer(invocation -> {
+                Thread.sleep(LATENCIA_FAKESTORE_MILLIS);
+                return List.of();
+            });
+            HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/sync-products"))
+                    .header("Authorization", "Bearer " + jwtUtil.generateToken("benchmark", "ADMIN", 1L))
+                    .POST(HttpRequest.BodyPublishers.noBody())
+                    .build();
+
+            correr(request, WARMUP_REQUESTS);
+            long inicio = System.nanoTime();
+            long[] latencias = correr(request, MEASURED_REQUESTS);
+            long nanos = System.nanoTime() - inicio;
+
+            Arrays.sort(latencias);
+            return new Resultado(
+                    MEASURED_REQUESTS * 1e9 / nanos,
+                    latencias[MEASURED_REQUESTS / 2] / 1e6,
+                    latencias[(int) (MEASURED_REQUESTS * 0.99)] / 1e6
+            );
+        }
+
+        private long[] correr(HttpRequest request, int total) throws InterruptedException {
+            long[] latencias = new long[total];
+            Semaphore enVuelo = new Semaphore(CONCURRENCIA);
+            CountDownLatch fin = new CountDownLatch(total);
+            AtomicInteger errores = new AtomicInteger();
+
+            for (int i = 0; i < total; i++) {
+                enVuelo.acquire();
+                int indice = i;
+                long inicio = System.nanoTime();
+                httpClient.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                        .whenComplete((response, error) -> {
+                            latencias[indice] = System.nanoTime() - inicio;
+                            if (error != null || response.statusCode() != 200) {
+                                errores.incrementAndGet();
+                            }
+                            enVuelo.release();
+                            fin.countDown();
+                        });
+            }
+
+            assertThat(fin.await(5, TimeUnit.MINUTES)).isTrue();
+            assertThat(errores).hasValue(0);
+            return latencias;
+        }
+    }
+
+    private record Resultado(double throughput, double p50Millis, double p99Millis) {}
+}
@@ -1,13 +1,16 @@
 package com.inventario.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.inventario.dto.CursorPageResponse;
 import com.inventario.dto.PageResponse;
 import com.inventario.dto.ProductoRequest;
 import com.inventario.dto.ProductoResponse;
+import com.inventario.dto.StockHistoricoResponse;
 import com.inventario.exception.DuplicateResourceException;
 import com.inventario.exception.ResourceNotFoundException;
 import com.inventario.repository.UserRepository;
 import com.inventario.service.ProductoService;
+import com.inventario.service.StockSnapshotService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -47,6 +50,9 @@ class ProductoControllerTest {
     @MockitoBean
     private UserRepository userRepository;
 
+    @MockitoBean
+    private StockSnapshotService stockSnapshotService;
+
     private ProductoResponse productoResponse;
     private ProductoRequest productoRequest;
 
@@ -144,6 +150,22 @@ class ProductoControllerTest {
         verify(productoService).getProductoById(999L);
     }
 
+    @Test
+    @WithMockUser
+    @DisplayName("GET /api/productos/{id}/stock - Debe retornar el stock a la fecha indicada")
+    void getStockEn_DebeRetornarStockHistorico() throws Exception {
+        LocalDateTime fecha = LocalDateTime.of(2025, 6, 1, 12, 30);
+        when(stockSnapshotService.getStockEn(1L, fecha))
+            .thenReturn(new StockHistoricoResponse(1L, fecha, 42, LocalDateTime.of(2025, 6, 1, 12, 0)));
+
+        mockMvc.perform(get("/api/productos/1/stock").param("fecha", "2025-06-01T12:30:00"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.stock").value(42))
+            .andExpect(jsonPath("$.snapshotFecha").exists());
+
+        verify(stockSnapshotService).getStockEn(1L, fecha);
+    }
+
     @Test
     @WithMockUser
     @DisplayName("POST /api/productos - Debe retornar 201 con Location header")
@@ -211,4 +233,27 @@ class ProductoControllerTest {
 
         verify(productoService).updateProducto(eq(1L), any(ProductoRequest.class));
     }
+
+    @Test
+    @WithMockUser
+    @DisplayName("GET /api/productos/cursor - Debe retornar página por cursor")
+    void getProductosByCursor_DebeRetornarPaginaPorCursor() throws Exception {
+        CursorPageResponse<ProductoResponse> cursorResponse = new CursorPageResponse<>(
+            Collections.singletonList(productoResponse),
+            10,
+            "abc",
+            true
+        );
+
+        when(productoService.getProductosByCursor(null, null, "xyz", 10, "fechaRegistro", "desc"))
+            .thenReturn(cursorResponse);
+
+        mockMvc.perform(get("/api/productos/cursor").param("cursor", "xyz"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.content[0].nombre").value("Laptop HP"))
+            .andExpect(jsonPath("$.nextCursor").value("abc"))
+            .andExpect(jsonPath("$.hasNext").value(true));
+
+        verify(productoService).getProductosByCursor(null, null, "xyz", 10, "fechaRegistro", "desc");
+    }
 }
@@ -0,0 +1,127 @@
+package com.inventario.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.inventario.dto.ReservaRequest;
+import com.inventario.dto.ReservaResponse;
+import com.inventario.exception.ResourceNotFoundException;
+import com.inventario.model.ReservaStock;
+import com.inventario.service.ReservaStockService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDateTime;
+
+import static org.hamcrest.Matchers.endsWith;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(ReservaController.class)
+@Import(com.inventario.controller.TestSecurityConfig.class)
+@DisplayName("ReservaController - Tests de API REST")
+class ReservaControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @MockBean
+    @SuppressWarnings("removal") // MockBean deprecated in Spring Boot 3.4+, but still the standard for @WebMvcTest
+    private ReservaStockService reservaStockService;
+
+    private ReservaRequest request;
+    private ReservaResponse activa;
+
+    @BeforeEach
+    void setUp() {
+        request = new ReservaRequest();
+        request.setProductoId(1L);
+        request.setCantidad(3);
+
+        activa = ReservaResponse.builder()
+                .id(7L)
+                .productoId(1L)
+                .cantidad(3)
+                .estado(ReservaStock.EstadoReserva.ACTIVA)
+                .expiraEn(LocalDateTime.now().plusMinutes(5))
+                .build();
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    @DisplayName("POST /reservas - Debe crear la reserva y retornar 201 con Location")
+    void debeCrearReserva() throws Exception {
+        when(reservaStockService.reservar(any(ReservaRequest.class))).thenReturn(activa);
+
+        mockMvc.perform(post("/reservas")
+                        .with(csrf())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isCreated())
+                .andExpect(header().string("Location", endsWith("/reservas/7")))
+                .andExpect(jsonPath("$.estado").value("ACTIVA"));
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    @DisplayName("POST /reservas - Debe validar la cantidad")
+    void debeValidarCantidad() throws Exception {
+        request.setCantidad(0);
+
+        mockMvc.perform(post("/reservas")
+                        .with(csrf())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isBadRequest());
+
+        verify(reservaStockService, never()).reservar(any());
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    @DisplayName("POST /reservas/{id}/confirmar - Debe retornar la reserva confirmada con su movimiento")
+    void debeConfirmarReserva() throws Exception {
+        activa.setEstado(ReservaStock.EstadoReserva.CONFIRMADA);
+        activa.setMovimientoId(99L);
+        when(reservaStockService.confirmar(7L, null)).thenReturn(activa);
+
+        mockMvc.perform(post("/reservas/7/confirmar").with(csrf()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.estado").value("CONFIRMADA"))
+                .andExpect(jsonPath("$.movimientoId").value(99));
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    @DisplayName("POST /reservas/{id}/confirmar - Debe retornar 400 si la reserva está vencida")
+    void debeRetornar400SiVencida() throws Exception {
+        when(reservaStockService.confirmar(7L, null)).thenThrow(new IllegalArgumentException("La reserva 7 está vencida"));
+
+        mockMvc.perform(post("/reservas/7/confirmar").with(csrf()))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    @DisplayName("POST /reservas/{id}/liberar - Debe retornar 404 si la reserva no existe")
+    void debeRetornar404SiNoExiste() throws Exception {
+        when(reservaStockService.liberar(8L)).thenThrow(new ResourceNotFoundException("Reserva", "id", 8L));
+
+        mockMvc.perform(post("/reservas/8/liberar").with(csrf()))
+                .andExpect(status().isNotFound());
+    }
+}
@@ -1,11 +1,19 @@
 package com.inventario.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.inventario.dto.CursorPageResponse;
+import com.inventario.dto.MovimientoStockBatchRequest;
+import com.inventario.dto.MovimientoStockBatchResponse;
 import com.inventario.dto.MovimientoStockRequest;
 import com.inventario.dto.MovimientoStockResponse;
+import com.inventario.dto.ResumenDiarioResponse;
+import com.inventario.exception.IdempotencyKeyMismatchException;
 import com.inventario.exception.ResourceNotFoundException;
 import com.inventario.model.MovimientoStock;
+import com.inventario.service.MovimientoIdempotencia;
+import com.inventario.service.MovimientoResumenService;
 import com.inventario.service.MovimientoStockService;
+import com.inventario.util.JwtPrincipal;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
@@ -16,15 +24,26 @@ import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
 import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
 
+import java.time.Instant;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
 
 import static org.hamcrest.Matchers.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.*;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.authentication;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -48,6 +67,14 @@ class StockMovementControllerTest {
     @SuppressWarnings("removal") // MockBean deprecated in Spring Boot 3.4+, but still the standard for @WebMvcTest
     private MovimientoStockService movimientoStockService;
 
+    @MockBean
+    @SuppressWarnings("removal")
+    private MovimientoResumenService movimientoResumenService;
+
+    @MockBean
+    @SuppressWarnings("removal")
+    private MovimientoIdempotencia movimientoIdempotencia;
+
     private MovimientoStockRequest validRequest;
     private MovimientoStockResponse mockResponse;
 
@@ -146,6 +173,26 @@ class StockMovementControllerTest {
                     .andExpect(header().exists("Location"))
                     .andExpect(header().string("Location", containsString("/stock-movements")));
         }
+
+        @Test
+        @DisplayName("Debe registrar el movimiento con el ID de usuario del JWT")
+        void debeRegistrarUsuarioDelToken() throws Exception {
+            // Arrange
+            JwtPrincipal principal = new JwtPrincipal("admin", "ADMIN", Instant.now().plusSeconds(600), "jti-1", 5L);
+            when(movimientoStockService.registrarMovimiento(any(MovimientoStockRequest.class)))
+                    .thenReturn(mockResponse);
+
+            // Act & Assert
+            mockMvc.perform(post("/stock-movements")
+                            .with(authentication(new UsernamePasswordAuthenticationToken(
+                                    principal, null, List.of(new SimpleGrantedAuthority("ROLE_ADMIN")))))
+                            .with(csrf())
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(validRequest)))
+                    .andExpect(status().isCreated());
+
+            verify(movimientoStockService).registrarMovimiento(argThat(request -> Long.valueOf(5L).equals(request.getUsuarioId())));
+        }
     }
 
     @Nested
@@ -453,4 +500,242 @@ class StockMovementControllerTest {
                     .andExpect(status().isCreated()); // Por defecto ignora campos extra
         }
     }
+
+    @Nested
+    @DisplayName("POST /stock-movements/batch")
+    class RegistroEnLote {
+
+        @Test
+        @WithMockUser
+        @DisplayName("Debe retornar 200 con el resultado de cada movimiento")
+        void debeRetornarResultadosPorMovimiento() throws Exception {
+            // Arrange
+            MovimientoStockBatchRequest batchRequest = new MovimientoStockBatchRequest();
+            batchRequest.setMovimientos(List.of(validRequest));
+            batchRequest.setTodoONada(false);
+
+            MovimientoStockBatchResponse batchResponse = MovimientoStockBatchResponse.builder()
+                    .todoONada(false)
+                    .exitosos(1)
+                    .fallidos(0)
+                    .resultados(List.of(MovimientoStockBatchResponse.Resultado.exitoso(0, mockResponse)))
+                    .build();
+            when(movimientoStockService.registrarMovimientosBatch(any(MovimientoStockBatchRequest.class)))
+                    .thenReturn(batchResponse);
+
+            // Act & Assert
+            mockMvc.perform(post("/stock-movements/batch")
+                            .with(csrf())
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(batchRequest)))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.exitosos").value(1))
+                    .andExpect(jsonPath("$.resultados[0].exitoso").value(true))
+                    .andExpect(jsonPath("$.resultados[0].movimiento.stockResultante").value(150));
+        }
+
+        @Test
+        @WithMockUser
+        @DisplayName("Debe fallar con lote vacío")
+        void debeFallarLoteVacio() throws Exception {
+            // Arrange
+            MovimientoStockBatchRequest batchRequest = new MovimientoStockBatchRequest();
+            batchRequest.setMovimientos(Collections.emptyList());
+
+            // Act & Assert
+            mockMvc.perform(post("/stock-movements/batch")
+                            .with(csrf())
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(batchRequest)))
+                    .andExpect(status().isBadRequest());
+
+            verify(movimientoStockService, never()).registrarMovimientosBatch(any());
+        }
+
+        @Test
+        @WithMockUser
+        @DisplayName("Debe validar cada movimiento del lote")
+        void debeValidarCadaMovimiento() throws Exception {
+            // Arrange
+            validRequest.setCantidad(0);
+            MovimientoStockBatchRequest batchRequest = new MovimientoStockBatchRequest();
+            batchRequest.setMovimientos(List.of(validRequest));
+
+            // Act & Assert
+            mockMvc.perform(post("/stock-movements/batch")
+                            .with(csrf())
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(batchRequest)))
+                    .andExpect(status().isBadRequest());
+
+            verify(movimientoStockService, never()).registrarMovimientosBatch(any());
+        }
+    }
+
+    @Nested
+    @DisplayName("GET /stock-movements - Historial")
+    class Historial {
+
+        @Test
+        @WithMockUser
+        @DisplayName("Debe retornar la página de historial con el cursor siguiente")
+        void debeRetornarHistorialPaginado() throws Exception {
+            // Arrange
+            CursorPageResponse<MovimientoStockResponse> pagina =
+                    new CursorPageResponse<>(List.of(mockResponse), 1, "siguiente", true);
+            when(movimientoStockService.getHistorial(eq(1L), eq(LocalDateTime.of(2025, 1, 1, 0, 0)), isNull(), isNull(), eq(1)))
+                    .thenReturn(pagina);
+
+            // Act & Assert
+            mockMvc.perform(get("/stock-movements")
+                            .param("productoId", "1")
+                            .param("from", "2025-01-01T00:00:00")
+                            .param("size", "1"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.content[0].id").value(1))
+                    .andExpect(jsonPath("$.nextCursor").value("siguiente"))
+                    .andExpect(jsonPath("$.hasNext").value(true));
+        }
+
+        @Test
+        @WithMockUser
+        @DisplayName("Debe retornar 400 con un cursor inválido")
+        void debeRetornar400CursorInvalido() throws Exception {
+            // Arrange
+            when(movimientoStockService.getHistorial(eq(1L), any(), any(), eq("xyz"), eq(20)))
+                    .thenThrow(new IllegalArgumentException("Cursor inválido"));
+
+            // Act & Assert
+            mockMvc.perform(get("/stock-movements")
+                            .param("productoId", "1")
+                            .param("cursor", "xyz"))
+                    .andExpect(status().isBadRequest())
+                    .andExpect(jsonPath("$.message", containsString("Cursor inválido")));
+        }
+
+        @Test
+        @WithMockUser(roles = "ADMIN")
+        @DisplayName("Debe retornar la actividad paginada de un usuario")
+        void debeRetornarActividadUsuario() throws Exception {
+            // Arrange
+            CursorPageResponse<MovimientoStockResponse> pagina =
+                    new CursorPageResponse<>(List.of(mockResponse), 20, null, false);
+            when(movimientoStockService.getActividadUsuario(eq(5L), isNull(), isNull(), isNull(), eq(20)))
+                    .thenReturn(pagina);
+
+            // Act & Assert
+            mockMvc.perform(get("/stock-movements/usuarios/5"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.content[0].id").value(1))
+                    .andExpect(jsonPath("$.hasNext").value(false));
+        }
+    }
+
+    @Nested
+    @DisplayName("GET /stock-movements/resumen - Resumen diario")
+    class ResumenDiario {
+
+        @Test
+        @WithMockUser
+        @DisplayName("Debe retornar los totales diarios del producto")
+        void debeRetornarResumenProducto() throws Exception {
+            // Arrange
+            LocalDate dia = LocalDate.of(2025, 6, 1);
+            when(movimientoResumenService.getResumenProducto(1L, dia, dia))
+                    .thenReturn(List.of(new ResumenDiarioResponse(dia, MovimientoStock.TipoMovimiento.SALIDA, 120L, 4L)));
+
+            // Act & Assert
+            mockMvc.perform(get("/stock-movements/resumen")
+                            .param("productoId", "1")
+                            .param("from", "2025-06-01")
+                            .param("to", "2025-06-01"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$[0].tipo").value("SALIDA"))
+                    .andExpect(jsonPath("$[0].totalCantidad").value(120))
+                    .andExpect(jsonPath("$[0].movimientos").value(4));
+        }
+
+        @Test
+        @WithMockUser
+        @DisplayName("Debe retornar los totales diarios agrupados por categoría")
+        void debeRetornarResumenCategorias() throws Exception {
+            // Arrange
+            LocalDate dia = LocalDate.of(2025, 6, 1);
+            when(movimientoResumenService.getResumenCategorias(eq("Electrónica"), isNull(), isNull()))
+                    .thenReturn(List.of(new ResumenDiarioResponse(
+                            "Electrónica", dia, MovimientoStock.TipoMovimiento.ENTRADA, 50L, 2L)));
+
+            // Act & Assert
+            mockMvc.perform(get("/stock-movements/resumen/categorias")
+                            .param("categoria", "Electrónica"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$[0].categoria").value("Electrónica"))
+                    .andExpect(jsonPath("$[0].totalCantidad").value(50));
+        }
+    }
+
+    @Nested
+    @DisplayName("POST /stock-movements - Idempotency-Key")
+    class IdempotencyKey {
+
+        @Test
+        @WithMockUser
+        @DisplayName("Debe devolver el movimiento original en un reintento con la misma clave")
+        void debeDevolverMovimientoOriginal() throws Exception {
+            // Arrange
+            when(movimientoIdempotencia.registrar(eq("scan-123"), any(), any()))
+                    .thenReturn(new MovimientoIdempotencia.Resultado(mockResponse, true));
+
+            // Act & Assert
+            mockMvc.perform(post("/stock-movements")
+                            .with(csrf())
+                            .header("Idempotency-Key", "scan-123")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(validRequest)))
+                    .andExpect(status().isCreated())
+                    .andExpect(header().string("Idempotent-Replayed", "true"))
+                    .andExpect(jsonPath("$.id").value(1));
+
+            verify(movimientoStockService, never()).registrarMovimiento(any());
+        }
+
+        @Test
+        @WithMockUser
+        @DisplayName("Debe responder 422 si la clave ya se usó con otro cuerpo")
+        void debeRechazarClaveConOtroCuerpo() throws Exception {
+            // Arrange
+            when(movimientoIdempotencia.registrar(eq("scan-123"), any(), any()))
+                    .thenThrow(new IdempotencyKeyMismatchException("Idempotency-Key ya usada con un movimiento distinto"));
+
+            // Act & Assert
+            mockMvc.perform(post("/stock-movements")
+                            .with(csrf())
+                            .header("Idempotency-Key", "scan-123")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(validRequest)))
+                    .andExpect(status().isUnprocessableEntity())
+                    .andExpect(jsonPath("$.status").value(422));
+
+            verify(movimientoStockService, never()).registrarMovimiento(any());
+        }
+
+        @Test
+        @WithMockUser
+        @DisplayName("Debe registrar normalmente sin header de idempotencia")
+        void debeRegistrarSinHeader() throws Exception {
+            // Arrange
+            when(movimientoStockService.registrarMovimiento(any(MovimientoStockRequest.class)))
+                    .thenReturn(mockResponse);
+
+            // Act & Assert
+            mockMvc.perform(post("/stock-movements")
+                            .with(csrf())
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(validRequest)))
+                    .andExpect(status().isCreated())
+                    .andExpect(header().doesNotExist("Idempotent-Replayed"));
+
+            verifyNoInteractions(movimientoIdempotencia);
+        }
+    }
 }
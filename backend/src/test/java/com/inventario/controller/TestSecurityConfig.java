@@ -1,5 +1,6 @@
 package com.inventario.controller;
 
+import com.inventario.service.TokenRevocationService;
 import com.inventario.util.JwtUtil;
 import org.springframework.boot.test.context.TestConfiguration;
 import org.springframework.boot.test.mock.mockito.MockBean;
@@ -20,6 +21,10 @@ public class TestSecurityConfig {
     @SuppressWarnings("removal") // MockBean deprecated pero necesario para @WebMvcTest
     private JwtUtil jwtUtil;
 
+    @MockBean
+    @SuppressWarnings("removal")
+    private TokenRevocationService tokenRevocationService;
+
     @Bean
     @Primary
     public SecurityFilterChain testSecurityFilterChain(HttpSecurity http) throws Exception {
@@ -0,0 +1,84 @@
+package com.inventario.repository;
+
+import com.inventario.model.MovimientoStock;
+import com.inventario.model.Producto;
+import jakarta.persistence.EntityManager;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Con IDs por bloques los INSERT se difieren hasta el flush y Hibernate puede agruparlos en batches
+ * (con IDENTITY cada persist ejecuta su INSERT en el momento).
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@DisplayName("Generación de IDs - Secuencias pooled para inserts en batch")
+class GeneracionIdsTest {
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private ProductoRepository productoRepository;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    @DisplayName("Debe asignar IDs distintos sin ejecutar INSERT hasta el flush")
+    void debeDiferirInsertsHastaFlush() {
+        // Arrange
+        List<Producto> productos = new ArrayList<>();
+        for (int i = 0; i < 60; i++) {
+            Producto producto = new Producto();
+            producto.setNombre("Producto batch " + i);
+            producto.setCategoria("Batch");
+            producto.setPrecio(BigDecimal.ONE);
+            productos.add(producto);
+        }
+
+        // Act
+        List<Producto> guardados = productoRepository.saveAll(productos);
+
+        // Assert
+        assertThat(guardados).extracting(Producto::getId).doesNotContainNull().doesNotHaveDuplicates();
+        assertThat(statistics.getEntityInsertCount()).isZero();
+
+        entityManager.flush();
+        assertThat(statistics.getEntityInsertCount()).isEqualTo(60);
+    }
+
+    @Test
+    @DisplayName("Debe asignar el ID del movimiento al persistirlo, antes del INSERT")
+    void debeAsignarIdDeMovimientoAlPersistir() {
+        Producto producto = new Producto();
+        producto.setNombre("Producto movimiento");
+        producto.setCategoria("Batch");
+        producto.setPrecio(BigDecimal.ONE);
+        entityManager.persist(producto);
+
+        MovimientoStock movimiento = new MovimientoStock();
+        movimiento.setProductoId(producto.getId());
+        movimiento.setTipo(MovimientoStock.TipoMovimiento.ENTRADA);
+        movimiento.setCantidad(1);
+        entityManager.persist(movimiento);
+
+        assertThat(movimiento.getId()).isNotNull();
+        assertThat(statistics.getEntityInsertCount()).isZero();
+    }
+}
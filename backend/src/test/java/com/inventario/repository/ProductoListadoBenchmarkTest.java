@@ -0,0 +1,114 @@
+package com.inventario.repository;
+
+import com.inventario.dto.ProductoResponse;
+import com.inventario.model.Producto;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.function.IntFunction;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Benchmark de integración del listado de productos: entidades administradas + mapeo
+ * frente a la proyección directa a DTO usada por {@link ProductoRepository}.
+ * Excluido de la ejecución normal; se corre con {@code mvn test -Pbenchmark}.
+ */
+@DataJpaTest
+@Tag("benchmark")
+@DisplayName("Benchmark - Listado de productos: entidades vs proyección DTO")
+class ProductoListadoBenchmarkTest {
+
+    private static final int TOTAL_PRODUCTOS = 500;
+    private static final int[] PAGE_SIZES = {10, 25, 50, 100};
+    private static final int WARMUP_ITERATIONS = 200;
+    private static final int MEASURED_ITERATIONS = 500;
+
+    private static final String ENTITY_QUERY = "SELECT p FROM Producto p ORDER BY p.id";
+    private static final String PROJECTION_QUERY =
+            "SELECT " + ProductoRepository.RESPONSE_PROJECTION + " FROM Producto p ORDER BY p.id";
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @BeforeEach
+    void poblarCatalogo() {
+        for (int i = 0; i < TOTAL_PRODUCTOS; i++) {
+            Producto producto = new Producto();
+            producto.setNombre("Producto benchmark " + i);
+            producto.setCategoria("Categoria " + (i % 10));
+            producto.setProveedor("Proveedor " + (i % 7));
+            producto.setPrecio(BigDecimal.valueOf(i, 2));
+            producto.setStock(i);
+            entityManager.persist(producto);
+        }
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    @DisplayName("Debe medir latencia y asignación por página hasta MAX_PAGE_SIZE")
+    void compararEntidadesVsProyeccion() {
+        System.out.printf("%n%-10s %-12s %14s %16s%n", "pageSize", "modo", "µs/consulta", "bytes/consulta");
+
+        for (int pageSize : PAGE_SIZES) {
+            Resultado entidades = medir(pageSize, this::listarConEntidades);
+            Resultado proyeccion = medir(pageSize, this::listarConProyeccion);
+
+            System.out.printf("%-10d %-12s %14.1f %16d%n", pageSize, "entidades", entidades.micros(), entidades.bytes());
+            System.out.printf("%-10d %-12s %14.1f %16d%n", pageSize, "proyeccion", proyeccion.micros(), proyeccion.bytes());
+
+            assertThat(listarConProyeccion(pageSize))
+                    .usingRecursiveFieldByFieldElementComparator()
+                    .containsExactlyElementsOf(listarConEntidades(pageSize));
+        }
+    }
+
+    private List<ProductoResponse> listarConEntidades(int pageSize) {
+        List<ProductoResponse> resultado = entityManager.createQuery(ENTITY_QUERY, Producto.class)
+                .setMaxResults(pageSize)
+                .getResultList()
+                .stream()
+                .map(ProductoResponse::fromEntity)
+                .toList();
+        entityManager.clear();
+        return resultado;
+    }
+
+    private List<ProductoResponse> listarConProyeccion(int pageSize) {
+        List<ProductoResponse> resultado = entityManager.createQuery(PROJECTION_QUERY, ProductoResponse.class)
+                .setMaxResults(pageSize)
+                .getResultList();
+        entityManager.clear();
+        return resultado;
+    }
+
+    private Resultado medir(int pageSize, IntFunction<List<ProductoResponse>> consulta) {
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            consulta.apply(pageSize);
+        }
+
+        com.sun.management.ThreadMXBean threadBean =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long bytesInicio = threadBean.getCurrentThreadAllocatedBytes();
+        long inicio = System.nanoTime();
+
+        for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+            consulta.apply(pageSize);
+        }
+
+        long nanos = System.nanoTime() - inicio;
+        long bytes = threadBean.getCurrentThreadAllocatedBytes() - bytesInicio;
+        return new Resultado(nanos / 1000.0 / MEASURED_ITERATIONS, bytes / MEASURED_ITERATIONS);
+    }
+
+    private record Resultado(double micros, long bytes) {}
+}
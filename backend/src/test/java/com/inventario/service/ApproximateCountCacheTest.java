@@ -0,0 +1,64 @@
+package com.inventario.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("ApproximateCountCache - Totales aproximados en segundo plano")
+class ApproximateCountCacheTest {
+
+    private ApproximateCountCache cache;
+
+    @BeforeEach
+    void setUp() {
+        cache = new ApproximateCountCache(60, 2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        cache.shutdown();
+    }
+
+    @Test
+    @DisplayName("Debe retornar null la primera vez y el total calculado después")
+    void debeCalcularTotalEnSegundoPlano() throws InterruptedException {
+        AtomicInteger calls = new AtomicInteger();
+
+        assertThat(cache.get("k", () -> { calls.incrementAndGet(); return 7L; })).isNull();
+
+        Long total = awaitValue("k");
+        assertThat(total).isEqualTo(7L);
+        assertThat(calls.get()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Debe respetar el máximo de entradas")
+    void debeRespetarMaximoDeEntradas() throws InterruptedException {
+        cache.get("a", () -> 1L);
+        awaitValue("a");
+        Thread.sleep(5);
+        cache.get("b", () -> 2L);
+        awaitValue("b");
+        Thread.sleep(5);
+        cache.get("c", () -> 3L);
+        awaitValue("c");
+
+        assertThat(cache.get("a", () -> 1L)).isNull();
+    }
+
+    private Long awaitValue(String key) throws InterruptedException {
+        for (int i = 0; i < 100; i++) {
+            Long value = cache.get(key, () -> -1L);
+            if (value != null) {
+                return value;
+            }
+            Thread.sleep(20);
+        }
+        return null;
+    }
+}
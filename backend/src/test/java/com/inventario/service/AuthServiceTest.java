@@ -2,6 +2,9 @@ package com.inventario.service;
 
 import com.inventario.dto.LoginRequest;
 import com.inventario.dto.LoginResponse;
+import com.inventario.model.Usuario;
+import com.inventario.repository.UserRepository;
+import com.inventario.util.JwtPrincipal;
 import com.inventario.util.JwtUtil;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -12,11 +15,14 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.DisabledException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 
+import java.time.Instant;
 import java.util.Collections;
+import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -35,6 +41,15 @@ class AuthServiceTest {
     @Mock
     private JwtUtil jwtUtil;
 
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private RefreshTokenService refreshTokenService;
+
+    @Mock
+    private TokenRevocationService tokenRevocationService;
+
     @Mock
     private Authentication authentication;
 
@@ -43,11 +58,19 @@ class AuthServiceTest {
 
     private LoginRequest loginRequest;
 
+    private Usuario usuario;
+
     @BeforeEach
     void setUp() {
         loginRequest = new LoginRequest();
         loginRequest.setUsername("admin");
         loginRequest.setPassword("password123");
+
+        usuario = new Usuario();
+        usuario.setId(1L);
+        usuario.setUsername("admin");
+        usuario.setRol("ADMIN");
+        usuario.setActivo(true);
     }
 
     @Test
@@ -61,7 +84,9 @@ class AuthServiceTest {
         when(authentication.getName()).thenReturn("admin");
         doReturn(Collections.singletonList(new SimpleGrantedAuthority("ROLE_ADMIN")))
             .when(authentication).getAuthorities();
-        when(jwtUtil.generateToken("admin", "ADMIN")).thenReturn(expectedToken);
+        when(userRepository.findByUsernameAndActivoTrue("admin")).thenReturn(Optional.of(usuario));
+        when(jwtUtil.generateToken("admin", "ADMIN", 1L)).thenReturn(expectedToken);
+        when(refreshTokenService.emitir(1L)).thenReturn("refresh-token");
 
         // When
         LoginResponse response = authService.login(loginRequest);
@@ -69,11 +94,12 @@ class AuthServiceTest {
         // Then
         assertNotNull(response);
         assertEquals(expectedToken, response.getToken());
+        assertEquals("refresh-token", response.getRefreshToken());
         assertEquals("admin", response.getUsername());
         assertEquals("ADMIN", response.getRole()); // Sin prefijo ROLE_
         
         verify(authenticationManager, times(1)).authenticate(any());
-        verify(jwtUtil, times(1)).generateToken("admin", "ADMIN");
+        verify(jwtUtil, times(1)).generateToken("admin", "ADMIN", 1L);
     }
 
     @Test
@@ -85,7 +111,8 @@ class AuthServiceTest {
 
         // When/Then
         assertThrows(BadCredentialsException.class, () -> authService.login(loginRequest));
-        verify(jwtUtil, never()).generateToken(anyString(), anyString());
+        verify(jwtUtil, never()).generateToken(anyString(), anyString(), any());
+        verify(refreshTokenService, never()).emitir(any());
     }
 
     @Test
@@ -96,13 +123,62 @@ class AuthServiceTest {
             .thenReturn(authentication);
         when(authentication.getName()).thenReturn("user");
         doReturn(Collections.emptyList()).when(authentication).getAuthorities();
-        when(jwtUtil.generateToken("user", "USER")).thenReturn("token");
+        when(userRepository.findByUsernameAndActivoTrue("user")).thenReturn(Optional.of(usuario));
+        when(jwtUtil.generateToken("user", "USER", 1L)).thenReturn("token");
 
         // When
         LoginResponse response = authService.login(loginRequest);
 
         // Then
         assertEquals("USER", response.getRole());
-        verify(jwtUtil).generateToken("user", "USER");
+        verify(jwtUtil).generateToken("user", "USER", 1L);
+    }
+
+    @Test
+    @DisplayName("Debe renovar el token con el refresh token sin autenticar la contraseña")
+    void shouldRefreshTokenWithoutPasswordAuthentication() {
+        // Given
+        when(refreshTokenService.rotar("refresh-token"))
+            .thenReturn(new RefreshTokenService.Rotacion(1L, "nuevo-refresh-token"));
+        when(userRepository.findById(1L)).thenReturn(Optional.of(usuario));
+        when(jwtUtil.generateToken("admin", "ADMIN", 1L)).thenReturn("nuevo.jwt.token");
+
+        // When
+        LoginResponse response = authService.refresh("refresh-token");
+
+        // Then
+        assertEquals("nuevo.jwt.token", response.getToken());
+        assertEquals("nuevo-refresh-token", response.getRefreshToken());
+        assertEquals("ADMIN", response.getRole());
+        verify(authenticationManager, never()).authenticate(any());
+    }
+
+    @Test
+    @DisplayName("Debe rechazar el refresh de un usuario deshabilitado")
+    void shouldRejectRefreshForDisabledUser() {
+        // Given
+        usuario.setActivo(false);
+        when(refreshTokenService.rotar("refresh-token"))
+            .thenReturn(new RefreshTokenService.Rotacion(1L, "nuevo-refresh-token"));
+        when(userRepository.findById(1L)).thenReturn(Optional.of(usuario));
+
+        // When/Then
+        assertThrows(DisabledException.class, () -> authService.refresh("refresh-token"));
+        verify(jwtUtil, never()).generateToken(anyString(), anyString(), any());
+    }
+
+    @Test
+    @DisplayName("Debe revocar el refresh token y el token de acceso al cerrar sesión")
+    void shouldRevokeTokensOnLogout() {
+        // Given
+        Instant expiresAt = Instant.now().plusSeconds(3600);
+        JwtPrincipal principal = new JwtPrincipal("admin", "ADMIN", expiresAt, "jti-1", 1L);
+
+        // When
+        authService.logout("refresh-token", principal);
+
+        // Then
+        verify(refreshTokenService).revocar("refresh-token");
+        verify(tokenRevocationService).revocar("jti-1", expiresAt);
     }
 }
@@ -0,0 +1,167 @@
+package com.inventario.service;
+
+import com.inventario.model.MovimientoStock;
+import com.inventario.repository.MovimientoStockRepository;
+import com.inventario.util.SegmentoMovimientos;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("MovimientoArchivoService - Archivo de movimientos en segmentos")
+class MovimientoArchivoServiceTest {
+
+    @Mock
+    private MovimientoStockRepository movimientoStockRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @TempDir
+    Path directorio;
+
+    private MovimientoArchivoService archivoService;
+
+    private final LocalDate dia = LocalDate.now().minusDays(400);
+
+    @BeforeEach
+    void setUp() {
+        archivoService = nuevoServicio();
+    }
+
+    @Test
+    @DisplayName("Debe escribir el segmento del día y borrar las filas archivadas")
+    void debeArchivarDiaAntiguo() {
+        // Arrange
+        stubDiaArchivable();
+
+        // Act
+        int archivados = archivoService.archivar();
+
+        // Assert
+        assertThat(archivados).isEqualTo(3);
+        assertThat(SegmentoMovimientos.segmento(directorio, dia)).exists();
+        assertThat(SegmentoMovimientos.indice(directorio, dia)).exists();
+        assertThat(SegmentoMovimientos.indice(directorio, dia).getParent())
+                .isEqualTo(directorio.resolve(String.valueOf(dia.getYear()))
+                        .resolve(String.format("%02d", dia.getMonthValue())));
+        verify(movimientoStockRepository).deleteByFechaEntre(dia.atStartOfDay(), dia.plusDays(1).atStartOfDay());
+    }
+
+    @Test
+    @DisplayName("No debe archivar movimientos dentro de la retención")
+    void noDebeArchivarDentroDeRetencion() {
+        when(movimientoStockRepository.findFechaMasAntigua()).thenReturn(LocalDateTime.now().minusDays(10));
+
+        assertThat(archivoService.archivar()).isZero();
+        verify(movimientoStockRepository, never()).findByFechaEntre(any(), any());
+        verify(movimientoStockRepository, never()).deleteByFechaEntre(any(), any());
+    }
+
+    @Test
+    @DisplayName("Debe leer solo el bloque del producto, respetando el cursor y el límite")
+    void debeLeerHistorialArchivado() {
+        // Arrange
+        stubDiaArchivable();
+        archivoService.archivar();
+
+        // Act
+        List<MovimientoStock> primeros = archivoService.leer(1L, null, null, null, null, 1);
+        List<MovimientoStock> siguientes = archivoService.leer(1L, null, null,
+                primeros.get(0).getFecha(), primeros.get(0).getId(), 10);
+
+        // Assert
+        assertThat(primeros).extracting(MovimientoStock::getId).containsExactly(2L);
+        assertThat(siguientes).extracting(MovimientoStock::getId).containsExactly(1L);
+        assertThat(siguientes.get(0).getUsuarioId()).isNull();
+        assertThat(archivoService.leer(2L, null, null, null, null, 10))
+                .singleElement()
+                .satisfies(movimiento -> {
+                    assertThat(movimiento.getTipo()).isEqualTo(MovimientoStock.TipoMovimiento.ENTRADA);
+                    assertThat(movimiento.getCantidad()).isEqualTo(50);
+                    assertThat(movimiento.getUsuarioId()).isEqualTo(7L);
+                });
+        assertThat(archivoService.leer(1L, dia.plusDays(1).atStartOfDay(), null, null, null, 10)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Debe sumar la variación neta archivada en el rango (desde, hasta]")
+    void debeSumarDeltaArchivado() {
+        stubDiaArchivable();
+        archivoService.archivar();
+
+        assertThat(archivoService.sumarDelta(1L, dia.atTime(8, 0), null)).isEqualTo(-5);
+        assertThat(archivoService.sumarDelta(1L, dia.atStartOfDay(), dia.atTime(12, 0))).isEqualTo(-1);
+        assertThat(archivoService.sumarDelta(2L, dia.minusDays(1).atStartOfDay(), null)).isEqualTo(50);
+        assertThat(archivoService.sumarDelta(1L, dia.plusDays(1).atStartOfDay(), null)).isZero();
+    }
+
+    @Test
+    @DisplayName("Debe recuperar los segmentos existentes al reiniciar y solo completar el borrado pendiente")
+    void debeRecuperarSegmentosAlReiniciar() throws Exception {
+        // Arrange
+        stubDiaArchivable();
+        archivoService.archivar();
+
+        MovimientoArchivoService reiniciado = nuevoServicio();
+        reiniciado.cargarDiasArchivados();
+        when(movimientoStockRepository.findFechaMasAntigua()).thenReturn(dia.atTime(10, 0), (LocalDateTime) null);
+
+        // Act
+        reiniciado.archivar();
+
+        // Assert
+        assertThat(reiniciado.leer(1L, null, null, null, null, 10)).hasSize(2);
+        verify(movimientoStockRepository, times(1)).findByFechaEntre(any(), any());
+        verify(movimientoStockRepository, times(2)).deleteByFechaEntre(any(), any());
+        try (var archivos = Files.list(SegmentoMovimientos.indice(directorio, dia).getParent())) {
+            assertThat(archivos).noneMatch(archivo -> archivo.toString().endsWith(".tmp"));
+        }
+    }
+
+    private MovimientoArchivoService nuevoServicio() {
+        return new MovimientoArchivoService(movimientoStockRepository, transactionManager,
+                directorio.toString(), true, 365, 31, 16);
+    }
+
+    private void stubDiaArchivable() {
+        when(movimientoStockRepository.findFechaMasAntigua()).thenReturn(dia.atTime(8, 0), (LocalDateTime) null);
+        when(movimientoStockRepository.findByFechaEntre(dia.atStartOfDay(), dia.plusDays(1).atStartOfDay()))
+                .thenReturn(List.of(
+                        movimiento(2L, 1L, MovimientoStock.TipoMovimiento.SALIDA, 5, dia.atTime(15, 0), 3L),
+                        movimiento(1L, 1L, MovimientoStock.TipoMovimiento.SALIDA, 1, dia.atTime(8, 0), null),
+                        movimiento(3L, 2L, MovimientoStock.TipoMovimiento.ENTRADA, 50, dia.atTime(9, 0), 7L)));
+        when(movimientoStockRepository.deleteByFechaEntre(dia.atStartOfDay(), dia.plusDays(1).atStartOfDay()))
+                .thenReturn(3);
+    }
+
+    private MovimientoStock movimiento(long id, Long productoId, MovimientoStock.TipoMovimiento tipo,
+                                       int cantidad, LocalDateTime fecha, Long usuarioId) {
+        MovimientoStock movimiento = new MovimientoStock();
+        movimiento.setId(id);
+        movimiento.setProductoId(productoId);
+        movimiento.setTipo(tipo);
+        movimiento.setCantidad(cantidad);
+        movimiento.setFecha(fecha);
+        movimiento.setUsuarioId(usuarioId);
+        return movimiento;
+    }
+}
@@ -0,0 +1,227 @@
+package com.inventario.service;
+
+import com.inventario.dto.MovimientoStockRequest;
+import com.inventario.dto.MovimientoStockResponse;
+import com.inventario.exception.IdempotencyKeyMismatchException;
+import com.inventario.model.MovimientoStock;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
+
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("MovimientoIdempotencia - Reintentos con Idempotency-Key")
+class MovimientoIdempotenciaTest {
+
+    @Mock
+    private MovimientoStockService movimientoStockService;
+
+    private MovimientoIdempotencia idempotencia;
+
+    private final MovimientoStockResponse response = MovimientoStockResponse.builder()
+            .id(5L).productoId(1L).tipo(MovimientoStock.TipoMovimiento.ENTRADA).cantidad(10).usuarioId(7L).build();
+
+    @BeforeEach
+    void setUp() {
+        idempotencia = new MovimientoIdempotencia(movimientoStockService, new SimpleMeterRegistry(), 100, 60);
+    }
+
+    @Test
+    @DisplayName("Debe responder un reintento desde la caché sin registrar ni consultar la base")
+    void debeResponderReintentoDesdeCache() {
+        // Arrange
+        when(movimientoStockService.buscarPorIdempotencyKey("7:scan-1")).thenReturn(Optional.empty());
+        AtomicInteger registros = new AtomicInteger();
+        Supplier<MovimientoStockResponse> registro = () -> {
+            registros.incrementAndGet();
+            return response;
+        };
+
+        // Act
+        MovimientoIdempotencia.Resultado primero = idempotencia.registrar("scan-1", request(1L, 10), registro);
+        MovimientoIdempotencia.Resultado reintento = idempotencia.registrar("scan-1", request(1L, 10), registro);
+
+        // Assert
+        assertThat(primero.repetido()).isFalse();
+        assertThat(reintento.repetido()).isTrue();
+        assertThat(reintento.movimiento()).isSameAs(response);
+        assertThat(registros).hasValue(1);
+        verify(movimientoStockService, times(1)).buscarPorIdempotencyKey("7:scan-1");
+    }
+
+    @Test
+    @DisplayName("Debe responder desde la base cuando la clave ya no está en caché")
+    void debeResponderDesdeBase() {
+        when(movimientoStockService.buscarPorIdempotencyKey("7:scan-1")).thenReturn(Optional.of(response));
+
+        MovimientoIdempotencia.Resultado resultado = idempotencia.registrar("scan-1", request(1L, 10), () -> {
+            throw new AssertionError("No debe registrar de nuevo");
+        });
+
+        assertThat(resultado.repetido()).isTrue();
+        assertThat(resultado.movimiento().getId()).isEqualTo(5L);
+    }
+
+    @Test
+    @DisplayName("Debe devolver el movimiento del intento concurrente que confirmó primero")
+    void debeResolverIntentoConcurrente() {
+        // Arrange
+        when(movimientoStockService.buscarPorIdempotencyKey("7:scan-1"))
+                .thenReturn(Optional.empty(), Optional.of(response));
+
+        // Act
+        MovimientoIdempotencia.Resultado resultado = idempotencia.registrar("scan-1", request(1L, 10), () -> {
+            throw new DuplicateKeyException("uk_movimientos_idempotency_key");
+        });
+
+        // Assert
+        assertThat(resultado.repetido()).isTrue();
+        assertThat(resultado.movimiento()).isSameAs(response);
+    }
+
+    @Test
+    @DisplayName("Debe devolver a un reintento simultáneo el movimiento del primero sin registrarlo de nuevo")
+    void debeEsperarReintentoSimultaneo() throws Exception {
+        // Arrange: el primer registro queda en curso (como un append al journal sin ID todavía)
+        when(movimientoStockService.buscarPorIdempotencyKey("7:scan-1")).thenReturn(Optional.empty());
+        CountDownLatch registrando = new CountDownLatch(1);
+        CountDownLatch continuar = new CountDownLatch(1);
+        AtomicInteger registros = new AtomicInteger();
+        Supplier<MovimientoStockResponse> registro = () -> {
+            registros.incrementAndGet();
+            registrando.countDown();
+            try {
+                continuar.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return response;
+        };
+        CompletableFuture<MovimientoIdempotencia.Resultado> primero = CompletableFuture.supplyAsync(
+                () -> idempotencia.registrar("scan-1", request(1L, 10), registro));
+        assertThat(registrando.await(5, TimeUnit.SECONDS)).isTrue();
+
+        // Act: el reintento llega mientras el primero sigue en curso
+        CompletableFuture<MovimientoIdempotencia.Resultado> reintento = new CompletableFuture<>();
+        Thread hilo = new Thread(() -> reintento.complete(idempotencia.registrar("scan-1", request(1L, 10), registro)));
+        hilo.start();
+        long limite = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (hilo.getState() != Thread.State.WAITING && System.nanoTime() < limite) {
+            Thread.onSpinWait();
+        }
+        continuar.countDown();
+
+        // Assert
+        assertThat(primero.get(5, TimeUnit.SECONDS).repetido()).isFalse();
+        MovimientoIdempotencia.Resultado repetido = reintento.get(5, TimeUnit.SECONDS);
+        assertThat(repetido.repetido()).isTrue();
+        assertThat(repetido.movimiento()).isSameAs(response);
+        assertThat(registros).hasValue(1);
+    }
+
+    @Test
+    @DisplayName("Debe propagar violaciones de integridad que no corresponden a la clave")
+    void debePropagarOtrasViolaciones() {
+        when(movimientoStockService.buscarPorIdempotencyKey("7:scan-1")).thenReturn(Optional.empty());
+
+        assertThatThrownBy(() -> idempotencia.registrar("scan-1", request(1L, 10), () -> {
+            throw new DataIntegrityViolationException("fk_movimiento_producto");
+        })).isInstanceOf(DataIntegrityViolationException.class);
+    }
+
+    @Test
+    @DisplayName("Debe asignar al request la clave con el alcance del usuario")
+    void debeAsignarClaveDeUsuario() {
+        when(movimientoStockService.buscarPorIdempotencyKey("7:scan-1")).thenReturn(Optional.empty());
+        MovimientoStockRequest request = request(1L, 10);
+
+        idempotencia.registrar("scan-1", request, () -> response);
+
+        assertThat(request.getIdempotencyKey()).isEqualTo("7:scan-1");
+    }
+
+    @Test
+    @DisplayName("Debe registrar de nuevo cuando otro usuario usa la misma clave")
+    void debeSepararClavesPorUsuario() {
+        // Arrange
+        when(movimientoStockService.buscarPorIdempotencyKey("7:scan-1")).thenReturn(Optional.empty());
+        when(movimientoStockService.buscarPorIdempotencyKey("8:scan-1")).thenReturn(Optional.empty());
+        MovimientoStockResponse otro = MovimientoStockResponse.builder()
+                .id(6L).productoId(1L).tipo(MovimientoStock.TipoMovimiento.ENTRADA).cantidad(10).usuarioId(8L).build();
+        MovimientoStockRequest deOtroUsuario = request(1L, 10);
+        deOtroUsuario.setUsuarioId(8L);
+
+        // Act
+        idempotencia.registrar("scan-1", request(1L, 10), () -> response);
+        MovimientoIdempotencia.Resultado resultado = idempotencia.registrar("scan-1", deOtroUsuario, () -> otro);
+
+        // Assert
+        assertThat(resultado.repetido()).isFalse();
+        assertThat(resultado.movimiento()).isSameAs(otro);
+    }
+
+    @Test
+    @DisplayName("Debe rechazar con 422 la misma clave con otro cuerpo desde la caché")
+    void debeRechazarOtroCuerpoDesdeCache() {
+        when(movimientoStockService.buscarPorIdempotencyKey("7:scan-1")).thenReturn(Optional.empty());
+        idempotencia.registrar("scan-1", request(1L, 10), () -> response);
+
+        assertThatThrownBy(() -> idempotencia.registrar("scan-1", request(1L, 50), () -> {
+            throw new AssertionError("No debe registrar");
+        })).isInstanceOf(IdempotencyKeyMismatchException.class);
+        assertThatThrownBy(() -> idempotencia.registrar("scan-1", request(2L, 10), () -> {
+            throw new AssertionError("No debe registrar");
+        })).isInstanceOf(IdempotencyKeyMismatchException.class);
+    }
+
+    @Test
+    @DisplayName("Debe rechazar con 422 la misma clave con otro cuerpo desde la base")
+    void debeRechazarOtroCuerpoDesdeBase() {
+        when(movimientoStockService.buscarPorIdempotencyKey("7:scan-1")).thenReturn(Optional.of(response));
+
+        assertThatThrownBy(() -> idempotencia.registrar("scan-1", request(1L, 50), () -> {
+            throw new AssertionError("No debe registrar");
+        })).isInstanceOf(IdempotencyKeyMismatchException.class);
+    }
+
+    @Test
+    @DisplayName("Debe rechazar claves vacías, demasiado largas o con caracteres no visibles")
+    void debeRechazarClavesInvalidas() {
+        assertThatThrownBy(() -> idempotencia.registrar("", request(1L, 10), () -> response))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> idempotencia.registrar("a".repeat(101), request(1L, 10), () -> response))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> idempotencia.registrar("scan 1", request(1L, 10), () -> response))
+                .isInstanceOf(IllegalArgumentException.class);
+        verify(movimientoStockService, never()).buscarPorIdempotencyKey(any());
+    }
+
+    private static MovimientoStockRequest request(Long productoId, int cantidad) {
+        MovimientoStockRequest request = new MovimientoStockRequest();
+        request.setProductoId(productoId);
+        request.setTipo(MovimientoStock.TipoMovimiento.ENTRADA);
+        request.setCantidad(cantidad);
+        request.setUsuarioId(7L);
+        return request;
+    }
+}
@@ -0,0 +1,233 @@
+package com.inventario.service;
+
+import com.inventario.dto.MovimientoStockRequest;
+import com.inventario.dto.MovimientoStockResponse;
+import com.inventario.model.MovimientoRechazado;
+import com.inventario.model.MovimientoStock;
+import com.inventario.model.Producto;
+import com.inventario.repository.MovimientoRechazadoRepository;
+import com.inventario.repository.MovimientoStockRepository;
+import com.inventario.repository.ProductoRepository;
+import com.inventario.util.JournalMovimientos;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("MovimientoJournal - Registro con journal y aplicación en lotes")
+class MovimientoJournalTest {
+
+    @Mock
+    private MovimientoStockService movimientoStockService;
+
+    @Mock
+    private MovimientoStockRepository movimientoStockRepository;
+
+    @Mock
+    private MovimientoRechazadoRepository movimientoRechazadoRepository;
+
+    @Mock
+    private ProductoRepository productoRepository;
+
+    @TempDir
+    Path directorio;
+
+    private MovimientoJournal movimientoJournal;
+
+    private Producto producto;
+
+    private final MovimientoStockService.ResultadoMovimiento aplicado = new MovimientoStockService.ResultadoMovimiento(
+            MovimientoStockResponse.builder().id(10L).build(), null);
+
+    @BeforeEach
+    void setUp() {
+        producto = new Producto();
+        producto.setId(1L);
+        producto.setNombre("Laptop");
+        producto.setStock(5);
+        producto.setStockReservado(2);
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        if (movimientoJournal != null) {
+            movimientoJournal.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("Debe validar contra el stock disponible más los movimientos sin aplicar")
+    void debeValidarContraSaldoEnMemoria() throws IOException {
+        // Arrange
+        movimientoJournal = nuevoJournal();
+        when(productoRepository.findById(1L)).thenReturn(Optional.of(producto));
+
+        // Act
+        MovimientoStockResponse response = movimientoJournal.registrar(request(MovimientoStock.TipoMovimiento.SALIDA, 3));
+
+        // Assert
+        assertThat(response.getId()).isNull();
+        assertThat(response.getProductoNombre()).isEqualTo("Laptop");
+        assertThat(response.getStockAnterior()).isEqualTo(5);
+        assertThat(response.getStockNuevo()).isEqualTo(2);
+        // Quedan 2 unidades, ambas reservadas
+        assertThatThrownBy(() -> movimientoJournal.registrar(request(MovimientoStock.TipoMovimiento.SALIDA, 1)))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("Stock insuficiente");
+        verify(productoRepository).findById(1L);
+    }
+
+    @Test
+    @DisplayName("Debe aplicar en lote solo los movimientos que no están en la base y actualizar el saldo")
+    void debeAplicarLoteOmitiendoYaAplicados() throws IOException {
+        // Arrange
+        movimientoJournal = nuevoJournal();
+        when(productoRepository.findById(1L)).thenReturn(Optional.of(producto));
+        movimientoJournal.registrar(request(MovimientoStock.TipoMovimiento.SALIDA, 3));
+        movimientoJournal.registrar(request(MovimientoStock.TipoMovimiento.ENTRADA, 4));
+
+        String id = Files.readString(directorio.resolve("journal.id")).trim();
+        Producto actualizado = new Producto();
+        actualizado.setId(1L);
+        actualizado.setNombre("Laptop");
+        actualizado.setStock(20);
+        actualizado.setStockReservado(0);
+        when(movimientoStockRepository.findIdempotencyKeysIn(anyList())).thenReturn(List.of("j:" + id + ":1"));
+        when(movimientoStockService.aplicarMovimientos(anyList(), eq(false))).thenReturn(List.of(aplicado));
+        when(productoRepository.findAllById(any())).thenReturn(List.of(actualizado));
+
+        // Act
+        movimientoJournal.aplicarPendientes();
+
+        // Assert
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<MovimientoStockRequest>> captor = ArgumentCaptor.forClass(List.class);
+        verify(movimientoStockService).aplicarMovimientos(captor.capture(), eq(false));
+        assertThat(captor.getValue()).singleElement().satisfies(aplicar -> {
+            assertThat(aplicar.getCantidad()).isEqualTo(4);
+            assertThat(aplicar.getIdempotencyKey()).isEqualTo("j:" + id + ":2");
+        });
+        assertThat(Files.readString(directorio.resolve("checkpoint"))).isEqualTo("2");
+
+        // El saldo ahora es el stock confirmado en la base
+        assertThat(movimientoJournal.registrar(request(MovimientoStock.TipoMovimiento.SALIDA, 20)).getStockNuevo())
+                .isZero();
+    }
+
+    @Test
+    @DisplayName("Debe descontar del saldo las unidades reservadas por otra vía antes de aceptar una salida")
+    void debeRefrescarSaldoConReservaDeOtraVia() throws IOException {
+        // Arrange: saldo cargado con stock 5 y 2 reservadas, y una salida de 1 sin aplicar
+        movimientoJournal = nuevoJournal();
+        when(productoRepository.findById(1L)).thenReturn(Optional.of(producto));
+        movimientoJournal.registrar(request(MovimientoStock.TipoMovimiento.SALIDA, 1));
+
+        // Act: otra reserva de 2 unidades confirma en la base
+        Producto reservado = new Producto();
+        reservado.setId(1L);
+        reservado.setNombre("Laptop");
+        reservado.setStock(5);
+        reservado.setStockReservado(4);
+        reservado.setVersion(1);
+        movimientoJournal.refrescarSaldoAfterCommit(reservado);
+
+        // Assert: 5 - 1 pendiente - 4 reservadas = 0 disponibles
+        assertThatThrownBy(() -> movimientoJournal.registrar(request(MovimientoStock.TipoMovimiento.SALIDA, 1)))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("Disponible: 0");
+        verify(productoRepository).findById(1L);
+    }
+
+    @Test
+    @DisplayName("Debe guardar en movimientos_rechazados los movimientos que la base rechaza al aplicarlos")
+    void debeGuardarRechazados() throws IOException {
+        // Arrange
+        movimientoJournal = nuevoJournal();
+        when(productoRepository.findById(1L)).thenReturn(Optional.of(producto));
+        movimientoJournal.registrar(request(MovimientoStock.TipoMovimiento.SALIDA, 3));
+
+        String id = Files.readString(directorio.resolve("journal.id")).trim();
+        when(movimientoStockRepository.findIdempotencyKeysIn(anyList())).thenReturn(List.of());
+        when(movimientoStockService.aplicarMovimientos(anyList(), eq(false))).thenReturn(List.of(
+                new MovimientoStockService.ResultadoMovimiento(null,
+                        new IllegalArgumentException("Stock insuficiente. Disponible: 0, Solicitado: 3"))));
+        when(productoRepository.findAllById(any())).thenReturn(List.of(producto));
+
+        // Act
+        movimientoJournal.aplicarPendientes();
+
+        // Assert
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<MovimientoRechazado>> captor = ArgumentCaptor.forClass(List.class);
+        verify(movimientoRechazadoRepository).saveAll(captor.capture());
+        assertThat(captor.getValue()).singleElement().satisfies(rechazado -> {
+            assertThat(rechazado.getIdempotencyKey()).isEqualTo("j:" + id + ":1");
+            assertThat(rechazado.getTipo()).isEqualTo(MovimientoStock.TipoMovimiento.SALIDA);
+            assertThat(rechazado.getCantidad()).isEqualTo(3);
+            assertThat(rechazado.getMotivo()).contains("Stock insuficiente");
+        });
+        assertThat(Files.readString(directorio.resolve("checkpoint"))).isEqualTo("1");
+    }
+
+    @Test
+    @DisplayName("Debe aplicar al iniciar los movimientos que quedaron en el journal")
+    void debeAplicarJournalAlIniciar() throws IOException {
+        // Arrange
+        try (JournalMovimientos journal = new JournalMovimientos(directorio, 1024 * 1024, JournalMovimientos.Fsync.NEVER)) {
+            journal.append(1L, MovimientoStock.TipoMovimiento.ENTRADA, 10, 1000L, "scan-1");
+        }
+        when(movimientoStockRepository.findIdempotencyKeysIn(List.of("scan-1"))).thenReturn(List.of());
+        when(movimientoStockService.aplicarMovimientos(anyList(), eq(false))).thenReturn(List.of(aplicado));
+        // La base ya incluye la entrada aplicada: 5 + 10
+        producto.setStock(15);
+        when(productoRepository.findAllById(any())).thenReturn(List.of(producto));
+
+        // Act
+        movimientoJournal = nuevoJournal();
+        movimientoJournal.iniciar();
+
+        // Assert
+        verify(movimientoStockService).aplicarMovimientos(anyList(), eq(false));
+        assertThat(Files.readString(directorio.resolve("checkpoint"))).isEqualTo("1");
+        // El saldo es el stock de la base sin volver a descontar la entrada aplicada: 15 - 2 reservadas
+        MovimientoStockResponse salida = movimientoJournal.registrar(request(MovimientoStock.TipoMovimiento.SALIDA, 13));
+        assertThat(salida.getStockAnterior()).isEqualTo(15);
+        assertThat(salida.getStockNuevo()).isEqualTo(2);
+    }
+
+    private MovimientoJournal nuevoJournal() throws IOException {
+        // Sin aplicador periódico durante el test: los lotes se aplican a mano
+        return new MovimientoJournal(movimientoStockService, movimientoStockRepository, movimientoRechazadoRepository,
+                productoRepository,
+                new SimpleMeterRegistry(), directorio.toString(), 1, JournalMovimientos.Fsync.NEVER, 10, 100, 60_000);
+    }
+
+    private MovimientoStockRequest request(MovimientoStock.TipoMovimiento tipo, int cantidad) {
+        MovimientoStockRequest request = new MovimientoStockRequest();
+        request.setProductoId(1L);
+        request.setTipo(tipo);
+        request.setCantidad(cantidad);
+        return request;
+    }
+}
@@ -0,0 +1,78 @@
+package com.inventario.service;
+
+import com.inventario.model.MovimientoStock;
+import com.inventario.repository.MovimientoResumenRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("MovimientoResumenService - Resumen diario incremental")
+class MovimientoResumenServiceTest {
+
+    @Mock
+    private MovimientoResumenRepository movimientoResumenRepository;
+
+    @InjectMocks
+    private MovimientoResumenService movimientoResumenService;
+
+    private MovimientoStock movimiento(Long productoId, MovimientoStock.TipoMovimiento tipo, int cantidad, LocalDateTime fecha) {
+        MovimientoStock movimiento = new MovimientoStock();
+        movimiento.setProductoId(productoId);
+        movimiento.setTipo(tipo);
+        movimiento.setCantidad(cantidad);
+        movimiento.setFecha(fecha);
+        return movimiento;
+    }
+
+    @Test
+    @DisplayName("Debe hacer un solo upsert por producto, día y tipo, en orden de clave")
+    void debeAgruparPorClave() {
+        LocalDateTime hoy = LocalDateTime.of(2025, 6, 1, 10, 0);
+
+        movimientoResumenService.acumular(List.of(
+            movimiento(2L, MovimientoStock.TipoMovimiento.SALIDA, 5, hoy),
+            movimiento(1L, MovimientoStock.TipoMovimiento.SALIDA, 3, hoy),
+            movimiento(1L, MovimientoStock.TipoMovimiento.SALIDA, 4, hoy.plusHours(2)),
+            movimiento(1L, MovimientoStock.TipoMovimiento.ENTRADA, 10, hoy)
+        ));
+
+        var inOrder = inOrder(movimientoResumenRepository);
+        inOrder.verify(movimientoResumenRepository).acumular(1L, hoy.toLocalDate(), "ENTRADA", 10L, 1L);
+        inOrder.verify(movimientoResumenRepository).acumular(1L, hoy.toLocalDate(), "SALIDA", 7L, 2L);
+        inOrder.verify(movimientoResumenRepository).acumular(2L, hoy.toLocalDate(), "SALIDA", 5L, 1L);
+        verifyNoMoreInteractions(movimientoResumenRepository);
+    }
+
+    @Test
+    @DisplayName("Debe usar los últimos 30 días cuando no se indican fechas")
+    void debeUsarRangoPorDefecto() {
+        movimientoResumenService.getResumenProducto(1L, null, null);
+
+        LocalDate hoy = LocalDate.now();
+        verify(movimientoResumenRepository).findByProducto(1L, hoy.minusDays(30), hoy);
+    }
+
+    @Test
+    @DisplayName("Debe rechazar rangos invertidos o mayores a un año")
+    void debeRechazarRangosInvalidos() {
+        LocalDate dia = LocalDate.of(2025, 6, 1);
+
+        assertThatThrownBy(() -> movimientoResumenService.getResumenProducto(1L, dia, dia.minusDays(1)))
+            .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> movimientoResumenService.getResumenCategorias(null, dia.minusYears(2), dia))
+            .isInstanceOf(IllegalArgumentException.class);
+        verify(movimientoResumenRepository, never()).findByCategoria(any(), any(), any());
+    }
+}
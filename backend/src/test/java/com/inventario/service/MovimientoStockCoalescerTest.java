@@ -0,0 +1,165 @@
+package com.inventario.service;
+
+import com.inventario.dto.MovimientoStockRequest;
+import com.inventario.dto.MovimientoStockResponse;
+import com.inventario.model.MovimientoStock;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("MovimientoStockCoalescer - Group commit por producto")
+class MovimientoStockCoalescerTest {
+
+    @Mock
+    private MovimientoStockService movimientoStockService;
+
+    private MovimientoStockCoalescer coalescer;
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        coalescer.shutdown();
+    }
+
+    @Test
+    @DisplayName("Debe aplicar en una sola transacción los movimientos del mismo producto dentro de la ventana")
+    void debeAgruparMovimientosDelMismoProducto() {
+        coalescer = new MovimientoStockCoalescer(movimientoStockService, new SimpleMeterRegistry(), 200, 100, 2);
+        stubAplicarTodos();
+
+        CompletableFuture<MovimientoStockResponse> primero = coalescer.enviar(salida(1L, 5));
+        CompletableFuture<MovimientoStockResponse> segundo = coalescer.enviar(salida(1L, 7));
+
+        assertThat(primero.orTimeout(5, TimeUnit.SECONDS).join().getCantidad()).isEqualTo(5);
+        assertThat(segundo.orTimeout(5, TimeUnit.SECONDS).join().getCantidad()).isEqualTo(7);
+        verify(movimientoStockService, times(1)).aplicarMovimientos(
+                argThat(requests -> requests.size() == 2), eq(false));
+    }
+
+    @Test
+    @DisplayName("Debe separar grupos por producto")
+    void debeSepararGruposPorProducto() {
+        coalescer = new MovimientoStockCoalescer(movimientoStockService, new SimpleMeterRegistry(), 50, 100, 2);
+        stubAplicarTodos();
+
+        coalescer.enviar(salida(1L, 5));
+        coalescer.enviar(salida(2L, 5));
+
+        verify(movimientoStockService, timeout(5000).times(2)).aplicarMovimientos(
+                argThat(requests -> requests.size() == 1), eq(false));
+    }
+
+    @Test
+    @DisplayName("Debe aplicar el grupo al llenarse sin esperar la ventana")
+    void debeAplicarGrupoLleno() {
+        coalescer = new MovimientoStockCoalescer(movimientoStockService, new SimpleMeterRegistry(), 60_000, 2, 2);
+        stubAplicarTodos();
+
+        CompletableFuture<MovimientoStockResponse> primero = coalescer.enviar(salida(1L, 1));
+        CompletableFuture<MovimientoStockResponse> segundo = coalescer.enviar(salida(1L, 2));
+
+        assertThat(CompletableFuture.allOf(primero, segundo).orTimeout(5, TimeUnit.SECONDS))
+                .succeedsWithin(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    @DisplayName("Debe propagar a cada llamador su propio error")
+    void debePropagarErrorIndividual() {
+        coalescer = new MovimientoStockCoalescer(movimientoStockService, new SimpleMeterRegistry(), 200, 100, 2);
+        when(movimientoStockService.aplicarMovimientos(anyList(), eq(false))).thenReturn(List.of(
+                new MovimientoStockService.ResultadoMovimiento(respuesta(salida(1L, 5)), null),
+                new MovimientoStockService.ResultadoMovimiento(null,
+                        new IllegalArgumentException("Stock insuficiente. Disponible: 0, Solicitado: 500"))
+        ));
+
+        CompletableFuture<MovimientoStockResponse> primero = coalescer.enviar(salida(1L, 5));
+
+        assertThatThrownBy(() -> coalescer.registrar(salida(1L, 500)))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("Stock insuficiente");
+        assertThat(primero.join().getCantidad()).isEqualTo(5);
+    }
+
+    @Test
+    @DisplayName("Debe reintentar uno a uno si falla la transacción del grupo y fallar solo el miembro inválido")
+    void debeReintentarIndividualmenteSiFallaElGrupo() {
+        // Arrange
+        coalescer = new MovimientoStockCoalescer(movimientoStockService, new SimpleMeterRegistry(), 60_000, 3, 2);
+        when(movimientoStockService.aplicarMovimientos(anyList(), eq(false)))
+                .thenThrow(new DataIntegrityViolationException("uk_movimientos_idempotency_key"));
+        when(movimientoStockService.registrarMovimiento(any(MovimientoStockRequest.class))).thenAnswer(invocation -> {
+            MovimientoStockRequest request = invocation.getArgument(0);
+            if (request.getCantidad() == 13) {
+                throw new DataIntegrityViolationException("uk_movimientos_idempotency_key");
+            }
+            return respuesta(request);
+        });
+
+        // Act
+        CompletableFuture<MovimientoStockResponse> primero = coalescer.enviar(salida(1L, 5));
+        CompletableFuture<MovimientoStockResponse> invalido = coalescer.enviar(salida(1L, 13));
+        CompletableFuture<MovimientoStockResponse> tercero = coalescer.enviar(salida(1L, 7));
+
+        // Assert
+        assertThat(primero.orTimeout(5, TimeUnit.SECONDS).join().getCantidad()).isEqualTo(5);
+        assertThat(tercero.orTimeout(5, TimeUnit.SECONDS).join().getCantidad()).isEqualTo(7);
+        assertThat(invalido).failsWithin(5, TimeUnit.SECONDS)
+                .withThrowableOfType(ExecutionException.class)
+                .withCauseInstanceOf(DataIntegrityViolationException.class);
+        verify(movimientoStockService, times(3)).registrarMovimiento(any(MovimientoStockRequest.class));
+    }
+
+    @Test
+    @DisplayName("Debe rechazar movimientos sin producto")
+    void debeRechazarSinProducto() {
+        coalescer = new MovimientoStockCoalescer(movimientoStockService, new SimpleMeterRegistry(), 50, 100, 1);
+
+        assertThatThrownBy(() -> coalescer.registrar(salida(null, 1)))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void stubAplicarTodos() {
+        when(movimientoStockService.aplicarMovimientos(anyList(), eq(false))).thenAnswer(invocation ->
+                ((List<MovimientoStockRequest>) invocation.getArgument(0)).stream()
+                        .map(request -> new MovimientoStockService.ResultadoMovimiento(respuesta(request), null))
+                        .toList());
+    }
+
+    private MovimientoStockRequest salida(Long productoId, int cantidad) {
+        MovimientoStockRequest request = new MovimientoStockRequest();
+        request.setProductoId(productoId);
+        request.setTipo(MovimientoStock.TipoMovimiento.SALIDA);
+        request.setCantidad(cantidad);
+        return request;
+    }
+
+    private MovimientoStockResponse respuesta(MovimientoStockRequest request) {
+        return MovimientoStockResponse.builder()
+                .productoId(request.getProductoId())
+                .tipo(request.getTipo())
+                .cantidad(request.getCantidad())
+                .build();
+    }
+}
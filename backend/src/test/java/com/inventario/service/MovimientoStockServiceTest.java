@@ -1,5 +1,9 @@
 package com.inventario.service;
 
+import com.inventario.dto.CursorPageResponse;
+import com.inventario.dto.MovimientoCursor;
+import com.inventario.dto.MovimientoStockBatchRequest;
+import com.inventario.dto.MovimientoStockBatchResponse;
 import com.inventario.dto.MovimientoStockRequest;
 import com.inventario.dto.MovimientoStockResponse;
 import com.inventario.exception.ResourceNotFoundException;
@@ -16,9 +20,15 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Pageable;
 import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.*;
@@ -39,6 +49,21 @@ class MovimientoStockServiceTest {
     @Mock
     private ProductoRepository productoRepository;
 
+    @Mock
+    private ProductoCache productoCache;
+
+    @Mock
+    private ProductoListadoCache productoListadoCache;
+
+    @Mock
+    private MovimientoResumenService movimientoResumenService;
+
+    @Mock
+    private MovimientoArchivoService movimientoArchivoService;
+
+    @Mock
+    private ObjectProvider<MovimientoJournal> movimientoJournal;
+
     @InjectMocks
     private MovimientoStockService movimientoStockService;
 
@@ -104,6 +129,27 @@ class MovimientoStockServiceTest {
             assertThat(productoCaptor.getValue().getStock()).isEqualTo(110);
         }
 
+        @Test
+        @DisplayName("Debe registrar el usuario recibido en el request")
+        void debeRegistrarUsuario() {
+            // Arrange
+            request.setUsuarioId(5L);
+            when(productoRepository.findById(1L)).thenReturn(Optional.of(producto));
+            when(movimientoStockRepository.save(any(MovimientoStock.class)))
+                    .thenAnswer(invocation -> invocation.getArgument(0));
+            when(productoRepository.save(any(Producto.class)))
+                    .thenAnswer(invocation -> invocation.getArgument(0));
+
+            // Act
+            MovimientoStockResponse response = movimientoStockService.registrarMovimiento(request);
+
+            // Assert
+            ArgumentCaptor<MovimientoStock> captor = ArgumentCaptor.forClass(MovimientoStock.class);
+            verify(movimientoStockRepository).save(captor.capture());
+            assertThat(captor.getValue().getUsuarioId()).isEqualTo(5L);
+            assertThat(response.getUsuarioId()).isEqualTo(5L);
+        }
+
         @Test
         @DisplayName("Debe manejar entrada con cantidad máxima válida")
         void debeManejaCantidadMaxima() {
@@ -268,6 +314,115 @@ class MovimientoStockServiceTest {
         }
     }
 
+    @Nested
+    @DisplayName("Actualización atómica de stock")
+    class ActualizacionAtomica {
+
+        @BeforeEach
+        void setUp() {
+            ReflectionTestUtils.setField(movimientoStockService, "actualizacionAtomica", true);
+        }
+
+        private void stubGuardarMovimiento() {
+            when(movimientoStockRepository.save(any(MovimientoStock.class)))
+                    .thenAnswer(invocation -> {
+                        MovimientoStock mov = invocation.getArgument(0);
+                        mov.setId(1L);
+                        return mov;
+                    });
+        }
+
+        @Test
+        @DisplayName("Debe registrar salida con UPDATE condicional sin guardar la entidad")
+        void debeRegistrarSalidaAtomica() {
+            // Arrange - la fila releída ya tiene el stock actualizado
+            request.setTipo(MovimientoStock.TipoMovimiento.SALIDA);
+            request.setCantidad(30);
+            producto.setStock(70);
+            when(productoRepository.decrementarStock(1L, 30)).thenReturn(1);
+            when(productoRepository.findById(1L)).thenReturn(Optional.of(producto));
+            stubGuardarMovimiento();
+
+            // Act
+            MovimientoStockResponse response = movimientoStockService.registrarMovimiento(request);
+
+            // Assert
+            assertThat(response.getStockAnterior()).isEqualTo(100);
+            assertThat(response.getStockNuevo()).isEqualTo(70);
+            assertThat(response.getProductoNombre()).isEqualTo("Laptop Dell");
+
+            var inOrder = inOrder(productoRepository, movimientoStockRepository);
+            inOrder.verify(productoRepository).decrementarStock(1L, 30);
+            inOrder.verify(productoRepository).findById(1L);
+            inOrder.verify(movimientoStockRepository).save(any(MovimientoStock.class));
+            verify(productoRepository, never()).save(any());
+        }
+
+        @Test
+        @DisplayName("Debe registrar entrada con el límite de stock en la condición")
+        void debeRegistrarEntradaAtomica() {
+            // Arrange
+            request.setTipo(MovimientoStock.TipoMovimiento.ENTRADA);
+            producto.setStock(110);
+            when(productoRepository.incrementarStock(eq(1L), eq(10), anyInt())).thenReturn(1);
+            when(productoRepository.findById(1L)).thenReturn(Optional.of(producto));
+            stubGuardarMovimiento();
+
+            // Act
+            MovimientoStockResponse response = movimientoStockService.registrarMovimiento(request);
+
+            // Assert
+            assertThat(response.getStockAnterior()).isEqualTo(100);
+            assertThat(response.getStockResultante()).isEqualTo(110);
+            verify(productoRepository).incrementarStock(1L, 10, Integer.MAX_VALUE - 1000000);
+        }
+
+        @Test
+        @DisplayName("Debe informar stock insuficiente cuando el UPDATE no afecta filas")
+        void debeFallarStockInsuficiente() {
+            // Arrange
+            request.setTipo(MovimientoStock.TipoMovimiento.SALIDA);
+            request.setCantidad(150);
+            when(productoRepository.decrementarStock(1L, 150)).thenReturn(0);
+            when(productoRepository.findById(1L)).thenReturn(Optional.of(producto));
+
+            // Act & Assert
+            assertThatThrownBy(() -> movimientoStockService.registrarMovimiento(request))
+                    .isInstanceOf(IllegalArgumentException.class)
+                    .hasMessageContaining("Stock insuficiente");
+
+            verify(movimientoStockRepository, never()).save(any());
+        }
+
+        @Test
+        @DisplayName("Debe fallar si el producto no existe")
+        void debeFallarSiProductoNoExiste() {
+            // Arrange
+            request.setTipo(MovimientoStock.TipoMovimiento.SALIDA);
+            when(productoRepository.decrementarStock(1L, 10)).thenReturn(0);
+            when(productoRepository.findById(1L)).thenReturn(Optional.empty());
+
+            // Act & Assert
+            assertThatThrownBy(() -> movimientoStockService.registrarMovimiento(request))
+                    .isInstanceOf(ResourceNotFoundException.class);
+
+            verify(movimientoStockRepository, never()).save(any());
+        }
+
+        @Test
+        @DisplayName("Debe reportar conflicto si el stock cambió entre el UPDATE y la lectura")
+        void debeReportarConflictoConcurrente() {
+            // Arrange
+            request.setTipo(MovimientoStock.TipoMovimiento.SALIDA);
+            when(productoRepository.decrementarStock(1L, 10)).thenReturn(0);
+            when(productoRepository.findById(1L)).thenReturn(Optional.of(producto));
+
+            // Act & Assert
+            assertThatThrownBy(() -> movimientoStockService.registrarMovimiento(request))
+                    .isInstanceOf(ObjectOptimisticLockingFailureException.class);
+        }
+    }
+
     @Nested
     @DisplayName("Validaciones de Request")
     class ValidacionesRequest {
@@ -460,4 +615,331 @@ class MovimientoStockServiceTest {
                     .isInstanceOf(ResourceNotFoundException.class);
         }
     }
+
+    @Nested
+    @DisplayName("Registro en lote")
+    class RegistroEnLote {
+
+        private Producto otroProducto;
+
+        @BeforeEach
+        void setUp() {
+            otroProducto = new Producto();
+            otroProducto.setId(2L);
+            otroProducto.setNombre("Mouse Logitech");
+            otroProducto.setStock(5);
+            otroProducto.setVersion(0);
+        }
+
+        private MovimientoStockRequest movimiento(Long productoId, MovimientoStock.TipoMovimiento tipo, int cantidad) {
+            MovimientoStockRequest movimiento = new MovimientoStockRequest();
+            movimiento.setProductoId(productoId);
+            movimiento.setTipo(tipo);
+            movimiento.setCantidad(cantidad);
+            return movimiento;
+        }
+
+        private MovimientoStockBatchRequest lote(boolean todoONada, MovimientoStockRequest... movimientos) {
+            MovimientoStockBatchRequest lote = new MovimientoStockBatchRequest();
+            lote.setMovimientos(List.of(movimientos));
+            lote.setTodoONada(todoONada);
+            return lote;
+        }
+
+        @Test
+        @DisplayName("Debe bloquear productos en orden ascendente y acumular movimientos del mismo producto")
+        void debeBloquearEnOrdenYAcumular() {
+            // Arrange
+            when(productoRepository.findAllByIdForUpdate(List.of(1L, 2L)))
+                    .thenReturn(List.of(producto, otroProducto));
+            when(movimientoStockRepository.saveAll(anyList()))
+                    .thenAnswer(invocation -> invocation.getArgument(0));
+
+            // Act
+            MovimientoStockBatchResponse response = movimientoStockService.registrarMovimientosBatch(lote(true,
+                    movimiento(2L, MovimientoStock.TipoMovimiento.SALIDA, 5),
+                    movimiento(1L, MovimientoStock.TipoMovimiento.SALIDA, 30),
+                    movimiento(1L, MovimientoStock.TipoMovimiento.ENTRADA, 10)));
+
+            // Assert
+            assertThat(response.getExitosos()).isEqualTo(3);
+            assertThat(response.getFallidos()).isZero();
+            assertThat(response.getResultados())
+                    .extracting(r -> r.getMovimiento().getStockNuevo())
+                    .containsExactly(0, 70, 80);
+            assertThat(producto.getStock()).isEqualTo(80);
+            assertThat(otroProducto.getStock()).isZero();
+            verify(movimientoStockRepository).saveAll(argThat(movimientos -> ((List<?>) movimientos).size() == 3));
+            verify(productoRepository, never()).save(any());
+        }
+
+        @Test
+        @DisplayName("Debe revertir el lote completo en modo todo o nada")
+        void debeFallarLoteCompletoEnModoTodoONada() {
+            // Arrange
+            when(productoRepository.findAllByIdForUpdate(List.of(1L)))
+                    .thenReturn(List.of(producto));
+
+            // Act & Assert
+            assertThatThrownBy(() -> movimientoStockService.registrarMovimientosBatch(lote(true,
+                    movimiento(1L, MovimientoStock.TipoMovimiento.SALIDA, 30),
+                    movimiento(1L, MovimientoStock.TipoMovimiento.SALIDA, 100))))
+                    .isInstanceOf(IllegalArgumentException.class)
+                    .hasMessageContaining("Movimiento #1")
+                    .hasMessageContaining("Stock insuficiente");
+
+            verify(movimientoStockRepository, never()).saveAll(any());
+        }
+
+        @Test
+        @DisplayName("Debe aplicar los movimientos válidos en modo parcial")
+        void debeAplicarValidosEnModoParcial() {
+            // Arrange
+            when(productoRepository.findAllByIdForUpdate(List.of(1L, 99L)))
+                    .thenReturn(List.of(producto));
+            when(movimientoStockRepository.saveAll(anyList()))
+                    .thenAnswer(invocation -> invocation.getArgument(0));
+
+            // Act
+            MovimientoStockBatchResponse response = movimientoStockService.registrarMovimientosBatch(lote(false,
+                    movimiento(1L, MovimientoStock.TipoMovimiento.SALIDA, 150),
+                    movimiento(99L, MovimientoStock.TipoMovimiento.ENTRADA, 1),
+                    movimiento(1L, MovimientoStock.TipoMovimiento.SALIDA, 40)));
+
+            // Assert
+            assertThat(response.getExitosos()).isEqualTo(1);
+            assertThat(response.getFallidos()).isEqualTo(2);
+            assertThat(response.getResultados())
+                    .extracting(MovimientoStockBatchResponse.Resultado::isExitoso)
+                    .containsExactly(false, false, true);
+            assertThat(response.getResultados().get(0).getError()).contains("Stock insuficiente");
+            assertThat(response.getResultados().get(1).getError()).contains("Producto no encontrado");
+            assertThat(response.getResultados().get(2).getMovimiento().getStockAnterior()).isEqualTo(100);
+            assertThat(producto.getStock()).isEqualTo(60);
+        }
+    }
+
+    @Test
+    @DisplayName("Debe impedir que una salida tome stock retenido por reservas")
+    void debeRespetarStockReservado() {
+        // Arrange
+        producto.setStockReservado(95);
+        request.setTipo(MovimientoStock.TipoMovimiento.SALIDA);
+        when(productoRepository.findById(1L)).thenReturn(Optional.of(producto));
+
+        // Act & Assert
+        assertThatThrownBy(() -> movimientoStockService.registrarMovimiento(request))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("Disponible: 5, Solicitado: 10");
+        verify(movimientoStockRepository, never()).save(any());
+    }
+
+    @Nested
+    @DisplayName("Idempotency-Key")
+    class IdempotencyKey {
+
+        @Test
+        @DisplayName("Debe guardar la clave de idempotencia con el movimiento")
+        void debeGuardarClave() {
+            // Arrange
+            request.setTipo(MovimientoStock.TipoMovimiento.ENTRADA);
+            request.setIdempotencyKey("scan-123");
+            when(productoRepository.findById(1L)).thenReturn(Optional.of(producto));
+            when(movimientoStockRepository.save(any(MovimientoStock.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+            // Act
+            movimientoStockService.registrarMovimiento(request);
+
+            // Assert
+            ArgumentCaptor<MovimientoStock> captor = ArgumentCaptor.forClass(MovimientoStock.class);
+            verify(movimientoStockRepository).save(captor.capture());
+            assertThat(captor.getValue().getIdempotencyKey()).isEqualTo("scan-123");
+        }
+
+        @Test
+        @DisplayName("Debe rechazar una clave repetida dentro del mismo grupo sin aplicarla")
+        void debeRechazarClaveRepetidaEnGrupo() {
+            // Arrange
+            MovimientoStockRequest original = new MovimientoStockRequest();
+            original.setProductoId(1L);
+            original.setTipo(MovimientoStock.TipoMovimiento.SALIDA);
+            original.setCantidad(10);
+            original.setIdempotencyKey("scan-123");
+            MovimientoStockRequest reintento = new MovimientoStockRequest();
+            reintento.setProductoId(1L);
+            reintento.setTipo(MovimientoStock.TipoMovimiento.SALIDA);
+            reintento.setCantidad(10);
+            reintento.setIdempotencyKey("scan-123");
+            when(productoRepository.findAllByIdForUpdate(List.of(1L))).thenReturn(List.of(producto));
+            when(movimientoStockRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+
+            // Act
+            List<MovimientoStockService.ResultadoMovimiento> resultados =
+                    movimientoStockService.aplicarMovimientos(List.of(original, reintento), false);
+
+            // Assert
+            assertThat(resultados.get(0).exitoso()).isTrue();
+            assertThat(resultados.get(1).error()).isInstanceOf(DuplicateKeyException.class);
+            assertThat(producto.getStock()).isEqualTo(90);
+        }
+
+        @Test
+        @DisplayName("Debe devolver el movimiento registrado con la clave")
+        void debeBuscarPorClave() {
+            // Arrange
+            MovimientoStock movimiento = new MovimientoStock();
+            movimiento.setId(5L);
+            movimiento.setProductoId(1L);
+            movimiento.setTipo(MovimientoStock.TipoMovimiento.ENTRADA);
+            movimiento.setCantidad(10);
+            when(movimientoStockRepository.findByIdempotencyKey("scan-123")).thenReturn(Optional.of(movimiento));
+            when(productoRepository.findById(1L)).thenReturn(Optional.of(producto));
+
+            // Act
+            Optional<MovimientoStockResponse> response = movimientoStockService.buscarPorIdempotencyKey("scan-123");
+
+            // Assert
+            assertThat(response).hasValueSatisfying(r -> {
+                assertThat(r.getId()).isEqualTo(5L);
+                assertThat(r.getProductoNombre()).isEqualTo("Laptop Dell");
+            });
+        }
+    }
+
+    @Nested
+    @DisplayName("Historial paginado")
+    class HistorialPaginado {
+
+        private MovimientoStock movimiento(long id, LocalDateTime fecha) {
+            MovimientoStock movimiento = new MovimientoStock();
+            movimiento.setId(id);
+            movimiento.setProductoId(1L);
+            movimiento.setTipo(MovimientoStock.TipoMovimiento.SALIDA);
+            movimiento.setCantidad(1);
+            movimiento.setFecha(fecha);
+            return movimiento;
+        }
+
+        @Test
+        @DisplayName("Debe leer size + 1 filas y devolver el cursor del último movimiento")
+        void debeDevolverCursorSiguiente() {
+            // Arrange
+            LocalDateTime fecha = LocalDateTime.of(2025, 3, 1, 10, 0);
+            when(productoRepository.findById(1L)).thenReturn(Optional.of(producto));
+            when(movimientoStockRepository.findHistorial(eq(1L), isNull(), isNull(), isNull(), isNull(),
+                    argThat((Pageable pageable) -> pageable.getPageSize() == 3)))
+                    .thenReturn(List.of(movimiento(9L, fecha), movimiento(8L, fecha), movimiento(7L, fecha.minusDays(1))));
+
+            // Act
+            CursorPageResponse<MovimientoStockResponse> pagina =
+                    movimientoStockService.getHistorial(1L, null, null, null, 2);
+
+            // Assert
+            assertThat(pagina.getContent()).extracting(MovimientoStockResponse::getId).containsExactly(9L, 8L);
+            assertThat(pagina.getContent().get(0).getProductoNombre()).isEqualTo("Laptop Dell");
+            assertThat(pagina.isHasNext()).isTrue();
+            assertThat(MovimientoCursor.decode(pagina.getNextCursor())).isEqualTo(new MovimientoCursor(fecha, 8L));
+        }
+
+        @Test
+        @DisplayName("Debe continuar desde el cursor recibido")
+        void debeContinuarDesdeCursor() {
+            // Arrange
+            LocalDateTime fecha = LocalDateTime.of(2025, 3, 1, 10, 0);
+            String cursor = new MovimientoCursor(fecha, 8L).encode();
+            when(productoRepository.findById(1L)).thenReturn(Optional.of(producto));
+            when(movimientoStockRepository.findHistorial(eq(1L), isNull(), isNull(), eq(fecha), eq(8L), any(Pageable.class)))
+                    .thenReturn(List.of(movimiento(7L, fecha.minusDays(1))));
+
+            // Act
+            CursorPageResponse<MovimientoStockResponse> pagina =
+                    movimientoStockService.getHistorial(1L, null, null, cursor, 2);
+
+            // Assert
+            assertThat(pagina.getContent()).hasSize(1);
+            assertThat(pagina.isHasNext()).isFalse();
+            assertThat(pagina.getNextCursor()).isNull();
+        }
+
+        @Test
+        @DisplayName("Debe completar la página con movimientos archivados al agotarse la base")
+        void debeCompletarConArchivados() {
+            // Arrange
+            LocalDateTime fecha = LocalDateTime.of(2025, 3, 1, 10, 0);
+            LocalDateTime archivada = LocalDateTime.of(2024, 1, 15, 9, 0);
+            when(productoRepository.findById(1L)).thenReturn(Optional.of(producto));
+            when(movimientoStockRepository.findHistorial(eq(1L), isNull(), isNull(), isNull(), isNull(), any(Pageable.class)))
+                    .thenReturn(List.of(movimiento(9L, fecha)));
+            when(movimientoArchivoService.leer(1L, null, null, fecha, 9L, 2))
+                    .thenReturn(List.of(movimiento(3L, archivada), movimiento(2L, archivada)));
+
+            // Act
+            CursorPageResponse<MovimientoStockResponse> pagina =
+                    movimientoStockService.getHistorial(1L, null, null, null, 2);
+
+            // Assert
+            assertThat(pagina.getContent()).extracting(MovimientoStockResponse::getId).containsExactly(9L, 3L);
+            assertThat(pagina.isHasNext()).isTrue();
+            assertThat(MovimientoCursor.decode(pagina.getNextCursor())).isEqualTo(new MovimientoCursor(archivada, 3L));
+        }
+
+        @Test
+        @DisplayName("Debe rechazar un rango de fechas invertido")
+        void debeRechazarRangoInvertido() {
+            LocalDateTime hoy = LocalDateTime.of(2025, 3, 1, 0, 0);
+
+            assertThatThrownBy(() -> movimientoStockService.getHistorial(1L, hoy, hoy.minusDays(1), null, 20))
+                    .isInstanceOf(IllegalArgumentException.class);
+            verify(movimientoStockRepository, never()).findHistorial(any(), any(), any(), any(), any(), any());
+        }
+    }
+
+    @Nested
+    @DisplayName("Actividad por usuario")
+    class ActividadUsuario {
+
+        @Test
+        @DisplayName("Debe paginar los movimientos del usuario con los nombres de sus productos")
+        void debePaginarActividadUsuario() {
+            // Arrange
+            LocalDateTime fecha = LocalDateTime.of(2025, 3, 1, 10, 0);
+            MovimientoStock reciente = new MovimientoStock();
+            reciente.setId(9L);
+            reciente.setProductoId(1L);
+            reciente.setTipo(MovimientoStock.TipoMovimiento.SALIDA);
+            reciente.setCantidad(1);
+            reciente.setFecha(fecha);
+            reciente.setUsuarioId(5L);
+            MovimientoStock anterior = new MovimientoStock();
+            anterior.setId(4L);
+            anterior.setProductoId(2L);
+            anterior.setTipo(MovimientoStock.TipoMovimiento.ENTRADA);
+            anterior.setCantidad(3);
+            anterior.setFecha(fecha.minusDays(1));
+            anterior.setUsuarioId(5L);
+            when(movimientoStockRepository.findActividadUsuario(eq(5L), isNull(), isNull(), isNull(), isNull(),
+                    argThat((Pageable pageable) -> pageable.getPageSize() == 2)))
+                    .thenReturn(List.of(reciente, anterior));
+            when(productoRepository.findAllById(List.of(1L))).thenReturn(List.of(producto));
+
+            // Act
+            CursorPageResponse<MovimientoStockResponse> pagina =
+                    movimientoStockService.getActividadUsuario(5L, null, null, null, 1);
+
+            // Assert
+            assertThat(pagina.getContent()).extracting(MovimientoStockResponse::getId).containsExactly(9L);
+            assertThat(pagina.getContent().get(0).getProductoNombre()).isEqualTo("Laptop Dell");
+            assertThat(pagina.isHasNext()).isTrue();
+            assertThat(MovimientoCursor.decode(pagina.getNextCursor())).isEqualTo(new MovimientoCursor(fecha, 9L));
+            verify(productoRepository, never()).findById(any());
+        }
+
+        @Test
+        @DisplayName("Debe rechazar un ID de usuario inválido")
+        void debeRechazarUsuarioInvalido() {
+            assertThatThrownBy(() -> movimientoStockService.getActividadUsuario(0L, null, null, null, 20))
+                    .isInstanceOf(IllegalArgumentException.class);
+            verify(movimientoStockRepository, never()).findActividadUsuario(any(), any(), any(), any(), any(), any());
+        }
+    }
 }
@@ -0,0 +1,59 @@
+package com.inventario.service;
+
+import com.inventario.model.Producto;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("ProductoCache - Caché por ID con control de versión")
+class ProductoCacheTest {
+
+    private ProductoCache productoCache;
+
+    @BeforeEach
+    void setUp() {
+        productoCache = new ProductoCache(new SimpleMeterRegistry(), 100, 300);
+    }
+
+    @Test
+    @DisplayName("Debe rechazar una entrada con versión anterior a la cacheada")
+    void debeRechazarVersionAnterior() {
+        productoCache.put(producto(1L, "Nuevo", 2));
+        productoCache.put(producto(1L, "Viejo", 1));
+
+        assertThat(productoCache.get(1L)).get()
+            .extracting("nombre").isEqualTo("Nuevo");
+    }
+
+    @Test
+    @DisplayName("Debe reemplazar la entrada con una versión más nueva")
+    void debeAceptarVersionNueva() {
+        productoCache.put(producto(1L, "Viejo", 1));
+        productoCache.put(producto(1L, "Nuevo", 2));
+
+        assertThat(productoCache.get(1L)).get()
+            .extracting("nombre").isEqualTo("Nuevo");
+    }
+
+    @Test
+    @DisplayName("No debe volver a cachear un producto eliminado")
+    void noDebeCachearProductoEliminado() {
+        productoCache.put(producto(1L, "Laptop", 1));
+
+        productoCache.evictAfterCommit(1L);
+        productoCache.put(producto(1L, "Laptop", 1));
+
+        assertThat(productoCache.get(1L)).isEmpty();
+    }
+
+    private Producto producto(Long id, String nombre, int version) {
+        Producto producto = new Producto();
+        producto.setId(id);
+        producto.setNombre(nombre);
+        producto.setVersion(version);
+        return producto;
+    }
+}
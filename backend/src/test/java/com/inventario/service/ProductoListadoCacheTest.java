@@ -0,0 +1,60 @@
+package com.inventario.service;
+
+import com.inventario.dto.PageResponse;
+import com.inventario.dto.ProductoResponse;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("ProductoListadoCache - Caché de listados por generación del catálogo")
+class ProductoListadoCacheTest {
+
+    private ProductoListadoCache listadoCache;
+    private AtomicInteger lecturas;
+
+    @BeforeEach
+    void setUp() {
+        listadoCache = new ProductoListadoCache(new SimpleMeterRegistry(), 100, 60);
+        lecturas = new AtomicInteger();
+    }
+
+    @Test
+    @DisplayName("Debe reutilizar el resultado para la misma consulta")
+    void debeReutilizarResultado() {
+        PageResponse<ProductoResponse> primero = listadoCache.get("q", this::cargar);
+        PageResponse<ProductoResponse> segundo = listadoCache.get("q", this::cargar);
+
+        assertThat(segundo).isSameAs(primero);
+        assertThat(lecturas).hasValue(1);
+    }
+
+    @Test
+    @DisplayName("Debe separar consultas distintas")
+    void debeSepararConsultasDistintas() {
+        listadoCache.get("q1", this::cargar);
+        listadoCache.get("q2", this::cargar);
+
+        assertThat(lecturas).hasValue(2);
+    }
+
+    @Test
+    @DisplayName("Debe ignorar las entradas previas a una invalidación")
+    void debeIgnorarEntradasPreviasAInvalidacion() {
+        listadoCache.get("q", this::cargar);
+        listadoCache.invalidateAfterCommit();
+        listadoCache.get("q", this::cargar);
+
+        assertThat(lecturas).hasValue(2);
+    }
+
+    private PageResponse<ProductoResponse> cargar() {
+        lecturas.incrementAndGet();
+        return new PageResponse<>(Collections.emptyList(), 0, 10, 0, 0, true, true);
+    }
+}
@@ -1,21 +1,36 @@
 package com.inventario.service;
 
 import com.inventario.client.FakeStoreClient;
+import com.inventario.dto.CursorPageResponse;
 import com.inventario.dto.FakeStoreProductDto;
+import com.inventario.dto.ProductoCursor;
 import com.inventario.dto.ProductoRequest;
+import com.inventario.dto.ProductoResponse;
+import com.inventario.dto.SliceResponse;
 import com.inventario.exception.DuplicateResourceException;
 import com.inventario.model.Producto;
 import com.inventario.repository.ProductoRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
 import java.util.ArrayList;
@@ -38,6 +53,22 @@ class ProductoServiceTest {
     @Mock
     private FakeStoreClient fakeStoreClient;
 
+    @Mock
+    private ApproximateCountCache approximateCountCache;
+
+    @Mock
+    private ProductoCache productoCache;
+
+    @Mock
+    private ObjectProvider<MovimientoJournal> movimientoJournal;
+
+    @Spy
+    private ProductoListadoCache productoListadoCache =
+        new ProductoListadoCache(new SimpleMeterRegistry(), 100, 60);
+
+    @Spy
+    private TransactionTemplate transactionTemplate = new TransactionTemplate(mock(PlatformTransactionManager.class));
+
     @InjectMocks
     private ProductoService productoService;
 
@@ -56,7 +87,7 @@ class ProductoServiceTest {
     @Test
     @DisplayName("getAllProductos - Debe normalizar búsqueda vacía a null (Prevención SQL)")
     void getAllProductos_DebeNormalizarBusquedaVacia() {
-        Page<Producto> page = new PageImpl<>(Collections.emptyList());
+        Page<ProductoResponse> page = new PageImpl<>(Collections.emptyList());
         when(productoRepository.findByFilters(isNull(), isNull(), any(Pageable.class)))
             .thenReturn(page);
 
@@ -68,7 +99,7 @@ class ProductoServiceTest {
     @Test
     @DisplayName("getAllProductos - Debe validar sortBy contra whitelist (Prevención SQL Injection)")
     void getAllProductos_DebeValidarSortByContraWhitelist() {
-        Page<Producto> page = new PageImpl<>(Collections.emptyList());
+        Page<ProductoResponse> page = new PageImpl<>(Collections.emptyList());
         when(productoRepository.findByFilters(any(), any(), any(Pageable.class)))
             .thenReturn(page);
 
@@ -82,7 +113,7 @@ class ProductoServiceTest {
     @Test
     @DisplayName("getAllProductos - Debe limitar tamaño de página a MAX_PAGE_SIZE (Prevención DoS)")
     void getAllProductos_DebeLimitarTamanioPagina() {
-        Page<Producto> page = new PageImpl<>(Collections.emptyList());
+        Page<ProductoResponse> page = new PageImpl<>(Collections.emptyList());
         when(productoRepository.findByFilters(any(), any(), any(Pageable.class)))
             .thenReturn(page);
 
@@ -93,6 +124,162 @@ class ProductoServiceTest {
         ));
     }
 
+    @Test
+    @DisplayName("getAllProductos - Debe resolver consultas equivalentes desde la caché de listados")
+    void getAllProductos_DebeUsarCacheDeListados() {
+        Page<ProductoResponse> page = new PageImpl<>(Collections.emptyList());
+        when(productoRepository.findByFilters(any(), any(), any(Pageable.class)))
+            .thenReturn(page);
+
+        productoService.getAllProductos(null, "  ", 0, 10, "nombre", "asc");
+        productoService.getAllProductos(null, null, 0, 10, "nombre", "ASC");
+
+        verify(productoRepository, times(1)).findByFilters(any(), any(), any(Pageable.class));
+        // Solo la carga del miss abrió una transacción; el acierto no tomó conexión
+        verify(transactionTemplate.getTransactionManager(), times(1)).getTransaction(argThat(TransactionDefinition::isReadOnly));
+    }
+
+    @Test
+    @DisplayName("getAllProductos - Debe volver a consultar tras una escritura de productos")
+    void getAllProductos_DebeInvalidarCacheTrasEscritura() {
+        Page<ProductoResponse> page = new PageImpl<>(Collections.emptyList());
+        when(productoRepository.findByFilters(any(), any(), any(Pageable.class)))
+            .thenReturn(page);
+        Producto producto = new Producto();
+        producto.setId(1L);
+        when(productoRepository.existsByNombre(anyString())).thenReturn(false);
+        when(productoRepository.save(any(Producto.class))).thenReturn(producto);
+
+        productoService.getAllProductos(null, null, 0, 10, "nombre", "asc");
+        productoService.createProducto(productoRequest);
+        productoService.getAllProductos(null, null, 0, 10, "nombre", "asc");
+
+        verify(productoListadoCache).invalidateAfterCommit();
+        verify(productoRepository, times(2)).findByFilters(any(), any(), any(Pageable.class));
+    }
+
+    @Test
+    @DisplayName("getAllProductos - Debe usar el índice FULLTEXT cuando hay términos indexables")
+    void getAllProductos_DebeUsarFullTextConTerminosIndexables() {
+        Page<ProductoResponse> page = new PageImpl<>(Collections.emptyList());
+        when(productoRepository.searchByNombre(eq("+laptop +hp"), isNull(), any(Pageable.class)))
+            .thenReturn(page);
+
+        productoService.getAllProductos("laptop hp", null, 0, 10, "nombre", "asc");
+
+        verify(productoRepository).searchByNombre(eq("+laptop +hp"), isNull(), any(Pageable.class));
+        verify(productoRepository, never()).findByFilters(any(), any(), any(Pageable.class));
+    }
+
+    @Test
+    @DisplayName("getAllProductos - Debe ordenar por relevancia cuando sortBy es 'relevancia'")
+    void getAllProductos_DebeOrdenarPorRelevancia() {
+        Page<ProductoResponse> page = new PageImpl<>(Collections.emptyList());
+        when(productoRepository.searchByNombreOrderByRelevance(eq("+laptop"), isNull(), any(Pageable.class)))
+            .thenReturn(page);
+
+        productoService.getAllProductos("laptop", null, 0, 10, "relevancia", "desc");
+
+        verify(productoRepository).searchByNombreOrderByRelevance(eq("+laptop"), isNull(), argThat(pageable ->
+            pageable.getSort().isUnsorted()
+        ));
+    }
+
+    @Test
+    @DisplayName("getAllProductos - Debe usar LIKE si la búsqueda no tiene términos indexables")
+    void getAllProductos_DebeUsarLikeConTerminosCortos() {
+        Page<ProductoResponse> page = new PageImpl<>(Collections.emptyList());
+        when(productoRepository.findByFilters(eq("a"), isNull(), any(Pageable.class)))
+            .thenReturn(page);
+
+        productoService.getAllProductos("a", null, 0, 10, "relevancia", "desc");
+
+        verify(productoRepository).findByFilters(eq("a"), isNull(), argThat(pageable ->
+            pageable.getSort().toString().contains("fechaRegistro")
+        ));
+    }
+
+    @Test
+    @DisplayName("getProductosSlice - Debe listar sin COUNT(*) y sin total si no se pide")
+    void getProductosSlice_DebeListarSinCount() {
+        Slice<ProductoResponse> slice = new SliceImpl<>(Collections.emptyList(), PageRequest.of(0, 10), true);
+        when(productoRepository.findSliceByFilters(isNull(), isNull(), any(Pageable.class)))
+            .thenReturn(slice);
+
+        SliceResponse<ProductoResponse> response =
+            productoService.getProductosSlice(null, null, 0, 10, "nombre", "asc", false);
+
+        assertThat(response.isHasNext()).isTrue();
+        assertThat(response.getApproximateTotal()).isNull();
+        verify(productoRepository, never()).findByFilters(any(), any(), any(Pageable.class));
+        verify(productoRepository, never()).countByFilters(any(), any());
+        verifyNoInteractions(approximateCountCache);
+    }
+
+    @Test
+    @DisplayName("getProductosSlice - Debe incluir el total aproximado cacheado")
+    void getProductosSlice_DebeIncluirTotalAproximado() {
+        Slice<ProductoResponse> slice = new SliceImpl<>(Collections.emptyList(), PageRequest.of(0, 10), false);
+        when(productoRepository.searchSliceByNombre(eq("+laptop"), isNull(), any(Pageable.class)))
+            .thenReturn(slice);
+        when(approximateCountCache.get(any(), any())).thenReturn(42L);
+
+        SliceResponse<ProductoResponse> response =
+            productoService.getProductosSlice("laptop", null, 0, 10, "nombre", "asc", true);
+
+        assertThat(response.isHasNext()).isFalse();
+        assertThat(response.getApproximateTotal()).isEqualTo(42L);
+    }
+
+    @Test
+    @DisplayName("getProductosSlice - No debe compartir el total entre filtros distintos con el mismo texto")
+    void getProductosSlice_DebeSepararClavesDeTotal() {
+        Slice<ProductoResponse> slice = new SliceImpl<>(Collections.emptyList(), PageRequest.of(0, 10), false);
+        when(productoRepository.findSliceByFilters(any(), any(), any(Pageable.class))).thenReturn(slice);
+        // "a|b" puede resolverse con FULLTEXT según los operadores que se eliminen
+        lenient().when(productoRepository.searchSliceByNombre(any(), any(), any(Pageable.class))).thenReturn(slice);
+
+        productoService.getProductosSlice("a|b", null, 0, 10, "nombre", "asc", true);
+        productoService.getProductosSlice("a", "b", 0, 10, "nombre", "asc", true);
+        productoService.getProductosSlice("a", "null", 0, 10, "nombre", "asc", true);
+        productoService.getProductosSlice("a", null, 0, 10, "nombre", "asc", true);
+
+        ArgumentCaptor<Object> keys = ArgumentCaptor.forClass(Object.class);
+        verify(approximateCountCache, times(4)).get(keys.capture(), any());
+        assertThat(keys.getAllValues()).doesNotHaveDuplicates();
+    }
+
+    @Test
+    @DisplayName("getProductoById - Debe responder desde caché sin consultar la base de datos")
+    void getProductoById_DebeResponderDesdeCache() {
+        ProductoResponse cached = new ProductoResponse();
+        cached.setId(1L);
+        when(productoCache.get(1L)).thenReturn(java.util.Optional.of(cached));
+
+        ProductoResponse response = productoService.getProductoById(1L);
+
+        assertThat(response).isSameAs(cached);
+        verify(productoRepository, never()).findById(anyLong());
+        // Un acierto de caché no abre transacción (ni toma conexión del pool)
+        verify(transactionTemplate.getTransactionManager(), never()).getTransaction(any());
+    }
+
+    @Test
+    @DisplayName("getProductoById - Debe cargar y cachear el producto en un miss")
+    void getProductoById_DebeCachearEnMiss() {
+        Producto producto = new Producto();
+        producto.setId(1L);
+        producto.setNombre("Laptop HP");
+        when(productoCache.get(1L)).thenReturn(java.util.Optional.empty());
+        when(productoRepository.findById(1L)).thenReturn(java.util.Optional.of(producto));
+
+        ProductoResponse response = productoService.getProductoById(1L);
+
+        assertThat(response.getNombre()).isEqualTo("Laptop HP");
+        verify(productoCache).put(producto);
+        verify(transactionTemplate.getTransactionManager()).getTransaction(argThat(TransactionDefinition::isReadOnly));
+    }
+
     @Test
     @DisplayName("createProducto - Debe trimear campos de texto (Data Sanitization)")
     void createProducto_DebeTrimmearCamposTexto() {
@@ -142,6 +329,25 @@ class ProductoServiceTest {
         verify(productoRepository, never()).existsByNombreAndIdNot(anyString(), anyLong());
     }
 
+    @Test
+    @DisplayName("updateProducto - Debe rechazar stock menor al reservado")
+    void updateProducto_DebeRechazarStockMenorAlReservado() {
+        productoRequest.setStock(5);
+        Producto producto = new Producto();
+        producto.setId(1L);
+        producto.setNombre("Laptop HP");
+        producto.setStock(30);
+        producto.setStockReservado(20);
+        when(productoRepository.findById(1L)).thenReturn(java.util.Optional.of(producto));
+
+        assertThatThrownBy(() -> productoService.updateProducto(1L, productoRequest))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("menor al reservado");
+
+        assertThat(producto.getStock()).isEqualTo(30);
+        verify(productoRepository, never()).save(any());
+    }
+
     @Test
     @DisplayName("updateProducto - Debe validar nombre duplicado en otro producto")
     void updateProducto_DebeValidarNombreDuplicadoEnOtroProducto() {
@@ -409,4 +615,62 @@ class ProductoServiceTest {
             return "Sin categoría".equals(p.getCategoria());
         }));
     }
+
+    @Test
+    @DisplayName("getProductosByCursor - Debe pedir size+1 filas y generar nextCursor con la última fila")
+    void getProductosByCursor_DebeGenerarNextCursor() {
+        List<ProductoResponse> productos = new ArrayList<>();
+        for (long i = 1; i <= 3; i++) {
+            ProductoResponse p = new ProductoResponse();
+            p.setId(i);
+            p.setNombre("Producto " + i);
+            productos.add(p);
+        }
+        when(productoRepository.findByFiltersAfter(isNull(), isNull(), isNull(), eq("nombre"), eq(Sort.Direction.ASC), eq(3)))
+            .thenReturn(productos);
+
+        CursorPageResponse<ProductoResponse> response =
+            productoService.getProductosByCursor(null, null, null, 2, "nombre", "asc");
+
+        assertThat(response.getContent()).hasSize(2);
+        assertThat(response.isHasNext()).isTrue();
+        ProductoCursor cursor = ProductoCursor.decode(response.getNextCursor());
+        assertThat(cursor.sortBy()).isEqualTo("nombre");
+        assertThat(cursor.lastValue()).isEqualTo("Producto 2");
+        assertThat(cursor.lastId()).isEqualTo(2L);
+    }
+
+    @Test
+    @DisplayName("getProductosByCursor - Debe normalizar la categoría igual que el listado paginado")
+    void getProductosByCursor_DebeNormalizarCategoria() {
+        when(productoRepository.findByFiltersAfter(isNull(), eq("Electrónica"), isNull(), eq("nombre"), eq(Sort.Direction.ASC), eq(11)))
+            .thenReturn(List.of());
+        when(productoRepository.findByFiltersAfter(isNull(), isNull(), isNull(), eq("nombre"), eq(Sort.Direction.ASC), eq(11)))
+            .thenReturn(List.of());
+
+        productoService.getProductosByCursor(null, "  Electrónica ", null, 10, "nombre", "asc");
+        productoService.getProductosByCursor(null, "   ", null, 10, "nombre", "asc");
+
+        verify(productoRepository).findByFiltersAfter(isNull(), eq("Electrónica"), isNull(), eq("nombre"), eq(Sort.Direction.ASC), eq(11));
+        verify(productoRepository).findByFiltersAfter(isNull(), isNull(), isNull(), eq("nombre"), eq(Sort.Direction.ASC), eq(11));
+    }
+
+    @Test
+    @DisplayName("getProductosByCursor - Debe rechazar cursor de otro ordenamiento")
+    void getProductosByCursor_DebeRechazarCursorDeOtroOrden() {
+        String cursor = new ProductoCursor("precio", "asc", new BigDecimal("10.00"), 5L).encode();
+
+        assertThatThrownBy(() -> productoService.getProductosByCursor(null, null, cursor, 10, "nombre", "asc"))
+            .isInstanceOf(IllegalArgumentException.class);
+
+        verify(productoRepository, never()).findByFiltersAfter(any(), any(), any(), any(), any(), anyInt());
+    }
+
+    @Test
+    @DisplayName("getProductosByCursor - Debe rechazar cursor malformado")
+    void getProductosByCursor_DebeRechazarCursorMalformado() {
+        assertThatThrownBy(() -> productoService.getProductosByCursor(null, null, "no-es-un-cursor", 10, "nombre", "asc"))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("Cursor inválido");
+    }
 }
@@ -0,0 +1,150 @@
+package com.inventario.service;
+
+import com.inventario.model.RefreshToken;
+import com.inventario.repository.RefreshTokenRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.authentication.BadCredentialsException;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("RefreshTokenService - Emisión, rotación y revocación de refresh tokens")
+class RefreshTokenServiceTest {
+
+    @Mock
+    private RefreshTokenRepository refreshTokenRepository;
+
+    private RefreshTokenService refreshTokenService;
+
+    @BeforeEach
+    void setUp() {
+        refreshTokenService = new RefreshTokenService(refreshTokenRepository, 7);
+    }
+
+    @Test
+    @DisplayName("Debe guardar solo el hash del token emitido")
+    void debeGuardarSoloElHash() {
+        // Act
+        String token = refreshTokenService.emitir(1L);
+
+        // Assert
+        ArgumentCaptor<RefreshToken> captor = ArgumentCaptor.forClass(RefreshToken.class);
+        verify(refreshTokenRepository).save(captor.capture());
+        RefreshToken guardado = captor.getValue();
+        assertThat(guardado.getUsuarioId()).isEqualTo(1L);
+        assertThat(guardado.getTokenHash()).hasSize(64).isNotEqualTo(token).isEqualTo(RefreshTokenService.hash(token));
+        assertThat(guardado.getExpiraEn()).isAfter(LocalDateTime.now().plusDays(6));
+    }
+
+    @Test
+    @DisplayName("Debe revocar el token presentado y emitir uno nuevo para el mismo usuario")
+    void debeRotarToken() {
+        // Arrange
+        RefreshToken actual = refreshToken(null);
+        when(refreshTokenRepository.findByTokenHash(RefreshTokenService.hash("actual"))).thenReturn(Optional.of(actual));
+        when(refreshTokenRepository.revocarVigente(eq(5L), any(), eq(RefreshToken.MotivoRevocacion.ROTADO)))
+                .thenReturn(1);
+
+        // Act
+        RefreshTokenService.Rotacion rotacion = refreshTokenService.rotar("actual");
+
+        // Assert
+        assertThat(rotacion.usuarioId()).isEqualTo(1L);
+        assertThat(rotacion.refreshToken()).isNotEqualTo("actual");
+        verify(refreshTokenRepository).save(any(RefreshToken.class));
+    }
+
+    @Test
+    @DisplayName("Debe revocar todas las sesiones del usuario al reutilizar un token ya rotado")
+    void debeRevocarTodoAlReutilizarToken() {
+        // Arrange
+        RefreshToken rotado = refreshToken(LocalDateTime.now().minusMinutes(1));
+        rotado.setMotivoRevocacion(RefreshToken.MotivoRevocacion.ROTADO);
+        when(refreshTokenRepository.findByTokenHash(anyString())).thenReturn(Optional.of(rotado));
+
+        // Act / Assert
+        assertThatThrownBy(() -> refreshTokenService.rotar("rotado"))
+                .isInstanceOf(BadCredentialsException.class);
+        verify(refreshTokenRepository).revocarTodos(eq(1L), any(), eq(RefreshToken.MotivoRevocacion.REUTILIZACION));
+        verify(refreshTokenRepository, never()).save(any());
+    }
+
+    @Test
+    @DisplayName("Debe rechazar un token cerrado por logout sin revocar las demás sesiones")
+    void debeRechazarTokenDeLogoutSinRevocarTodo() {
+        // Arrange
+        RefreshToken cerrado = refreshToken(LocalDateTime.now().minusMinutes(1));
+        cerrado.setMotivoRevocacion(RefreshToken.MotivoRevocacion.LOGOUT);
+        when(refreshTokenRepository.findByTokenHash(anyString())).thenReturn(Optional.of(cerrado));
+
+        // Act / Assert
+        assertThatThrownBy(() -> refreshTokenService.rotar("cerrado"))
+                .isInstanceOf(BadCredentialsException.class);
+        verify(refreshTokenRepository, never()).revocarTodos(any(), any(), any());
+        verify(refreshTokenRepository, never()).save(any());
+    }
+
+    @Test
+    @DisplayName("Debe registrar el logout como motivo de la revocación")
+    void debeRevocarPorLogout() {
+        // Arrange
+        when(refreshTokenRepository.findByTokenHash(RefreshTokenService.hash("actual")))
+                .thenReturn(Optional.of(refreshToken(null)));
+
+        // Act
+        refreshTokenService.revocar("actual");
+
+        // Assert
+        verify(refreshTokenRepository).revocarVigente(eq(5L), any(), eq(RefreshToken.MotivoRevocacion.LOGOUT));
+    }
+
+    @Test
+    @DisplayName("Debe rechazar un token vencido o canjeado por otro request")
+    void debeRechazarTokenNoVigente() {
+        // Arrange
+        when(refreshTokenRepository.findByTokenHash(anyString())).thenReturn(Optional.of(refreshToken(null)));
+        when(refreshTokenRepository.revocarVigente(eq(5L), any(), any())).thenReturn(0);
+
+        // Act / Assert
+        assertThatThrownBy(() -> refreshTokenService.rotar("vencido"))
+                .isInstanceOf(BadCredentialsException.class);
+        verify(refreshTokenRepository, never()).revocarTodos(any(), any(), any());
+        verify(refreshTokenRepository, never()).save(any());
+    }
+
+    @Test
+    @DisplayName("Debe rechazar un token desconocido")
+    void debeRechazarTokenDesconocido() {
+        // Arrange
+        when(refreshTokenRepository.findByTokenHash(anyString())).thenReturn(Optional.empty());
+
+        // Act / Assert
+        assertThatThrownBy(() -> refreshTokenService.rotar("desconocido"))
+                .isInstanceOf(BadCredentialsException.class);
+    }
+
+    private RefreshToken refreshToken(LocalDateTime revocadoEn) {
+        RefreshToken refreshToken = new RefreshToken();
+        refreshToken.setId(5L);
+        refreshToken.setUsuarioId(1L);
+        refreshToken.setExpiraEn(LocalDateTime.now().plusDays(1));
+        refreshToken.setRevocadoEn(revocadoEn);
+        return refreshToken;
+    }
+}
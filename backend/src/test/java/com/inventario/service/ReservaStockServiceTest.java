@@ -0,0 +1,299 @@
+package com.inventario.service;
+
+import com.inventario.dto.ReservaRequest;
+import com.inventario.dto.ReservaResponse;
+import com.inventario.model.MovimientoStock;
+import com.inventario.model.Producto;
+import com.inventario.model.ReservaStock;
+import com.inventario.repository.MovimientoStockRepository;
+import com.inventario.repository.ProductoRepository;
+import com.inventario.repository.ReservaStockRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("ReservaStockService - Reservas con vencimiento")
+class ReservaStockServiceTest {
+
+    @Mock
+    private ReservaStockRepository reservaStockRepository;
+
+    @Mock
+    private ProductoRepository productoRepository;
+
+    @Mock
+    private MovimientoStockRepository movimientoStockRepository;
+
+    @Mock
+    private MovimientoResumenService movimientoResumenService;
+
+    @Mock
+    private ProductoCache productoCache;
+
+    @Mock
+    private ProductoListadoCache productoListadoCache;
+
+    @Mock
+    private ObjectProvider<MovimientoJournal> movimientoJournal;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private ReservaStockService reservaStockService;
+    private Producto producto;
+
+    @BeforeEach
+    void setUp() {
+        reservaStockService = new ReservaStockService(reservaStockRepository, productoRepository,
+                movimientoStockRepository, movimientoResumenService, productoCache, productoListadoCache,
+                movimientoJournal, transactionManager, new SimpleMeterRegistry(), 300, 3600, 10, 64);
+
+        producto = new Producto();
+        producto.setId(1L);
+        producto.setNombre("Laptop Dell");
+        producto.setPrecio(new BigDecimal("1500.00"));
+        producto.setStock(100);
+        producto.setStockReservado(0);
+    }
+
+    @AfterEach
+    void tearDown() {
+        reservaStockService.shutdown();
+    }
+
+    @Test
+    @DisplayName("Debe retener el stock y crear la reserva activa con el TTL por defecto")
+    void debeCrearReserva() {
+        // Arrange
+        when(productoRepository.reservarStock(1L, 10)).thenReturn(1);
+        when(productoRepository.findById(1L)).thenReturn(Optional.of(producto));
+        when(reservaStockRepository.save(any(ReservaStock.class))).thenAnswer(invocation -> {
+            ReservaStock reserva = invocation.getArgument(0);
+            reserva.setId(7L);
+            return reserva;
+        });
+
+        // Act
+        ReservaResponse response = reservaStockService.reservar(request(10, null));
+
+        // Assert
+        assertThat(response.getId()).isEqualTo(7L);
+        assertThat(response.getEstado()).isEqualTo(ReservaStock.EstadoReserva.ACTIVA);
+        assertThat(response.getExpiraEn()).isCloseTo(LocalDateTime.now().plusSeconds(300), within(5, ChronoUnit.SECONDS));
+        verify(productoCache).putAfterCommit(producto);
+        verify(productoListadoCache).invalidateAfterCommit();
+    }
+
+    @Test
+    @DisplayName("Debe pasar al saldo del journal el producto con el stock ya reservado")
+    void debeRefrescarSaldoDelJournal() {
+        // Arrange
+        MovimientoJournal journal = mock(MovimientoJournal.class);
+        doAnswer(invocation -> {
+            invocation.<Consumer<MovimientoJournal>>getArgument(0).accept(journal);
+            return null;
+        }).when(movimientoJournal).ifAvailable(any());
+        when(productoRepository.reservarStock(1L, 10)).thenReturn(1);
+        when(productoRepository.findById(1L)).thenReturn(Optional.of(producto));
+        when(reservaStockRepository.save(any(ReservaStock.class))).thenAnswer(invocation -> {
+            ReservaStock reserva = invocation.getArgument(0);
+            reserva.setId(7L);
+            return reserva;
+        });
+
+        // Act
+        reservaStockService.reservar(request(10, null));
+
+        // Assert
+        verify(journal).refrescarSaldoAfterCommit(producto);
+    }
+
+    @Test
+    @DisplayName("Debe rechazar la reserva si el stock disponible no alcanza")
+    void debeRechazarSinDisponible() {
+        producto.setStockReservado(95);
+        when(productoRepository.reservarStock(1L, 10)).thenReturn(0);
+        when(productoRepository.findById(1L)).thenReturn(Optional.of(producto));
+
+        assertThatThrownBy(() -> reservaStockService.reservar(request(10, null)))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("Disponible: 5");
+        verify(reservaStockRepository, never()).save(any());
+    }
+
+    @Test
+    @DisplayName("Debe rechazar un TTL mayor al máximo configurado")
+    void debeRechazarTtlExcesivo() {
+        assertThatThrownBy(() -> reservaStockService.reservar(request(10, 7200)))
+                .isInstanceOf(IllegalArgumentException.class);
+        verify(productoRepository, never()).reservarStock(anyLong(), anyInt());
+    }
+
+    @Test
+    @DisplayName("Debe confirmar la reserva como un movimiento SALIDA")
+    void debeConfirmarComoSalida() {
+        // Arrange
+        ReservaStock reserva = reserva(ReservaStock.EstadoReserva.ACTIVA, LocalDateTime.now().plusMinutes(5));
+        when(reservaStockRepository.findById(7L)).thenReturn(Optional.of(reserva));
+        when(reservaStockRepository.confirmarVigente(eq(7L), any(LocalDateTime.class))).thenReturn(1);
+        when(productoRepository.confirmarStockReservado(1L, 10)).thenReturn(1);
+        when(movimientoStockRepository.save(any(MovimientoStock.class))).thenAnswer(invocation -> {
+            MovimientoStock movimiento = invocation.getArgument(0);
+            movimiento.setId(99L);
+            return movimiento;
+        });
+        when(productoRepository.findById(1L)).thenReturn(Optional.of(producto));
+
+        // Act
+        ReservaResponse response = reservaStockService.confirmar(7L, 5L);
+
+        // Assert
+        assertThat(response.getMovimientoId()).isEqualTo(99L);
+        ArgumentCaptor<MovimientoStock> captor = ArgumentCaptor.forClass(MovimientoStock.class);
+        verify(movimientoStockRepository).save(captor.capture());
+        assertThat(captor.getValue().getTipo()).isEqualTo(MovimientoStock.TipoMovimiento.SALIDA);
+        assertThat(captor.getValue().getCantidad()).isEqualTo(10);
+        assertThat(captor.getValue().getUsuarioId()).isEqualTo(5L);
+        verify(movimientoResumenService).acumular(List.of(captor.getValue()));
+    }
+
+    @Test
+    @DisplayName("Debe rechazar la confirmación de una reserva vencida")
+    void debeRechazarConfirmacionVencida() {
+        ReservaStock reserva = reserva(ReservaStock.EstadoReserva.ACTIVA, LocalDateTime.now().minusSeconds(1));
+        when(reservaStockRepository.findById(7L)).thenReturn(Optional.of(reserva));
+        when(reservaStockRepository.confirmarVigente(eq(7L), any(LocalDateTime.class))).thenReturn(0);
+
+        assertThatThrownBy(() -> reservaStockService.confirmar(7L, 5L))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("vencida");
+        verify(productoRepository, never()).confirmarStockReservado(anyLong(), anyInt());
+        verify(movimientoStockRepository, never()).save(any());
+    }
+
+    @Test
+    @DisplayName("Debe devolver el stock reservado al liberar")
+    void debeLiberarReserva() {
+        ReservaStock reserva = reserva(ReservaStock.EstadoReserva.ACTIVA, LocalDateTime.now().plusMinutes(5));
+        when(reservaStockRepository.findById(7L)).thenReturn(Optional.of(reserva));
+        when(reservaStockRepository.cerrarActiva(eq(7L), eq(ReservaStock.EstadoReserva.LIBERADA), any(LocalDateTime.class)))
+                .thenReturn(1);
+        when(productoRepository.liberarStockReservado(1L, 10)).thenReturn(1);
+        when(productoRepository.findById(1L)).thenReturn(Optional.of(producto));
+
+        reservaStockService.liberar(7L);
+
+        verify(productoRepository).liberarStockReservado(1L, 10);
+        verify(productoCache).putAfterCommit(producto);
+    }
+
+    @Test
+    @DisplayName("Debe rechazar liberar una reserva ya confirmada")
+    void debeRechazarLiberarConfirmada() {
+        ReservaStock reserva = reserva(ReservaStock.EstadoReserva.CONFIRMADA, LocalDateTime.now().plusMinutes(5));
+        when(reservaStockRepository.findById(7L)).thenReturn(Optional.of(reserva));
+        when(reservaStockRepository.cerrarActiva(eq(7L), eq(ReservaStock.EstadoReserva.LIBERADA), any(LocalDateTime.class)))
+                .thenReturn(0);
+
+        assertThatThrownBy(() -> reservaStockService.liberar(7L))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("CONFIRMADA");
+        verify(productoRepository, never()).liberarStockReservado(anyLong(), anyInt());
+    }
+
+    @Test
+    @DisplayName("Debe expirar en la rueda las reservas activas cargadas al iniciar")
+    void debeExpirarReservasActivas() {
+        // Arrange
+        ReservaStock reserva = reserva(ReservaStock.EstadoReserva.ACTIVA, LocalDateTime.now().plusNanos(50_000_000));
+        when(reservaStockRepository.findByEstado(ReservaStock.EstadoReserva.ACTIVA)).thenReturn(List.of(reserva));
+        when(reservaStockRepository.expirarVencida(eq(7L), any(LocalDateTime.class))).thenReturn(1);
+        when(reservaStockRepository.findById(7L)).thenReturn(Optional.of(reserva));
+        when(productoRepository.liberarStockReservado(1L, 10)).thenReturn(1);
+        when(productoRepository.findById(1L)).thenReturn(Optional.of(producto));
+
+        // Act
+        reservaStockService.programarActivas();
+
+        // Assert: la invalidación del listado es lo último que hace la expiración
+        verify(productoListadoCache, timeout(2000)).invalidateAfterCommit();
+        verify(productoRepository).liberarStockReservado(1L, 10);
+    }
+
+    @Test
+    @DisplayName("No debe devolver stock si la reserva ya se cerró antes de vencer")
+    void noDebeExpirarReservaCerrada() {
+        when(reservaStockRepository.expirarVencida(eq(7L), any(LocalDateTime.class))).thenReturn(0);
+
+        reservaStockService.expirar(7L);
+
+        verify(productoRepository, never()).liberarStockReservado(anyLong(), anyInt());
+    }
+
+    @Test
+    @DisplayName("Debe reprogramar con el vencimiento guardado si la rueda dispara antes de expira_en")
+    void debeReprogramarSiSigueActiva() {
+        // Arrange: el primer intento no encuentra la reserva vencida (expira_en guardado más tarde)
+        ReservaStock reserva = reserva(ReservaStock.EstadoReserva.ACTIVA, LocalDateTime.now().plusNanos(50_000_000));
+        when(reservaStockRepository.expirarVencida(eq(7L), any(LocalDateTime.class))).thenReturn(0, 1);
+        when(reservaStockRepository.findById(7L)).thenReturn(Optional.of(reserva));
+        when(productoRepository.liberarStockReservado(1L, 10)).thenReturn(1);
+        when(productoRepository.findById(1L)).thenReturn(Optional.of(producto));
+
+        // Act
+        reservaStockService.expirar(7L);
+
+        // Assert
+        verify(productoRepository, timeout(2000)).liberarStockReservado(1L, 10);
+        verify(reservaStockRepository, times(2)).expirarVencida(eq(7L), any(LocalDateTime.class));
+    }
+
+    private ReservaRequest request(int cantidad, Integer ttlSegundos) {
+        ReservaRequest request = new ReservaRequest();
+        request.setProductoId(1L);
+        request.setCantidad(cantidad);
+        request.setTtlSegundos(ttlSegundos);
+        return request;
+    }
+
+    private ReservaStock reserva(ReservaStock.EstadoReserva estado, LocalDateTime expiraEn) {
+        ReservaStock reserva = new ReservaStock();
+        reserva.setId(7L);
+        reserva.setProductoId(1L);
+        reserva.setCantidad(10);
+        reserva.setEstado(estado);
+        reserva.setExpiraEn(expiraEn);
+        return reserva;
+    }
+}
@@ -0,0 +1,121 @@
+package com.inventario.service;
+
+import com.inventario.dto.StockHistoricoResponse;
+import com.inventario.exception.ResourceNotFoundException;
+import com.inventario.model.Producto;
+import com.inventario.model.StockSnapshot;
+import com.inventario.repository.MovimientoStockRepository;
+import com.inventario.repository.ProductoRepository;
+import com.inventario.repository.StockSnapshotRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("StockSnapshotService - Stock histórico por producto")
+class StockSnapshotServiceTest {
+
+    @Mock
+    private StockSnapshotRepository stockSnapshotRepository;
+
+    @Mock
+    private MovimientoStockRepository movimientoStockRepository;
+
+    @Mock
+    private ProductoRepository productoRepository;
+
+    @Mock
+    private MovimientoArchivoService movimientoArchivoService;
+
+    @InjectMocks
+    private StockSnapshotService stockSnapshotService;
+
+    private Producto producto;
+    private final LocalDateTime fecha = LocalDateTime.of(2025, 6, 1, 12, 30);
+
+    @BeforeEach
+    void setUp() {
+        producto = new Producto();
+        producto.setId(1L);
+        producto.setStock(80);
+        producto.setFechaRegistro(LocalDateTime.of(2025, 1, 1, 0, 0));
+    }
+
+    @Test
+    @DisplayName("Debe partir del último snapshot y sumar los movimientos posteriores")
+    void debeUsarSnapshotMasDelta() {
+        StockSnapshot snapshot = new StockSnapshot();
+        snapshot.setProductoId(1L);
+        snapshot.setFecha(LocalDateTime.of(2025, 6, 1, 12, 0));
+        snapshot.setStock(100);
+        when(productoRepository.findById(1L)).thenReturn(Optional.of(producto));
+        when(stockSnapshotRepository.findFirstByProductoIdAndFechaLessThanEqualOrderByFechaDesc(1L, fecha))
+            .thenReturn(Optional.of(snapshot));
+        when(movimientoStockRepository.sumDelta(1L, snapshot.getFecha(), fecha)).thenReturn(-15L);
+
+        StockHistoricoResponse response = stockSnapshotService.getStockEn(1L, fecha);
+
+        assertThat(response.getStock()).isEqualTo(85);
+        assertThat(response.getSnapshotFecha()).isEqualTo(snapshot.getFecha());
+    }
+
+    @Test
+    @DisplayName("Sin snapshot previo debe calcular hacia atrás desde el stock actual")
+    void debeCalcularDesdeStockActualSinSnapshot() {
+        when(productoRepository.findById(1L)).thenReturn(Optional.of(producto));
+        when(stockSnapshotRepository.findFirstByProductoIdAndFechaLessThanEqualOrderByFechaDesc(1L, fecha))
+            .thenReturn(Optional.empty());
+        when(movimientoStockRepository.sumDelta(1L, fecha, null)).thenReturn(30L);
+
+        StockHistoricoResponse response = stockSnapshotService.getStockEn(1L, fecha);
+
+        assertThat(response.getStock()).isEqualTo(50);
+        assertThat(response.getSnapshotFecha()).isNull();
+    }
+
+    @Test
+    @DisplayName("Debe rechazar fechas anteriores al registro del producto")
+    void debeRechazarFechaAnteriorAlRegistro() {
+        when(productoRepository.findById(1L)).thenReturn(Optional.of(producto));
+
+        assertThatThrownBy(() -> stockSnapshotService.getStockEn(1L, LocalDateTime.of(2024, 12, 31, 0, 0)))
+            .isInstanceOf(IllegalArgumentException.class);
+        verify(stockSnapshotRepository, never()).findFirstByProductoIdAndFechaLessThanEqualOrderByFechaDesc(any(), any());
+    }
+
+    @Test
+    @DisplayName("Debe lanzar ResourceNotFoundException si el producto no existe")
+    void debeFallarSiProductoNoExiste() {
+        when(productoRepository.findById(99L)).thenReturn(Optional.empty());
+
+        assertThatThrownBy(() -> stockSnapshotService.getStockEn(99L, fecha))
+            .isInstanceOf(ResourceNotFoundException.class);
+    }
+
+    @Test
+    @DisplayName("Debe purgar los snapshots anteriores a la retención")
+    void debePurgarSnapshotsAnterioresALaRetencion() {
+        ReflectionTestUtils.setField(stockSnapshotService, "retencionDias", 90);
+        LocalDateTime limite = LocalDateTime.now().truncatedTo(ChronoUnit.DAYS).minusDays(90);
+
+        stockSnapshotService.purgarAnteriores();
+
+        verify(stockSnapshotRepository).deleteAnteriores(limite);
+    }
+}
@@ -0,0 +1,97 @@
+package com.inventario.service;
+
+import com.inventario.model.TokenRevocado;
+import com.inventario.repository.TokenRevocadoRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("TokenRevocationService - Revocación de JWT con filtro de Bloom")
+class TokenRevocationServiceTest {
+
+    @Mock
+    private TokenRevocadoRepository tokenRevocadoRepository;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private TokenRevocationService tokenRevocationService;
+
+    @BeforeEach
+    void setUp() {
+        tokenRevocationService = new TokenRevocationService(tokenRevocadoRepository,
+                new TransactionTemplate(mock(PlatformTransactionManager.class)), meterRegistry, 1000, 0.001);
+    }
+
+    @Test
+    @DisplayName("No debe consultar la base para tokens que el filtro descarta")
+    void noDebeConsultarBaseSinCoincidencia() {
+        assertThat(tokenRevocationService.estaRevocado("jti-no-revocado")).isFalse();
+        assertThat(tokenRevocationService.estaRevocado(null)).isFalse();
+
+        verify(tokenRevocadoRepository, never()).existsById(anyString());
+    }
+
+    @Test
+    @DisplayName("Debe guardar el token revocado y confirmarlo en la base ante una coincidencia")
+    void debeRevocarYConfirmarEnBase() {
+        Instant expiresAt = Instant.now().plusSeconds(600);
+        when(tokenRevocadoRepository.existsById("jti-1")).thenReturn(true);
+
+        tokenRevocationService.revocar("jti-1", expiresAt);
+
+        assertThat(tokenRevocationService.estaRevocado("jti-1")).isTrue();
+        ArgumentCaptor<TokenRevocado> captor = ArgumentCaptor.forClass(TokenRevocado.class);
+        verify(tokenRevocadoRepository).save(captor.capture());
+        assertThat(captor.getValue().getJti()).isEqualTo("jti-1");
+        assertThat(meterRegistry.get("jwt.revocacion.consultas").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Debe incorporar los tokens revocados por otras instancias sin esperar la reconstrucción")
+    void debeIncorporarRevocacionesDeOtrasInstancias() {
+        when(tokenRevocadoRepository.findJtiVigentes(any())).thenReturn(List.of());
+        tokenRevocationService.reconstruir();
+        when(tokenRevocadoRepository.findJtiRevocadosDesde(any(), any())).thenReturn(List.of("jti-remoto"));
+        when(tokenRevocadoRepository.existsById("jti-remoto")).thenReturn(true);
+
+        tokenRevocationService.actualizar();
+
+        assertThat(tokenRevocationService.estaRevocado("jti-remoto")).isTrue();
+    }
+
+    @Test
+    @DisplayName("Debe reconstruir el filtro solo con los revocados vigentes")
+    void debeReconstruirConVigentes() {
+        when(tokenRevocadoRepository.deleteVencidos(any())).thenReturn(3);
+        when(tokenRevocadoRepository.findJtiVigentes(any())).thenReturn(List.of("jti-vigente"));
+        when(tokenRevocadoRepository.existsById("jti-vigente")).thenReturn(true);
+        tokenRevocationService.revocar("jti-vencido", Instant.now().plusSeconds(1));
+
+        tokenRevocationService.reconstruir();
+
+        assertThat(tokenRevocationService.estaRevocado("jti-vigente")).isTrue();
+        // El vencido ya no está en el filtro nuevo: se descarta sin consultar la base
+        assertThat(tokenRevocationService.estaRevocado("jti-vencido")).isFalse();
+        verify(tokenRevocadoRepository, never()).existsById("jti-vencido");
+        assertThat(meterRegistry.get("jwt.revocacion.vigentes").gauge().value()).isEqualTo(1);
+    }
+}
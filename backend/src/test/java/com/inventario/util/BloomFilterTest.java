@@ -0,0 +1,60 @@
+package com.inventario.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tests unitarios para BloomFilter - Sin falsos negativos y tasa de falsos positivos acotada
+ */
+class BloomFilterTest {
+
+    @Test
+    @DisplayName("Debe encontrar siempre los valores agregados")
+    void noDebeTenerFalsosNegativos() {
+        BloomFilter filtro = BloomFilter.crear(10_000, 0.01);
+        String[] valores = new String[10_000];
+        for (int i = 0; i < valores.length; i++) {
+            valores[i] = UUID.randomUUID().toString();
+            filtro.put(valores[i]);
+        }
+
+        for (String valor : valores) {
+            assertThat(filtro.mightContain(valor)).isTrue();
+        }
+    }
+
+    @Test
+    @DisplayName("Debe mantener los falsos positivos cerca de la tasa configurada")
+    void debeAcotarFalsosPositivos() {
+        BloomFilter filtro = BloomFilter.crear(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filtro.put(UUID.randomUUID().toString());
+        }
+
+        int falsosPositivos = 0;
+        for (int i = 0; i < 100_000; i++) {
+            if (filtro.mightContain(UUID.randomUUID().toString())) {
+                falsosPositivos++;
+            }
+        }
+
+        // 1% esperado; margen amplio para que el test no sea inestable
+        assertThat(falsosPositivos).isLessThan(2_000);
+    }
+
+    @Test
+    @DisplayName("Debe dimensionar bits y funciones de hash según los parámetros")
+    void debeDimensionar() {
+        BloomFilter filtro = BloomFilter.crear(100_000, 0.001);
+
+        // ~14.4 bits por elemento y 10 funciones de hash para p = 0.1%
+        assertThat(filtro.numBits()).isBetween(1_400_000L, 1_450_000L);
+        assertThat(filtro.numHashes()).isEqualTo(10);
+        assertThatThrownBy(() -> BloomFilter.crear(0, 0.01)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
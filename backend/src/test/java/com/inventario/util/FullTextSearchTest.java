@@ -0,0 +1,32 @@
+package com.inventario.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests unitarios para FullTextSearch - Construcción segura de consultas BOOLEAN MODE
+ */
+class FullTextSearchTest {
+
+    @Test
+    @DisplayName("Debe exigir todos los términos de la búsqueda")
+    void shouldRequireEveryTerm() {
+        assertEquals("+laptop +hp", FullTextSearch.toBooleanQuery("  laptop   hp "));
+    }
+
+    @Test
+    @DisplayName("Debe eliminar operadores BOOLEAN MODE escritos por el usuario")
+    void shouldStripBooleanOperators() {
+        assertEquals("+laptop +hp", FullTextSearch.toBooleanQuery("-laptop* (\"hp\")~"));
+    }
+
+    @Test
+    @DisplayName("Debe retornar null si no quedan términos indexables")
+    void shouldReturnNullWithoutIndexableTerms() {
+        assertNull(FullTextSearch.toBooleanQuery("a"));
+        assertNull(FullTextSearch.toBooleanQuery("+ - *"));
+        assertNull(FullTextSearch.toBooleanQuery(null));
+    }
+}
@@ -0,0 +1,78 @@
+package com.inventario.util;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tests unitarios para HashedTimingWheel - Vencimientos por tick
+ */
+class HashedTimingWheelTest {
+
+    private HashedTimingWheel wheel;
+
+    @AfterEach
+    void tearDown() {
+        if (wheel != null) {
+            wheel.close();
+        }
+    }
+
+    @Test
+    @DisplayName("Debe ejecutar la tarea al vencer, incluso si el delay supera una vuelta de la rueda")
+    void debeEjecutarAlVencer() throws InterruptedException {
+        wheel = new HashedTimingWheel("test-wheel", Duration.ofMillis(10), 8, Runnable::run);
+        CountDownLatch latch = new CountDownLatch(1);
+        long inicio = System.nanoTime();
+
+        wheel.schedule(latch::countDown, Duration.ofMillis(200));
+
+        assertThat(latch.await(2, TimeUnit.SECONDS)).isTrue();
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - inicio)).isGreaterThanOrEqualTo(200);
+        assertThat(wheel.pendientes()).isZero();
+    }
+
+    @Test
+    @DisplayName("Debe ejecutar en el próximo tick un vencimiento ya pasado")
+    void debeEjecutarVencimientoPasado() throws InterruptedException {
+        wheel = new HashedTimingWheel("test-wheel", Duration.ofMillis(10), 8, Runnable::run);
+        CountDownLatch latch = new CountDownLatch(1);
+
+        HashedTimingWheel.Timeout timeout = wheel.schedule(latch::countDown, Duration.ofMillis(-50));
+
+        assertThat(latch.await(1, TimeUnit.SECONDS)).isTrue();
+        assertThat(timeout.isExpired()).isTrue();
+        assertThat(timeout.cancel()).isFalse();
+    }
+
+    @Test
+    @DisplayName("No debe ejecutar una tarea cancelada")
+    void noDebeEjecutarCancelada() throws InterruptedException {
+        wheel = new HashedTimingWheel("test-wheel", Duration.ofMillis(10), 8, Runnable::run);
+        AtomicInteger ejecutadas = new AtomicInteger();
+        CountDownLatch control = new CountDownLatch(1);
+
+        HashedTimingWheel.Timeout cancelada = wheel.schedule(ejecutadas::incrementAndGet, Duration.ofMillis(50));
+        wheel.schedule(control::countDown, Duration.ofMillis(100));
+
+        assertThat(cancelada.cancel()).isTrue();
+        assertThat(control.await(1, TimeUnit.SECONDS)).isTrue();
+        assertThat(ejecutadas).hasValue(0);
+        assertThat(wheel.pendientes()).isZero();
+    }
+
+    @Test
+    @DisplayName("Debe rechazar un tamaño de rueda que no sea potencia de 2")
+    void debeRechazarTamanoInvalido() {
+        assertThatThrownBy(() -> new HashedTimingWheel("test-wheel", Duration.ofMillis(10), 6, Runnable::run))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,145 @@
+package com.inventario.util;
+
+import com.inventario.model.MovimientoStock;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests unitarios para JournalMovimientos - Registro, recuperación y checkpoint
+ */
+class JournalMovimientosTest {
+
+    private static final int SEGMENT_SIZE = 4096;
+
+    @TempDir
+    Path directorio;
+
+    @Test
+    @DisplayName("Debe leer los registros en orden y continuar la secuencia al reabrir")
+    void debeLeerYRecuperar() throws IOException {
+        try (JournalMovimientos journal = abrir()) {
+            journal.append(1L, MovimientoStock.TipoMovimiento.ENTRADA, 10, 1000L, null);
+            journal.append(2L, MovimientoStock.TipoMovimiento.SALIDA, 3, 2000L, "scan-1");
+
+            List<JournalMovimientos.Entrada> entradas = journal.leerSiguientes(10);
+
+            assertThat(entradas).extracting(JournalMovimientos.Entrada::secuencia).containsExactly(1L, 2L);
+            assertThat(entradas.get(0).clave()).isEqualTo("j:" + journal.getId() + ":1");
+            assertThat(entradas.get(1).delta()).isEqualTo(-3);
+            assertThat(entradas.get(1).clave()).isEqualTo("scan-1");
+            assertThat(journal.leerSiguientes(10)).isEmpty();
+        }
+
+        try (JournalMovimientos journal = abrir()) {
+            // Sin checkpoint todo sigue pendiente
+            assertThat(journal.leerSiguientes(10)).hasSize(2);
+            assertThat(journal.append(1L, MovimientoStock.TipoMovimiento.ENTRADA, 1, 3000L, null).secuencia())
+                    .isEqualTo(3L);
+        }
+    }
+
+    @Test
+    @DisplayName("Debe conservar el usuario de cada registro, opcional en el formato")
+    void debeConservarUsuario() throws IOException {
+        try (JournalMovimientos journal = abrir()) {
+            journal.append(1L, MovimientoStock.TipoMovimiento.ENTRADA, 10, 1000L, "con-usuario", 5L);
+            journal.append(1L, MovimientoStock.TipoMovimiento.SALIDA, 2, 2000L, "sin-usuario", null);
+        }
+
+        try (JournalMovimientos journal = abrir()) {
+            List<JournalMovimientos.Entrada> entradas = journal.leerSiguientes(10);
+
+            assertThat(entradas).extracting(JournalMovimientos.Entrada::usuarioId).containsExactly(5L, null);
+            assertThat(entradas).extracting(JournalMovimientos.Entrada::clave).containsExactly("con-usuario", "sin-usuario");
+        }
+    }
+
+    @Test
+    @DisplayName("Debe omitir al reabrir los registros ya confirmados con checkpoint")
+    void debeRespetarCheckpoint() throws IOException {
+        try (JournalMovimientos journal = abrir()) {
+            for (int i = 0; i < 5; i++) {
+                journal.append(1L, MovimientoStock.TipoMovimiento.ENTRADA, 1, 1000L, null);
+            }
+            journal.leerSiguientes(3);
+            journal.confirmarHasta(3);
+        }
+
+        try (JournalMovimientos journal = abrir()) {
+            List<Long> pendientes = new ArrayList<>();
+            journal.recorrerPendientes(entrada -> pendientes.add(entrada.secuencia()));
+
+            assertThat(journal.getCheckpoint()).isEqualTo(3L);
+            assertThat(pendientes).containsExactly(4L, 5L);
+            assertThat(journal.leerSiguientes(10)).extracting(JournalMovimientos.Entrada::secuencia)
+                    .containsExactly(4L, 5L);
+        }
+    }
+
+    @Test
+    @DisplayName("Debe descartar un registro escrito a medias al final del segmento")
+    void debeDescartarRegistroIncompleto() throws IOException {
+        try (JournalMovimientos journal = abrir()) {
+            journal.append(1L, MovimientoStock.TipoMovimiento.ENTRADA, 10, 1000L, null);
+            journal.append(1L, MovimientoStock.TipoMovimiento.ENTRADA, 20, 1000L, null);
+        }
+        // Se corrompe el último byte del segundo registro
+        Path segmento = segmentos().get(0);
+        try (FileChannel channel = FileChannel.open(segmento, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer buffer = ByteBuffer.allocate(4);
+            channel.read(buffer, 0);
+            int largo = buffer.flip().getInt();
+            int finSegundo = 2 * (8 + largo);
+            channel.write(ByteBuffer.wrap(new byte[]{(byte) 0xFF}), finSegundo - 1);
+        }
+
+        try (JournalMovimientos journal = abrir()) {
+            assertThat(journal.leerSiguientes(10)).extracting(JournalMovimientos.Entrada::cantidad)
+                    .containsExactly(10);
+            // El registro descartado se sobrescribe con la misma secuencia
+            assertThat(journal.append(1L, MovimientoStock.TipoMovimiento.ENTRADA, 30, 1000L, null).secuencia())
+                    .isEqualTo(2L);
+        }
+    }
+
+    @Test
+    @DisplayName("Debe pasar a un segmento nuevo al llenarse y eliminar los ya aplicados")
+    void debeRotarYEliminarSegmentos() throws IOException {
+        try (JournalMovimientos journal = abrir()) {
+            int total = 0;
+            while (segmentos().size() < 3) {
+                journal.append(1L, MovimientoStock.TipoMovimiento.ENTRADA, 1, 1000L, null);
+                total++;
+            }
+
+            List<JournalMovimientos.Entrada> entradas = journal.leerSiguientes(total);
+            assertThat(entradas).hasSize(total);
+            journal.confirmarHasta(entradas.get(total - 1).secuencia());
+
+            assertThat(segmentos()).hasSize(1);
+        }
+    }
+
+    private JournalMovimientos abrir() throws IOException {
+        return new JournalMovimientos(directorio, SEGMENT_SIZE, JournalMovimientos.Fsync.NEVER);
+    }
+
+    private List<Path> segmentos() throws IOException {
+        try (Stream<Path> stream = Files.list(directorio)) {
+            return stream.filter(path -> path.getFileName().toString().endsWith(".log")).sorted().toList();
+        }
+    }
+}
@@ -1,9 +1,13 @@
 package com.inventario.util;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 
+import java.time.Instant;
+import java.util.Optional;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 /**
@@ -15,10 +19,11 @@ class JwtUtilTest {
     private JwtUtil jwtUtil;
     private static final String TEST_SECRET = "test-secret-key-that-is-long-enough-for-256-bits-encryption";
     private static final long TEST_EXPIRATION = 3600000L; // 1 hora
+    private static final long TEST_CACHE_SIZE = 100L;
 
     @BeforeEach
     void setUp() {
-        jwtUtil = new JwtUtil(TEST_SECRET, TEST_EXPIRATION);
+        jwtUtil = nuevoJwtUtil(TEST_SECRET, TEST_EXPIRATION);
     }
 
     @Test
@@ -29,7 +34,7 @@ class JwtUtilTest {
         String role = "ADMIN";
 
         // When
-        String token = jwtUtil.generateToken(username, role);
+        String token = jwtUtil.generateToken(username, role, 1L);
 
         // Then
         assertNotNull(token);
@@ -43,11 +48,11 @@ class JwtUtilTest {
     @DisplayName("Debe rechazar token con firma inválida")
     void shouldRejectTokenWithInvalidSignature() {
         // Given
-        JwtUtil differentSecretUtil = new JwtUtil(
+        JwtUtil differentSecretUtil = nuevoJwtUtil(
             "different-secret-key-that-is-also-long-enough-for-256-bits", 
             TEST_EXPIRATION
         );
-        String token = differentSecretUtil.generateToken("user", "USER");
+        String token = differentSecretUtil.generateToken("user", "USER", 1L);
 
         // When/Then
         assertFalse(jwtUtil.validateToken(token));
@@ -57,8 +62,8 @@ class JwtUtilTest {
     @DisplayName("Debe rechazar token expirado")
     void shouldRejectExpiredToken() throws InterruptedException {
         // Given - Token con expiración de 1 segundo
-        JwtUtil shortLivedUtil = new JwtUtil(TEST_SECRET, 1000L);
-        String token = shortLivedUtil.generateToken("user", "USER");
+        JwtUtil shortLivedUtil = nuevoJwtUtil(TEST_SECRET, 1000L);
+        String token = shortLivedUtil.generateToken("user", "USER", 1L);
 
         // When - Esperar a que expire
         Thread.sleep(1500);
@@ -81,9 +86,81 @@ class JwtUtilTest {
         // When/Then
         IllegalArgumentException exception = assertThrows(
             IllegalArgumentException.class,
-            () -> new JwtUtil("tooshort", TEST_EXPIRATION)
+            () -> nuevoJwtUtil("tooshort", TEST_EXPIRATION)
         );
         
         assertTrue(exception.getMessage().contains("256 bits"));
     }
+
+    @Test
+    @DisplayName("Debe verificar el token una sola vez y devolver el principal con sus claims")
+    void shouldVerifyTokenIntoPrincipal() {
+        // Given
+        String token = jwtUtil.generateToken("admin", "ADMIN", 1L);
+
+        // When
+        Optional<JwtPrincipal> principal = jwtUtil.verifyToken(token);
+
+        // Then
+        assertTrue(principal.isPresent());
+        assertEquals("admin", principal.get().getName());
+        assertEquals("ADMIN", principal.get().role());
+        assertTrue(principal.get().expiresAt().isAfter(Instant.now()));
+        assertNotNull(principal.get().jti());
+        // El segundo llamado se resuelve desde la caché con el mismo principal
+        assertSame(principal.get(), jwtUtil.verifyToken(token).orElseThrow());
+    }
+
+    @Test
+    @DisplayName("Debe rechazar desde la caché un token que ya expiró")
+    void shouldRejectCachedTokenAfterExpiration() throws InterruptedException {
+        // Given - Token verificado (y cacheado) antes de expirar
+        JwtUtil shortLivedUtil = nuevoJwtUtil(TEST_SECRET, 1000L);
+        String token = shortLivedUtil.generateToken("user", "USER", 1L);
+        assertTrue(shortLivedUtil.verifyToken(token).isPresent());
+
+        // When - Esperar a que expire
+        Thread.sleep(1500);
+
+        // Then
+        assertTrue(shortLivedUtil.verifyToken(token).isEmpty());
+    }
+
+    @Test
+    @DisplayName("No debe cachear tokens con firma inválida")
+    void shouldNotCacheInvalidTokens() {
+        // Given
+        String token = jwtUtil.generateToken("user", "USER", 1L);
+        String tampered = token.substring(0, token.length() - 2) + (token.endsWith("AA") ? "BB" : "AA");
+
+        // When/Then
+        assertTrue(jwtUtil.verifyToken(tampered).isEmpty());
+        assertTrue(jwtUtil.verifyToken(tampered).isEmpty());
+        assertTrue(jwtUtil.verifyToken(token).isPresent());
+    }
+
+    @Test
+    @DisplayName("Debe incluir el ID del usuario en el token")
+    void shouldIncludeUserId() {
+        // When
+        JwtPrincipal principal = jwtUtil.verifyToken(jwtUtil.generateToken("admin", "ADMIN", 42L)).orElseThrow();
+        JwtPrincipal sinId = jwtUtil.verifyToken(jwtUtil.generateToken("user", "USER", null)).orElseThrow();
+
+        // Then
+        assertEquals(42L, principal.userId());
+        assertNull(sinId.userId());
+    }
+
+    @Test
+    @DisplayName("Debe asignar un jti distinto a cada token")
+    void shouldAssignUniqueJti() {
+        String jti1 = jwtUtil.verifyToken(jwtUtil.generateToken("admin", "ADMIN", 1L)).orElseThrow().jti();
+        String jti2 = jwtUtil.verifyToken(jwtUtil.generateToken("admin", "ADMIN", 1L)).orElseThrow().jti();
+
+        assertNotEquals(jti1, jti2);
+    }
+
+    private static JwtUtil nuevoJwtUtil(String secret, long expiration) {
+        return new JwtUtil(secret, expiration, TEST_CACHE_SIZE, new SimpleMeterRegistry());
+    }
 }
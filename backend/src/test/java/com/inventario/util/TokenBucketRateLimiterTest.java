@@ -0,0 +1,108 @@
+package com.inventario.util;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tests unitarios para TokenBucketRateLimiter - Ráfaga, reposición y concurrencia
+ */
+class TokenBucketRateLimiterTest {
+
+    private final AtomicLong reloj = new AtomicLong(1_000_000_000L);
+
+    private final TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(
+            1000, Duration.ofMinutes(1), new SimpleMeterRegistry(), "test-buckets", reloj::get);
+
+    // 5 requests de ráfaga, uno nuevo cada 2 segundos
+    private final TokenBucketRateLimiter.Limite limite = TokenBucketRateLimiter.Limite.parse("5/10");
+
+    @Test
+    @DisplayName("Debe admitir la ráfaga completa y rechazar el siguiente request")
+    void debeAdmitirRafagaYRechazar() {
+        for (int i = 4; i >= 0; i--) {
+            TokenBucketRateLimiter.Resultado resultado = limiter.intentar("cliente", limite);
+            assertThat(resultado.permitido()).isTrue();
+            assertThat(resultado.restantes()).isEqualTo(i);
+        }
+
+        TokenBucketRateLimiter.Resultado rechazado = limiter.intentar("cliente", limite);
+
+        assertThat(rechazado.permitido()).isFalse();
+        assertThat(rechazado.restantes()).isZero();
+        assertThat(rechazado.reintentarNanos()).isEqualTo(TimeUnit.SECONDS.toNanos(2));
+        assertThat(rechazado.resetNanos()).isEqualTo(TimeUnit.SECONDS.toNanos(10));
+    }
+
+    @Test
+    @DisplayName("Debe reponer los tokens en proporción al tiempo transcurrido")
+    void debeReponerConElTiempo() {
+        for (int i = 0; i < 5; i++) {
+            limiter.intentar("cliente", limite);
+        }
+
+        reloj.addAndGet(TimeUnit.SECONDS.toNanos(4));
+
+        assertThat(limiter.intentar("cliente", limite).permitido()).isTrue();
+        assertThat(limiter.intentar("cliente", limite).permitido()).isTrue();
+        assertThat(limiter.intentar("cliente", limite).permitido()).isFalse();
+    }
+
+    @Test
+    @DisplayName("Debe llevar un bucket independiente por clave")
+    void debeSepararPorClave() {
+        for (int i = 0; i < 5; i++) {
+            limiter.intentar("a", limite);
+        }
+
+        assertThat(limiter.intentar("a", limite).permitido()).isFalse();
+        assertThat(limiter.intentar("b", limite).permitido()).isTrue();
+    }
+
+    @Test
+    @DisplayName("No debe admitir más que la capacidad con requests concurrentes")
+    void noDebeExcederCapacidadConConcurrencia() throws InterruptedException {
+        TokenBucketRateLimiter.Limite grande = TokenBucketRateLimiter.Limite.parse("100/3600");
+        AtomicInteger permitidos = new AtomicInteger();
+        CountDownLatch inicio = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+
+        for (int i = 0; i < 1000; i++) {
+            executor.execute(() -> {
+                try {
+                    inicio.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                if (limiter.intentar("compartida", grande).permitido()) {
+                    permitidos.incrementAndGet();
+                }
+            });
+        }
+        inicio.countDown();
+        executor.shutdown();
+
+        assertThat(executor.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+        assertThat(permitidos).hasValue(100);
+    }
+
+    @Test
+    @DisplayName("Debe rechazar límites mal formados")
+    void debeRechazarLimiteInvalido() {
+        assertThatThrownBy(() -> TokenBucketRateLimiter.Limite.parse("10"))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> TokenBucketRateLimiter.Limite.parse("0/60"))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
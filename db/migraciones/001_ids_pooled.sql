@@ -0,0 +1,23 @@
+-- Migración de una base existente a IDs por bloques (Producto y MovimientoStock)
+-- Hibernate lee next_val y lo incrementa en 50; con un valor distinto de 1 asigna el bloque
+-- (next_val - 49 .. next_val), por eso se inicializa en MAX(id) + 50.
+-- Ejecutar con la aplicación detenida: mysql -u root -p inventario_db < db/migraciones/001_ids_pooled.sql
+
+CREATE TABLE IF NOT EXISTS productos_seq (
+    next_val BIGINT NOT NULL
+) ENGINE=InnoDB;
+DELETE FROM productos_seq;
+INSERT INTO productos_seq SELECT COALESCE(MAX(id), 0) + 50 FROM productos;
+
+CREATE TABLE IF NOT EXISTS movimientos_stock_seq (
+    next_val BIGINT NOT NULL
+) ENGINE=InnoDB;
+DELETE FROM movimientos_stock_seq;
+INSERT INTO movimientos_stock_seq SELECT COALESCE(MAX(id), 0) + 50 FROM movimientos_stock;
+
+-- Los IDs ya no se generan en la base. MySQL no permite modificar productos.id mientras el FK de
+-- movimientos_stock lo referencia con FOREIGN_KEY_CHECKS activo
+SET FOREIGN_KEY_CHECKS = 0;
+ALTER TABLE productos MODIFY id BIGINT NOT NULL;
+ALTER TABLE movimientos_stock MODIFY id BIGINT NOT NULL;
+SET FOREIGN_KEY_CHECKS = 1;
@@ -0,0 +1,108 @@
+-- Migración de una base creada con el schema original (después de 001_ids_pooled.sql) al schema actual:
+-- columnas e índices nuevos de productos y movimientos_stock, y las tablas agregadas desde entonces.
+-- Ejecutar una vez con la aplicación detenida: mysql -u root -p inventario_db < db/migraciones/002_stock_reservas_sesiones.sql
+
+ALTER TABLE productos
+    ADD COLUMN stock_reservado INT NOT NULL DEFAULT 0 AFTER stock,
+    ADD CONSTRAINT chk_stock_reservado CHECK (stock_reservado >= 0),
+    ADD CONSTRAINT chk_stock_cubre_reservado CHECK (stock >= stock_reservado),
+    ADD INDEX idx_productos_proveedor (proveedor),
+    ADD INDEX idx_productos_precio (precio),
+    ADD INDEX idx_productos_stock (stock),
+    ADD INDEX idx_productos_fecha_registro (fecha_registro);
+
+-- InnoDB agrega los índices FULLTEXT de a uno y fuera de otras operaciones
+ALTER TABLE productos ADD FULLTEXT INDEX ft_productos_nombre (nombre) WITH PARSER ngram;
+
+-- idx_movimientos_producto_fecha reemplaza a idx_movimientos_producto_id para el FK de producto_id;
+-- con idx_movimientos_usuario_fecha, MySQL elimina el índice implícito del FK de usuario_id
+ALTER TABLE movimientos_stock
+    ADD COLUMN idempotency_key VARCHAR(120) AFTER usuario_id,
+    ADD CONSTRAINT uk_movimientos_idempotency_key UNIQUE (idempotency_key),
+    ADD INDEX idx_movimientos_producto_fecha (producto_id, fecha, id, tipo, cantidad, usuario_id),
+    ADD INDEX idx_movimientos_usuario_fecha (usuario_id, fecha, id),
+    DROP INDEX idx_movimientos_producto_id;
+
+CREATE TABLE movimientos_rechazados (
+    idempotency_key VARCHAR(120) PRIMARY KEY,
+    producto_id BIGINT NOT NULL,
+    tipo ENUM('ENTRADA', 'SALIDA') NOT NULL,
+    cantidad INT NOT NULL,
+    usuario_id BIGINT,
+    fecha TIMESTAMP NOT NULL,
+    motivo VARCHAR(500) NOT NULL,
+    fecha_rechazo TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+) ENGINE=InnoDB;
+
+CREATE TABLE stock_snapshots (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    producto_id BIGINT NOT NULL,
+    fecha TIMESTAMP NOT NULL,
+    stock INT NOT NULL,
+    CONSTRAINT fk_snapshot_producto
+        FOREIGN KEY (producto_id)
+        REFERENCES productos(id)
+        ON DELETE CASCADE,
+    CONSTRAINT uq_snapshot_producto_fecha UNIQUE (producto_id, fecha)
+) ENGINE=InnoDB;
+
+CREATE TABLE movimientos_resumen_diario (
+    producto_id BIGINT NOT NULL,
+    dia DATE NOT NULL,
+    tipo ENUM('ENTRADA', 'SALIDA') NOT NULL,
+    total_cantidad BIGINT NOT NULL,
+    movimientos BIGINT NOT NULL,
+    PRIMARY KEY (producto_id, dia, tipo),
+    CONSTRAINT fk_resumen_producto
+        FOREIGN KEY (producto_id)
+        REFERENCES productos(id)
+        ON DELETE CASCADE,
+    INDEX idx_resumen_dia (dia)
+) ENGINE=InnoDB;
+
+-- Los totales se mantienen con cada movimiento nuevo; los del historial existente se calculan una vez
+INSERT INTO movimientos_resumen_diario (producto_id, dia, tipo, total_cantidad, movimientos)
+SELECT producto_id, DATE(fecha), tipo, SUM(cantidad), COUNT(*)
+FROM movimientos_stock
+GROUP BY producto_id, DATE(fecha), tipo;
+
+CREATE TABLE reservas_stock (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    producto_id BIGINT NOT NULL,
+    cantidad INT NOT NULL,
+    estado ENUM('ACTIVA', 'CONFIRMADA', 'LIBERADA', 'EXPIRADA') NOT NULL,
+    expira_en TIMESTAMP(6) NOT NULL,
+    fecha_creacion TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    fecha_cierre TIMESTAMP NULL,
+    movimiento_id BIGINT,
+    CONSTRAINT fk_reserva_producto
+        FOREIGN KEY (producto_id)
+        REFERENCES productos(id)
+        ON DELETE CASCADE,
+    CONSTRAINT chk_reserva_cantidad CHECK (cantidad > 0),
+    INDEX idx_reservas_estado_expira (estado, expira_en)
+) ENGINE=InnoDB;
+
+CREATE TABLE refresh_tokens (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    usuario_id BIGINT NOT NULL,
+    token_hash VARCHAR(64) NOT NULL,
+    expira_en TIMESTAMP NOT NULL,
+    fecha_creacion TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    revocado_en TIMESTAMP NULL,
+    motivo_revocacion ENUM('ROTADO', 'LOGOUT', 'REUTILIZACION') NULL,
+    CONSTRAINT uk_refresh_tokens_hash UNIQUE (token_hash),
+    CONSTRAINT fk_refresh_token_usuario
+        FOREIGN KEY (usuario_id)
+        REFERENCES usuarios(id)
+        ON DELETE CASCADE,
+    INDEX idx_refresh_tokens_expira (expira_en)
+) ENGINE=InnoDB;
+
+CREATE TABLE tokens_revocados (
+    jti VARCHAR(36) PRIMARY KEY,
+    expira_en TIMESTAMP NOT NULL,
+    fecha_revocacion TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    INDEX idx_tokens_revocados_expira (expira_en),
+    INDEX idx_tokens_revocados_fecha (fecha_revocacion)
+) ENGINE=InnoDB;
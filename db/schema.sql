@@ -1,5 +1,13 @@
+DROP TABLE IF EXISTS tokens_revocados;
+DROP TABLE IF EXISTS refresh_tokens;
+DROP TABLE IF EXISTS reservas_stock;
+DROP TABLE IF EXISTS movimientos_resumen_diario;
+DROP TABLE IF EXISTS stock_snapshots;
+DROP TABLE IF EXISTS movimientos_rechazados;
 DROP TABLE IF EXISTS movimientos_stock;
 DROP TABLE IF EXISTS productos;
+DROP TABLE IF EXISTS movimientos_stock_seq;
+DROP TABLE IF EXISTS productos_seq;
 DROP TABLE IF EXISTS usuarios;
 
 CREATE TABLE usuarios (
@@ -14,29 +22,57 @@ CREATE TABLE usuarios (
     INDEX idx_usuarios_email (email)
 ) ENGINE=InnoDB;
 
+-- Secuencias emuladas para los IDs de productos y movimientos (Hibernate, optimizador pooled):
+-- cada lectura reserva un bloque de 50 IDs, así los INSERT en lote no dependen de AUTO_INCREMENT
+CREATE TABLE productos_seq (
+    next_val BIGINT NOT NULL
+) ENGINE=InnoDB;
+INSERT INTO productos_seq VALUES (1);
+
+CREATE TABLE movimientos_stock_seq (
+    next_val BIGINT NOT NULL
+) ENGINE=InnoDB;
+INSERT INTO movimientos_stock_seq VALUES (1);
+
 CREATE TABLE productos (
-    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    -- Sin AUTO_INCREMENT: el id lo asigna Hibernate desde productos_seq
+    id BIGINT PRIMARY KEY,
     nombre VARCHAR(200) NOT NULL,
     categoria VARCHAR(100) NOT NULL,
     proveedor VARCHAR(150),
     precio DECIMAL(10, 2) NOT NULL,
     stock INT NOT NULL DEFAULT 0,
+    -- Unidades retenidas por reservas activas (reservas_stock)
+    stock_reservado INT NOT NULL DEFAULT 0,
     fecha_registro TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
     version BIGINT NOT NULL DEFAULT 0,
     CONSTRAINT uq_productos_nombre UNIQUE (nombre),
     CONSTRAINT chk_precio_positivo CHECK (precio >= 0),
     CONSTRAINT chk_stock_no_negativo CHECK (stock >= 0),
+    CONSTRAINT chk_stock_reservado CHECK (stock_reservado >= 0),
+    CONSTRAINT chk_stock_cubre_reservado CHECK (stock >= stock_reservado),
     INDEX idx_productos_nombre (nombre),
-    INDEX idx_productos_categoria (categoria)
+    INDEX idx_productos_categoria (categoria),
+    -- Índices para la paginación por cursor (InnoDB agrega el id al final de cada índice secundario)
+    INDEX idx_productos_proveedor (proveedor),
+    INDEX idx_productos_precio (precio),
+    INDEX idx_productos_stock (stock),
+    INDEX idx_productos_fecha_registro (fecha_registro),
+    -- Búsqueda por nombre (MATCH ... AGAINST); ngram permite coincidencias parciales
+    FULLTEXT INDEX ft_productos_nombre (nombre) WITH PARSER ngram
 ) ENGINE=InnoDB;
 
 CREATE TABLE movimientos_stock (
-    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    -- Sin AUTO_INCREMENT: el id lo asigna Hibernate desde movimientos_stock_seq
+    id BIGINT PRIMARY KEY,
     producto_id BIGINT NOT NULL,
     tipo ENUM('ENTRADA', 'SALIDA') NOT NULL,
     cantidad INT NOT NULL,
     fecha TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
     usuario_id BIGINT,
+    -- "<usuario_id>:<Idempotency-Key>" del POST que registró el movimiento (NULL si no se envió)
+    idempotency_key VARCHAR(120),
+    CONSTRAINT uk_movimientos_idempotency_key UNIQUE (idempotency_key),
     CONSTRAINT fk_movimiento_producto 
         FOREIGN KEY (producto_id) 
         REFERENCES productos(id)
@@ -45,6 +81,106 @@ CREATE TABLE movimientos_stock (
         FOREIGN KEY (usuario_id) 
         REFERENCES usuarios(id)
         ON DELETE SET NULL,
-    INDEX idx_movimientos_producto_id (producto_id),
+    -- Historial por producto (keyset sobre fecha, id): el índice da el rango y el orden, y cada fila
+    -- de la página se lee por clave primaria (idempotency_key no está en el índice). tipo y cantidad
+    -- permiten resolver la variación neta (sumDelta) solo con el índice. También sirve al FK de producto_id
+    INDEX idx_movimientos_producto_fecha (producto_id, fecha, id, tipo, cantidad, usuario_id),
+    -- Actividad por usuario (keyset sobre fecha, id); también sirve al FK de usuario_id
+    INDEX idx_movimientos_usuario_fecha (usuario_id, fecha, id),
     INDEX idx_movimientos_fecha (fecha)
 ) ENGINE=InnoDB;
+
+-- Movimientos confirmados por el journal (202) que la base rechazó al aplicarlos (MovimientoJournal).
+-- Sin FK a productos: un producto eliminado es uno de los motivos de rechazo
+CREATE TABLE movimientos_rechazados (
+    idempotency_key VARCHAR(120) PRIMARY KEY,
+    producto_id BIGINT NOT NULL,
+    tipo ENUM('ENTRADA', 'SALIDA') NOT NULL,
+    cantidad INT NOT NULL,
+    usuario_id BIGINT,
+    fecha TIMESTAMP NOT NULL,
+    motivo VARCHAR(500) NOT NULL,
+    fecha_rechazo TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+) ENGINE=InnoDB;
+
+-- Stock de cada producto al cierre de cada intervalo (StockSnapshotService)
+CREATE TABLE stock_snapshots (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    producto_id BIGINT NOT NULL,
+    fecha TIMESTAMP NOT NULL,
+    stock INT NOT NULL,
+    CONSTRAINT fk_snapshot_producto
+        FOREIGN KEY (producto_id)
+        REFERENCES productos(id)
+        ON DELETE CASCADE,
+    -- Idempotencia del job y búsqueda del último snapshot anterior a una fecha
+    CONSTRAINT uq_snapshot_producto_fecha UNIQUE (producto_id, fecha)
+) ENGINE=InnoDB;
+
+-- Totales diarios por producto y tipo, actualizados junto con cada movimiento (MovimientoResumenService)
+CREATE TABLE movimientos_resumen_diario (
+    producto_id BIGINT NOT NULL,
+    dia DATE NOT NULL,
+    tipo ENUM('ENTRADA', 'SALIDA') NOT NULL,
+    total_cantidad BIGINT NOT NULL,
+    movimientos BIGINT NOT NULL,
+    PRIMARY KEY (producto_id, dia, tipo),
+    CONSTRAINT fk_resumen_producto
+        FOREIGN KEY (producto_id)
+        REFERENCES productos(id)
+        ON DELETE CASCADE,
+    INDEX idx_resumen_dia (dia)
+) ENGINE=InnoDB;
+
+-- Reservas de stock con vencimiento (ReservaStockService); las confirmadas generan un movimiento SALIDA.
+-- movimiento_id no tiene FK porque los movimientos antiguos se archivan fuera de la base
+CREATE TABLE reservas_stock (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    producto_id BIGINT NOT NULL,
+    cantidad INT NOT NULL,
+    estado ENUM('ACTIVA', 'CONFIRMADA', 'LIBERADA', 'EXPIRADA') NOT NULL,
+    -- Con microsegundos: sin ellos MySQL redondea al segundo y expirarVencida podría no encontrarla al vencer
+    expira_en TIMESTAMP(6) NOT NULL,
+    fecha_creacion TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    fecha_cierre TIMESTAMP NULL,
+    movimiento_id BIGINT,
+    CONSTRAINT fk_reserva_producto
+        FOREIGN KEY (producto_id)
+        REFERENCES productos(id)
+        ON DELETE CASCADE,
+    CONSTRAINT chk_reserva_cantidad CHECK (cantidad > 0),
+    -- Carga de las reservas activas al iniciar
+    INDEX idx_reservas_estado_expira (estado, expira_en)
+) ENGINE=InnoDB;
+
+-- Refresh tokens de POST /login/refresh (RefreshTokenService); solo se guarda el SHA-256 del token.
+-- Los revocados se conservan hasta expira_en para detectar la reutilización de un token ya rotado
+CREATE TABLE refresh_tokens (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    usuario_id BIGINT NOT NULL,
+    token_hash VARCHAR(64) NOT NULL,
+    expira_en TIMESTAMP NOT NULL,
+    fecha_creacion TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    revocado_en TIMESTAMP NULL,
+    -- Solo reutilizar un token ROTADO revoca todas las sesiones del usuario
+    motivo_revocacion ENUM('ROTADO', 'LOGOUT', 'REUTILIZACION') NULL,
+    CONSTRAINT uk_refresh_tokens_hash UNIQUE (token_hash),
+    CONSTRAINT fk_refresh_token_usuario
+        FOREIGN KEY (usuario_id)
+        REFERENCES usuarios(id)
+        ON DELETE CASCADE,
+    -- Purga diaria de vencidos
+    INDEX idx_refresh_tokens_expira (expira_en)
+) ENGINE=InnoDB;
+
+-- JWT revocados antes de expirar (TokenRevocationService), por claim jti. Cada request consulta primero
+-- un filtro de Bloom en memoria; la tabla solo se lee ante una coincidencia y al reconstruir el filtro
+CREATE TABLE tokens_revocados (
+    jti VARCHAR(36) PRIMARY KEY,
+    expira_en TIMESTAMP NOT NULL,
+    fecha_revocacion TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    -- Reconstrucción del filtro (vigentes) y purga de vencidos
+    INDEX idx_tokens_revocados_expira (expira_en),
+    -- Lectura periódica de las revocaciones de otras instancias
+    INDEX idx_tokens_revocados_fecha (fecha_revocacion)
+) ENGINE=InnoDB;
@@ -1,24 +1,42 @@
-import { HttpInterceptorFn } from '@angular/common/http';
+import { HttpErrorResponse, HttpInterceptorFn, HttpRequest } from '@angular/common/http';
 import { inject } from '@angular/core';
+import { catchError, switchMap, throwError } from 'rxjs';
 import { AuthService } from '../services/auth.service';
 
 export const jwtInterceptor: HttpInterceptorFn = (req, next) => {
   const authService = inject(AuthService);
   const token = authService.getToken();
 
-  // No agregar token a la petición de login
-  if (req.url.includes('/login')) {
+  // No agregar token a las peticiones de login y refresh; el logout lo envía para revocarlo
+  if (req.url.includes('/login') && !req.url.endsWith('/login/logout')) {
     return next(req);
   }
 
-  // Clonar la petición y agregar el header Authorization
-  if (token) {
-    req = req.clone({
-      setHeaders: {
-        Authorization: `Bearer ${token}`
+  return next(withToken(req, token)).pipe(
+    catchError((error: HttpErrorResponse) => {
+      // Token expirado: se renueva con el refresh token y se reintenta una vez
+      if (error.status !== 401 || !authService.getRefreshToken()) {
+        return throwError(() => error);
       }
-    });
-  }
-
-  return next(req);
+      return authService.refresh().pipe(
+        catchError(refreshError => {
+          authService.logout();
+          return throwError(() => refreshError);
+        }),
+        switchMap(response => next(withToken(req, response.token)))
+      );
+    })
+  );
 };
+
+// Clonar la petición y agregar el header Authorization
+function withToken(req: HttpRequest<unknown>, token: string | null): HttpRequest<unknown> {
+  if (!token) {
+    return req;
+  }
+  return req.clone({
+    setHeaders: {
+      Authorization: `Bearer ${token}`
+    }
+  });
+}
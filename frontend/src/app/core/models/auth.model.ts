@@ -6,6 +6,11 @@ export interface LoginRequest {
 export interface LoginResponse {
   token: string;
   username: string;
+  refreshToken: string;
+}
+
+export interface RefreshTokenRequest {
+  refreshToken: string;
 }
 
 export interface DecodedToken {
@@ -1,32 +1,51 @@
 import { Injectable } from '@angular/core';
 import { HttpClient } from '@angular/common/http';
-import { BehaviorSubject, Observable, tap } from 'rxjs';
+import { BehaviorSubject, Observable, finalize, shareReplay, tap } from 'rxjs';
 import { environment } from '../../../environments/environment';
-import { LoginRequest, LoginResponse } from '../models/auth.model';
+import { LoginRequest, LoginResponse, RefreshTokenRequest } from '../models/auth.model';
 
 @Injectable({
   providedIn: 'root'
 })
 export class AuthService {
   private readonly TOKEN_KEY = 'auth_token';
+  private readonly REFRESH_TOKEN_KEY = 'refresh_token';
   private readonly USERNAME_KEY = 'username';
-  private readonly isAuthenticatedSubject = new BehaviorSubject<boolean>(this.hasToken());
+  private readonly isAuthenticatedSubject = new BehaviorSubject<boolean>(this.isAuthenticated());
+  // Renovación en curso: el refresh token es de un solo uso, las peticiones concurrentes comparten el canje
+  private refreshInFlight$: Observable<LoginResponse> | null = null;
 
   constructor(private readonly http: HttpClient) {}
 
   login(credentials: LoginRequest): Observable<LoginResponse> {
     return this.http.post<LoginResponse>(`${environment.apiUrl}/login`, credentials)
       .pipe(
-        tap(response => {
-          this.setToken(response.token);
-          this.setUsername(response.username);
-          this.isAuthenticatedSubject.next(true);
-        })
+        tap(response => this.setSession(response))
       );
   }
 
+  refresh(): Observable<LoginResponse> {
+    if (!this.refreshInFlight$) {
+      const request: RefreshTokenRequest = { refreshToken: this.getRefreshToken() ?? '' };
+      this.refreshInFlight$ = this.http.post<LoginResponse>(`${environment.apiUrl}/login/refresh`, request)
+        .pipe(
+          tap(response => this.setSession(response)),
+          finalize(() => this.refreshInFlight$ = null),
+          shareReplay(1)
+        );
+    }
+    return this.refreshInFlight$;
+  }
+
   logout(): void {
+    const refreshToken = this.getRefreshToken();
+    if (refreshToken) {
+      // Revoca la sesión en el backend; el cierre local no depende de la respuesta
+      const request: RefreshTokenRequest = { refreshToken };
+      this.http.post<void>(`${environment.apiUrl}/login/logout`, request).subscribe({ error: () => {} });
+    }
     localStorage.removeItem(this.TOKEN_KEY);
+    localStorage.removeItem(this.REFRESH_TOKEN_KEY);
     localStorage.removeItem(this.USERNAME_KEY);
     this.isAuthenticatedSubject.next(false);
   }
@@ -35,6 +54,10 @@ export class AuthService {
     return localStorage.getItem(this.TOKEN_KEY);
   }
 
+  getRefreshToken(): string | null {
+    return localStorage.getItem(this.REFRESH_TOKEN_KEY);
+  }
+
   getUsername(): string | null {
     return localStorage.getItem(this.USERNAME_KEY);
   }
@@ -44,7 +67,15 @@ export class AuthService {
   }
 
   isAuthenticated(): boolean {
-    return this.hasToken();
+    // Con el token expirado la sesión sigue vigente mientras haya refresh token (lo renueva el interceptor)
+    return this.hasToken() || this.getRefreshToken() !== null;
+  }
+
+  private setSession(response: LoginResponse): void {
+    this.setToken(response.token);
+    localStorage.setItem(this.REFRESH_TOKEN_KEY, response.refreshToken);
+    this.setUsername(response.username);
+    this.isAuthenticatedSubject.next(true);
   }
 
   private setToken(token: string): void {
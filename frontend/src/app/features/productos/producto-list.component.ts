@@ -66,8 +66,9 @@ export class ProductoListComponent implements OnInit {
 
     const { search, categoria, size } = this.filterForm.value;
     const pageSize = Number(size) || 10;
+    const sortBy = search?.trim() ? 'relevancia' : 'fechaRegistro';
 
-    this.productoService.getProductos(search, categoria, page, pageSize).subscribe({
+    this.productoService.getProductos(search, categoria, page, pageSize, sortBy).subscribe({
       next: (response) => {
         this.pageResponse = response;
         this.productos = response.content;